@@ -9,6 +9,7 @@ function App() {
   const [isConnected, setIsConnected] = useState(false);
   const [loading, setLoading] = useState(false);
   const [searchCustomerName, setSearchCustomerName] = useState('');
+  const [customerSuggestions, setCustomerSuggestions] = useState([]);
   
   // 影响力模块状态
   const [influences, setInfluences] = useState([]);
@@ -176,6 +177,23 @@ function App() {
     }
   };
 
+  // 输入客户名称时获取补全候选，补全失败不影响手动输入
+  const handleCustomerNameChange = async (value) => {
+    setSearchCustomerName(value);
+    if (!value.trim()) {
+      setCustomerSuggestions([]);
+      return;
+    }
+    try {
+      const response = await orderService.suggestCustomers(value);
+      if (response.data.success) {
+        setCustomerSuggestions(response.data.data);
+      }
+    } catch (error) {
+      setCustomerSuggestions([]);
+    }
+  };
+
   const handleSearchByCustomerName = async () => {
     if (!searchCustomerName.trim()) {
       showMessage('请输入客户名称', 'error');
@@ -576,9 +594,15 @@ function App() {
             type="text"
             placeholder="输入客户名称查询订单..."
             value={searchCustomerName}
-            onChange={(e) => setSearchCustomerName(e.target.value)}
+            list="customer-suggestions"
+            onChange={(e) => handleCustomerNameChange(e.target.value)}
             onKeyPress={(e) => e.key === 'Enter' && handleSearchByCustomerName()}
           />
+          <datalist id="customer-suggestions">
+            {customerSuggestions.map((item) => (
+              <option key={item.text} value={item.text}>{item.count}个订单</option>
+            ))}
+          </datalist>
           <button className="btn btn-secondary" onClick={handleSearchByCustomerName}>
             查询
           </button>
@@ -13,9 +13,9 @@ const influenceService = {
     return axios.post(API_BASE_URL, influenceData);
   },
 
-  // 获取所有影响力记录
-  getAllInfluences: () => {
-    return axios.get(API_BASE_URL);
+  // 获取所有影响力记录（params可传order、from、to、limit、cursor）
+  getAllInfluences: (params) => {
+    return axios.get(API_BASE_URL, { params });
   },
 
   // 根据ID获取单个影响力记录
@@ -23,9 +23,14 @@ const influenceService = {
     return axios.get(`${API_BASE_URL}/${id}`);
   },
 
-  // 根据类型获取影响力记录列表
-  getInfluencesByType: (type) => {
-    return axios.get(`${API_BASE_URL}/type/${type}`);
+  // 根据类型获取影响力记录列表（params可传from、to时间范围及limit、cursor分页）
+  getInfluencesByType: (type, params) => {
+    return axios.get(`${API_BASE_URL}/type/${type}`, { params });
+  },
+
+  // 根据状态获取影响力记录列表（params同上）
+  getInfluencesByStatus: (status, params) => {
+    return axios.get(`${API_BASE_URL}/status/${status}`, { params });
   },
 
   // 更新影响力记录
@@ -30,6 +30,11 @@ export const orderService = {
     return api.get(`/orders/user/${userId}`);
   },
 
+  // 客户名称补全，按订单数降序返回以prefix开头的客户名称
+  suggestCustomers: (prefix, limit = 10) => {
+    return api.get('/orders/customers/suggest', { params: { prefix, limit } });
+  },
+
   // 更新订单
   updateOrder: (orderId, orderData) => {
     return api.put(`/orders/${orderId}`, orderData);
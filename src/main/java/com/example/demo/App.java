@@ -1,9 +1,16 @@
 package com.example.demo;
 
+import com.example.demo.dao.DBUtil;
 import com.example.demo.dao.OrderDAO;
+import com.example.demo.dao.OrderJournal;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
  * Spring Boot主启动类
@@ -14,11 +21,44 @@ public class App {
         SpringApplication.run(App.class, args);
     }
 
+    /**
+     * 把demo.*配置（application.properties、profile、环境变量、命令行参数等）绑定到数据访问层。
+     * BeanFactoryPostProcessor在任何DAO实例化之前执行，保证连接池、组提交、并行扫描和列迁移都使用Spring的配置
+     */
     @Bean
-    public OrderDAO orderDAO() {
+    public static BeanFactoryPostProcessor databaseConfig(Environment env) {
+        return beanFactory -> DBUtil.configure(env::getProperty);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public OrderDAO orderDAO(Environment env) throws IOException {
         OrderDAO orderDAO = new OrderDAO();
         orderDAO.initTable();
-        orderDAO.loadFromDatabase();  // 加载数据库中的数据到内存
+        OrderDAO.WriteMode writeMode = env.getProperty("demo.order.write-mode", OrderDAO.WriteMode.class, OrderDAO.WriteMode.WRITE_BEHIND);
+        int cacheMaxSize = env.getProperty("demo.order.cache.max-size", Integer.class, 0);
+        if (cacheMaxSize > 0) {
+            // 热点缓存模式：不全量加载，未命中时按主键回源数据库
+            orderDAO.enableHotSet(cacheMaxSize);
+            System.out.println("订单热点缓存模式已开启: maxSize=" + cacheMaxSize + "，写入模式固定为GROUP_COMMIT");
+        } else if (writeMode == OrderDAO.WriteMode.JOURNAL) {
+            OrderJournal journal = new OrderJournal(
+                    Paths.get(env.getProperty("demo.order.journal.path", "data/order.journal")),
+                    env.getProperty("demo.order.journal.fsync", OrderJournal.FsyncPolicy.class, OrderJournal.FsyncPolicy.INTERVAL),
+                    env.getProperty("demo.order.journal.fsync-interval-ms", Long.class, 100L));
+            orderDAO.enableJournal(journal,
+                    env.getProperty("demo.order.journal.checkpoint-interval-ms", Long.class, 300000L),
+                    env.getProperty("demo.order.journal.checkpoint-bytes", Long.class, 64L * 1024 * 1024));
+            orderDAO.recoverFromJournal();  // 快照 + 日志重放恢复内存数据
+        } else {
+            orderDAO.setWriteMode(writeMode);
+            orderDAO.enableSnapshot(Paths.get(env.getProperty("demo.order.snapshot.path", "data/order.snapshot")));
+            if (!orderDAO.loadFromSnapshot()) {
+                orderDAO.loadFromDatabase();  // 快照不可用时加载数据库中的数据到内存
+            }
+        }
+        // 变更由后台线程增量落盘
+        orderDAO.startFlusher(env.getProperty("demo.order.flush-interval-ms", Long.class, 1000L),
+                env.getProperty("demo.order.flush-batch-size", Integer.class, 500));
         return orderDAO;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package com.example.demo.controller;
+
+import com.example.demo.dao.WriteQueueFullException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+/**
+ * 写入背压的HTTP表示：数据库写入队列已满时返回503并建议稍后重试，变更没有执行
+ */
+final class Backpressure {
+
+    // 建议客户端重试前等待的秒数
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private Backpressure() {
+    }
+
+    static ResponseEntity<Map<String, Object>> writeQueueFull(Map<String, Object> response, WriteQueueFullException e) {
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(response);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.controller;
+
+import com.example.demo.dao.WriteResult;
+import org.springframework.http.HttpStatus;
+
+/**
+ * 乐观锁的HTTP表示：ETag取记录的版本号，更新、删除时通过If-Match带回
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * 版本号对应的强ETag，如"3"
+     */
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * 解析If-Match请求头，未传或为*时返回WriteResult.ANY_VERSION（不检查版本号）。
+     * 只支持单个ETag，弱ETag（W/前缀）按相同版本号处理
+     * @throws IllegalArgumentException 不是本接口返回的ETag格式时抛出
+     */
+    static long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().isEmpty() || "*".equals(ifMatch.trim())) {
+            return WriteResult.ANY_VERSION;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            long version = Long.parseLong(value);
+            if (version >= 0) {
+                return version;
+            }
+        } catch (NumberFormatException e) {
+            // 按格式错误处理
+        }
+        throw new IllegalArgumentException("If-Match格式不正确: " + ifMatch);
+    }
+
+    /**
+     * 版本冲突的响应状态：带If-Match时为412，未带时（并发修改重试仍失败）为409
+     */
+    static HttpStatus conflictStatus(long expectedVersion) {
+        return expectedVersion != WriteResult.ANY_VERSION ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+    }
+}
@@ -3,11 +3,17 @@ package com.example.demo.controller;
 import com.example.demo.entity.Influence;
 import com.example.demo.service.InfluenceService;
 import com.example.demo.dao.InfluenceDAO;
+import com.example.demo.dao.Page;
+import com.example.demo.dao.SearchHit;
+import com.example.demo.dao.WriteQueueFullException;
+import com.example.demo.dao.WriteResult;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,7 +44,6 @@ public class InfluenceController {
         try {
             boolean success = influenceService.createInfluence(influence);
             if (success) {
-                influenceDAO.saveToDatabase();
                 response.put("success", true);
                 response.put("message", "影响力记录创建成功");
                 response.put("data", influence);
@@ -52,6 +57,8 @@ public class InfluenceController {
             response.put("success", false);
             response.put("message", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (WriteQueueFullException e) {
+            return Backpressure.writeQueueFull(response, e);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "创建失败: " + e.getMessage());
@@ -60,18 +67,93 @@ public class InfluenceController {
     }
 
     /**
-     * 查询所有影响力记录
+     * 查询所有影响力记录，按活动时间排序
+     * @param order 排序方向：desc（默认）、asc
+     * @param from 活动时间下限（含，ISO格式），不传表示不限
+     * @param to 活动时间上限（含，ISO格式），不传表示不限
+     * @param limit 每页条数，传入limit或cursor时分页返回
+     * @param cursor 上一页返回的nextCursor
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllInfluences() {
+    public ResponseEntity<Map<String, Object>> getAllInfluences(
+            @RequestParam(value = "order", defaultValue = "desc") String order,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         Map<String, Object> response = new HashMap<>();
         try {
-            List<Influence> influences = influenceService.getAllInfluences();
+            boolean descending = ListParams.isDescending(order);
+            if (ListParams.isPaged(limit, cursor)) {
+                Page<Influence> page = influenceService.getInfluencesPage(descending, from, to, cursor,
+                        ListParams.pageSize(limit));
+                response.put("success", true);
+                response.put("message", "查询成功");
+                ListParams.putPage(response, page);
+                return ResponseEntity.ok(response);
+            }
+            List<Influence> influences = influenceService.getAllInfluences(descending, from, to);
             response.put("success", true);
             response.put("message", "查询成功");
             response.put("count", influences.size());
             response.put("data", influences);
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "查询失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 按类型和状态统计影响力记录数，如 /api/influences/count?type=DEMO,LOGO&status=COMPLETED
+     * 同一参数的多个取值之间为OR，不同参数之间为AND，不传表示不限
+     */
+    @GetMapping("/count")
+    public ResponseEntity<Map<String, Object>> countInfluences(
+            @RequestParam(value = "type", required = false) List<String> types,
+            @RequestParam(value = "status", required = false) List<String> statuses) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("message", "查询成功");
+            response.put("data", influenceService.countInfluences(types, statuses));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "查询失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 按类型和状态过滤影响力记录，如 /api/influences/filter?type=DEMO,LOGO&status=COMPLETED
+     * 条件组合方式同/count，结果按活动时间降序排列
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<Map<String, Object>> filterInfluences(
+            @RequestParam(value = "type", required = false) List<String> types,
+            @RequestParam(value = "status", required = false) List<String> statuses) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<Influence> influences = influenceService.filterInfluences(types, statuses);
+            response.put("success", true);
+            response.put("message", "查询成功");
+            response.put("data", influences);
+            response.put("count", influences.size());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "查询失败: " + e.getMessage());
@@ -79,6 +161,35 @@ public class InfluenceController {
         }
     }
 
+    /**
+     * 按名称和备注全文检索，如 /api/influences/text-search?q=客户案例
+     * 中文按相邻两字切分，要求包含查询的全部词，结果按相关度降序排列
+     * @param limit 最多返回条数，默认50
+     */
+    @GetMapping("/text-search")
+    public ResponseEntity<Map<String, Object>> searchText(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            long start = System.nanoTime();
+            List<SearchHit> hits = influenceService.searchText(query, ListParams.pageSize(limit));
+            response.put("success", true);
+            response.put("data", hits);
+            response.put("count", hits.size());
+            response.put("durationMicros", (System.nanoTime() - start) / 1000);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "检索失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     /**
      * 根据ID查询单个影响力记录
      */
@@ -91,7 +202,7 @@ public class InfluenceController {
                 response.put("success", true);
                 response.put("message", "查询成功");
                 response.put("data", influence);
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok().eTag(ETags.of(influence.getVersion())).body(response);
             } else {
                 response.put("success", false);
                 response.put("message", "影响力记录不存在");
@@ -109,13 +220,30 @@ public class InfluenceController {
     }
 
     /**
-     * 根据类型查询影响力记录列表
+     * 根据类型查询影响力记录列表，按活动时间降序排列
+     * @param from 活动时间下限（含，ISO格式），不传表示不限
+     * @param to 活动时间上限（含，ISO格式），不传表示不限
+     * @param limit 每页条数，传入limit或cursor时分页返回
+     * @param cursor 上一页返回的nextCursor
      */
     @GetMapping("/type/{type}")
-    public ResponseEntity<Map<String, Object>> getInfluencesByType(@PathVariable String type) {
+    public ResponseEntity<Map<String, Object>> getInfluencesByType(
+            @PathVariable String type,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         Map<String, Object> response = new HashMap<>();
         try {
-            List<Influence> influences = influenceService.getInfluencesByType(type);
+            if (ListParams.isPaged(limit, cursor)) {
+                Page<Influence> page = influenceService.getInfluencesByTypePage(type, from, to, cursor,
+                        ListParams.pageSize(limit));
+                response.put("success", true);
+                response.put("message", "查询成功");
+                ListParams.putPage(response, page);
+                return ResponseEntity.ok(response);
+            }
+            List<Influence> influences = influenceService.getInfluencesByType(type, from, to);
             response.put("success", true);
             response.put("message", "查询成功");
             response.put("count", influences.size());
@@ -132,23 +260,67 @@ public class InfluenceController {
         }
     }
 
+    /**
+     * 根据状态查询影响力记录列表，按活动时间降序排列
+     * @param from 活动时间下限（含，ISO格式），不传表示不限
+     * @param to 活动时间上限（含，ISO格式），不传表示不限
+     * @param limit 每页条数，传入limit或cursor时分页返回
+     * @param cursor 上一页返回的nextCursor
+     */
+    @GetMapping("/status/{status}")
+    public ResponseEntity<Map<String, Object>> getInfluencesByStatus(
+            @PathVariable String status,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("message", "查询成功");
+            if (ListParams.isPaged(limit, cursor)) {
+                ListParams.putPage(response, influenceService.getInfluencesByStatusPage(status, from, to, cursor,
+                        ListParams.pageSize(limit)));
+                return ResponseEntity.ok(response);
+            }
+            List<Influence> influences = influenceService.getInfluencesByStatus(status, from, to);
+            response.put("count", influences.size());
+            response.put("data", influences);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "查询失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     /**
      * 更新影响力记录
+     * @param ifMatch 查询记录时返回的ETag，传入时记录已被修改则返回412
      */
     @PutMapping("/{id}")
     public ResponseEntity<Map<String, Object>> updateInfluence(
             @PathVariable String id,
-            @RequestBody Influence influence) {
+            @RequestBody Influence influence,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         Map<String, Object> response = new HashMap<>();
         try {
             influence.setId(id);
-            boolean success = influenceService.updateInfluence(influence);
-            if (success) {
-                influenceDAO.saveToDatabase();
+            long expectedVersion = ETags.parseIfMatch(ifMatch);
+            WriteResult result = influenceService.updateInfluence(influence, expectedVersion);
+            if (result == WriteResult.APPLIED) {
                 response.put("success", true);
                 response.put("message", "更新成功");
                 response.put("data", influence);
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok().eTag(ETags.of(influence.getVersion())).body(response);
+            } else if (result == WriteResult.VERSION_CONFLICT) {
+                response.put("success", false);
+                response.put("message", "影响力记录已被其他请求修改，请重新查询后再更新");
+                return ResponseEntity.status(ETags.conflictStatus(expectedVersion)).body(response);
             } else {
                 response.put("success", false);
                 response.put("message", "影响力记录不存在");
@@ -158,6 +330,8 @@ public class InfluenceController {
             response.put("success", false);
             response.put("message", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (WriteQueueFullException e) {
+            return Backpressure.writeQueueFull(response, e);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "更新失败: " + e.getMessage());
@@ -167,17 +341,24 @@ public class InfluenceController {
 
     /**
      * 删除影响力记录
+     * @param ifMatch 查询记录时返回的ETag，传入时记录已被修改则返回412
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> deleteInfluence(@PathVariable String id) {
+    public ResponseEntity<Map<String, Object>> deleteInfluence(
+            @PathVariable String id,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         Map<String, Object> response = new HashMap<>();
         try {
-            boolean success = influenceService.deleteInfluence(id);
-            if (success) {
-                influenceDAO.saveToDatabase();
+            long expectedVersion = ETags.parseIfMatch(ifMatch);
+            WriteResult result = influenceService.deleteInfluence(id, expectedVersion);
+            if (result == WriteResult.APPLIED) {
                 response.put("success", true);
                 response.put("message", "删除成功");
                 return ResponseEntity.ok(response);
+            } else if (result == WriteResult.VERSION_CONFLICT) {
+                response.put("success", false);
+                response.put("message", "影响力记录已被其他请求修改，请重新查询后再删除");
+                return ResponseEntity.status(ETags.conflictStatus(expectedVersion)).body(response);
             } else {
                 response.put("success", false);
                 response.put("message", "影响力记录不存在");
@@ -187,6 +368,8 @@ public class InfluenceController {
             response.put("success", false);
             response.put("message", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (WriteQueueFullException e) {
+            return Backpressure.writeQueueFull(response, e);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "删除失败: " + e.getMessage());
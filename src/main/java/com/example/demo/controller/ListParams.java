@@ -0,0 +1,62 @@
+package com.example.demo.controller;
+
+import com.example.demo.dao.Page;
+
+import java.util.Map;
+
+/**
+ * 列表接口的公共参数解析：排序方向、分页大小与分页响应
+ */
+final class ListParams {
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private ListParams() {
+    }
+
+    /**
+     * 解析排序方向参数
+     * @throws IllegalArgumentException 既不是asc也不是desc时抛出
+     */
+    static boolean isDescending(String order) {
+        if ("desc".equalsIgnoreCase(order)) {
+            return true;
+        }
+        if ("asc".equalsIgnoreCase(order)) {
+            return false;
+        }
+        throw new IllegalArgumentException("排序方向只能是asc或desc: " + order);
+    }
+
+    /**
+     * 是否分页查询：传了limit或cursor时分页，否则保持原来的全量返回
+     */
+    static boolean isPaged(Integer limit, String cursor) {
+        return limit != null || cursor != null;
+    }
+
+    /**
+     * 解析每页条数，未传时取默认值
+     * @throws IllegalArgumentException 超出1~MAX_PAGE_SIZE时抛出
+     */
+    static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit必须在1到" + MAX_PAGE_SIZE + "之间");
+        }
+        return limit;
+    }
+
+    /**
+     * 把一页结果写入响应：data为本页记录，nextCursor为下一页游标（最后一页为null）
+     */
+    static void putPage(Map<String, Object> response, Page<?> page) {
+        response.put("data", page.getItems());
+        response.put("count", page.getItems().size());
+        response.put("nextCursor", page.getNextCursor());
+        response.put("hasMore", page.hasMore());
+    }
+}
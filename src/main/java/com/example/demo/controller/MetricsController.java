@@ -0,0 +1,51 @@
+package com.example.demo.controller;
+
+import com.example.demo.dao.DBUtil;
+import com.example.demo.dao.GroupCommitter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 运行指标REST API控制器（数据库连接等共享组件）
+ */
+@RestController
+@RequestMapping("/api/metrics")
+@CrossOrigin(origins = "*")
+public class MetricsController {
+
+    /**
+     * 数据库连接池指标（等待时间、活跃连接数）
+     */
+    @GetMapping("/db")
+    public ResponseEntity<Map<String, Object>> db() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", DBUtil.getPoolMetrics());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 组提交指标（提交次数、平均组大小）
+     */
+    @GetMapping("/group-commit")
+    public ResponseEntity<Map<String, Object>> groupCommit() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", GroupCommitter.shared().getMetrics());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 列类型在线迁移进度（各表已回填行数、是否完成）
+     */
+    @GetMapping("/migration")
+    public ResponseEntity<Map<String, Object>> migration() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", DBUtil.getMigrationMetrics());
+        return ResponseEntity.ok(response);
+    }
+}
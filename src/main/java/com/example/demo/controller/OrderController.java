@@ -2,15 +2,28 @@ package com.example.demo.controller;
 
 import com.example.demo.entity.Order;
 import com.example.demo.service.OrderService;
+import com.example.demo.dao.Completion;
+import com.example.demo.dao.CustomerSummary;
+import com.example.demo.dao.OrderAggregate;
 import com.example.demo.dao.OrderDAO;
+import com.example.demo.dao.OrderQuery;
+import com.example.demo.dao.Page;
+import com.example.demo.dao.SearchHit;
+import com.example.demo.dao.WriteQueueFullException;
+import com.example.demo.dao.WriteResult;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 订单管理REST API控制器
@@ -38,7 +51,6 @@ public class OrderController {
         try {
             boolean success = orderService.createOrder(order);
             if (success) {
-                orderDAO.saveToDatabase();
                 response.put("success", true);
                 response.put("message", "订单创建成功");
                 response.put("data", order);
@@ -48,6 +60,8 @@ public class OrderController {
                 response.put("message", "订单已存在");
                 return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
             }
+        } catch (WriteQueueFullException e) {
+            return Backpressure.writeQueueFull(response, e);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "创建失败: " + e.getMessage());
@@ -57,19 +71,230 @@ public class OrderController {
 
     /**
      * 获取所有订单列表
+     * @param sortBy 排序字段：createTime（默认）、updateTime、totalAmount
+     * @param order 排序方向：desc（默认）、asc
+     * @param limit 每页条数，传入limit或cursor时分页返回
+     * @param cursor 上一页返回的nextCursor
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllOrders() {
+    public ResponseEntity<Map<String, Object>> getAllOrders(
+            @RequestParam(value = "sortBy", defaultValue = "createTime") String sortBy,
+            @RequestParam(value = "order", defaultValue = "desc") String order,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         Map<String, Object> response = new HashMap<>();
         try {
-            List<Order> orders = orderService.getAllOrders();
+            OrderDAO.SortField sortField = OrderDAO.SortField.fromParam(sortBy);
+            boolean descending = ListParams.isDescending(order);
+            response.put("success", true);
+            if (ListParams.isPaged(limit, cursor)) {
+                ListParams.putPage(response, orderService.getOrdersPage(sortField, descending, cursor,
+                        ListParams.pageSize(limit)));
+                return ResponseEntity.ok(response);
+            }
+            List<Order> orders = orderService.getAllOrders(sortField, descending);
+            response.put("data", orders);
+            response.put("count", orders.size());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 组合条件查询订单，如 /api/orders/search?status=0&productVersion=QODER&createTimeFrom=2024-01-01T00:00:00&minAmount=100
+     * 支持的条件：status、productVersion、customerName、createTimeFrom/To、payTimeFrom/To、minAmount/maxAmount
+     * @param limit 最多返回条数，不传表示不限
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchOrders(
+            OrderQuery query,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Map<String, Object> explain = new LinkedHashMap<>();
+            List<Order> orders = orderService.searchOrders(query, limit != null ? ListParams.pageSize(limit) : null, explain);
+            response.put("success", true);
+            response.put("data", orders);
+            response.put("count", orders.size());
+            response.put("explain", explain);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "查询失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 按状态和产品版本统计订单数，如 /api/orders/count?status=0,1&productVersion=QODER
+     * 同一参数的多个取值之间为OR，不同参数之间为AND，不传表示不限
+     */
+    @GetMapping("/count")
+    public ResponseEntity<Map<String, Object>> countOrders(
+            @RequestParam(value = "status", required = false) List<Integer> statuses,
+            @RequestParam(value = "productVersion", required = false) List<String> productVersions) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("data", orderService.countOrders(statuses, productVersions));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "统计失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 按状态和产品版本过滤订单，如 /api/orders/filter?status=0,1&productVersion=QODER
+     * 条件组合方式同/count，结果按创建时间降序排列
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<Map<String, Object>> filterOrders(
+            @RequestParam(value = "status", required = false) List<Integer> statuses,
+            @RequestParam(value = "productVersion", required = false) List<String> productVersions) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<Order> orders = orderService.filterOrders(statuses, productVersions);
             response.put("success", true);
             response.put("data", orders);
             response.put("count", orders.size());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "查询失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 按订单描述（含删除审计记录）全文检索，如 /api/orders/text-search?q=订单删除&limit=20
+     * 中文按相邻两字切分，要求包含查询的全部词，结果按相关度降序排列
+     * @param limit 最多返回条数，默认50
+     */
+    @GetMapping("/text-search")
+    public ResponseEntity<Map<String, Object>> searchText(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            long start = System.nanoTime();
+            List<SearchHit> hits = orderService.searchDescriptions(query, ListParams.pageSize(limit));
+            response.put("success", true);
+            response.put("data", hits);
+            response.put("count", hits.size());
+            response.put("durationMicros", (System.nanoTime() - start) / 1000);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
             response.put("success", false);
             response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "检索失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 订单汇总，如 /api/orders/aggregates?groupBy=productVersion,month
+     * 按所选维度（productVersion/status/month，默认三者全选）返回订单数、金额、LIC数和研发规模合计
+     */
+    @GetMapping("/aggregates")
+    public ResponseEntity<Map<String, Object>> getAggregates(
+            @RequestParam(value = "groupBy", defaultValue = "productVersion,status,month") String groupBy) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Set<OrderDAO.AggregateDimension> dimensions = EnumSet.noneOf(OrderDAO.AggregateDimension.class);
+            for (String param : groupBy.split(",")) {
+                if (!param.trim().isEmpty()) {
+                    dimensions.add(OrderDAO.AggregateDimension.fromParam(param.trim()));
+                }
+            }
+            List<OrderAggregate> aggregates = orderService.getAggregates(dimensions);
+            response.put("success", true);
+            response.put("data", aggregates);
+            response.put("count", aggregates.size());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "查询失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 订单分析，如 /api/orders/analytics?status=1,2&productVersion=QODER&createTimeFrom=2024-01-01T00:00:00
+     * 按产品版本分组返回满足条件的订单数、金额、LIC数和研发规模合计，条件组合方式同/count
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<Map<String, Object>> analyzeOrders(
+            @RequestParam(value = "status", required = false) List<Integer> statuses,
+            @RequestParam(value = "productVersion", required = false) List<String> productVersions,
+            @RequestParam(value = "createTimeFrom", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createFrom,
+            @RequestParam(value = "createTimeTo", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createTo) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            long start = System.nanoTime();
+            Map<String, Object> execution = new LinkedHashMap<>();
+            List<OrderAggregate> aggregates = orderService.analyzeOrders(statuses, productVersions, createFrom, createTo, execution);
+            response.put("success", true);
+            response.put("data", aggregates);
+            response.put("count", aggregates.size());
+            response.put("execution", execution);
+            response.put("durationMicros", (System.nanoTime() - start) / 1000);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "查询失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 客户名称补全，如 /api/orders/customers/suggest?prefix=阿里&limit=10
+     * 返回以prefix开头的客户名称及其订单数，按订单数降序排列
+     * @param limit 最多返回条数，默认10
+     */
+    @GetMapping("/customers/suggest")
+    public ResponseEntity<Map<String, Object>> suggestCustomers(
+            @RequestParam(value = "prefix", defaultValue = "") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<Completion> completions = orderService.suggestCustomers(prefix, ListParams.pageSize(limit));
+            response.put("success", true);
+            response.put("data", completions);
+            response.put("count", completions.size());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "查询失败: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
@@ -84,7 +309,7 @@ public class OrderController {
         if (order != null) {
             response.put("success", true);
             response.put("data", order);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(ETags.of(order.getVersion())).body(response);
         } else {
             response.put("success", false);
             response.put("message", "订单不存在");
@@ -94,11 +319,22 @@ public class OrderController {
 
     /**
      * 根据客户名称获取订单列表
+     * @param limit 每页条数，传入limit或cursor时分页返回
+     * @param cursor 上一页返回的nextCursor
      */
     @GetMapping("/user/{customerName}")
-    public ResponseEntity<Map<String, Object>> getOrdersByUserId(@PathVariable String customerName) {
+    public ResponseEntity<Map<String, Object>> getOrdersByUserId(
+            @PathVariable String customerName,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         Map<String, Object> response = new HashMap<>();
         try {
+            if (ListParams.isPaged(limit, cursor)) {
+                Page<Order> page = orderService.getOrdersByUserIdPage(customerName, cursor, ListParams.pageSize(limit));
+                response.put("success", true);
+                ListParams.putPage(response, page);
+                return ResponseEntity.ok(response);
+            }
             List<Order> orders = orderService.getOrdersByUserId(customerName);
             response.put("success", true);
             response.put("data", orders);
@@ -111,28 +347,63 @@ public class OrderController {
         }
     }
 
+    /**
+     * 客户汇总：订单数、各状态订单数、消费总额、LIC数、首末次下单时间
+     */
+    @GetMapping("/user/{customerName}/summary")
+    public ResponseEntity<Map<String, Object>> getCustomerSummary(@PathVariable String customerName) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            CustomerSummary summary = orderService.getCustomerSummary(customerName);
+            if (summary == null) {
+                response.put("success", false);
+                response.put("message", "该客户没有订单");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            response.put("success", true);
+            response.put("data", summary);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "查询失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     /**
      * 更新订单
+     * @param ifMatch 查询订单时返回的ETag，传入时订单已被修改则返回412
      */
     @PutMapping("/{cid}")
     public ResponseEntity<Map<String, Object>> updateOrder(
             @PathVariable String cid,
-            @RequestBody Order order) {
+            @RequestBody Order order,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         Map<String, Object> response = new HashMap<>();
         try {
             order.setCid(cid);
-            boolean success = orderService.updateOrder(order);
-            if (success) {
-                orderDAO.saveToDatabase();
+            long expectedVersion = ETags.parseIfMatch(ifMatch);
+            WriteResult result = orderService.updateOrder(order, expectedVersion);
+            if (result == WriteResult.APPLIED) {
                 response.put("success", true);
                 response.put("message", "订单更新成功");
                 response.put("data", order);
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok().eTag(ETags.of(order.getVersion())).body(response);
+            } else if (result == WriteResult.VERSION_CONFLICT) {
+                response.put("success", false);
+                response.put("message", "订单已被其他请求修改，请重新查询后再更新");
+                return ResponseEntity.status(ETags.conflictStatus(expectedVersion)).body(response);
             } else {
                 response.put("success", false);
                 response.put("message", "订单不存在或无法更新");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
+        } catch (WriteQueueFullException e) {
+            return Backpressure.writeQueueFull(response, e);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "更新失败: " + e.getMessage());
@@ -144,11 +415,13 @@ public class OrderController {
      * 删除订单
      * @param cid 订单CID
      * @param reason 删除原因（传入必填）
+     * @param ifMatch 查询订单时返回的ETag，传入时订单已被修改则返回412
      */
     @DeleteMapping("/{cid}")
     public ResponseEntity<Map<String, Object>> deleteOrder(
             @PathVariable String cid,
-            @RequestParam(value = "reason", required = true) String reason) {
+            @RequestParam(value = "reason", required = true) String reason,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         Map<String, Object> response = new HashMap<>();
         
         // 校验删除原因
@@ -157,30 +430,81 @@ public class OrderController {
             response.put("message", "删除失败：必须提供删除原因");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
-        
-        // 记录删除原因（在删除前更新订单描述）
-        Order order = orderService.getOrder(cid);
-        if (order != null) {
-            String deleteLog = String.format("[%s] 订单删除：%s",
-                    java.time.LocalDateTime.now().format(
-                            java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
-                    reason);
-            String newDescription = (order.getDescription() != null ? order.getDescription() + "\n" : "") + deleteLog;
-            order.setDescription(newDescription);
-            orderService.updateOrder(order);
-        }
-        
-        boolean success = orderService.deleteOrder(cid);
-        if (success) {
-            orderDAO.saveToDatabase();
-            response.put("success", true);
-            response.put("message", "订单删除成功，删除原因: " + reason);
-            return ResponseEntity.ok(response);
-        } else {
+        long expectedVersion;
+        try {
+            expectedVersion = ETags.parseIfMatch(ifMatch);
+        } catch (IllegalArgumentException e) {
             response.put("success", false);
-            response.put("message", "订单不存在或无法删除(已支付订单不能删除)");
+            response.put("message", "删除失败：" + e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
+        
+        long deleteVersion = expectedVersion;
+        
+        try {
+            // 记录删除原因（在删除前更新订单描述）
+            Order stored = orderService.getOrder(cid);
+            if (stored != null) {
+                if (expectedVersion != WriteResult.ANY_VERSION && stored.getVersion() != expectedVersion) {
+                    return versionConflict(response, expectedVersion);
+                }
+                // 存储的订单是只读快照，在副本上追加删除原因
+                Order order = stored.copy();
+                String deleteLog = String.format("[%s] 订单删除：%s",
+                        java.time.LocalDateTime.now().format(
+                                java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
+                        reason);
+                String newDescription = (order.getDescription() != null ? order.getDescription() + "\n" : "") + deleteLog;
+                order.setDescription(newDescription);
+                WriteResult audit = orderService.updateOrder(order, expectedVersion);
+                if (audit == WriteResult.VERSION_CONFLICT) {
+                    return versionConflict(response, expectedVersion);
+                }
+                if (audit == WriteResult.APPLIED) {
+                    // 只删除记录了删除原因的这个版本，期间被其他请求修改则不删除
+                    deleteVersion = order.getVersion();
+                }
+            }
+        
+            WriteResult result = orderService.deleteOrder(cid, deleteVersion);
+            if (result == WriteResult.APPLIED) {
+                response.put("success", true);
+                response.put("message", "订单删除成功，删除原因: " + reason);
+                return ResponseEntity.ok(response);
+            } else if (result == WriteResult.VERSION_CONFLICT) {
+                return versionConflict(response, expectedVersion);
+            } else {
+                response.put("success", false);
+                response.put("message", "订单不存在或无法删除(已支付订单不能删除)");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+        } catch (WriteQueueFullException e) {
+            return Backpressure.writeQueueFull(response, e);
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> versionConflict(Map<String, Object> response, long expectedVersion) {
+        response.put("success", false);
+        response.put("message", "删除失败：订单已被其他请求修改，请重新查询后再删除");
+        return ResponseEntity.status(ETags.conflictStatus(expectedVersion)).body(response);
+    }
+
+    /**
+     * 持久化指标（后台刷盘的落后时间、批量大小、启动加载吞吐、热点缓存命中率等）及并行扫描指标
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> metrics() {
+        Map<String, Object> response = new HashMap<>();
+        Map<String, Object> data = new HashMap<>();
+        data.put("flush", orderDAO.getFlushMetrics());
+        data.put("writeMode", orderDAO.getWriteMode());
+        data.put("journal", orderDAO.getJournalMetrics());
+        data.put("load", orderDAO.getLoadMetrics());
+        data.put("cache", orderDAO.getCacheMetrics());
+        data.put("parallel", orderDAO.getParallelMetrics());
+        response.put("success", true);
+        response.put("data", data);
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -193,4 +517,4 @@ public class OrderController {
         response.put("message", "订单服务运行正常");
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+}
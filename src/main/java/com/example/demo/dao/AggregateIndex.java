@@ -0,0 +1,135 @@
+package com.example.demo.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 物化聚合：按分组键维护记录数和若干度量的合计，写入、更新、删除时只对所在分组加减差值，
+ * 查询时直接读取各分组，耗时只与分组数有关、与记录总数无关。
+ * <p>
+ * 记录每个主键上次计入的分组和度量值，对象被原地修改后仍能从旧分组中准确扣减。内部用读写锁保护。
+ */
+final class AggregateIndex<T> {
+
+    private final Function<T, String> idExtractor;
+    private final Function<T, ?> groupExtractor;
+    private final List<ToLongFunction<T>> measures;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 分组键 -> [记录数, 度量1合计, 度量2合计, ...]
+    private final Map<Object, long[]> groups = new HashMap<>();
+    private final Map<String, Contribution> contributions = new HashMap<>();
+
+    /**
+     * @param idExtractor 主键
+     * @param groupExtractor 分组键（需实现equals/hashCode，可为null）
+     * @param measures 参与合计的度量
+     */
+    AggregateIndex(Function<T, String> idExtractor, Function<T, ?> groupExtractor, List<ToLongFunction<T>> measures) {
+        this.idExtractor = idExtractor;
+        this.groupExtractor = groupExtractor;
+        this.measures = new ArrayList<>(measures);
+    }
+
+    /**
+     * 写入或更新记录：从上次计入的分组扣减旧值，再计入新分组
+     */
+    void put(T value) {
+        long[] values = new long[measures.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = measures.get(i).applyAsLong(value);
+        }
+        Contribution contribution = new Contribution(groupExtractor.apply(value), values);
+        lock.writeLock().lock();
+        try {
+            Contribution previous = contributions.put(idExtractor.apply(value), contribution);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+            apply(contribution, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Contribution previous = contributions.remove(id);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            groups.clear();
+            contributions.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 复制各分组的当前合计：分组键 -> [记录数, 度量1合计, 度量2合计, ...]
+     */
+    Map<Object, long[]> snapshot() {
+        lock.readLock().lock();
+        try {
+            Map<Object, long[]> copy = new HashMap<>(groups.size() * 2);
+            for (Map.Entry<Object, long[]> group : groups.entrySet()) {
+                copy.put(group.getKey(), group.getValue().clone());
+            }
+            return copy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 一个分组的当前合计，分组不存在时返回null
+     */
+    long[] get(Object group) {
+        lock.readLock().lock();
+        try {
+            long[] totals = groups.get(group);
+            return totals != null ? totals.clone() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        long[] totals = groups.computeIfAbsent(contribution.group, g -> new long[measures.size() + 1]);
+        totals[0] += sign;
+        for (int i = 0; i < contribution.values.length; i++) {
+            totals[i + 1] += sign * contribution.values[i];
+        }
+        if (totals[0] == 0) {
+            groups.remove(contribution.group);
+        }
+    }
+
+    /**
+     * 一条记录计入的分组和度量值
+     */
+    private static final class Contribution {
+        final Object group;
+        final long[] values;
+
+        Contribution(Object group, long[] values) {
+            this.group = group;
+            this.values = values;
+        }
+    }
+}
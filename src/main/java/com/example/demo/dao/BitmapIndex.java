@@ -0,0 +1,289 @@
+package com.example.demo.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 位图索引：适用于取值很少的字段（如状态、产品版本、类型）。
+ * 每条记录分配一个稠密的内部行号（删除后回收复用），每个字段的每个取值对应一个RoaringBitmap，
+ * 多条件过滤和计数即位图的交/并运算加popcount，不需要逐条比较对象字段。
+ * <p>
+ * 记录每行各字段当前的取值，对象被原地修改后仍能从旧取值的位图中清除。
+ * 内部用读写锁保护，写入很轻（每个字段置/清一位），读取期间位图不会被修改。
+ */
+final class BitmapIndex<T> {
+
+    // 字段值为null的记录放在该取值下
+    private static final Object NULL_VALUE = new Object();
+
+    private final Function<T, String> idExtractor;
+    private final Map<String, Function<T, ?>> fields;
+    private final Map<String, Map<Object, RoaringBitmap>> bitmaps = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 主键 -> 行号，行号 -> 记录，行号 -> 各字段当前取值（按fields的顺序）
+    private final Map<String, Integer> rowOf = new HashMap<>();
+    private Object[] rows = new Object[1024];
+    private final Object[][] rowValues;
+    private final RoaringBitmap allRows = new RoaringBitmap();
+
+    // 已回收的行号
+    private int[] freeRows = new int[16];
+    private int freeCount;
+    private int nextRow;
+
+    /**
+     * @param idExtractor 主键
+     * @param fields 字段名 -> 取值，字段名用于查询条件
+     */
+    BitmapIndex(Function<T, String> idExtractor, Map<String, Function<T, ?>> fields) {
+        this.idExtractor = idExtractor;
+        this.fields = new LinkedHashMap<>(fields);
+        this.rowValues = new Object[fields.size()][rows.length];
+        for (String field : this.fields.keySet()) {
+            bitmaps.put(field, new HashMap<>());
+        }
+    }
+
+    /**
+     * 写入或更新记录：取值变化的字段从旧位图清除、在新位图置位
+     */
+    void put(T value) {
+        String id = idExtractor.apply(value);
+        lock.writeLock().lock();
+        try {
+            Integer existing = rowOf.get(id);
+            int row = existing != null ? existing : allocateRow(id);
+            rows[row] = value;
+            int f = 0;
+            for (Map.Entry<String, Function<T, ?>> field : fields.entrySet()) {
+                Object key = valueKey(field.getValue().apply(value));
+                Object previous = rowValues[f][row];
+                if (!key.equals(previous)) {
+                    if (previous != null) {
+                        clearBit(field.getKey(), previous, row);
+                    }
+                    bitmaps.get(field.getKey()).computeIfAbsent(key, k -> new RoaringBitmap()).add(row);
+                    rowValues[f][row] = key;
+                }
+                f++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowOf.remove(id);
+            if (row == null) {
+                return;
+            }
+            int f = 0;
+            for (String field : fields.keySet()) {
+                clearBit(field, rowValues[f][row], row);
+                rowValues[f][row] = null;
+                f++;
+            }
+            rows[row] = null;
+            allRows.remove(row);
+            if (freeCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+            }
+            freeRows[freeCount++] = row;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Map<Object, RoaringBitmap> values : bitmaps.values()) {
+                values.clear();
+            }
+            rowOf.clear();
+            Arrays.fill(rows, 0, nextRow, null);
+            for (Object[] values : rowValues) {
+                Arrays.fill(values, 0, nextRow, null);
+            }
+            allRows.clear();
+            freeCount = 0;
+            nextRow = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 统计满足条件的记录数：同一字段的多个取值为OR，不同字段之间为AND
+     * @param conditions 字段名 -> 可接受的取值，为空时统计全部记录
+     * @throws IllegalArgumentException 字段名不存在时抛出
+     */
+    int count(Map<String, ? extends Collection<?>> conditions) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> unions = unions(conditions);
+            if (unions == null) {
+                return 0;
+            }
+            if (unions.isEmpty()) {
+                return allRows.cardinality();
+            }
+            if (unions.size() == 1) {
+                return unions.get(0).cardinality();
+            }
+            RoaringBitmap result = unions.get(0);
+            for (int i = 1; i < unions.size() - 1; i++) {
+                result = result.and(unions.get(i));
+            }
+            // 最后一次交集只计数，不生成位图
+            return result.andCardinality(unions.get(unions.size() - 1));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按行号顺序复制满足条件的记录（顺序与写入时间无关）
+     * @see #count(Map)
+     */
+    @SuppressWarnings("unchecked")
+    List<T> select(Map<String, ? extends Collection<?>> conditions) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matched = evaluate(conditions);
+            List<T> result = new ArrayList<>(matched.cardinality());
+            matched.forEach(row -> result.add((T) rows[row]));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按字段各取值分组计数（即各位图的基数），取值为null的分组键为null
+     * @throws IllegalArgumentException 字段名不存在时抛出
+     */
+    Map<Object, Integer> countBy(String field) {
+        lock.readLock().lock();
+        try {
+            Map<Object, Integer> counts = new LinkedHashMap<>();
+            for (Map.Entry<Object, RoaringBitmap> entry : valuesOf(field).entrySet()) {
+                counts.put(entry.getKey() == NULL_VALUE ? null : entry.getKey(), entry.getValue().cardinality());
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return rowOf.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 计算满足条件的行号位图，只有一个字段条件时直接返回该字段的位图（调用方不得修改）
+     */
+    private RoaringBitmap evaluate(Map<String, ? extends Collection<?>> conditions) {
+        List<RoaringBitmap> unions = unions(conditions);
+        if (unions == null) {
+            return new RoaringBitmap();
+        }
+        if (unions.isEmpty()) {
+            return allRows;
+        }
+        RoaringBitmap result = unions.get(0);
+        for (int i = 1; i < unions.size(); i++) {
+            result = result.and(unions.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 每个字段条件内各取值位图的并集，按基数从小到大排列，使交集尽早变小；
+     * 某个条件没有任何匹配时返回null
+     */
+    private List<RoaringBitmap> unions(Map<String, ? extends Collection<?>> conditions) {
+        List<RoaringBitmap> unions = new ArrayList<>();
+        if (conditions == null) {
+            return unions;
+        }
+        for (Map.Entry<String, ? extends Collection<?>> condition : conditions.entrySet()) {
+            Map<Object, RoaringBitmap> values = valuesOf(condition.getKey());
+            if (condition.getValue() == null || condition.getValue().isEmpty()) {
+                continue;
+            }
+            RoaringBitmap union = null;
+            for (Object value : condition.getValue()) {
+                RoaringBitmap bitmap = values.get(valueKey(value));
+                if (bitmap != null) {
+                    union = union == null ? bitmap : union.or(bitmap);
+                }
+            }
+            if (union == null) {
+                return null;
+            }
+            unions.add(union);
+        }
+        unions.sort(Comparator.comparingInt(RoaringBitmap::cardinality));
+        return unions;
+    }
+
+    private Map<Object, RoaringBitmap> valuesOf(String field) {
+        Map<Object, RoaringBitmap> values = bitmaps.get(field);
+        if (values == null) {
+            throw new IllegalArgumentException("未建立位图索引的字段: " + field);
+        }
+        return values;
+    }
+
+    private int allocateRow(String id) {
+        int row;
+        if (freeCount > 0) {
+            row = freeRows[--freeCount];
+        } else {
+            row = nextRow++;
+            if (row == rows.length) {
+                int capacity = rows.length * 2;
+                rows = Arrays.copyOf(rows, capacity);
+                for (int f = 0; f < rowValues.length; f++) {
+                    rowValues[f] = Arrays.copyOf(rowValues[f], capacity);
+                }
+            }
+        }
+        rowOf.put(id, row);
+        allRows.add(row);
+        return row;
+    }
+
+    private void clearBit(String field, Object key, int row) {
+        Map<Object, RoaringBitmap> values = bitmaps.get(field);
+        RoaringBitmap bitmap = values.get(key);
+        if (bitmap != null) {
+            bitmap.remove(row);
+            if (bitmap.isEmpty()) {
+                values.remove(key);
+            }
+        }
+    }
+
+    private static Object valueKey(Object value) {
+        return value != null ? value : NULL_VALUE;
+    }
+}
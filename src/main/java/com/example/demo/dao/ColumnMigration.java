@@ -0,0 +1,297 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 列类型在线迁移：为TEXT列增加对应的INTEGER列（时间为epoch毫秒，金额为分），
+ * 再由后台线程按rowid分批把存量数据的TEXT值换算后回填，每批作为一条变更交给组提交线程写入，批间暂停让出写入队列。
+ * 新写入同时写两种列，回填只填充仍为NULL的INTEGER列，不会覆盖并发写入的新值。
+ * TEXT列暂时保留，用于回滚到旧版本以及满足影响力表的NOT NULL约束。
+ */
+final class ColumnMigration {
+
+    // 表名 -> 迁移进度
+    private static final Map<String, ColumnMigration> MIGRATIONS = new ConcurrentHashMap<>();
+
+    /**
+     * TEXT值到INTEGER值的换算，无法换算时返回null
+     */
+    @FunctionalInterface
+    interface Converter {
+        /**
+         * @param key 所在行的标识，仅用于日志
+         */
+        Long convert(String text, String key);
+    }
+
+    /**
+     * 一对迁移列：TEXT源列 -> INTEGER目标列
+     */
+    static final class Column {
+        private final String source;
+        private final String target;
+        private final Converter converter;
+
+        private Column(String source, String target, Converter converter) {
+            this.source = source;
+            this.target = target;
+            this.converter = converter;
+        }
+    }
+
+    /**
+     * 时间列：TEXT（LocalDateTime.toString()）-> epoch毫秒
+     */
+    static Column time(String source, String target) {
+        return new Column(source, target, (text, key) -> {
+            LocalDateTime time = Timestamps.parse(text);
+            return time != null ? Timestamps.toEpochMilli(time) : null;
+        });
+    }
+
+    /**
+     * 金额列：TEXT（BigDecimal.toString()）-> 分
+     */
+    static Column amount(String source, String target) {
+        return new Column(source, target, ColumnMigration::legacyAmountMinor);
+    }
+
+    /**
+     * 旧版TEXT金额换算为分。历史数据可能超过两位小数，按HALF_UP舍入到分并记录日志；
+     * 无法解析或超出范围时记录日志并返回null，不让单行脏数据中断加载或回填
+     * @param key 所在行的标识（订单号、rowid），仅用于日志
+     */
+    static Long legacyAmountMinor(String text, String key) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        try {
+            BigDecimal amount = new BigDecimal(text);
+            BigDecimal rounded = amount.setScale(Order.AMOUNT_SCALE, RoundingMode.HALF_UP);
+            if (rounded.compareTo(amount) != 0) {
+                System.out.println("金额超过两位小数，已按四舍五入取到分: " + key + ", " + text + " -> " + rounded.toPlainString());
+            }
+            return Order.toMinorUnits(rounded);
+        } catch (IllegalArgumentException e) {
+            System.out.println("金额无法换算，按无金额处理: " + key + ", " + text);
+            return null;
+        }
+    }
+
+    private final String table;
+    private final Column[] columns;
+    // 每批回填行数与批间暂停（毫秒）
+    private final int batchSize = Integer.parseInt(DBUtil.getConfig("demo.db.migration.batch-size", "1000"));
+    private final long pauseMs = Long.parseLong(DBUtil.getConfig("demo.db.migration.pause-ms", "10"));
+
+    // 迁移指标
+    private final AtomicLong migratedRows = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String lastError;
+
+    private ColumnMigration(String table, Column[] columns) {
+        this.table = table;
+        this.columns = columns;
+    }
+
+    /**
+     * 补齐INTEGER目标列（已存在则跳过）并创建索引，在建表时调用
+     * @param indexedColumns 需要建索引的目标列
+     */
+    static void addColumns(Connection conn, String table, Column[] columns, String... indexedColumns) throws SQLException {
+        Set<String> existing = existingColumns(conn, table);
+        try (Statement stmt = conn.createStatement()) {
+            for (Column column : columns) {
+                if (!existing.contains(column.target)) {
+                    stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column.target + " INTEGER");
+                }
+            }
+            for (String column : indexedColumns) {
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_" + column + " ON " + table + "(" + column + ")");
+            }
+        }
+    }
+
+    /**
+     * 补齐不需要回填的新列（已存在则跳过），存量行取definition中的默认值
+     * @param definition 列类型及约束，如"INTEGER NOT NULL DEFAULT 0"
+     */
+    static void addColumn(Connection conn, String table, String column, String definition) throws SQLException {
+        if (existingColumns(conn, table).contains(column)) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+    }
+
+    private static Set<String> existingColumns(Connection conn, String table) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                existing.add(rs.getString("name"));
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * 启动后台回填，同一张表只启动一次
+     */
+    static void start(String table, Column... columns) {
+        ColumnMigration migration = new ColumnMigration(table, columns);
+        if (MIGRATIONS.putIfAbsent(table, migration) != null) {
+            return;
+        }
+        Thread thread = new Thread(migration::run, "column-migration-" + table);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 获取各表的迁移进度
+     */
+    static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        MIGRATIONS.forEach((table, migration) -> {
+            Map<String, Object> progress = new LinkedHashMap<>();
+            progress.put("migratedRows", migration.migratedRows.get());
+            progress.put("batches", migration.batches.get());
+            progress.put("finished", migration.finishedAt > 0);
+            progress.put("durationMs", (migration.finishedAt > 0 ? migration.finishedAt : System.currentTimeMillis()) - migration.startedAt);
+            progress.put("lastError", migration.lastError);
+            metrics.put(table, progress);
+        });
+        return metrics;
+    }
+
+    private void run() {
+        startedAt = System.currentTimeMillis();
+        long lastRowid = Long.MIN_VALUE;
+        try {
+            while (true) {
+                long next;
+                try {
+                    next = migrateBatch(lastRowid);
+                } catch (WriteQueueFullException e) {
+                    // 请求写入繁忙，回填让路，稍后重试同一批
+                    Thread.sleep(pauseMs * 10);
+                    continue;
+                }
+                if (next == lastRowid) {
+                    break;
+                }
+                lastRowid = next;
+                Thread.sleep(pauseMs);
+            }
+            finishedAt = System.currentTimeMillis();
+            if (migratedRows.get() > 0) {
+                System.out.println(table + "列迁移完成，共回填 " + migratedRows.get() + " 行，耗时 "
+                        + (finishedAt - startedAt) + "ms");
+            }
+        } catch (SQLException | IllegalStateException e) {
+            lastError = e.getMessage();
+            System.out.println(table + "列迁移失败，下次启动时继续: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 回填rowid大于lastRowid的一批待迁移行
+     * @return 本批最后一行的rowid，没有待迁移行时返回lastRowid
+     */
+    private long migrateBatch(long lastRowid) throws SQLException {
+        StringBuilder sources = new StringBuilder();
+        StringBuilder pending = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            Column column = columns[i];
+            sources.append(", ").append(column.source);
+            pending.append(i == 0 ? "(" : " OR ")
+                    .append("(").append(column.source).append(" IS NOT NULL AND ").append(column.target).append(" IS NULL)");
+            assignments.append(i == 0 ? "" : ", ")
+                    .append(column.target).append(" = COALESCE(").append(column.target).append(", ?)");
+        }
+        pending.append(")");
+        String select = "SELECT rowid" + sources + " FROM " + table
+                + " WHERE rowid > ? AND " + pending + " ORDER BY rowid LIMIT ?";
+        String update = "UPDATE " + table + " SET " + assignments + " WHERE rowid = ?";
+
+        List<Object[]> rows = new ArrayList<>();
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(select)) {
+            pstmt.setLong(1, lastRowid);
+            pstmt.setInt(2, batchSize);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Object[] row = new Object[columns.length + 1];
+                    row[0] = rs.getLong(1);
+                    for (int i = 0; i < columns.length; i++) {
+                        row[i + 1] = convert(columns[i], rs.getString(i + 2), (Long) row[0]);
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            return lastRowid;
+        }
+        // 回填作为一条变更交给组提交线程执行，与请求写入共用同一个写入者
+        GroupCommitter.shared().commit(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(update)) {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < columns.length; i++) {
+                        if (row[i + 1] != null) {
+                            pstmt.setLong(i + 1, (Long) row[i + 1]);
+                        } else {
+                            pstmt.setNull(i + 1, Types.INTEGER);
+                        }
+                    }
+                    pstmt.setLong(columns.length + 1, (Long) row[0]);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        });
+        migratedRows.addAndGet(rows.size());
+        batches.incrementAndGet();
+        return (Long) rows.get(rows.size() - 1)[0];
+    }
+
+    /**
+     * 换算失败时返回null（该列保持NULL，读取时回退到TEXT列）
+     */
+    private Long convert(Column column, String text, long rowid) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return column.converter.convert(text, "rowid=" + rowid);
+        } catch (RuntimeException e) {
+            System.out.println(table + "." + column.source + "无法换算，跳过: rowid=" + rowid + ", " + text);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+
+/**
+ * 订单的不可变列式快照：每个字段一个基本类型数组，产品版本和客户名称按字典编码为int，
+ * 分析查询在数组上顺序扫描，不经过Order对象、装箱整数和BigDecimal。
+ * <p>
+ * 行号由OrderColumnStore分配，已删除的行在live位集中为0。快照发布后不再修改，可被多个线程同时读取。
+ */
+final class ColumnarSnapshot {
+
+    // status为null时的取值
+    static final int NULL_STATUS = Integer.MIN_VALUE;
+    // createTime为null时的取值
+    static final long NULL_TIME = Long.MIN_VALUE;
+    // 字典编码：取值为null时的编码
+    static final int NULL_CODE = -1;
+
+    final long version;
+    final int rowCount;
+    final int liveCount;
+    final long[] live;
+    final int[] status;
+    final int[] devScale;
+    final int[] purchasedLicCount;
+    // 金额（分），未设置金额为Order.NO_AMOUNT
+    final long[] amountMinor;
+    final long[] createTimeMs;
+    final int[] productVersionCode;
+    final int[] customerCode;
+    final String[] productVersions;
+    final String[] customers;
+
+    ColumnarSnapshot(long version, int rowCount, int liveCount, long[] live, int[] status, int[] devScale,
+                     int[] purchasedLicCount, long[] amountMinor, long[] createTimeMs, int[] productVersionCode,
+                     int[] customerCode, String[] productVersions, String[] customers) {
+        this.version = version;
+        this.rowCount = rowCount;
+        this.liveCount = liveCount;
+        this.live = live;
+        this.status = status;
+        this.devScale = devScale;
+        this.purchasedLicCount = purchasedLicCount;
+        this.amountMinor = amountMinor;
+        this.createTimeMs = createTimeMs;
+        this.productVersionCode = productVersionCode;
+        this.customerCode = customerCode;
+        this.productVersions = productVersions;
+        this.customers = customers;
+    }
+
+    /**
+     * 产品版本的字典编码，快照中没有该取值时返回NULL_CODE - 1（不匹配任何行）
+     */
+    int productVersionCode(String productVersion) {
+        if (productVersion == null) {
+            return NULL_CODE;
+        }
+        for (int code = 0; code < productVersions.length; code++) {
+            if (productVersion.equals(productVersions[code])) {
+                return code;
+            }
+        }
+        return NULL_CODE - 1;
+    }
+
+    /**
+     * 按产品版本分组汇总满足条件的行，过滤和累加都是数组上的顺序循环
+     * @param statuses 允许的状态（NULL_STATUS表示null），null表示不限
+     * @param versionAllowed 按字典编码+1下标的产品版本掩码（下标0为null），null表示不限
+     * @param fromMs 创建时间下限（含），NULL_TIME表示不限
+     * @param toMs 创建时间上限（含），Long.MAX_VALUE表示不限
+     * @return 按字典编码+1下标的[订单数, 金额（分）, LIC数, 研发规模]，下标0为产品版本为null的分组
+     */
+    long[][] sumByProductVersion(int[] statuses, boolean[] versionAllowed, long fromMs, long toMs) {
+        return sumByProductVersion(statuses, versionAllowed, fromMs, toMs, 0, rowCount);
+    }
+
+    /**
+     * 只扫描行号在[fromRow, toRow)内的行，供并行扫描按区间拆分，各区间的结果用add合并
+     */
+    long[][] sumByProductVersion(int[] statuses, boolean[] versionAllowed, long fromMs, long toMs,
+                                 int fromRow, int toRow) {
+        int groups = productVersions.length + 1;
+        long[] counts = new long[groups];
+        long[] amounts = new long[groups];
+        long[] licenses = new long[groups];
+        long[] scales = new long[groups];
+        boolean timeFiltered = fromMs != NULL_TIME || toMs != Long.MAX_VALUE;
+        int firstWord = fromRow >>> 6;
+        int lastWord = (toRow - 1) >>> 6;
+        for (int word = firstWord; fromRow < toRow && word <= lastWord; word++) {
+            long bits = live[word];
+            if (word == firstWord) {
+                bits &= -1L << fromRow;
+            }
+            if (word == lastWord && (toRow & 63) != 0) {
+                bits &= -1L >>> (64 - (toRow & 63));
+            }
+            while (bits != 0) {
+                int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int group = productVersionCode[row] + 1;
+                if (versionAllowed != null && !versionAllowed[group]) {
+                    continue;
+                }
+                if (statuses != null && !contains(statuses, status[row])) {
+                    continue;
+                }
+                if (timeFiltered) {
+                    long time = createTimeMs[row];
+                    if (time == NULL_TIME || time < fromMs || time > toMs) {
+                        continue;
+                    }
+                }
+                long amount = amountMinor[row];
+                counts[group]++;
+                amounts[group] += amount != Order.NO_AMOUNT ? amount : 0L;
+                licenses[group] += purchasedLicCount[row];
+                scales[group] += devScale[row];
+            }
+        }
+        return new long[][]{counts, amounts, licenses, scales};
+    }
+
+    /**
+     * 合并两个区间的汇总结果
+     */
+    static long[][] add(long[][] left, long[][] right) {
+        for (int measure = 0; measure < left.length; measure++) {
+            for (int group = 0; group < left[measure].length; group++) {
+                left[measure][group] += right[measure][group];
+            }
+        }
+        return left;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int candidate : values) {
+            if (candidate == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.dao;
+
+/**
+ * 前缀补全的一个候选项：补全后的完整文本及对应的记录数
+ */
+public final class Completion {
+
+    private final String text;
+    private final int count;
+
+    Completion(String text, int count) {
+        this.text = text;
+        this.count = count;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
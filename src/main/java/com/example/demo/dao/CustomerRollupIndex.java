@@ -0,0 +1,135 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 客户汇总索引：每个客户一条汇总记录（订单数、各状态订单数、金额、LIC数、创建时间的计数集合），
+ * 订单写入、更新、删除时只对所属客户加减差值，查询汇总不需要遍历该客户的订单。
+ * <p>
+ * 记录每个订单上次计入的取值，订单被原地修改（如改名、改状态）后仍能从旧客户中准确扣减。
+ * 客户名称为null的订单不收录。内部用读写锁保护。
+ */
+final class CustomerRollupIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Rollup> rollups = new HashMap<>();
+    private final Map<String, Contribution> contributions = new HashMap<>();
+
+    /**
+     * 写入或更新订单：从上次计入的客户扣减旧值，再计入新客户
+     */
+    void put(Order order) {
+        Contribution contribution = order.getCustomerName() != null ? new Contribution(order) : null;
+        lock.writeLock().lock();
+        try {
+            Contribution previous = contribution != null
+                ? contributions.put(order.getCid(), contribution)
+                : contributions.remove(order.getCid());
+            if (previous != null) {
+                apply(previous, -1);
+            }
+            if (contribution != null) {
+                apply(contribution, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String cid) {
+        lock.writeLock().lock();
+        try {
+            Contribution previous = contributions.remove(cid);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            rollups.clear();
+            contributions.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 一个客户的汇总，客户没有订单时返回null
+     */
+    CustomerSummary get(String customerName) {
+        lock.readLock().lock();
+        try {
+            Rollup rollup = rollups.get(customerName);
+            if (rollup == null) {
+                return null;
+            }
+            Map<Integer, Long> statusCounts = new TreeMap<>(Comparator.nullsFirst(Comparator.<Integer>naturalOrder()));
+            statusCounts.putAll(rollup.statusCounts);
+            return new CustomerSummary(customerName, rollup.orderCount, statusCounts,
+                BigDecimal.valueOf(rollup.amountMinor, Order.AMOUNT_SCALE), rollup.purchasedLicCount,
+                rollup.createTimes.isEmpty() ? null : rollup.createTimes.firstKey(),
+                rollup.createTimes.isEmpty() ? null : rollup.createTimes.lastKey());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        Rollup rollup = rollups.computeIfAbsent(contribution.customerName, name -> new Rollup());
+        rollup.orderCount += sign;
+        rollup.amountMinor += sign * contribution.amountMinor;
+        rollup.purchasedLicCount += sign * contribution.purchasedLicCount;
+        rollup.statusCounts.merge(contribution.status, (long) sign, (a, b) -> a + b == 0 ? null : a + b);
+        if (contribution.createTime != null) {
+            rollup.createTimes.merge(contribution.createTime, sign, (a, b) -> a + b == 0 ? null : a + b);
+        }
+        if (rollup.orderCount == 0) {
+            rollups.remove(contribution.customerName);
+        }
+    }
+
+    /**
+     * 一个客户的汇总记录，createTimes为创建时间 -> 订单数，用于取首末次下单时间
+     */
+    private static final class Rollup {
+        long orderCount;
+        long amountMinor;
+        long purchasedLicCount;
+        final Map<Integer, Long> statusCounts = new HashMap<>();
+        final TreeMap<LocalDateTime, Integer> createTimes = new TreeMap<>();
+    }
+
+    /**
+     * 一个订单计入汇总的取值
+     */
+    private static final class Contribution {
+        final String customerName;
+        final Integer status;
+        final long amountMinor;
+        final long purchasedLicCount;
+        final LocalDateTime createTime;
+
+        Contribution(Order order) {
+            this.customerName = order.getCustomerName();
+            this.status = order.getStatus();
+            this.amountMinor = order.getTotalAmountMinor() != Order.NO_AMOUNT ? order.getTotalAmountMinor() : 0L;
+            this.purchasedLicCount = order.getPurchasedLicCount() != null ? order.getPurchasedLicCount() : 0L;
+            this.createTime = order.getCreateTime();
+        }
+    }
+}
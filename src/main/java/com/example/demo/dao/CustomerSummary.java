@@ -0,0 +1,60 @@
+package com.example.demo.dao;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 客户汇总：订单总数、各状态订单数、消费总额、LIC总数及首末次下单时间。
+ * 未设置金额的订单计入订单数，不计入消费总额。
+ */
+public final class CustomerSummary {
+
+    private final String customerName;
+    private final long orderCount;
+    // 状态 -> 订单数，按状态升序
+    private final Map<Integer, Long> statusCounts;
+    private final BigDecimal totalSpend;
+    private final long purchasedLicCount;
+    private final LocalDateTime firstOrderTime;
+    private final LocalDateTime lastOrderTime;
+
+    CustomerSummary(String customerName, long orderCount, Map<Integer, Long> statusCounts, BigDecimal totalSpend,
+                    long purchasedLicCount, LocalDateTime firstOrderTime, LocalDateTime lastOrderTime) {
+        this.customerName = customerName;
+        this.orderCount = orderCount;
+        this.statusCounts = statusCounts;
+        this.totalSpend = totalSpend;
+        this.purchasedLicCount = purchasedLicCount;
+        this.firstOrderTime = firstOrderTime;
+        this.lastOrderTime = lastOrderTime;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public Map<Integer, Long> getStatusCounts() {
+        return statusCounts;
+    }
+
+    public BigDecimal getTotalSpend() {
+        return totalSpend;
+    }
+
+    public long getPurchasedLicCount() {
+        return purchasedLicCount;
+    }
+
+    public LocalDateTime getFirstOrderTime() {
+        return firstOrderTime;
+    }
+
+    public LocalDateTime getLastOrderTime() {
+        return lastOrderTime;
+    }
+}
@@ -1,19 +1,334 @@
 package com.example.demo.dao;
 
+import org.sqlite.SQLiteConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 /**
  * SQLite数据库操作工具类
- * 数据库连接管理
+ * 数据库连接管理：一个专用写连接 + 只读连接池，连接在打开时统一调优
+ * （WAL日志、synchronous=NORMAL、mmap、页缓存、忙等待超时）。
+ * 配置（demo.*）在应用启动时由Spring Environment绑定（见configure），组提交、并行扫描、列迁移等组件
+ * 通过getConfig读取同一来源；未绑定时（单元测试、基准测试）读取classpath下的application.properties，可用同名系统属性覆盖。
  */
 public class DBUtil {
-    // 数据库连接URL（test.db位于项目根目录）
-    private static final String URL = "jdbc:sqlite:test.db";
-    
+    // 配置来源：key -> 取值，未配置时返回null
+    private static volatile Function<String, String> config = fileConfig();
+    private static volatile Settings settings = new Settings();
+
+    // 写连接：SQLite同一时刻只允许一个写者，用公平锁串行化。
+    // 只在持有WRITE_LOCK时赋值；ensureDatabaseCreated不加锁读取，因此声明为volatile
+    private static final ReentrantLock WRITE_LOCK = new ReentrantLock(true);
+    private static volatile Connection writeConnection;
+
+    // 只读连接池（容量由openedReaders控制，不超过readPoolSize）
+    private static final BlockingQueue<Connection> READ_POOL = new LinkedBlockingQueue<>();
+    private static final AtomicInteger OPENED_READERS = new AtomicInteger();
+
+    // 连接池指标
+    private static final AtomicInteger ACTIVE_READERS = new AtomicInteger();
+    private static final AtomicLong READ_ACQUIRES = new AtomicLong();
+    private static final AtomicLong READ_WAIT_NANOS = new AtomicLong();
+    private static final AtomicLong READ_MAX_WAIT_NANOS = new AtomicLong();
+    private static final AtomicLong WRITE_ACQUIRES = new AtomicLong();
+    private static final AtomicLong WRITE_WAIT_NANOS = new AtomicLong();
+    private static final AtomicLong WRITE_MAX_WAIT_NANOS = new AtomicLong();
+
+    private DBUtil() {
+    }
+
     /**
-     * 获取数据库连接
+     * 绑定配置来源（应用启动时传入Spring Environment），须在首次访问数据库之前调用。
+     * 数据库连接已打开时连接相关配置不再变更，只记录日志
+     * @param source key -> 取值，未配置时返回null
+     */
+    public static synchronized void configure(Function<String, String> source) {
+        config = source;
+        if (writeConnection != null || OPENED_READERS.get() > 0) {
+            System.out.println("数据库连接已打开，连接配置在重启后生效");
+            return;
+        }
+        settings = new Settings();
+    }
+
+    /**
+     * 获取写连接（也用于建表等DDL）。同一时刻只有一个线程持有，关闭即归还。
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL);
+        long start = System.nanoTime();
+        long waitTimeoutMs = settings.poolWaitTimeoutMs;
+        try {
+            if (!WRITE_LOCK.tryLock(waitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("等待数据库写连接超时(" + waitTimeoutMs + "ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待数据库写连接被中断", e);
+        }
+        recordWait(start, WRITE_ACQUIRES, WRITE_WAIT_NANOS, WRITE_MAX_WAIT_NANOS);
+        try {
+            if (writeConnection == null || writeConnection.isClosed()) {
+                writeConnection = open(false);
+            }
+            return pooled(writeConnection, DBUtil::releaseWriter);
+        } catch (SQLException | RuntimeException e) {
+            WRITE_LOCK.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取只读连接，池中无空闲连接时阻塞等待，关闭即归还。
+     */
+    public static Connection getReadConnection() throws SQLException {
+        long start = System.nanoTime();
+        Settings current = settings;
+        Connection conn = READ_POOL.poll();
+        if (conn == null && OPENED_READERS.incrementAndGet() <= current.readPoolSize) {
+            try {
+                ensureDatabaseCreated();
+                conn = open(true);
+            } catch (SQLException e) {
+                OPENED_READERS.decrementAndGet();
+                throw e;
+            }
+        } else if (conn == null) {
+            OPENED_READERS.decrementAndGet();
+            try {
+                conn = READ_POOL.poll(current.poolWaitTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("等待数据库只读连接被中断", e);
+            }
+            if (conn == null) {
+                throw new SQLException("等待数据库只读连接超时(" + current.poolWaitTimeoutMs + "ms)");
+            }
+        }
+        recordWait(start, READ_ACQUIRES, READ_WAIT_NANOS, READ_MAX_WAIT_NANOS);
+        ACTIVE_READERS.incrementAndGet();
+        return pooled(conn, DBUtil::releaseReader);
+    }
+
+    /**
+     * 获取连接池指标：等待时间与活跃连接数
+     */
+    public static Map<String, Object> getPoolMetrics() {
+        Settings current = settings;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("url", current.url);
+        metrics.put("readPoolSize", current.readPoolSize);
+        metrics.put("openReadConnections", Math.min(OPENED_READERS.get(), current.readPoolSize));
+        metrics.put("activeReadConnections", ACTIVE_READERS.get());
+        metrics.put("idleReadConnections", READ_POOL.size());
+        metrics.put("writeConnectionActive", WRITE_LOCK.isLocked());
+        metrics.put("writeWaiters", WRITE_LOCK.getQueueLength());
+        metrics.put("readAcquires", READ_ACQUIRES.get());
+        metrics.put("readWaitAvgMs", averageMs(READ_WAIT_NANOS, READ_ACQUIRES));
+        metrics.put("readWaitMaxMs", READ_MAX_WAIT_NANOS.get() / 1_000_000.0);
+        metrics.put("writeAcquires", WRITE_ACQUIRES.get());
+        metrics.put("writeWaitAvgMs", averageMs(WRITE_WAIT_NANOS, WRITE_ACQUIRES));
+        metrics.put("writeWaitMaxMs", WRITE_MAX_WAIT_NANOS.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    /**
+     * 获取列类型在线迁移进度
+     */
+    public static Map<String, Object> getMigrationMetrics() {
+        return ColumnMigration.getMetrics();
+    }
+
+    /**
+     * 关闭所有物理连接
+     */
+    public static void shutdown() {
+        WRITE_LOCK.lock();
+        try {
+            closeQuietly(writeConnection);
+            writeConnection = null;
+        } finally {
+            WRITE_LOCK.unlock();
+        }
+        Connection conn;
+        while ((conn = READ_POOL.poll()) != null) {
+            closeQuietly(conn);
+            OPENED_READERS.decrementAndGet();
+        }
+    }
+
+    /**
+     * 读取配置项（启动时绑定的配置来源，未绑定时为application.properties，系统属性优先）
+     */
+    static String getConfig(String key, String defaultValue) {
+        String value = config.apply(key);
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    /**
+     * 只读连接池大小
+     */
+    static int getReadPoolSize() {
+        return settings.readPoolSize;
+    }
+
+    private static Connection open(boolean readOnly) throws SQLException {
+        Settings current = settings;
+        SQLiteConfig sqliteConfig = new SQLiteConfig();
+        sqliteConfig.setReadOnly(readOnly);
+        if (!readOnly) {
+            // WAL模式写入数据库文件，只需写连接设置一次
+            sqliteConfig.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            sqliteConfig.setSynchronous(current.synchronous);
+        }
+        sqliteConfig.setBusyTimeout(current.busyTimeoutMs);
+        sqliteConfig.setCacheSize(current.cacheSize);
+        sqliteConfig.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(current.mmapSize));
+        return sqliteConfig.createConnection(current.url);
+    }
+
+    /**
+     * 只读连接无法创建数据库文件，首次使用前先通过写连接建库并切换到WAL
+     */
+    private static void ensureDatabaseCreated() throws SQLException {
+        if (writeConnection == null) {
+            getConnection().close();
+        }
+    }
+
+    private static void releaseWriter(Connection conn) throws SQLException {
+        try {
+            // 最外层归还时重置事务状态，避免未提交的事务泄漏给下一个使用者
+            if (WRITE_LOCK.getHoldCount() == 1 && !conn.isClosed() && !conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } finally {
+            WRITE_LOCK.unlock();
+        }
+    }
+
+    private static void releaseReader(Connection conn) throws SQLException {
+        ACTIVE_READERS.decrementAndGet();
+        if (conn.isClosed()) {
+            OPENED_READERS.decrementAndGet();
+            return;
+        }
+        if (!conn.getAutoCommit()) {
+            conn.rollback();
+            conn.setAutoCommit(true);
+        }
+        READ_POOL.offer(conn);
+    }
+
+    /**
+     * 包装物理连接：close()时归还而不是真正关闭
+     */
+    private static Connection pooled(Connection physical, Releaser releaser) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!closed) {
+                            closed = true;
+                            releaser.release(physical);
+                        }
+                        return null;
+                    case "isClosed":
+                        return closed || physical.isClosed();
+                    default:
+                        if (closed) {
+                            throw new SQLException("连接已归还连接池");
+                        }
+                        try {
+                            return method.invoke(physical, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+                DBUtil.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static void recordWait(long start, AtomicLong acquires, AtomicLong total, AtomicLong max) {
+        long waited = System.nanoTime() - start;
+        acquires.incrementAndGet();
+        total.addAndGet(waited);
+        max.accumulateAndGet(waited, Math::max);
+    }
+
+    private static double averageMs(AtomicLong totalNanos, AtomicLong count) {
+        long n = count.get();
+        return n == 0 ? 0 : totalNanos.get() / (double) n / 1_000_000.0;
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.out.println("关闭数据库连接失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 默认配置来源：classpath下的application.properties，同名系统属性优先
+     */
+    static Function<String, String> fileConfig() {
+        Properties props = new Properties();
+        try (InputStream in = DBUtil.class.getClassLoader().getResourceAsStream("application.properties")) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException e) {
+            System.out.println("读取数据库配置失败，使用默认配置: " + e.getMessage());
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("demo.")) {
+                props.setProperty(key, System.getProperty(key));
+            }
+        }
+        return props::getProperty;
+    }
+
+    /**
+     * 连接相关配置，打开第一个连接后不再变更
+     */
+    private static final class Settings {
+        // 数据库连接URL（默认test.db位于项目根目录）
+        private final String url = "jdbc:sqlite:" + getConfig("demo.db.path", "test.db");
+        private final int readPoolSize = Math.max(1, Integer.parseInt(getConfig("demo.db.read-pool-size", "4")));
+        private final int busyTimeoutMs = Integer.parseInt(getConfig("demo.db.busy-timeout-ms", "5000"));
+        private final long mmapSize = Long.parseLong(getConfig("demo.db.mmap-size", "268435456"));
+        private final int cacheSize = Integer.parseInt(getConfig("demo.db.cache-size", "-65536"));
+        private final long poolWaitTimeoutMs = Long.parseLong(getConfig("demo.db.pool-wait-timeout-ms", "30000"));
+        private final SQLiteConfig.SynchronousMode synchronous =
+                SQLiteConfig.SynchronousMode.valueOf(getConfig("demo.db.synchronous", "NORMAL"));
+    }
+
+    @FunctionalInterface
+    private interface Releaser {
+        void release(Connection conn) throws SQLException;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,354 @@
+package com.example.demo.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 组提交器：把并发请求提交的数据库变更在一个短时间窗口内（或攒满N条）合并到同一个事务中提交，
+ * 提交成功后才通知各调用方，用一次提交的开销换取多个请求的持久化确认。
+ * 订单和影响力记录共用同一个实例，以便不同控制器的并发写入也能合并。
+ * <p>
+ * 提交线程是订单表和影响力表唯一的写入者：请求写穿、后台刷盘和列迁移回填都作为变更提交到这里，
+ * 不再各自争用写连接。待提交队列有界，队列满时submit立即抛出WriteQueueFullException，由调用方退避重试。
+ * 调用方最多等待awaitTimeoutMs：超时时尚未开始执行的变更被取消（同样按队列积压处理）；
+ * 已在执行中的变更继续等到所在事务结束再返回真实结果，不会向调用方报告"结果未知"，
+ * 以免调用方跳过内存更新而数据库事务随后提交成功。执行中的事务受SQLite busy_timeout约束，调用方不会无限期挂起。
+ */
+public class GroupCommitter {
+
+    /**
+     * 在组事务中执行的一条数据库变更
+     */
+    @FunctionalInterface
+    public interface Mutation {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private static volatile GroupCommitter shared;
+
+    // 未指定时调用方等待提交结果的默认超时（毫秒）
+    private static final long DEFAULT_AWAIT_TIMEOUT_MS = 30000;
+
+    private final BlockingQueue<PendingMutation> queue;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final int queueCapacity;
+    private final long awaitTimeoutMs;
+    private Thread worker;
+    private volatile boolean running;
+
+    // 组提交指标
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong committedMutations = new AtomicLong();
+    private final AtomicLong failedMutations = new AtomicLong();
+    private final AtomicLong rejectedMutations = new AtomicLong();
+    private final AtomicLong timedOutMutations = new AtomicLong();
+    private final AtomicLong workerRestarts = new AtomicLong();
+    private volatile long lastBatchSize;
+    private volatile long maxObservedBatchSize;
+    private volatile long lastCommitMs;
+
+    /**
+     * @param windowMs 收到第一条变更后继续等待合并的时间（毫秒）
+     * @param maxBatchSize 单个组事务最多包含的变更数
+     * @param queueCapacity 最多排队等待提交的变更数
+     */
+    public GroupCommitter(long windowMs, int maxBatchSize, int queueCapacity) {
+        this(windowMs, maxBatchSize, queueCapacity, DEFAULT_AWAIT_TIMEOUT_MS);
+    }
+
+    /**
+     * @param windowMs 收到第一条变更后继续等待合并的时间（毫秒）
+     * @param maxBatchSize 单个组事务最多包含的变更数
+     * @param queueCapacity 最多排队等待提交的变更数
+     * @param awaitTimeoutMs 调用方等待提交结果的最长时间（毫秒）
+     */
+    public GroupCommitter(long windowMs, int maxBatchSize, int queueCapacity, long awaitTimeoutMs) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMs));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.awaitTimeoutMs = Math.max(1, awaitTimeoutMs);
+        this.queue = new LinkedBlockingQueue<>(this.queueCapacity);
+    }
+
+    /**
+     * 获取订单与影响力记录共用的组提交器，首次使用时按配置demo.db.group-commit.*创建
+     */
+    public static GroupCommitter shared() {
+        GroupCommitter instance = shared;
+        if (instance == null) {
+            synchronized (GroupCommitter.class) {
+                instance = shared;
+                if (instance == null) {
+                    instance = new GroupCommitter(
+                            Long.parseLong(DBUtil.getConfig("demo.db.group-commit.window-ms", "2")),
+                            Integer.parseInt(DBUtil.getConfig("demo.db.group-commit.max-batch", "256")),
+                            Integer.parseInt(DBUtil.getConfig("demo.db.group-commit.queue-capacity", "10000")),
+                            Long.parseLong(DBUtil.getConfig("demo.db.group-commit.await-timeout-ms", "30000")));
+                    shared = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 异步提交一条变更，所在的组事务提交后完成返回的Future
+     * @throws WriteQueueFullException 待提交队列已满时抛出，变更不会执行
+     */
+    public CompletableFuture<Void> submit(Mutation mutation) {
+        ensureStarted();
+        PendingMutation pending = new PendingMutation(mutation);
+        if (!queue.offer(pending)) {
+            rejectedMutations.incrementAndGet();
+            throw new WriteQueueFullException(queueCapacity);
+        }
+        return pending.future;
+    }
+
+    /**
+     * 提交一条变更并等待其所在的组事务提交完成
+     * @throws WriteQueueFullException 待提交队列已满时抛出，变更不会执行
+     * @throws IllegalStateException 变更执行或事务提交失败、或等待超时时抛出
+     */
+    public void commit(Mutation mutation) {
+        await(submit(mutation));
+    }
+
+    /**
+     * 等待一条由本提交器受理的变更完成，最多等待awaitTimeoutMs
+     * 超时时变更已被写线程认领的，继续等待所在事务结束，按实际结果返回或抛出
+     * @throws WriteQueueFullException 超时且变更尚未开始执行时抛出，变更已取消、不会执行
+     * @throws IllegalStateException 变更执行或事务提交失败时抛出
+     */
+    public void await(CompletableFuture<Void> future) {
+        try {
+            future.get(awaitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!(future instanceof Ticket) || ((Ticket) future).abandon()) {
+                throw new IllegalStateException("等待数据库提交被中断", e);
+            }
+            awaitClaimed(future);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new IllegalStateException("数据库提交失败: " + cause.getMessage(), cause);
+        } catch (TimeoutException e) {
+            timedOutMutations.incrementAndGet();
+            if (future instanceof Ticket && ((Ticket) future).abandon()) {
+                throw new WriteQueueFullException(queueCapacity, awaitTimeoutMs);
+            }
+            // 变更已在执行：等待事务结束，调用方据此决定是否更新内存，内存与数据库保持一致
+            awaitClaimed(future);
+        }
+    }
+
+    private void awaitClaimed(CompletableFuture<Void> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    future.get();
+                    return;
+                } catch (InterruptedException e) {
+                    // 结果决定内存是否更新，不能因中断放弃等待；返回前恢复中断标志
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw new IllegalStateException("数据库提交失败: " + cause.getMessage(), cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 获取组提交指标：提交次数、平均/最大组大小等
+     */
+    public Map<String, Object> getMetrics() {
+        long commitCount = commits.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("windowMs", TimeUnit.NANOSECONDS.toMillis(windowNanos));
+        metrics.put("maxBatchSize", maxBatchSize);
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("queued", queue.size());
+        metrics.put("rejectedMutations", rejectedMutations.get());
+        metrics.put("awaitTimeoutMs", awaitTimeoutMs);
+        metrics.put("timedOutMutations", timedOutMutations.get());
+        metrics.put("workerRestarts", workerRestarts.get());
+        metrics.put("commits", commitCount);
+        metrics.put("committedMutations", committedMutations.get());
+        metrics.put("failedMutations", failedMutations.get());
+        metrics.put("avgBatchSize", commitCount == 0 ? 0 : committedMutations.get() / (double) commitCount);
+        metrics.put("lastBatchSize", lastBatchSize);
+        metrics.put("maxObservedBatchSize", maxObservedBatchSize);
+        metrics.put("lastCommitMs", lastCommitMs);
+        return metrics;
+    }
+
+    /**
+     * 停止提交线程，已入队的变更会先全部提交
+     */
+    public void shutdown() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = worker;
+            worker = null;
+        }
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private synchronized void ensureStarted() {
+        // 写线程意外退出时重新启动，避免队列中的变更无人处理、调用方一直等待
+        if (worker == null || !worker.isAlive()) {
+            if (worker != null) {
+                workerRestarts.incrementAndGet();
+                System.out.println("组提交线程已退出，重新启动");
+            }
+            running = true;
+            worker = new Thread(this::runLoop, "db-group-commit");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private void runLoop() {
+        List<PendingMutation> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMutation first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 窗口内继续收集，窗口结束后只取已到达的变更
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingMutation next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    commitBatch(batch);
+                } catch (Throwable e) {
+                    // 兜底：任何异常都不能让写线程退出或遗留未完成的Future
+                    failBatch(batch, e);
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void commitBatch(List<PendingMutation> batch) {
+        long start = System.currentTimeMillis();
+        List<PendingMutation> applied = new ArrayList<>(batch.size());
+        try (Connection conn = DBUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            for (PendingMutation pending : batch) {
+                if (!pending.future.claim()) {
+                    continue; // 调用方已等待超时并取消
+                }
+                // 每条变更使用独立保存点，单条失败不影响同组其他请求
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    pending.mutation.apply(conn);
+                    conn.releaseSavepoint(savepoint);
+                    applied.add(pending);
+                } catch (Throwable e) {
+                    conn.rollback(savepoint);
+                    failedMutations.incrementAndGet();
+                    pending.future.completeExceptionally(e);
+                }
+            }
+            conn.commit();
+        } catch (Throwable e) {
+            failedMutations.addAndGet(applied.size());
+            failBatch(batch, e);
+            return;
+        }
+
+        commits.incrementAndGet();
+        committedMutations.addAndGet(applied.size());
+        lastBatchSize = batch.size();
+        maxObservedBatchSize = Math.max(maxObservedBatchSize, batch.size());
+        lastCommitMs = System.currentTimeMillis() - start;
+        for (PendingMutation pending : applied) {
+            pending.future.complete(null);
+        }
+    }
+
+    /**
+     * 让整组中尚未完成的变更以同一原因失败（已完成的Future不受影响）
+     */
+    private static void failBatch(List<PendingMutation> batch, Throwable cause) {
+        for (PendingMutation pending : batch) {
+            pending.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * submit返回的Future：写线程执行前先认领，调用方等待超时时只能放弃尚未被认领的变更，
+     * 保证"已取消"和"已执行"互斥
+     */
+    private static final class Ticket extends CompletableFuture<Void> {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        /**
+         * 写线程认领变更，变更已被放弃时返回false
+         */
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * 调用方放弃尚未执行的变更，写线程已认领时返回false
+         */
+        private boolean abandon() {
+            return claimed.compareAndSet(false, true)
+                    && completeExceptionally(new CancellationException("等待超时，变更已取消"));
+        }
+    }
+
+    private static final class PendingMutation {
+        private final Mutation mutation;
+        private final Ticket future = new Ticket();
+
+        private PendingMutation(Mutation mutation) {
+            this.mutation = mutation;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.demo.dao;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 有界热点缓存，淘汰策略参考W-TinyLFU：
+ * 新条目先进入容量约1%的窗口LRU，被挤出窗口后与主区（分段LRU：试用区 + 保护区）的淘汰候选比较
+ * 近期访问频率（Count-Min Sketch估算，定期减半衰减），频率更高者留下。
+ * 这样一次性扫描的冷数据不会把反复访问的热数据挤出缓存。
+ * <p>
+ * 所有操作在同一把锁内完成，适合单次操作开销远小于回源数据库的场景。
+ */
+final class HotSetCache<K, V> {
+
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+
+    // accessOrder=true：迭代顺序即LRU顺序，第一个元素最久未访问
+    private final LinkedHashMap<K, V> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final FrequencySketch sketch;
+
+    // 缓存指标
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejectedAdmissions;
+
+    /**
+     * @param maximumSize 最多缓存的条目数
+     */
+    HotSetCache(int maximumSize) {
+        this.maximumSize = Math.max(2, maximumSize);
+        this.windowMaximum = Math.max(1, this.maximumSize / 100);
+        int mainMaximum = this.maximumSize - windowMaximum;
+        this.protectedMaximum = Math.max(1, mainMaximum * 4 / 5);
+        this.sketch = new FrequencySketch(this.maximumSize);
+    }
+
+    /**
+     * 读取条目并记录一次访问，未命中返回null
+     */
+    synchronized V get(K key) {
+        sketch.increment(key);
+        V value = lookup(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    /**
+     * 读取条目但不计入访问频率和命中统计（用于加锁后的二次检查）
+     */
+    synchronized V peek(K key) {
+        V value = window.get(key);
+        if (value == null) {
+            value = probation.get(key);
+        }
+        if (value == null) {
+            value = protectedSegment.get(key);
+        }
+        return value;
+    }
+
+    /**
+     * 写入或替换条目，容量超限时按策略淘汰
+     */
+    synchronized void put(K key, V value) {
+        sketch.increment(key);
+        if (window.containsKey(key)) {
+            window.put(key, value);
+        } else if (probation.containsKey(key)) {
+            probation.remove(key);
+            promote(key, value);
+        } else if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, value);
+        } else {
+            window.put(key, value);
+            evictFromWindow();
+        }
+    }
+
+    /**
+     * 移除条目
+     */
+    synchronized void invalidate(K key) {
+        if (window.remove(key) == null && probation.remove(key) == null) {
+            protectedSegment.remove(key);
+        }
+    }
+
+    synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    /**
+     * 获取缓存指标：命中/未命中/淘汰次数与各分区大小
+     */
+    synchronized Map<String, Object> getMetrics() {
+        long requests = hits + misses;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("maximumSize", maximumSize);
+        metrics.put("size", size());
+        metrics.put("windowSize", window.size());
+        metrics.put("probationSize", probation.size());
+        metrics.put("protectedSize", protectedSegment.size());
+        metrics.put("hits", hits);
+        metrics.put("misses", misses);
+        metrics.put("hitRate", requests == 0 ? 0 : hits / (double) requests);
+        metrics.put("evictions", evictions);
+        metrics.put("rejectedAdmissions", rejectedAdmissions);
+        return metrics;
+    }
+
+    private V lookup(K key) {
+        V value = window.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = probation.remove(key);
+        if (value != null) {
+            // 试用区再次命中，晋升到保护区
+            promote(key, value);
+            return value;
+        }
+        return protectedSegment.get(key);
+    }
+
+    private void promote(K key, V value) {
+        protectedSegment.put(key, value);
+        if (protectedSegment.size() > protectedMaximum) {
+            // 保护区溢出，最久未访问的降级回试用区
+            Map.Entry<K, V> demoted = removeEldest(protectedSegment);
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+
+    private void evictFromWindow() {
+        if (window.size() <= windowMaximum) {
+            return;
+        }
+        Map.Entry<K, V> candidate = removeEldest(window);
+        if (window.size() + probation.size() + protectedSegment.size() < maximumSize) {
+            probation.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        LinkedHashMap<K, V> victimSegment = probation.isEmpty() ? protectedSegment : probation;
+        K victim = victimSegment.keySet().iterator().next();
+        evictions++;
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+            victimSegment.remove(victim);
+            probation.put(candidate.getKey(), candidate.getValue());
+        } else {
+            rejectedAdmissions++;
+        }
+    }
+
+    private static <K, V> Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> segment) {
+        Iterator<Map.Entry<K, V>> it = segment.entrySet().iterator();
+        Map.Entry<K, V> eldest = it.next();
+        Map.Entry<K, V> copy = new AbstractMap.SimpleImmutableEntry<>(eldest);
+        it.remove();
+        return copy;
+    }
+
+    /**
+     * Count-Min Sketch：4行计数器，每个计数器上限15；累计写入达到10倍容量后全部减半，让频率反映近期访问
+     */
+    private static final class FrequencySketch {
+        private static final int ROWS = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final int[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int maximumSize) {
+            int width = Integer.highestOneBit(Math.max(16, maximumSize - 1) << 1);
+            this.table = new int[ROWS][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * maximumSize;
+        }
+
+        private void increment(Object key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int i = 0; i < ROWS; i++) {
+                int index = index(hash, i);
+                if (table[i][index] < MAX_COUNT) {
+                    table[i][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private int frequency(Object key) {
+            int hash = key.hashCode();
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < ROWS; i++) {
+                frequency = Math.min(frequency, table[i][index(hash, i)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 16;
+            return h & mask;
+        }
+
+        private void reset() {
+            for (int[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Influence;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 影响力记录二进制编解码（快照文件格式），图片列表直接按字符串数组存储，不经过JSON
+ */
+final class InfluenceCodec {
+
+    private InfluenceCodec() {
+    }
+
+    static void write(DataOutput out, Influence influence) throws IOException {
+        OrderCodec.writeString(out, influence.getId());
+        OrderCodec.writeString(out, influence.getName());
+        OrderCodec.writeString(out, influence.getType());
+        OrderCodec.writeString(out, influence.getStatus());
+        OrderCodec.writeTime(out, influence.getEventTime());
+        OrderCodec.writeString(out, influence.getLink());
+        OrderCodec.writeString(out, influence.getRemark());
+        List<String> imageUrls = influence.getImageUrls();
+        int size = imageUrls != null ? imageUrls.size() : 0;
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            OrderCodec.writeString(out, imageUrls.get(i));
+        }
+        OrderCodec.writeTime(out, influence.getCreateTime());
+        OrderCodec.writeTime(out, influence.getUpdateTime());
+        out.writeLong(influence.getVersion());
+    }
+
+    static Influence read(ByteBuffer in) {
+        String id = OrderCodec.readString(in);
+        String name = OrderCodec.readString(in);
+        String type = OrderCodec.readString(in);
+        String status = OrderCodec.readString(in);
+        LocalDateTime eventTime = OrderCodec.readTime(in);
+        String link = OrderCodec.readString(in);
+        String remark = OrderCodec.readString(in);
+        int size = in.getInt();
+        List<String> imageUrls = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            imageUrls.add(OrderCodec.readString(in));
+        }
+        Influence influence = new Influence(id, name, type, status, eventTime, link, remark,
+                Collections.unmodifiableList(imageUrls), OrderCodec.readTime(in), OrderCodec.readTime(in));
+        influence.setVersion(in.getLong());
+        return influence.freeze();
+    }
+}
@@ -5,15 +5,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
 /**
  * 影响力数据访问对象 - 实现SQLite数据库操作
@@ -22,10 +32,57 @@ import java.util.stream.Collectors;
 public class InfluenceDAO {
     // 使用ConcurrentHashMap作为内存缓存，key为影响力记录ID
     private final Map<String, Influence> influenceMap = new ConcurrentHashMap<>();
+
+    // 活动时间排序索引，在变更的分段锁内与influenceMap同步维护，列表查询直接遍历
+    private final OrderedIndex<Influence> eventTimeIndex = new OrderedIndex<>(Influence::getEventTime, Influence::getId);
+    // 按类型、状态分区的活动时间索引（类型和状态都只有少量固定取值）
+    private final PartitionedIndex<Influence> typeIndex =
+            new PartitionedIndex<>(Influence::getType, Influence::getEventTime, Influence::getId);
+    private final PartitionedIndex<Influence> statusIndex =
+            new PartitionedIndex<>(Influence::getStatus, Influence::getEventTime, Influence::getId);
+    // 与活动时间索引倒序遍历一致：活动时间降序（null在后），相同时间按id降序
+    private static final Comparator<Influence> EVENT_TIME_DESC = Comparator
+            .comparing(Influence::getEventTime, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Influence::getId, Comparator.reverseOrder());
+    // 类型、状态的位图索引，多条件计数和过滤按位图交/并集计算
+    private final BitmapIndex<Influence> bitmapIndex = new BitmapIndex<>(Influence::getId, bitmapFields());
+    // 名称、备注的全文倒排索引
+    private final TextIndex<Influence> textIndex =
+            new TextIndex<>(Influence::getId, Arrays.asList(Influence::getName, Influence::getRemark));
+    
+    // 按id分段加锁：同一记录的版本检查、落盘与内存更新顺序一致，落盘需等待组提交，因此不放在compute回调中
+    private final StripedLocks keyLocks = new StripedLocks(64);
+
+    // 变更屏障：每次变更在持有读锁期间完成落盘（表版本号加1）和写入内存；
+    // 写快照时取写锁，读到的表版本号与复制出的内存内容一致
+    private final ReadWriteLock mutationBarrier = new ReentrantReadWriteLock();
+
+    // 大结果集的并行排序，与订单查询共享专用线程池
+    private final ParallelScan parallelScan = ParallelScan.shared();
     
     // 日期时间格式化器
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
     
+    // 时间同时写TEXT列（NOT NULL约束，兼容旧版本）和INTEGER毫秒列
+    private static final String UPSERT_SQL = "INSERT OR REPLACE INTO influence " +
+            "(id, name, type, status, event_time, link, remark, image_urls, create_time, update_time, " +
+            "event_time_ms, create_time_ms, update_time_ms, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_SQL = "DELETE FROM influence WHERE id = ?";
+
+    private static final String TABLE_NAME = "influence";
+
+    // TEXT时间列与对应的毫秒列
+    private static final ColumnMigration.Column[] MIGRATED_COLUMNS = {
+            ColumnMigration.time("event_time", "event_time_ms"),
+            ColumnMigration.time("create_time", "create_time_ms"),
+            ColumnMigration.time("update_time", "update_time_ms")
+    };
+
+    // 启动快照文件：停机时写入，启动时通过内存映射加载
+    private final Path snapshotPath = Paths.get(DBUtil.getConfig("demo.influence.snapshot.path", "data/influence.snapshot"));
+    
     // Jackson对象映射器，用于JSON序列化
     private final ObjectMapper objectMapper;
 
@@ -36,7 +93,9 @@ public class InfluenceDAO {
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
         initTable();
-        loadFromDatabase();
+        if (!loadFromSnapshot()) {
+            loadFromDatabase();
+        }
     }
 
     /**
@@ -53,117 +112,171 @@ public class InfluenceDAO {
                 "remark TEXT, " +
                 "image_urls TEXT, " +
                 "create_time TEXT NOT NULL, " +
-                "update_time TEXT" +
+                "update_time TEXT, " +
+                "event_time_ms INTEGER, " +
+                "create_time_ms INTEGER, " +
+                "update_time_ms INTEGER, " +
+                "version INTEGER NOT NULL DEFAULT 0" +
                 ");";
         
         try (Connection conn = DBUtil.getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.execute(createTableSQL);
+            // 旧版本建的表补齐毫秒列，存量数据由后台分批回填
+            ColumnMigration.addColumns(conn, TABLE_NAME, MIGRATED_COLUMNS, "event_time_ms");
+            ColumnMigration.addColumn(conn, TABLE_NAME, "version", "INTEGER NOT NULL DEFAULT 0");
+            SnapshotFile.initGenerationTable(conn);
             System.out.println("Influence表初始化成功");
         } catch (SQLException e) {
             System.err.println("初始化Influence表失败: " + e.getMessage());
             e.printStackTrace();
+            return;
         }
+        ColumnMigration.start(TABLE_NAME, MIGRATED_COLUMNS);
     }
 
     /**
-     * 将内存数据保存到数据库
+     * 写入（插入或替换）一条影响力记录，与其他并发请求的变更合并在同一个组事务中提交
+     * @throws IllegalStateException 写入失败时抛出
      */
-    public void saveToDatabase() {
-        String deleteSQL = "DELETE FROM influence";
-        String insertSQL = "INSERT OR REPLACE INTO influence " +
-                "(id, name, type, status, event_time, link, remark, image_urls, create_time, update_time) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private void persistInfluence(Influence influence) {
+        GroupCommitter.shared().commit(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(UPSERT_SQL)) {
+                bindInfluence(pstmt, influence);
+                pstmt.executeUpdate();
+            }
+            SnapshotFile.bumpGeneration(conn, TABLE_NAME);
+        });
+    }
 
-        try (Connection conn = DBUtil.getConnection();
-             Statement deleteStmt = conn.createStatement();
-             PreparedStatement insertStmt = conn.prepareStatement(insertSQL)) {
-            
-            // 清空表
-            deleteStmt.executeUpdate(deleteSQL);
-            
-            // 批量插入
-            for (Influence influence : influenceMap.values()) {
-                insertStmt.setString(1, influence.getId());
-                insertStmt.setString(2, influence.getName());
-                insertStmt.setString(3, influence.getType());
-                insertStmt.setString(4, influence.getStatus());
-                insertStmt.setString(5, influence.getEventTime().format(FORMATTER));
-                insertStmt.setString(6, influence.getLink());
-                insertStmt.setString(7, influence.getRemark());
-                
-                // 将imageUrls列表序列化为JSON字符串
-                String imageUrlsJson = null;
-                if (influence.getImageUrls() != null && !influence.getImageUrls().isEmpty()) {
-                    try {
-                        imageUrlsJson = objectMapper.writeValueAsString(influence.getImageUrls());
-                    } catch (Exception e) {
-                        System.err.println("序列化imageUrls失败: " + e.getMessage());
-                    }
-                }
-                insertStmt.setString(8, imageUrlsJson);
-                
-                insertStmt.setString(9, influence.getCreateTime().format(FORMATTER));
-                insertStmt.setString(10, influence.getUpdateTime() != null ? 
-                        influence.getUpdateTime().format(FORMATTER) : null);
-                
-                insertStmt.addBatch();
+    /**
+     * 删除一条影响力记录，与其他并发请求的变更合并在同一个组事务中提交
+     * @throws IllegalStateException 删除失败时抛出
+     */
+    private void deleteFromDatabase(String id) {
+        GroupCommitter.shared().commit(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(DELETE_SQL)) {
+                pstmt.setString(1, id);
+                pstmt.executeUpdate();
             }
-            
-            insertStmt.executeBatch();
-            System.out.println("成功保存 " + influenceMap.size() + " 条影响力记录到数据库");
-            
-        } catch (SQLException e) {
-            System.err.println("保存影响力记录到数据库失败: " + e.getMessage());
-            e.printStackTrace();
+            SnapshotFile.bumpGeneration(conn, TABLE_NAME);
+        });
+    }
+
+    private void bindInfluence(PreparedStatement pstmt, Influence influence) throws SQLException {
+        pstmt.setString(1, influence.getId());
+        pstmt.setString(2, influence.getName());
+        pstmt.setString(3, influence.getType());
+        pstmt.setString(4, influence.getStatus());
+        pstmt.setString(5, influence.getEventTime().format(FORMATTER));
+        pstmt.setString(6, influence.getLink());
+        pstmt.setString(7, influence.getRemark());
+        
+        // 将imageUrls列表序列化为JSON字符串（从数据库加载后未被访问过的直接复用原始JSON）
+        String imageUrlsJson = influence.getImageUrls() instanceof LazyJsonList
+                ? ((LazyJsonList) influence.getImageUrls()).rawJson() : null;
+        if (imageUrlsJson == null && influence.getImageUrls() != null && !influence.getImageUrls().isEmpty()) {
+            try {
+                imageUrlsJson = objectMapper.writeValueAsString(influence.getImageUrls());
+            } catch (Exception e) {
+                System.err.println("序列化imageUrls失败: " + e.getMessage());
+            }
+        }
+        pstmt.setString(8, imageUrlsJson);
+        
+        pstmt.setString(9, influence.getCreateTime().format(FORMATTER));
+        pstmt.setString(10, influence.getUpdateTime() != null ? 
+                influence.getUpdateTime().format(FORMATTER) : null);
+        Timestamps.bindMillis(pstmt, 11, influence.getEventTime());
+        Timestamps.bindMillis(pstmt, 12, influence.getCreateTime());
+        Timestamps.bindMillis(pstmt, 13, influence.getUpdateTime());
+        pstmt.setLong(14, influence.getVersion());
+    }
+
+    /**
+     * 从启动快照加载内存数据，快照不存在、格式不符或数据库在快照之后被修改过时返回false
+     */
+    public boolean loadFromSnapshot() {
+        long start = System.currentTimeMillis();
+        try {
+            long generation;
+            try (Connection conn = DBUtil.getReadConnection()) {
+                generation = SnapshotFile.currentGeneration(conn, TABLE_NAME);
+            }
+            influenceMap.clear();
+            if (!SnapshotFile.read(snapshotPath, SnapshotFile.INFLUENCE_MAGIC, generation,
+                    InfluenceCodec::read, influence -> influenceMap.put(influence.getId(), influence))) {
+                return false;
+            }
+            rebuildIndexes();
+            System.out.println("从影响力快照加载了 " + influenceMap.size() + " 条影响力记录，耗时 "
+                    + (System.currentTimeMillis() - start) + "ms");
+            return true;
+        } catch (IOException | SQLException e) {
+            System.err.println("影响力快照加载失败，改为从数据库加载: " + e.getMessage());
+            influenceMap.clear();
+            rebuildIndexes();
+            return false;
         }
     }
 
     /**
-     * 从数据库加载数据到内存
+     * 停机时把内存全量写成启动快照，快照记录写入时数据库的表版本号。
+     * 表版本号和内存内容在变更屏障的写锁内一起取得：已落盘、尚未写入内存的变更会先完成，
+     * 避免快照标记了新的版本号却缺少对应变更
+     */
+    @PreDestroy
+    public void writeSnapshot() {
+        try {
+            long generation;
+            List<Influence> influences;
+            Lock barrier = mutationBarrier.writeLock();
+            barrier.lock();
+            try (Connection conn = DBUtil.getReadConnection()) {
+                generation = SnapshotFile.currentGeneration(conn, TABLE_NAME);
+                influences = new ArrayList<>(influenceMap.values());
+            } finally {
+                barrier.unlock();
+            }
+            int count = SnapshotFile.write(snapshotPath, SnapshotFile.INFLUENCE_MAGIC, generation,
+                    influences, InfluenceCodec::write);
+            System.out.println("已写入影响力快照 " + count + " 条记录: " + snapshotPath);
+        } catch (IOException | SQLException e) {
+            System.err.println("写入影响力快照失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库加载数据到内存：按rowid分段并行读取，时间直接读取毫秒列，image_urls延迟到首次访问时再解析
      */
     public void loadFromDatabase() {
-        String selectSQL = "SELECT * FROM influence";
+        // 时间优先取毫秒列，未迁移的行回退解析TEXT列
+        String columns = "id, name, type, status, event_time_ms, link, remark, image_urls, create_time_ms, update_time_ms, " +
+                "event_time, create_time, update_time, version";
         
-        try (Connection conn = DBUtil.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(selectSQL)) {
-            
+        try {
             influenceMap.clear();
-            int count = 0;
-            
-            while (rs.next()) {
-                // 解析imageUrls JSON字符串
-                List<String> imageUrls = new ArrayList<>();
-                String imageUrlsJson = rs.getString("image_urls");
-                if (imageUrlsJson != null && !imageUrlsJson.isEmpty()) {
-                    try {
-                        imageUrls = objectMapper.readValue(imageUrlsJson, 
-                                objectMapper.getTypeFactory().constructCollectionType(List.class, String.class));
-                    } catch (Exception e) {
-                        System.err.println("反序列化imageUrls失败: " + e.getMessage());
-                    }
-                }
-                
+            Map<String, Object> stats = ParallelLoader.load(TABLE_NAME, columns, rs -> {
+                String imageUrlsJson = rs.getString(8);
                 Influence influence = new Influence(
-                    rs.getString("id"),
-                    rs.getString("name"),
-                    rs.getString("type"),
-                    rs.getString("status"),
-                    LocalDateTime.parse(rs.getString("event_time"), FORMATTER),
-                    rs.getString("link"),
-                    rs.getString("remark"),
-                    imageUrls,
-                    LocalDateTime.parse(rs.getString("create_time"), FORMATTER),
-                    rs.getString("update_time") != null ? 
-                            LocalDateTime.parse(rs.getString("update_time"), FORMATTER) : null
+                    rs.getString(1),
+                    rs.getString(2),
+                    rs.getString(3),
+                    rs.getString(4),
+                    Timestamps.read(rs, 5, 11),
+                    rs.getString(6),
+                    rs.getString(7),
+                    imageUrlsJson != null ? new LazyJsonList(imageUrlsJson, objectMapper) : null,
+                    Timestamps.read(rs, 9, 12),
+                    Timestamps.read(rs, 10, 13)
                 );
-                
-                influenceMap.put(influence.getId(), influence);
-                count++;
-            }
+                influence.setVersion(rs.getLong(14));
+                return influence.freeze();
+            }, influence -> influenceMap.put(influence.getId(), influence));
+            rebuildIndexes();
             
-            System.out.println("成功从数据库加载 " + count + " 条影响力记录");
+            System.out.println("成功从数据库加载 " + stats.get("rows") + " 条影响力记录（" + stats.get("ranges")
+                    + " 个分段并行，耗时 " + stats.get("durationMs") + "ms，" + stats.get("rowsPerSecond") + " 行/秒）");
             
         } catch (SQLException e) {
             System.err.println("从数据库加载影响力记录失败: " + e.getMessage());
@@ -173,7 +286,7 @@ public class InfluenceDAO {
 
     /**
      * 创建影响力记录
-     * @param influence 影响力记录对象
+     * @param influence 影响力记录对象，成功后回写创建时间和版本号
      * @return 创建成功返回true，ID已存在返回false
      */
     public boolean createInfluence(Influence influence) {
@@ -181,56 +294,146 @@ public class InfluenceDAO {
             return false; // ID已存在
         }
         
+        // 在副本上补齐字段，落盘成功后才回写到influence
+        Influence created = influence.copy();
         // 确保创建时间已设置
-        if (influence.getCreateTime() == null) {
-            influence.setCreateTime(LocalDateTime.now());
+        if (created.getCreateTime() == null) {
+            created.setCreateTime(LocalDateTime.now());
         }
         
         // 确保imageUrls不为null
-        if (influence.getImageUrls() == null) {
-            influence.setImageUrls(new ArrayList<>());
+        if (created.getImageUrls() == null) {
+            created.setImageUrls(new ArrayList<>());
         }
+        created.setVersion(1);
         
-        influenceMap.put(influence.getId(), influence);
+        // 内存中保存只读快照，调用方之后对influence的修改不影响已存储的记录
+        Influence snapshot = created.snapshot();
+        Lock barrier = mutationBarrier.readLock();
+        barrier.lock();
+        try {
+            synchronized (keyLocks.lockFor(snapshot.getId())) {
+                if (influenceMap.containsKey(snapshot.getId())) {
+                    return false; // 并发创建了相同ID
+                }
+                persistInfluence(snapshot);
+                influenceMap.put(snapshot.getId(), snapshot);
+                indexInfluence(snapshot);
+            }
+        } finally {
+            barrier.unlock();
+        }
+        writeBack(influence, snapshot);
         return true;
     }
 
     /**
      * 获取影响力记录
      * @param id 记录ID
-     * @return 返回影响力记录对象，不存在返回null
+     * @return 返回影响力记录的只读快照（修改需先copy()），不存在返回null
      */
     public Influence getInfluence(String id) {
         return influenceMap.get(id);
     }
 
     /**
-     * 更新影响力记录
+     * 更新影响力记录（不检查版本号）
      * @param influence 待更新的影响力记录对象
      * @return 更新成功返回true，记录不存在返回false
      */
     public boolean updateInfluence(Influence influence) {
-        if (!influenceMap.containsKey(influence.getId())) {
-            return false; // 记录不存在
+        return updateInfluence(influence, WriteResult.ANY_VERSION) == WriteResult.APPLIED;
+    }
+
+    /**
+     * 按版本号条件更新影响力记录：当前版本号等于expectedVersion时才写入，写入后版本号加1。
+     * 比较、落盘和写入内存在同一个分段锁内完成，并发更新同一记录时只有一个能成功；
+     * 新的更新时间和版本号在落盘成功后才回写到influence
+     * @param expectedVersion 期望的当前版本号，WriteResult.ANY_VERSION表示不检查
+     * @return APPLIED、NOT_FOUND或VERSION_CONFLICT
+     */
+    public WriteResult updateInfluence(Influence influence, long expectedVersion) {
+        Influence snapshot;
+        Lock barrier = mutationBarrier.readLock();
+        barrier.lock();
+        try {
+            synchronized (keyLocks.lockFor(influence.getId())) {
+                Influence existing = influenceMap.get(influence.getId());
+                if (existing == null) {
+                    return WriteResult.NOT_FOUND;
+                }
+                if (!versionMatches(existing.getVersion(), expectedVersion)) {
+                    return WriteResult.VERSION_CONFLICT;
+                }
+                // 在副本上更新更新时间和版本号，再以新快照整体替换旧快照
+                Influence updated = influence.copy();
+                updated.setUpdateTime(LocalDateTime.now());
+                updated.setVersion(existing.getVersion() + 1);
+                snapshot = updated.snapshot();
+                persistInfluence(snapshot);
+                influenceMap.put(snapshot.getId(), snapshot);
+                // 按id记录的旧索引键移除旧条目，活动时间被修改时索引随之调整
+                indexInfluence(snapshot);
+            }
+        } finally {
+            barrier.unlock();
         }
-        
-        // 更新更新时间
-        influence.setUpdateTime(LocalDateTime.now());
-        influenceMap.put(influence.getId(), influence);
-        return true;
+        writeBack(influence, snapshot);
+        return WriteResult.APPLIED;
     }
 
     /**
-     * 删除影响力记录
+     * 落盘成功后把创建时间、更新时间、版本号回写到调用方传入的记录（传入的是只读快照时不回写）
+     */
+    private static void writeBack(Influence influence, Influence stored) {
+        if (!influence.isFrozen()) {
+            influence.setCreateTime(stored.getCreateTime());
+            influence.setUpdateTime(stored.getUpdateTime());
+            influence.setVersion(stored.getVersion());
+            if (influence.getImageUrls() == null) {
+                influence.setImageUrls(new ArrayList<>());
+            }
+        }
+    }
+
+    /**
+     * 删除影响力记录（不检查版本号）
      * @param id 记录ID
      * @return 删除成功返回true，记录不存在返回false
      */
     public boolean deleteInfluence(String id) {
-        if (!influenceMap.containsKey(id)) {
-            return false; // 记录不存在
+        return deleteInfluence(id, WriteResult.ANY_VERSION) == WriteResult.APPLIED;
+    }
+
+    /**
+     * 按版本号条件删除影响力记录：当前版本号等于expectedVersion时才删除
+     * @param expectedVersion 期望的当前版本号，WriteResult.ANY_VERSION表示不检查
+     * @return APPLIED、NOT_FOUND或VERSION_CONFLICT
+     */
+    public WriteResult deleteInfluence(String id, long expectedVersion) {
+        Lock barrier = mutationBarrier.readLock();
+        barrier.lock();
+        try {
+            synchronized (keyLocks.lockFor(id)) {
+                Influence existing = influenceMap.get(id);
+                if (existing == null) {
+                    return WriteResult.NOT_FOUND;
+                }
+                if (!versionMatches(existing.getVersion(), expectedVersion)) {
+                    return WriteResult.VERSION_CONFLICT;
+                }
+                deleteFromDatabase(id);
+                influenceMap.remove(id);
+                unindexInfluence(id);
+            }
+        } finally {
+            barrier.unlock();
         }
-        influenceMap.remove(id);
-        return true;
+        return WriteResult.APPLIED;
+    }
+
+    private static boolean versionMatches(long currentVersion, long expectedVersion) {
+        return expectedVersion == WriteResult.ANY_VERSION || currentVersion == expectedVersion;
     }
 
     /**
@@ -239,14 +442,33 @@ public class InfluenceDAO {
      * @return 返回该类型的所有影响力记录列表，按活动时间降序排列
      */
     public List<Influence> getInfluencesByType(String type) {
+        return getInfluencesByType(type, null, null);
+    }
+
+    /**
+     * 查询某个类型在活动时间范围内的影响力记录，直接读取类型分区索引
+     * @param from 活动时间下限（含），null表示不限
+     * @param to 活动时间上限（含），null表示不限
+     * @return 按活动时间降序排列
+     */
+    public List<Influence> getInfluencesByType(String type, LocalDateTime from, LocalDateTime to) {
         if (type == null || type.trim().isEmpty()) {
             return new ArrayList<>();
         }
-        
-        return influenceMap.values().stream()
-                .filter(influence -> type.equals(influence.getType()))
-                .sorted(Comparator.comparing(Influence::getEventTime).reversed())
-                .collect(Collectors.toList());
+        return typeIndex.list(type, true, from, to);
+    }
+
+    /**
+     * 查询某个状态在活动时间范围内的影响力记录，直接读取状态分区索引
+     * @param from 活动时间下限（含），null表示不限
+     * @param to 活动时间上限（含），null表示不限
+     * @return 按活动时间降序排列
+     */
+    public List<Influence> getInfluencesByStatus(String status, LocalDateTime from, LocalDateTime to) {
+        if (status == null || status.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return statusIndex.list(status, true, from, to);
     }
 
     /**
@@ -254,8 +476,136 @@ public class InfluenceDAO {
      * @return 返回所有影响力记录列表，按活动时间降序排列（最新的在前）
      */
     public List<Influence> getAllInfluences() {
-        return influenceMap.values().stream()
-                .sorted(Comparator.comparing(Influence::getEventTime).reversed())
-                .collect(Collectors.toList());
+        return getAllInfluences(true);
+    }
+
+    /**
+     * 按活动时间排序获取所有影响力记录列表，直接遍历排序索引
+     * @param descending true为降序
+     */
+    public List<Influence> getAllInfluences(boolean descending) {
+        return getAllInfluences(descending, null, null);
+    }
+
+    /**
+     * 查询活动时间范围内的影响力记录
+     * @param from 活动时间下限（含），null表示不限
+     * @param to 活动时间上限（含），null表示不限
+     */
+    public List<Influence> getAllInfluences(boolean descending, LocalDateTime from, LocalDateTime to) {
+        return eventTimeIndex.list(descending, from, to);
+    }
+
+    /**
+     * 按活动时间排序分页获取影响力记录
+     * @param from 活动时间下限（含），null表示不限
+     * @param to 活动时间上限（含），null表示不限
+     * @param cursor 上一页返回的游标，null表示第一页
+     * @param limit 每页条数
+     * @throws IllegalArgumentException 游标无效或与查询条件不匹配时抛出
+     */
+    public Page<Influence> getInfluencesPage(boolean descending, LocalDateTime from, LocalDateTime to,
+                                             String cursor, int limit) {
+        String scope = "influence:eventTime:" + (descending ? "desc" : "asc") + rangeScope(from, to);
+        return eventTimeIndex.page(scope, descending, from, to, cursor, limit, null);
+    }
+
+    /**
+     * 分页获取某个类型的影响力记录，按活动时间降序排列
+     * @throws IllegalArgumentException 游标无效或与查询条件不匹配时抛出
+     * @see #getInfluencesPage
+     */
+    public Page<Influence> getInfluencesByTypePage(String type, LocalDateTime from, LocalDateTime to,
+                                                   String cursor, int limit) {
+        return typeIndex.page(type, "influence-type:" + type + rangeScope(from, to), true, from, to, cursor, limit);
+    }
+
+    /**
+     * 分页获取某个状态的影响力记录，按活动时间降序排列
+     * @throws IllegalArgumentException 游标无效或与查询条件不匹配时抛出
+     * @see #getInfluencesPage
+     */
+    public Page<Influence> getInfluencesByStatusPage(String status, LocalDateTime from, LocalDateTime to,
+                                                     String cursor, int limit) {
+        return statusIndex.page(status, "influence-status:" + status + rangeScope(from, to), true, from, to, cursor, limit);
+    }
+
+    /**
+     * 统计满足条件的影响力记录数：同一字段的多个取值之间为OR，类型与状态之间为AND，
+     * 由位图索引计算（交集的popcount），不逐条比较记录
+     * @param types 类型，null或空表示不限
+     * @param statuses 状态，null或空表示不限
+     */
+    public int countInfluences(Collection<String> types, Collection<String> statuses) {
+        return bitmapIndex.count(bitmapConditions(types, statuses));
+    }
+
+    /**
+     * 按类型和状态过滤影响力记录，条件组合方式同countInfluences
+     * @return 按活动时间降序排列
+     */
+    public List<Influence> filterInfluences(Collection<String> types, Collection<String> statuses) {
+        return parallelScan.sort(bitmapIndex.select(bitmapConditions(types, statuses)), EVENT_TIME_DESC, null);
+    }
+
+    /**
+     * 按名称和备注全文检索，要求包含查询的全部词（中文按相邻两字切分）
+     * @param limit 最多返回条数
+     * @return 命中的记录ID及相关度得分，按得分降序排列
+     */
+    public List<SearchHit> searchText(String query, int limit) {
+        return textIndex.search(query, limit);
+    }
+
+    private static Map<String, Function<Influence, ?>> bitmapFields() {
+        Map<String, Function<Influence, ?>> fields = new LinkedHashMap<>();
+        fields.put("type", Influence::getType);
+        fields.put("status", Influence::getStatus);
+        return fields;
+    }
+
+    private static Map<String, Collection<?>> bitmapConditions(Collection<String> types, Collection<String> statuses) {
+        Map<String, Collection<?>> conditions = new LinkedHashMap<>();
+        conditions.put("type", types);
+        conditions.put("status", statuses);
+        return conditions;
+    }
+
+    /**
+     * 时间范围写入游标的查询范围，换了范围的旧游标不能继续使用
+     */
+    private static String rangeScope(LocalDateTime from, LocalDateTime to) {
+        return from == null && to == null ? "" : ":" + from + "~" + to;
+    }
+
+    /**
+     * 写入或更新记录的索引，需在该记录的分段锁内调用
+     */
+    private void indexInfluence(Influence influence) {
+        eventTimeIndex.put(influence);
+        typeIndex.put(influence);
+        statusIndex.put(influence);
+        bitmapIndex.put(influence);
+        textIndex.put(influence);
+    }
+
+    private void unindexInfluence(String id) {
+        eventTimeIndex.remove(id);
+        typeIndex.remove(id);
+        statusIndex.remove(id);
+        bitmapIndex.remove(id);
+        textIndex.remove(id);
+    }
+
+    /**
+     * 批量加载（数据库、快照）之后按influenceMap重建索引
+     */
+    private void rebuildIndexes() {
+        eventTimeIndex.clear();
+        typeIndex.clear();
+        statusIndex.clear();
+        bitmapIndex.clear();
+        textIndex.clear();
+        influenceMap.values().forEach(this::indexInfluence);
     }
 }
@@ -0,0 +1,68 @@
+package com.example.demo.dao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 延迟解码的只读JSON字符串列表：批量加载时只保存原始JSON，首次访问时才反序列化，
+ * 未被访问过的记录写回数据库时直接复用原始JSON。记录以只读快照存储，修改图片列表需先复制记录。
+ */
+final class LazyJsonList extends AbstractList<String> {
+
+    private final ObjectMapper objectMapper;
+    private volatile String json;
+    private volatile List<String> decoded;
+
+    LazyJsonList(String json, ObjectMapper objectMapper) {
+        this.json = json;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 尚未解码时返回原始JSON，否则返回null
+     */
+    String rawJson() {
+        return decoded == null ? json : null;
+    }
+
+    @Override
+    public String get(int index) {
+        return list().get(index);
+    }
+
+    @Override
+    public int size() {
+        return list().size();
+    }
+
+    private List<String> list() {
+        List<String> result = decoded;
+        if (result == null) {
+            synchronized (this) {
+                result = decoded;
+                if (result == null) {
+                    result = decode();
+                    decoded = result;
+                    json = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<String> decode() {
+        List<String> result = new ArrayList<>();
+        if (json != null && !json.isEmpty()) {
+            try {
+                result.addAll(objectMapper.readValue(json,
+                        objectMapper.getTypeFactory().constructCollectionType(List.class, String.class)));
+            } catch (Exception e) {
+                System.err.println("反序列化imageUrls失败: " + e.getMessage());
+            }
+        }
+        return result;
+    }
+}
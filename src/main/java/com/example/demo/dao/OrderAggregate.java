@@ -0,0 +1,58 @@
+package com.example.demo.dao;
+
+import java.math.BigDecimal;
+
+/**
+ * 订单聚合结果的一行：分组维度（未参与分组的维度为null）及该组的订单数和合计。
+ * 未设置金额的订单计入订单数，不计入金额合计。
+ */
+public final class OrderAggregate {
+
+    private final String productVersion;
+    private final Integer status;
+    // 创建月份，格式yyyy-MM
+    private final String month;
+    private final long orderCount;
+    private final BigDecimal totalAmount;
+    private final long purchasedLicCount;
+    private final long devScale;
+
+    OrderAggregate(String productVersion, Integer status, String month, long orderCount,
+                   BigDecimal totalAmount, long purchasedLicCount, long devScale) {
+        this.productVersion = productVersion;
+        this.status = status;
+        this.month = month;
+        this.orderCount = orderCount;
+        this.totalAmount = totalAmount;
+        this.purchasedLicCount = purchasedLicCount;
+        this.devScale = devScale;
+    }
+
+    public String getProductVersion() {
+        return productVersion;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public long getPurchasedLicCount() {
+        return purchasedLicCount;
+    }
+
+    public long getDevScale() {
+        return devScale;
+    }
+}
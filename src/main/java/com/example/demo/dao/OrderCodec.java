@@ -0,0 +1,110 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 订单二进制编解码（日志与快照文件共用的紧凑格式）。
+ * 写入走DataOutput，读取直接从ByteBuffer解码，可以原地遍历内存映射的快照文件。
+ */
+final class OrderCodec {
+
+    private static final int NULL_LENGTH = -1;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private OrderCodec() {
+    }
+
+    static void write(DataOutput out, Order order) throws IOException {
+        writeString(out, order.getCid());
+        writeString(out, order.getCustomerName());
+        writeString(out, order.getProductVersion());
+        writeInteger(out, order.getDevScale());
+        writeInteger(out, order.getPurchasedLicCount());
+        out.writeLong(order.getTotalAmountMinor());
+        writeInteger(out, order.getStatus());
+        writeString(out, order.getDescription());
+        writeTime(out, order.getCreateTime());
+        writeTime(out, order.getPayTime());
+        writeTime(out, order.getUpdateTime());
+        out.writeLong(order.getVersion());
+    }
+
+    static Order read(ByteBuffer in) {
+        String cid = readString(in);
+        String customerName = readString(in);
+        String productVersion = readString(in);
+        Integer devScale = readInteger(in);
+        Integer purchasedLicCount = readInteger(in);
+        long amountMinor = in.getLong();
+        Order order = new Order(cid, customerName, productVersion, devScale, purchasedLicCount, null,
+                readInteger(in),
+                readString(in),
+                readTime(in),
+                readTime(in),
+                readTime(in)
+        );
+        order.setTotalAmountMinor(amountMinor);
+        order.setVersion(in.getLong());
+        return order.freeze();
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (in.hasArray()) {
+            String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeInteger(DataOutput out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    static Integer readInteger(ByteBuffer in) {
+        return in.get() != 0 ? in.getInt() : null;
+    }
+
+    static void writeTime(DataOutput out, LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.writeLong(NULL_TIME);
+            return;
+        }
+        out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(value.getNano());
+    }
+
+    static LocalDateTime readTime(ByteBuffer in) {
+        long seconds = in.getLong();
+        if (seconds == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(seconds, in.getInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 订单列存：随订单写入、更新、删除逐行维护基本类型数组，每次变更只改写该订单所在的行并递增版本号。
+ * snapshot()在版本号变化后才重新发布快照，发布只是数组复制，不需要重新遍历Order对象。
+ * <p>
+ * 行号稠密分配，删除后的行号优先复用；字典编码只增不减，clear()时重置。内部用读写锁保护。
+ */
+final class OrderColumnStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> rowOf = new HashMap<>();
+    private int[] freeRows = new int[16];
+    private int freeCount;
+    private int rowCount;
+    private long version;
+
+    private long[] live = new long[INITIAL_CAPACITY >>> 6];
+    private int[] status = new int[INITIAL_CAPACITY];
+    private int[] devScale = new int[INITIAL_CAPACITY];
+    private int[] purchasedLicCount = new int[INITIAL_CAPACITY];
+    private long[] amountMinor = new long[INITIAL_CAPACITY];
+    private long[] createTimeMs = new long[INITIAL_CAPACITY];
+    private int[] productVersionCode = new int[INITIAL_CAPACITY];
+    private int[] customerCode = new int[INITIAL_CAPACITY];
+
+    private final Map<String, Integer> productVersionCodes = new HashMap<>();
+    private final List<String> productVersions = new ArrayList<>();
+    private final Map<String, Integer> customerCodes = new HashMap<>();
+    private final List<String> customers = new ArrayList<>();
+
+    // 最近一次发布的快照，版本号未变化时直接复用
+    private volatile ColumnarSnapshot published;
+
+    /**
+     * 写入或更新订单所在的行
+     */
+    void put(Order order) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = rowOf.get(order.getCid());
+            int row = existing != null ? existing : allocateRow(order.getCid());
+            status[row] = order.getStatus() != null ? order.getStatus() : ColumnarSnapshot.NULL_STATUS;
+            devScale[row] = order.getDevScale() != null ? order.getDevScale() : 0;
+            purchasedLicCount[row] = order.getPurchasedLicCount() != null ? order.getPurchasedLicCount() : 0;
+            amountMinor[row] = order.getTotalAmountMinor();
+            createTimeMs[row] = order.getCreateTime() != null
+                ? Timestamps.toEpochMilli(order.getCreateTime()) : ColumnarSnapshot.NULL_TIME;
+            productVersionCode[row] = encode(order.getProductVersion(), productVersionCodes, productVersions);
+            customerCode[row] = encode(order.getCustomerName(), customerCodes, customers);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String cid) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowOf.remove(cid);
+            if (row == null) {
+                return;
+            }
+            live[row >>> 6] &= ~(1L << row);
+            if (freeCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+            }
+            freeRows[freeCount++] = row;
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            rowOf.clear();
+            freeCount = 0;
+            rowCount = 0;
+            Arrays.fill(live, 0L);
+            productVersionCodes.clear();
+            productVersions.clear();
+            customerCodes.clear();
+            customers.clear();
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 当前数据的不可变快照：版本号未变化时返回上次发布的快照，否则复制各列后发布
+     */
+    ColumnarSnapshot snapshot() {
+        ColumnarSnapshot current = published;
+        lock.readLock().lock();
+        try {
+            if (current != null && current.version == version) {
+                return current;
+            }
+            int words = (rowCount + 63) >>> 6;
+            current = new ColumnarSnapshot(version, rowCount, rowOf.size(),
+                Arrays.copyOf(live, words),
+                Arrays.copyOf(status, rowCount),
+                Arrays.copyOf(devScale, rowCount),
+                Arrays.copyOf(purchasedLicCount, rowCount),
+                Arrays.copyOf(amountMinor, rowCount),
+                Arrays.copyOf(createTimeMs, rowCount),
+                Arrays.copyOf(productVersionCode, rowCount),
+                Arrays.copyOf(customerCode, rowCount),
+                productVersions.toArray(new String[0]),
+                customers.toArray(new String[0]));
+        } finally {
+            lock.readLock().unlock();
+        }
+        published = current;
+        return current;
+    }
+
+    private int allocateRow(String cid) {
+        int row;
+        if (freeCount > 0) {
+            row = freeRows[--freeCount];
+        } else {
+            row = rowCount++;
+            if (row == status.length) {
+                grow(status.length * 2);
+            }
+        }
+        live[row >>> 6] |= 1L << row;
+        rowOf.put(cid, row);
+        return row;
+    }
+
+    private void grow(int capacity) {
+        live = Arrays.copyOf(live, capacity >>> 6);
+        status = Arrays.copyOf(status, capacity);
+        devScale = Arrays.copyOf(devScale, capacity);
+        purchasedLicCount = Arrays.copyOf(purchasedLicCount, capacity);
+        amountMinor = Arrays.copyOf(amountMinor, capacity);
+        createTimeMs = Arrays.copyOf(createTimeMs, capacity);
+        productVersionCode = Arrays.copyOf(productVersionCode, capacity);
+        customerCode = Arrays.copyOf(customerCode, capacity);
+    }
+
+    private static int encode(String value, Map<String, Integer> codes, List<String> values) {
+        if (value == null) {
+            return ColumnarSnapshot.NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+}
@@ -1,16 +1,36 @@
 package com.example.demo.dao;
 
 import com.example.demo.entity.Order;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 /**
  * 订单数据访问对象（SQLite实现）
@@ -18,9 +38,147 @@ import java.util.stream.Collectors;
 public class OrderDAO {
     // 模拟数据库存储 - 使用线程安全的Map
     private final Map<String, Order> orderMap = new ConcurrentHashMap<>();
-    
-    // 时间格式化器
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
+    // 二级索引（仅全量内存模式），在变更的分段锁内与orderMap同步维护
+    private final OrderIndexes indexes = new OrderIndexes();
+
+    // 组合条件查询按索引的估算行数选择驱动扫描（仅全量内存模式）
+    private final OrderQueryPlanner planner = new OrderQueryPlanner(indexes);
+
+    // 大查询的并行扫描（过滤、排序、列式汇总），行数达到阈值时在专用线程池中执行
+    private volatile ParallelScan parallelScan = ParallelScan.shared();
+
+    /**
+     * 订单持久化模式
+     */
+    public enum WriteMode {
+        // 变更先写内存，由后台线程按间隔或批量增量落盘
+        WRITE_BEHIND,
+        // 每次变更与其他并发请求合并为组事务，提交后才返回
+        GROUP_COMMIT,
+        // 每次变更先顺序追加到日志再返回，数据库由后台刷盘跟进，定期快照并截断日志
+        JOURNAL
+    }
+
+    private volatile WriteMode writeMode = WriteMode.WRITE_BEHIND;
+
+    /**
+     * 订单列表的排序字段
+     */
+    public enum SortField {
+        CREATE_TIME("createTime", "createTimeMs", Order::getCreateTime),
+        UPDATE_TIME("updateTime", "updateTimeMs", Order::getUpdateTime),
+        TOTAL_AMOUNT("totalAmount", "totalAmountMinor",
+            order -> order.getTotalAmountMinor() != Order.NO_AMOUNT ? order.getTotalAmountMinor() : null);
+
+        final String param;
+        final String column;
+        final Function<Order, ? extends Comparable<?>> keyExtractor;
+
+        SortField(String param, String column, Function<Order, ? extends Comparable<?>> keyExtractor) {
+            this.param = param;
+            this.column = column;
+            this.keyExtractor = keyExtractor;
+        }
+
+        /**
+         * 按请求参数名（createTime/updateTime/totalAmount）解析排序字段
+         * @throws IllegalArgumentException 不支持的排序字段
+         */
+        public static SortField fromParam(String param) {
+            for (SortField field : values()) {
+                if (field.param.equals(param)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("不支持的排序字段: " + param);
+        }
+    }
+
+    /**
+     * 订单聚合的分组维度
+     */
+    public enum AggregateDimension {
+        PRODUCT_VERSION("productVersion", "productVersion"),
+        STATUS("status", "status"),
+        MONTH("month", "strftime('%Y-%m', createTimeMs / 1000, 'unixepoch')");
+
+        final String param;
+        final String expression;
+
+        AggregateDimension(String param, String expression) {
+            this.param = param;
+            this.expression = expression;
+        }
+
+        /**
+         * 按请求参数名（productVersion/status/month）解析分组维度
+         * @throws IllegalArgumentException 不支持的分组维度
+         */
+        public static AggregateDimension fromParam(String param) {
+            for (AggregateDimension dimension : values()) {
+                if (dimension.param.equals(param)) {
+                    return dimension;
+                }
+            }
+            throw new IllegalArgumentException("不支持的分组维度: " + param);
+        }
+    }
+
+    // 聚合结果排序：月份、产品版本、状态依次升序，null在前
+    private static final Comparator<OrderAggregate> AGGREGATE_ORDER = Comparator
+        .comparing(OrderAggregate::getMonth, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+        .thenComparing(OrderAggregate::getProductVersion, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+        .thenComparing(OrderAggregate::getStatus, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()));
+
+    // 追加日志（JOURNAL模式），由enableJournal设置
+    private OrderJournal journal;
+    private long checkpointIntervalMs;
+    private long checkpointBytes;
+    private volatile long lastCheckpointAt;
+
+    // 启动快照文件（非JOURNAL模式），由enableSnapshot设置
+    private Path snapshotPath;
+
+    // 热点缓存模式（enableHotSet开启）：内存只保留有界热点集合，未命中按主键回源SQLite，变更直接写穿
+    private HotSetCache<String, Order> hotSet;
+
+    // 按cid分段加锁：同一订单的版本检查、持久化与内存（或热点缓存回源加载）更新顺序一致，
+    // 持久化可能阻塞，因此不放在orderMap的compute回调中
+    private final StripedLocks keyLocks = new StripedLocks(64);
+
+    // 变更屏障（全量内存模式）：每次变更在持有读锁期间完成追加日志、写入内存和标记待刷盘；
+    // 检查点在日志轮转之后取一次写锁，等待已追加到旧日志、尚未写入内存的变更完成
+    private final ReadWriteLock mutationBarrier = new ReentrantReadWriteLock();
+
+    // 最近一次从数据库加载的统计
+    private volatile Map<String, Object> lastLoadStats;
+
+    // 待落盘的变更：cid -> 首次标记时间（毫秒），用于计算落盘延迟
+    private final Map<String, Long> dirtyCids = new ConcurrentHashMap<>();
+    private final Map<String, Long> deletedCids = new ConcurrentHashMap<>();
+
+    // 后台刷盘线程（write-behind），由startFlusher启动
+    private ScheduledExecutorService flusher;
+    private volatile int flushBatchSize = 500;
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+
+    // 单条订单连续落盘失败达到该次数后隔离，不再每轮重试
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+    // 单条落盘失败的次数：cid -> 连续失败次数
+    private final Map<String, Integer> flushAttempts = new ConcurrentHashMap<>();
+    // 被隔离的订单：cid -> 最后一次失败原因，订单再次变更时解除隔离
+    private final Map<String, String> quarantinedCids = new ConcurrentHashMap<>();
+
+    // 刷盘指标
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private volatile long lastBatchSize;
+    private volatile long maxBatchSize;
+    private volatile long lastFlushDurationMs;
+    private volatile long lastFlushLagMs;
+    private volatile long lastFlushAt;
 
     /**
      * 初始化数据库表结构
@@ -39,179 +197,789 @@ public class OrderDAO {
                 "description TEXT, " +
                 "createTime TEXT, " +
                 "payTime TEXT, " +
-                "updateTime TEXT)";
+                "updateTime TEXT, " +
+                "createTimeMs INTEGER, " +
+                "payTimeMs INTEGER, " +
+                "updateTimeMs INTEGER, " +
+                "totalAmountMinor INTEGER, " +
+                "version INTEGER NOT NULL DEFAULT 0)";
             stmt.execute(sql);
+            // 旧版本建的表补齐INTEGER列，存量数据由后台分批回填
+            ColumnMigration.addColumns(conn, OrderTable.TABLE_NAME, OrderTable.MIGRATED_COLUMNS, "createTimeMs", "updateTimeMs");
+            ColumnMigration.addColumn(conn, OrderTable.TABLE_NAME, "version", "INTEGER NOT NULL DEFAULT 0");
+            SnapshotFile.initGenerationTable(conn);
         } catch (SQLException e) {
             System.out.println("数据库初始化失败: " + e.getMessage());
+            return;
         }
+        ColumnMigration.start(OrderTable.TABLE_NAME, OrderTable.MIGRATED_COLUMNS);
     }
     
     /**
-     * 将内存数据保存到数据库
+     * 启动后台刷盘线程：按固定间隔，或待落盘记录数达到批量阈值时，增量持久化变更的订单
+     * @param intervalMs 刷盘间隔（毫秒）
+     * @param batchSize 每条提交给组提交线程的变更写入的最大记录数，待落盘数达到该值时立即触发刷盘
      */
-    public void saveToDatabase() {
-        String sql = "INSERT OR REPLACE INTO order0713(" +
-            "cid, customerName, productVersion, devScale, purchasedLicCount, " +
-            "totalAmount, status, description, createTime, payTime, updateTime) " +
-            "VALUES(?,?,?,?,?,?,?,?,?,?,?)";
-        
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            for (Order order : orderMap.values()) {
-                pstmt.setString(1, order.getCid());
-                pstmt.setString(2, order.getCustomerName());
-                pstmt.setString(3, order.getProductVersion());
-                pstmt.setInt(4, order.getDevScale());
-                pstmt.setInt(5, order.getPurchasedLicCount());
-                pstmt.setString(6, order.getTotalAmount().toString());
-                pstmt.setInt(7, order.getStatus());
-                pstmt.setString(8, order.getDescription());
-                pstmt.setString(9, order.getCreateTime() != null ? order.getCreateTime().toString() : null);
-                pstmt.setString(10, order.getPayTime() != null ? order.getPayTime().toString() : null);
-                pstmt.setString(11, order.getUpdateTime() != null ? order.getUpdateTime().toString() : null);
-                pstmt.addBatch();
-            }
-            
-            pstmt.executeBatch();
-        } catch (SQLException e) {
-            System.out.println("数据保存失败: " + e.getMessage());
+    public synchronized void startFlusher(long intervalMs, int batchSize) {
+        if (flusher != null) {
+            return;
         }
+        this.flushBatchSize = Math.max(1, batchSize);
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            flushQuietly();
+            checkpointIfDue();
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        System.out.println("订单后台刷盘已启动: interval=" + intervalMs + "ms, batchSize=" + flushBatchSize);
     }
-    
+
     /**
-     * 从数据库加载数据到内存
+     * 设置持久化模式，切换前已标记的变更仍由后台刷盘落盘。JOURNAL模式需通过enableJournal开启
      */
-    public void loadFromDatabase() {
-        String sql = "SELECT cid, customerName, productVersion, devScale, purchasedLicCount, totalAmount, status, description, createTime, payTime, updateTime FROM order0713";
-        
-        try (Connection conn = DBUtil.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                // 解析时间字段
-                LocalDateTime createTime = null;
-                LocalDateTime payTime = null;
-                LocalDateTime updateTime = null;
-                
-                String createTimeStr = rs.getString("createTime");
-                String payTimeStr = rs.getString("payTime");
-                String updateTimeStr = rs.getString("updateTime");
-                
-                if (createTimeStr != null && !createTimeStr.isEmpty()) {
-                    try {
-                        createTime = LocalDateTime.parse(createTimeStr, FORMATTER);
-                    } catch (Exception e) {
-                        // 如果解析失败，尝试其他格式
-                        try {
-                            createTime = LocalDateTime.parse(createTimeStr);
-                        } catch (Exception e2) {
-                            System.out.println("创建时间解析失败: " + createTimeStr);
-                        }
-                    }
+    public void setWriteMode(WriteMode writeMode) {
+        if (writeMode == WriteMode.JOURNAL && journal == null) {
+            throw new IllegalStateException("JOURNAL模式需先调用enableJournal");
+        }
+        if (hotSet != null && writeMode != WriteMode.GROUP_COMMIT) {
+            throw new IllegalStateException("热点缓存模式下订单变更必须直接写穿数据库（GROUP_COMMIT）");
+        }
+        this.writeMode = writeMode;
+    }
+
+    /**
+     * 开启追加日志模式
+     * @param journal 订单日志
+     * @param checkpointIntervalMs 快照间隔（毫秒）
+     * @param checkpointBytes 日志超过该大小时提前快照并截断
+     */
+    public void enableJournal(OrderJournal journal, long checkpointIntervalMs, long checkpointBytes) {
+        this.journal = journal;
+        this.checkpointIntervalMs = checkpointIntervalMs;
+        this.checkpointBytes = checkpointBytes;
+        this.lastCheckpointAt = System.currentTimeMillis();
+        this.writeMode = WriteMode.JOURNAL;
+    }
+
+    /**
+     * 从快照+日志恢复内存数据；没有快照时以数据库为基线再重放日志。
+     * 日志中涉及的订单会被标记为待刷盘，使数据库追上日志。
+     */
+    public void recoverFromJournal() {
+        try {
+            if (journal.loadSnapshot(orderMap)) {
+                System.out.println("从订单快照加载了 " + orderMap.size() + " 条订单记录");
+            } else {
+                loadFromDatabase();
+            }
+            Set<String> touched = journal.replay(orderMap);
+            indexes.rebuild(orderMap.values());
+            for (String cid : touched) {
+                if (orderMap.containsKey(cid)) {
+                    markDirty(cid);
+                } else {
+                    markDeleted(cid);
                 }
-                
-                if (payTimeStr != null && !payTimeStr.isEmpty()) {
-                    try {
-                        payTime = LocalDateTime.parse(payTimeStr, FORMATTER);
-                    } catch (Exception e) {
-                        // 如果解析失败，尝试其他格式
-                        try {
-                            payTime = LocalDateTime.parse(payTimeStr);
-                        } catch (Exception e2) {
-                            System.out.println("支付时间解析失败: " + payTimeStr);
+            }
+            System.out.println("重放订单日志 " + touched.size() + " 条变更，当前共 " + orderMap.size() + " 条订单记录");
+        } catch (IOException e) {
+            throw new IllegalStateException("订单日志恢复失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 生成订单快照并截断日志。快照前先等待已追加到旧日志的变更写入内存，再把待刷盘数据写入数据库，
+     * 保证被截断的日志所对应的变更都已经在快照和数据库中。
+     */
+    public synchronized void checkpoint() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        journal.checkpoint(() -> {
+            // 轮转之后的变更只会追加到新日志，取一次写锁即可等到轮转前开始的变更全部完成
+            Lock barrier = mutationBarrier.writeLock();
+            barrier.lock();
+            barrier.unlock();
+            try {
+                flush();
+            } catch (SQLException e) {
+                throw new IllegalStateException("快照前刷盘失败: " + e.getMessage(), e);
+            }
+            return new ArrayList<>(orderMap.values());
+        });
+        lastCheckpointAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 开启热点缓存模式：内存只保留最多maxSize条订单，淘汰策略参考W-TinyLFU；
+     * 未命中时按主键回源数据库，变更以组提交方式直接写穿，列表查询改为查询数据库。
+     * 该模式下不再需要全量加载、启动快照和日志，写入模式固定为GROUP_COMMIT。
+     * @param maxSize 最多缓存的订单数
+     */
+    public void enableHotSet(int maxSize) {
+        if (journal != null) {
+            throw new IllegalStateException("热点缓存模式不支持JOURNAL写入模式");
+        }
+        this.hotSet = new HotSetCache<>(maxSize);
+        this.writeMode = WriteMode.GROUP_COMMIT;
+        orderMap.clear();
+        indexes.rebuild(orderMap.values());
+    }
+
+    /**
+     * 获取热点缓存指标（命中/未命中/淘汰次数），未开启热点缓存模式时返回null
+     */
+    public Map<String, Object> getCacheMetrics() {
+        return hotSet != null ? hotSet.getMetrics() : null;
+    }
+
+    /**
+     * 开启启动快照：停机时把内存全量写成二进制快照，下次启动优先通过内存映射加载
+     * @param snapshotPath 快照文件路径
+     */
+    public void enableSnapshot(Path snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+
+    /**
+     * 从启动快照加载内存数据，快照不存在、格式不符或数据库在快照之后被修改过时返回false，
+     * 调用方应改为从数据库加载
+     */
+    public boolean loadFromSnapshot() {
+        if (snapshotPath == null || hotSet != null) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            long generation;
+            try (Connection conn = DBUtil.getReadConnection()) {
+                generation = SnapshotFile.currentGeneration(conn, OrderTable.TABLE_NAME);
+            }
+            orderMap.clear();
+            if (!SnapshotFile.read(snapshotPath, SnapshotFile.ORDER_MAGIC, generation,
+                    OrderCodec::read, order -> orderMap.put(order.getCid(), order))) {
+                return false;
+            }
+            indexes.rebuild(orderMap.values());
+            System.out.println("从订单快照加载了 " + orderMap.size() + " 条订单记录，耗时 "
+                    + (System.currentTimeMillis() - start) + "ms");
+            return true;
+        } catch (IOException | SQLException e) {
+            System.out.println("订单快照加载失败，改为从数据库加载: " + e.getMessage());
+            orderMap.clear();
+            indexes.rebuild(orderMap.values());
+            return false;
+        }
+    }
+
+    /**
+     * 把内存全量写成启动快照，快照记录写入时数据库的表版本号。
+     * 需在停止写入并刷盘之后调用，否则快照内容可能与版本号不一致
+     */
+    public void writeSnapshot() throws IOException, SQLException {
+        if (snapshotPath == null || hotSet != null) {
+            return;
+        }
+        flush();
+        long generation;
+        try (Connection conn = DBUtil.getReadConnection()) {
+            generation = SnapshotFile.currentGeneration(conn, OrderTable.TABLE_NAME);
+        }
+        int count = SnapshotFile.write(snapshotPath, SnapshotFile.ORDER_MAGIC, generation,
+                orderMap.values(), OrderCodec::write);
+        System.out.println("已写入订单快照 " + count + " 条记录: " + snapshotPath);
+    }
+
+    /**
+     * 获取日志指标，未开启日志模式时返回null
+     */
+    public Map<String, Object> getJournalMetrics() {
+        return journal != null ? journal.getMetrics() : null;
+    }
+
+    public WriteMode getWriteMode() {
+        return writeMode;
+    }
+
+    /**
+     * 停止后台刷盘线程，把剩余变更同步落盘，并写入快照（日志模式为检查点，否则为启动快照）
+     */
+    public void shutdown() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = flusher;
+            flusher = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushQuietly();
+        if (journal != null) {
+            try {
+                checkpoint();
+                journal.close();
+            } catch (IOException | IllegalStateException e) {
+                System.out.println("关闭订单日志失败: " + e.getMessage());
+            }
+        } else if (snapshotPath != null) {
+            try {
+                writeSnapshot();
+            } catch (IOException | SQLException e) {
+                System.out.println("写入订单快照失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 将脏数据和已删除记录增量落盘。写入按flushBatchSize分块提交，某块失败时逐条重试该块，
+     * 只有真正写不进去的记录才会留待下次，不连累同块的其他记录；连续失败的记录会被隔离
+     * @return 本次落盘的记录数
+     * @throws SQLException 有记录未能落盘时抛出（已写入的部分不回滚，其余标记保留到下次重试）
+     */
+    public synchronized int flush() throws SQLException {
+        flushRequested.set(false);
+        if (dirtyCids.isEmpty() && deletedCids.isEmpty()) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        long oldest = Math.min(oldestMark(dirtyCids), oldestMark(deletedCids));
+
+        // 先摘除标记再读取当前值：刷盘期间再次变更的记录会被重新标记，下一轮补写
+        Map<String, Long> upserts = drain(dirtyCids);
+        Map<String, Long> deletes = drain(deletedCids);
+
+        // 按flushBatchSize分块提交给组提交线程，删除排在写入之后；队列已满时停止提交，其余留待下次
+        List<String> cids = new ArrayList<>(upserts.keySet());
+        List<List<String>> chunks = new ArrayList<>();
+        List<CompletableFuture<Void>> chunkFutures = new ArrayList<>();
+        List<AtomicInteger> chunkRows = new ArrayList<>();
+        CompletableFuture<Void> deleteFuture = null;
+        String failure = null;
+        try {
+            for (int from = 0; from < cids.size(); from += flushBatchSize) {
+                List<String> chunk = cids.subList(from, Math.min(cids.size(), from + flushBatchSize));
+                AtomicInteger rows = new AtomicInteger();
+                chunkFutures.add(GroupCommitter.shared().submit(conn -> rows.set(upsertOrders(conn, chunk))));
+                chunks.add(chunk);
+                chunkRows.add(rows);
+            }
+            if (!deletes.isEmpty()) {
+                deleteFuture = GroupCommitter.shared().submit(conn -> {
+                    try (PreparedStatement delete = conn.prepareStatement(OrderTable.DELETE_SQL)) {
+                        for (String cid : deletes.keySet()) {
+                            delete.setString(1, cid);
+                            delete.addBatch();
                         }
+                        delete.executeBatch();
                     }
-                }
-                
-                if (updateTimeStr != null && !updateTimeStr.isEmpty()) {
-                    try {
-                        updateTime = LocalDateTime.parse(updateTimeStr, FORMATTER);
-                    } catch (Exception e) {
-                        // 如果解析失败，尝试其他格式
-                        try {
-                            updateTime = LocalDateTime.parse(updateTimeStr);
-                        } catch (Exception e2) {
-                            System.out.println("更新时间解析失败: " + updateTimeStr);
-                        }
+                    SnapshotFile.bumpGeneration(conn, OrderTable.TABLE_NAME);
+                });
+            }
+        } catch (WriteQueueFullException e) {
+            failure = e.getMessage();
+        }
+
+        // 等待各块提交，失败的块逐条重新提交（同一组事务中每条变更有独立的保存点）
+        int written = 0;
+        Set<String> persisted = new HashSet<>();
+        Map<String, CompletableFuture<Void>> retries = new LinkedHashMap<>();
+        for (int i = 0; i < chunkFutures.size(); i++) {
+            try {
+                GroupCommitter.shared().await(chunkFutures.get(i));
+                written += chunkRows.get(i).get();
+                persisted.addAll(chunks.get(i));
+            } catch (IllegalStateException e) {
+                failure = e.getMessage();
+                try {
+                    for (String cid : chunks.get(i)) {
+                        retries.put(cid, GroupCommitter.shared().submit(
+                            conn -> upsertOrders(conn, Collections.singletonList(cid))));
                     }
+                } catch (WriteQueueFullException full) {
+                    // 其余记录留待下次
+                }
+            }
+        }
+        Map<String, String> rowFailures = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<Void>> retry : retries.entrySet()) {
+            try {
+                GroupCommitter.shared().await(retry.getValue());
+                written++;
+                persisted.add(retry.getKey());
+            } catch (IllegalStateException e) {
+                rowFailures.put(retry.getKey(), e.getMessage());
+            }
+        }
+        if (deleteFuture != null) {
+            try {
+                GroupCommitter.shared().await(deleteFuture);
+                written += deletes.size();
+            } catch (IllegalStateException e) {
+                failure = e.getMessage();
+                deleteFuture = null;
+            }
+        }
+        persisted.forEach(flushAttempts::remove);
+
+        // 本轮有其他记录写入成功时，单条失败才计入该记录的失败次数（整体不可用时不隔离任何记录）
+        if (!persisted.isEmpty()) {
+            rowFailures.forEach(this::recordFlushFailure);
+        }
+        upserts.keySet().removeAll(persisted);
+        upserts.keySet().removeAll(quarantinedCids.keySet());
+        restore(upserts, dirtyCids, deletedCids);
+        if (deleteFuture == null) {
+            restore(deletes, deletedCids, dirtyCids);
+        }
+
+        long now = System.currentTimeMillis();
+        flushCount.incrementAndGet();
+        flushedRows.addAndGet(written);
+        lastBatchSize = written;
+        maxBatchSize = Math.max(maxBatchSize, written);
+        lastFlushDurationMs = now - start;
+        lastFlushLagMs = oldest == Long.MAX_VALUE ? 0 : now - oldest;
+        lastFlushAt = now;
+        if (failure != null) {
+            flushFailures.incrementAndGet();
+            throw new SQLException("订单增量落盘失败（已写入" + written + "条，" + upserts.size() + "条写入"
+                + (deleteFuture == null && !deletes.isEmpty() ? "和" + deletes.size() + "条删除" : "")
+                + "留待下次重试）: " + failure);
+        }
+        return written;
+    }
+
+    /**
+     * 在组事务中写入一批订单（读取写入时刻的内存值，已删除的跳过）
+     * @return 写入的记录数
+     */
+    private int upsertOrders(Connection conn, List<String> cids) throws SQLException {
+        int rows = 0;
+        try (PreparedStatement upsert = conn.prepareStatement(OrderTable.UPSERT_SQL)) {
+            for (String cid : cids) {
+                Order order = orderMap.get(cid);
+                if (order == null) {
+                    continue; // 已被删除，由删除集合处理
+                }
+                OrderTable.bindOrder(upsert, order);
+                upsert.addBatch();
+                rows++;
+            }
+            upsert.executeBatch();
+        }
+        SnapshotFile.bumpGeneration(conn, OrderTable.TABLE_NAME);
+        return rows;
+    }
+
+    /**
+     * 记录一次单条落盘失败，连续失败MAX_FLUSH_ATTEMPTS次后隔离该订单，不再每轮重试
+     */
+    private void recordFlushFailure(String cid, String reason) {
+        int attempts = flushAttempts.merge(cid, 1, Integer::sum);
+        if (attempts >= MAX_FLUSH_ATTEMPTS) {
+            flushAttempts.remove(cid);
+            quarantinedCids.put(cid, reason);
+            System.out.println("订单连续" + attempts + "次落盘失败，已隔离（再次修改后重新落盘）: " + cid + ", " + reason);
+        }
+    }
+
+    /**
+     * 获取因连续落盘失败而被隔离的订单：cid -> 最后一次失败原因。这些订单只在内存中，再次修改后才会重新落盘
+     */
+    public Map<String, String> getQuarantinedOrders() {
+        return new LinkedHashMap<>(quarantinedCids);
+    }
+
+    /**
+     * 并行扫描线程池及累计的并行查询指标（线程池由订单和影响力查询共享）
+     */
+    public Map<String, Object> getParallelMetrics() {
+        return parallelScan.getMetrics();
+    }
+
+    /**
+     * 替换并行扫描配置（测试中用于调低阈值）
+     */
+    void setParallelScan(ParallelScan parallelScan) {
+        this.parallelScan = parallelScan;
+    }
+
+    /**
+     * 获取刷盘指标：待落盘记录数、磁盘落后内存的时间、批量大小等
+     */
+    public Map<String, Object> getFlushMetrics() {
+        long oldest = Math.min(oldestMark(dirtyCids), oldestMark(deletedCids));
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pendingUpserts", dirtyCids.size());
+        metrics.put("pendingDeletes", deletedCids.size());
+        metrics.put("flushLagMs", oldest == Long.MAX_VALUE ? 0 : System.currentTimeMillis() - oldest);
+        metrics.put("batchSizeLimit", flushBatchSize);
+        metrics.put("lastBatchSize", lastBatchSize);
+        metrics.put("maxBatchSize", maxBatchSize);
+        metrics.put("lastFlushLagMs", lastFlushLagMs);
+        metrics.put("lastFlushDurationMs", lastFlushDurationMs);
+        metrics.put("lastFlushAt", lastFlushAt);
+        metrics.put("flushCount", flushCount.get());
+        metrics.put("flushedRows", flushedRows.get());
+        metrics.put("flushFailures", flushFailures.get());
+        metrics.put("quarantined", quarantinedCids.size());
+        return metrics;
+    }
+
+    /**
+     * 获取待落盘的记录数（新增/更新 + 删除）
+     */
+    public int getPendingWriteCount() {
+        return dirtyCids.size() + deletedCids.size();
+    }
+
+    private void checkpointIfDue() {
+        if (journal == null) {
+            return;
+        }
+        if (System.currentTimeMillis() - lastCheckpointAt >= checkpointIntervalMs || journal.size() >= checkpointBytes) {
+            try {
+                checkpoint();
+            } catch (IOException | IllegalStateException e) {
+                System.out.println("订单快照失败: " + e.getMessage());
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            System.out.println("订单增量落盘失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 在分段锁内同步持久化一条新增/更新：组提交模式提交到数据库，日志模式追加到日志，后台刷盘模式无操作
+     * @throws IllegalStateException 持久化失败时抛出，内存不会被修改
+     */
+    private void writeThrough(Order order) {
+        if (writeMode == WriteMode.GROUP_COMMIT) {
+            GroupCommitter.shared().commit(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(OrderTable.UPSERT_SQL)) {
+                    OrderTable.bindOrder(pstmt, order);
+                    pstmt.executeUpdate();
+                }
+                SnapshotFile.bumpGeneration(conn, OrderTable.TABLE_NAME);
+            });
+        } else if (writeMode == WriteMode.JOURNAL) {
+            try {
+                journal.appendUpsert(order);
+            } catch (IOException e) {
+                throw new IllegalStateException("写入订单日志失败: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 在分段锁内同步持久化一条删除
+     * @throws IllegalStateException 持久化失败时抛出，内存不会被修改
+     */
+    private void writeThroughDelete(String cid) {
+        if (writeMode == WriteMode.GROUP_COMMIT) {
+            GroupCommitter.shared().commit(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(OrderTable.DELETE_SQL)) {
+                    pstmt.setString(1, cid);
+                    pstmt.executeUpdate();
                 }
-                
-                Order order = new Order(
-                    rs.getString("cid"),
-                    rs.getString("customerName"),
-                    rs.getString("productVersion"),
-                    rs.getInt("devScale"),
-                    rs.getInt("purchasedLicCount"),
-                    new BigDecimal(rs.getString("totalAmount")),
-                    rs.getInt("status"),
-                    rs.getString("description"),
-                    createTime,
-                    payTime,
-                    updateTime
-                );
-                orderMap.put(order.getCid(), order);
-            }
-            System.out.println("从数据库加载了 " + orderMap.size() + " 条订单记录");
+                SnapshotFile.bumpGeneration(conn, OrderTable.TABLE_NAME);
+            });
+        } else if (writeMode == WriteMode.JOURNAL) {
+            try {
+                journal.appendDelete(cid);
+            } catch (IOException e) {
+                throw new IllegalStateException("写入订单日志失败: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 内存写入之后标记待刷盘（必须在写入之后，否则刷盘线程可能读到旧值后清除标记）
+     */
+    private void markDirtyIfBackground(String cid) {
+        if (writeMode != WriteMode.GROUP_COMMIT) {
+            markDirty(cid);
+        }
+    }
+
+    private void markDeletedIfBackground(String cid) {
+        if (writeMode != WriteMode.GROUP_COMMIT) {
+            markDeleted(cid);
+        }
+    }
+
+    private void markDirty(String cid) {
+        releaseQuarantine(cid);
+        deletedCids.remove(cid);
+        dirtyCids.putIfAbsent(cid, System.currentTimeMillis());
+        requestFlushIfFull();
+    }
+
+    private void markDeleted(String cid) {
+        releaseQuarantine(cid);
+        dirtyCids.remove(cid);
+        deletedCids.putIfAbsent(cid, System.currentTimeMillis());
+        requestFlushIfFull();
+    }
+
+    /**
+     * 订单再次变更时解除隔离、清零失败次数，按新值重新落盘
+     */
+    private void releaseQuarantine(String cid) {
+        if (!quarantinedCids.isEmpty()) {
+            quarantinedCids.remove(cid);
+        }
+        flushAttempts.remove(cid);
+    }
+
+    /**
+     * 待落盘记录数达到批量阈值时，提前唤醒刷盘线程
+     */
+    private void requestFlushIfFull() {
+        ScheduledExecutorService executor = flusher;
+        if (executor != null && getPendingWriteCount() >= flushBatchSize
+                && flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private static Map<String, Long> drain(Map<String, Long> marks) {
+        Map<String, Long> drained = new LinkedHashMap<>();
+        for (String cid : new ArrayList<>(marks.keySet())) {
+            Long since = marks.remove(cid);
+            if (since != null) {
+                drained.put(cid, since);
+            }
+        }
+        return drained;
+    }
+
+    private static void restore(Map<String, Long> drained, Map<String, Long> target, Map<String, Long> opposite) {
+        drained.forEach((cid, since) -> {
+            // 期间已有更新的标记时不覆盖
+            if (!opposite.containsKey(cid)) {
+                target.merge(cid, since, Math::min);
+            }
+        });
+    }
+
+    private static long oldestMark(Map<String, Long> marks) {
+        long oldest = Long.MAX_VALUE;
+        for (Long since : marks.values()) {
+            oldest = Math.min(oldest, since);
+        }
+        return oldest;
+    }
+
+    /**
+     * 从数据库加载数据到内存：按rowid分段并行读取，按列索引取值
+     */
+    public void loadFromDatabase() {
+        try {
+            Map<String, Object> stats = ParallelLoader.load(OrderTable.TABLE_NAME, OrderTable.SELECT_COLUMNS,
+                    OrderTable::mapOrder, order -> orderMap.put(order.getCid(), order));
+            lastLoadStats = stats;
+            indexes.rebuild(orderMap.values());
+            System.out.println("从数据库加载了 " + stats.get("rows") + " 条订单记录（" + stats.get("ranges")
+                    + " 个分段并行，耗时 " + stats.get("durationMs") + "ms，" + stats.get("rowsPerSecond") + " 行/秒）");
         } catch (SQLException e) {
             System.out.println("数据加载失败: " + e.getMessage());
             e.printStackTrace();
         }
     }
-    
+
+    /**
+     * 获取最近一次从数据库加载的统计（行数、分段数、耗时、行/秒），未从数据库加载过时返回null
+     */
+    public Map<String, Object> getLoadMetrics() {
+        return lastLoadStats;
+    }
+
     /**
      * 创建订单
-     * @param order 待创建的订单对象
+     * @param order 待创建的订单对象，成功后回写创建时间和版本号
      * @return 创建成功返回true，订单已存在返回false
      */
     public boolean createOrder(Order order) {
-        if (orderMap.containsKey(order.getCid())) {
+        if (hotSet == null && orderMap.containsKey(order.getCid())) {
             return false; // 订单已存在
         }
+        // 在副本上补齐创建时间和版本号，持久化成功后才回写到order
+        Order created = order.copy();
         // 确保创建时间被设置
-        if (order.getCreateTime() == null) {
-            order.setCreateTime(LocalDateTime.now());
+        if (created.getCreateTime() == null) {
+            created.setCreateTime(LocalDateTime.now());
+        }
+        created.setVersion(1);
+        // 内存中保存只读快照，调用方之后对order的修改不影响已存储的订单
+        created.freeze();
+        boolean applied = hotSet != null ? createOrderHotSet(created) : createOrderInMemory(created);
+        if (applied) {
+            writeBack(order, created);
+        }
+        return applied;
+    }
+
+    private boolean createOrderInMemory(Order snapshot) {
+        String cid = snapshot.getCid();
+        Lock barrier = mutationBarrier.readLock();
+        barrier.lock();
+        try {
+            // 落盘与写入内存在同一个分段锁内完成，保证日志/数据库中的变更顺序与内存一致
+            synchronized (keyLocks.lockFor(cid)) {
+                if (orderMap.containsKey(cid)) {
+                    return false; // 并发创建了相同订单
+                }
+                writeThrough(snapshot);
+                orderMap.put(cid, snapshot);
+                indexes.put(snapshot);
+            }
+            markDirtyIfBackground(cid);
+            return true;
+        } finally {
+            barrier.unlock();
         }
-        orderMap.put(order.getCid(), order);
-        return true;
     }
 
     /**
      * 获取订单
      * @param cid 订单ID
-     * @return 返回订单对象，不存在返回null
+     * @return 返回订单的只读快照（修改需先copy()），不存在返回null
      */
     public Order getOrder(String cid) {
+        if (hotSet != null) {
+            return getOrderHotSet(cid);
+        }
         return orderMap.get(cid);
     }
 
     /**
-     * 更新订单
+     * 更新订单（不检查版本号）
      * @param order 待更新的订单对象
      * @return 更新成功返回true，订单不存在返回false
      */
     public boolean updateOrder(Order order) {
-        if (!orderMap.containsKey(order.getCid())) {
-            return false; // 订单不存在
+        return updateOrder(order, WriteResult.ANY_VERSION) == WriteResult.APPLIED;
+    }
+
+    /**
+     * 按版本号条件更新订单：当前版本号等于expectedVersion时才写入，写入后版本号加1。
+     * 比较和写入在同一个分段锁内完成，并发更新同一订单时只有一个能成功。
+     * 新的更新时间和版本号在持久化成功后才回写到order，失败时order保持不变
+     * @param order 待更新的订单对象
+     * @param expectedVersion 期望的当前版本号，WriteResult.ANY_VERSION表示不检查
+     * @return APPLIED、NOT_FOUND或VERSION_CONFLICT
+     */
+    public WriteResult updateOrder(Order order, long expectedVersion) {
+        Order updated = order.copy();
+        updated.setUpdateTime(LocalDateTime.now());
+        WriteResult result = hotSet != null
+            ? updateOrderHotSet(updated, expectedVersion) : updateOrderInMemory(updated, expectedVersion);
+        if (result == WriteResult.APPLIED) {
+            writeBack(order, updated);
+        }
+        return result;
+    }
+
+    private WriteResult updateOrderInMemory(Order updated, long expectedVersion) {
+        String cid = updated.getCid();
+        Lock barrier = mutationBarrier.readLock();
+        barrier.lock();
+        try {
+            synchronized (keyLocks.lockFor(cid)) {
+                Order existing = orderMap.get(cid);
+                if (existing == null) {
+                    return WriteResult.NOT_FOUND;
+                }
+                if (!versionMatches(existing.getVersion(), expectedVersion)) {
+                    return WriteResult.VERSION_CONFLICT;
+                }
+                // 以新快照整体替换旧快照
+                updated.setVersion(existing.getVersion() + 1);
+                Order snapshot = updated.freeze();
+                writeThrough(snapshot);
+                orderMap.put(cid, snapshot);
+                // 按cid记录的旧索引键移除旧条目，客户改名时从原客户的索引中移除
+                indexes.put(snapshot);
+            }
+            markDirtyIfBackground(cid);
+            return WriteResult.APPLIED;
+        } finally {
+            barrier.unlock();
+        }
+    }
+
+    /**
+     * 持久化成功后把创建时间、更新时间和版本号回写到调用方传入的订单（传入的是只读快照时不回写）
+     */
+    private static void writeBack(Order order, Order stored) {
+        if (!order.isFrozen()) {
+            order.setCreateTime(stored.getCreateTime());
+            order.setUpdateTime(stored.getUpdateTime());
+            order.setVersion(stored.getVersion());
         }
-        // 更新更新时间
-        order.setUpdateTime(LocalDateTime.now());
-        orderMap.put(order.getCid(), order);
-        return true;
     }
 
     /**
-     * 删除订单
+     * 删除订单（不检查版本号）
      * @param cid 订单ID
      * @return 删除成功返回true，订单不存在返回false
      */
     public boolean deleteOrder(String cid) {
-        if (!orderMap.containsKey(cid)) {
-            return false; // 订单不存在
+        return deleteOrder(cid, WriteResult.ANY_VERSION) == WriteResult.APPLIED;
+    }
+
+    /**
+     * 按版本号条件删除订单：当前版本号等于expectedVersion时才删除
+     * @param cid 订单ID
+     * @param expectedVersion 期望的当前版本号，WriteResult.ANY_VERSION表示不检查
+     * @return APPLIED、NOT_FOUND或VERSION_CONFLICT
+     */
+    public WriteResult deleteOrder(String cid, long expectedVersion) {
+        if (hotSet != null) {
+            return deleteOrderHotSet(cid, expectedVersion);
         }
-        orderMap.remove(cid);
-        return true;
+        Lock barrier = mutationBarrier.readLock();
+        barrier.lock();
+        try {
+            synchronized (keyLocks.lockFor(cid)) {
+                Order existing = orderMap.get(cid);
+                if (existing == null) {
+                    return WriteResult.NOT_FOUND;
+                }
+                if (!versionMatches(existing.getVersion(), expectedVersion)) {
+                    return WriteResult.VERSION_CONFLICT;
+                }
+                writeThroughDelete(cid);
+                orderMap.remove(cid);
+                indexes.remove(cid);
+            }
+            markDeletedIfBackground(cid);
+            return WriteResult.APPLIED;
+        } finally {
+            barrier.unlock();
+        }
+    }
+
+    private static boolean versionMatches(long currentVersion, long expectedVersion) {
+        return expectedVersion == WriteResult.ANY_VERSION || currentVersion == expectedVersion;
     }
 
     /**
@@ -225,14 +993,13 @@ public class OrderDAO {
             return new ArrayList<>();
         }
 
-        // 使用流式操作过滤、排序并收集结果
-        return orderMap.values().stream()
-            .filter(order -> customerName.equals(order.getCustomerName()))  // 严格匹配客户名称
-            .sorted(Comparator.comparing(
-                Order::getCreateTime,
-                Comparator.nullsLast(Comparator.reverseOrder())
-            ))
-            .collect(Collectors.toList());
+        // 全量内存模式直接按客户索引倒序读取，只访问该客户的订单
+        if (hotSet == null) {
+            return indexes.customerIndex.list(customerName, true);
+        }
+
+        // 热点缓存模式由数据库排序（与内存索引一致：相同时间按cid排序）
+        return OrderTable.queryOrders("WHERE customerName = ? ORDER BY createTimeMs DESC, cid DESC", customerName);
     }
 
     /**
@@ -240,12 +1007,318 @@ public class OrderDAO {
      * @return 返回所有订单列表，按创建时间降序排列（最新订单在前）
      */
     public List<Order> getAllOrders() {
-        // 使用流式操作获取所有订单并按创建时间降序排序
-        return orderMap.values().stream()
-            .sorted(Comparator.comparing(
-                Order::getCreateTime,
-                Comparator.nullsLast(Comparator.reverseOrder())
-            ))
-            .collect(Collectors.toList());
-    }
-}
\ No newline at end of file
+        return getAllOrders(SortField.CREATE_TIME, true);
+    }
+
+    /**
+     * 按指定字段排序获取所有订单列表，排序字段为null的订单升序时在前、降序时在后
+     * @param sortField 排序字段
+     * @param descending true为降序
+     */
+    public List<Order> getAllOrders(SortField sortField, boolean descending) {
+        // 全量内存模式直接遍历排序索引
+        if (hotSet == null) {
+            return indexes.sorted(sortField).list(descending);
+        }
+        // 热点缓存模式由数据库排序（与内存索引一致：相同值按cid排序）
+        String direction = descending ? " DESC" : " ASC";
+        return OrderTable.queryOrders("ORDER BY " + sortField.column + direction + ", cid" + direction);
+    }
+
+    /**
+     * 按指定字段排序分页获取订单
+     * @param cursor 上一页返回的游标，null表示第一页
+     * @param limit 每页条数
+     * @throws IllegalArgumentException 游标无效或与排序方式不匹配时抛出
+     */
+    public Page<Order> getOrdersPage(SortField sortField, boolean descending, String cursor, int limit) {
+        String scope = "order:" + sortField.param + (descending ? ":desc" : ":asc");
+        if (hotSet == null) {
+            return indexes.sorted(sortField).page(scope, descending, null, null, cursor, limit, null);
+        }
+        return OrderTable.page("", new ArrayList<>(), sortField, descending, scope, cursor, limit);
+    }
+
+    /**
+     * 分页获取某个客户的订单，按创建时间降序排列
+     * @param cursor 上一页返回的游标，null表示第一页
+     * @param limit 每页条数
+     * @throws IllegalArgumentException 游标无效或不属于该客户时抛出
+     */
+    public Page<Order> getOrdersByUserIdPage(String customerName, String cursor, int limit) {
+        String scope = "customer:" + customerName;
+        if (hotSet == null) {
+            return indexes.customerIndex.page(customerName, scope, true, null, null, cursor, limit);
+        }
+        List<Object> params = new ArrayList<>();
+        params.add(customerName);
+        return OrderTable.page("customerName = ?", params, SortField.CREATE_TIME, true, scope, cursor, limit);
+    }
+
+    /**
+     * 统计满足条件的订单数：同一字段的多个取值之间为OR，状态与产品版本之间为AND。
+     * 全量内存模式下由位图索引计算（交集的popcount），不逐条比较订单
+     * @param statuses 订单状态，null或空表示不限
+     * @param productVersions 产品版本，null或空表示不限
+     */
+    public int countOrders(Collection<Integer> statuses, Collection<String> productVersions) {
+        if (hotSet != null) {
+            return OrderTable.countOrders(statuses, productVersions);
+        }
+        return indexes.bitmapIndex.count(OrderIndexes.bitmapConditions(statuses, productVersions));
+    }
+
+    /**
+     * 按状态和产品版本过滤订单，条件组合方式同countOrders
+     * @return 满足条件的订单，按创建时间降序排列
+     */
+    public List<Order> filterOrders(Collection<Integer> statuses, Collection<String> productVersions) {
+        if (hotSet != null) {
+            return OrderTable.filterOrders(statuses, productVersions);
+        }
+        return parallelScan.sort(indexes.bitmapIndex.select(OrderIndexes.bitmapConditions(statuses, productVersions)),
+            OrderIndexes.SEARCH_ORDER, null);
+    }
+
+    /**
+     * 按产品版本分组的订单分析：满足状态、产品版本、创建时间条件的订单数、金额、LIC数和研发规模合计。
+     * 全量内存模式下在列式快照的基本类型数组上扫描，快照在数据变更后的首次查询时重新发布
+     * @param statuses 状态，多个取值之间为OR，null或空表示不限
+     * @param productVersions 产品版本，多个取值之间为OR，null或空表示不限
+     * @param createFrom 创建时间下限（含），null表示不限；指定时间范围时不含创建时间为null的订单
+     * @param createTo 创建时间上限（含），null表示不限
+     * @param execution 写入执行方式（是否并行、子任务数、参与线程数），为null时不写入
+     * @return 按产品版本升序排列，status和month为null
+     */
+    public List<OrderAggregate> analyzeOrders(Collection<Integer> statuses, Collection<String> productVersions,
+                                              LocalDateTime createFrom, LocalDateTime createTo,
+                                              Map<String, Object> execution) {
+        if (hotSet != null) {
+            List<OrderAggregate> aggregates = OrderTable.analyzeOrders(statuses, productVersions, createFrom, createTo);
+            aggregates.sort(AGGREGATE_ORDER);
+            return aggregates;
+        }
+        ColumnarSnapshot snapshot = indexes.columnStore.snapshot();
+        int[] statusFilter = null;
+        if (statuses != null && !statuses.isEmpty()) {
+            statusFilter = statuses.stream()
+                .mapToInt(status -> status != null ? status : ColumnarSnapshot.NULL_STATUS).toArray();
+        }
+        boolean[] versionAllowed = null;
+        if (productVersions != null && !productVersions.isEmpty()) {
+            versionAllowed = new boolean[snapshot.productVersions.length + 1];
+            for (String version : productVersions) {
+                int code = snapshot.productVersionCode(version);
+                if (code >= ColumnarSnapshot.NULL_CODE) {
+                    versionAllowed[code + 1] = true;
+                }
+            }
+        }
+        int[] statusesScanned = statusFilter;
+        boolean[] versionsScanned = versionAllowed;
+        long fromMs = createFrom != null ? Timestamps.toEpochMilli(createFrom) : ColumnarSnapshot.NULL_TIME;
+        long toMs = createTo != null ? Timestamps.toEpochMilli(createTo) : Long.MAX_VALUE;
+        long[][] sums = parallelScan.reduce(snapshot.rowCount,
+            (fromRow, toRow) -> snapshot.sumByProductVersion(statusesScanned, versionsScanned, fromMs, toMs, fromRow, toRow),
+            ColumnarSnapshot::add, execution);
+        List<OrderAggregate> aggregates = new ArrayList<>();
+        for (int group = 0; group < sums[0].length; group++) {
+            if (sums[0][group] > 0) {
+                aggregates.add(new OrderAggregate(group > 0 ? snapshot.productVersions[group - 1] : null, null, null,
+                    sums[0][group], BigDecimal.valueOf(sums[1][group], Order.AMOUNT_SCALE), sums[2][group], sums[3][group]));
+            }
+        }
+        aggregates.sort(AGGREGATE_ORDER);
+        return aggregates;
+    }
+
+    /**
+     * 列式快照（仅全量内存模式），供基准测试等同包代码直接扫描
+     */
+    ColumnarSnapshot columnarSnapshot() {
+        return indexes.columnStore.snapshot();
+    }
+
+    /**
+     * 客户汇总：订单数、各状态订单数、消费总额、LIC数、首末次下单时间。
+     * 全量内存模式下直接读取增量维护的汇总记录，与该客户的订单数无关
+     * @return 客户没有订单时返回null
+     */
+    public CustomerSummary getCustomerSummary(String customerName) {
+        if (hotSet != null) {
+            return OrderTable.customerSummary(customerName);
+        }
+        return indexes.customerRollupIndex.get(customerName);
+    }
+
+    /**
+     * 按所选维度汇总订单数、金额、LIC数和研发规模。全量内存模式下读取增量维护的物化聚合，
+     * 把（产品版本, 状态, 月份）的细粒度分组按所选维度合并，耗时只与分组数有关
+     * @param dimensions 分组维度，为空时汇总为一行
+     * @return 按月份、产品版本、状态升序排列，未参与分组的维度为null
+     */
+    public List<OrderAggregate> getAggregates(Set<AggregateDimension> dimensions) {
+        if (hotSet != null) {
+            List<OrderAggregate> aggregates = OrderTable.aggregates(dimensions);
+            aggregates.sort(AGGREGATE_ORDER);
+            return aggregates;
+        }
+        Map<List<Object>, long[]> merged = new HashMap<>();
+        for (Map.Entry<Object, long[]> group : indexes.aggregateIndex.snapshot().entrySet()) {
+            List<?> key = (List<?>) group.getKey();
+            List<Object> projected = Arrays.asList(
+                dimensions.contains(AggregateDimension.PRODUCT_VERSION) ? key.get(0) : null,
+                dimensions.contains(AggregateDimension.STATUS) ? key.get(1) : null,
+                dimensions.contains(AggregateDimension.MONTH) ? key.get(2) : null);
+            long[] totals = merged.computeIfAbsent(projected, k -> new long[group.getValue().length]);
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += group.getValue()[i];
+            }
+        }
+        List<OrderAggregate> aggregates = new ArrayList<>(merged.size());
+        for (Map.Entry<List<Object>, long[]> group : merged.entrySet()) {
+            List<Object> key = group.getKey();
+            long[] totals = group.getValue();
+            aggregates.add(new OrderAggregate((String) key.get(0), (Integer) key.get(1), (String) key.get(2),
+                totals[0], BigDecimal.valueOf(totals[1], Order.AMOUNT_SCALE), totals[2], totals[3]));
+        }
+        aggregates.sort(AGGREGATE_ORDER);
+        return aggregates;
+    }
+
+    /**
+     * 客户名称补全：以prefix开头、订单数最多的limit个客户名称，订单数相同时按名称升序
+     * @param prefix 名称前缀（区分大小写），空字符串表示全部客户
+     */
+    public List<Completion> suggestCustomers(String prefix, int limit) {
+        if (hotSet != null) {
+            return OrderTable.suggestCustomers(prefix, limit);
+        }
+        return indexes.customerNameIndex.complete(prefix, limit);
+    }
+
+    /**
+     * 按订单描述全文检索，要求描述包含查询的全部词（中文按相邻两字切分）
+     * @param limit 最多返回条数
+     * @return 命中的订单CID及相关度得分，按得分降序排列
+     */
+    public List<SearchHit> searchDescriptions(String query, int limit) {
+        if (hotSet != null) {
+            return OrderTable.searchDescriptions(query, limit);
+        }
+        return indexes.textIndex.search(query, limit);
+    }
+
+    /**
+     * 组合条件查询订单：全量内存模式下从可用索引中选出需要扫描记录数最少的一个驱动扫描，其余条件逐条过滤；
+     * 热点缓存模式下条件下推到数据库
+     * @param limit 最多返回条数，null表示不限
+     * @param explain 写入执行计划：使用的索引、各候选索引的估算行数、扫描行数、命中行数
+     * @return 满足条件的订单，按创建时间降序排列
+     * @throws IllegalArgumentException 金额超过两位小数时抛出
+     */
+    public List<Order> searchOrders(OrderQuery query, Integer limit, Map<String, Object> explain) {
+        if (hotSet != null) {
+            return OrderTable.searchOrders(query, limit, explain);
+        }
+        return planner.search(query, limit, explain, parallelScan);
+    }
+
+    private Order getOrderHotSet(String cid) {
+        Order order = hotSet.get(cid);
+        if (order != null) {
+            return order;
+        }
+        synchronized (keyLocks.lockFor(cid)) {
+            order = hotSet.peek(cid);
+            if (order != null) {
+                return order;
+            }
+            // 回源加载在分段锁内完成，避免读到旧值后覆盖并发写入的新值
+            order = OrderTable.selectOrder(cid);
+            if (order != null) {
+                hotSet.put(cid, order);
+            }
+            return order;
+        }
+    }
+
+    /**
+     * @param order 已补齐创建时间和版本号的只读快照
+     */
+    private boolean createOrderHotSet(Order order) {
+        synchronized (keyLocks.lockFor(order.getCid())) {
+            AtomicBoolean inserted = new AtomicBoolean(false);
+            GroupCommitter.shared().commit(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(OrderTable.INSERT_IF_ABSENT_SQL)) {
+                    OrderTable.bindOrder(pstmt, order);
+                    inserted.set(pstmt.executeUpdate() == 1);
+                }
+                if (inserted.get()) {
+                    SnapshotFile.bumpGeneration(conn, OrderTable.TABLE_NAME);
+                }
+            });
+            if (!inserted.get()) {
+                return false; // 订单已存在（可能不在缓存中）
+            }
+            hotSet.put(order.getCid(), order);
+            return true;
+        }
+    }
+
+    /**
+     * @param order 已设置更新时间的副本，由提交线程在写入前设置新版本号，成功后冻结放入缓存
+     */
+    private WriteResult updateOrderHotSet(Order order, long expectedVersion) {
+        synchronized (keyLocks.lockFor(order.getCid())) {
+            AtomicReference<WriteResult> result = new AtomicReference<>(WriteResult.NOT_FOUND);
+            GroupCommitter.shared().commit(conn -> {
+                Long currentVersion = OrderTable.selectVersion(conn, order.getCid());
+                if (currentVersion == null) {
+                    return; // 订单不存在
+                }
+                if (!versionMatches(currentVersion, expectedVersion)) {
+                    result.set(WriteResult.VERSION_CONFLICT);
+                    return;
+                }
+                order.setVersion(currentVersion + 1);
+                try (PreparedStatement pstmt = conn.prepareStatement(OrderTable.UPSERT_SQL)) {
+                    OrderTable.bindOrder(pstmt, order);
+                    pstmt.executeUpdate();
+                }
+                SnapshotFile.bumpGeneration(conn, OrderTable.TABLE_NAME);
+                result.set(WriteResult.APPLIED);
+            });
+            if (result.get() == WriteResult.APPLIED) {
+                hotSet.put(order.getCid(), order.freeze());
+            }
+            return result.get();
+        }
+    }
+
+    private WriteResult deleteOrderHotSet(String cid, long expectedVersion) {
+        synchronized (keyLocks.lockFor(cid)) {
+            AtomicReference<WriteResult> result = new AtomicReference<>(WriteResult.NOT_FOUND);
+            GroupCommitter.shared().commit(conn -> {
+                Long currentVersion = OrderTable.selectVersion(conn, cid);
+                if (currentVersion == null) {
+                    return; // 订单不存在
+                }
+                if (!versionMatches(currentVersion, expectedVersion)) {
+                    result.set(WriteResult.VERSION_CONFLICT);
+                    return;
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(OrderTable.DELETE_SQL)) {
+                    pstmt.setString(1, cid);
+                    pstmt.executeUpdate();
+                }
+                SnapshotFile.bumpGeneration(conn, OrderTable.TABLE_NAME);
+                result.set(WriteResult.APPLIED);
+            });
+            if (result.get() == WriteResult.APPLIED) {
+                hotSet.invalidate(cid);
+            }
+            return result.get();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 订单的全部内存二级索引（仅全量内存模式）。
+ * 写入、移除需在该订单的分段锁内调用，批量加载后通过rebuild整体重建
+ */
+final class OrderIndexes {
+
+    // 组合查询结果的排序：创建时间降序，与索引倒序遍历的顺序一致
+    static final Comparator<Order> SEARCH_ORDER = Comparator
+        .comparing(Order::getCreateTime, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(Order::getCid, Comparator.reverseOrder());
+
+    // 客户名称 -> 按创建时间排序的订单
+    final PartitionedIndex<Order> customerIndex =
+        new PartitionedIndex<>(Order::getCustomerName, Order::getCreateTime, Order::getCid);
+
+    // 排序索引：列表查询按所选字段直接遍历，不再每次全量排序
+    private final Map<OrderDAO.SortField, OrderedIndex<Order>> sortIndexes = new EnumMap<>(OrderDAO.SortField.class);
+
+    // 组合查询使用的索引：状态、产品版本分区内按创建时间排序，支付时间单独排序
+    final PartitionedIndex<Order> statusIndex =
+        new PartitionedIndex<>(Order::getStatus, Order::getCreateTime, Order::getCid);
+    final PartitionedIndex<Order> productVersionIndex =
+        new PartitionedIndex<>(Order::getProductVersion, Order::getCreateTime, Order::getCid);
+    final OrderedIndex<Order> payTimeIndex = new OrderedIndex<>(Order::getPayTime, Order::getCid);
+
+    // 位图索引：状态、产品版本取值很少，多条件计数和过滤按位图交/并集计算
+    final BitmapIndex<Order> bitmapIndex;
+
+    // 客户名称前缀索引（基数树，含每个客户的订单数），用于客户名称补全
+    final PrefixIndex<Order> customerNameIndex = new PrefixIndex<>(Order::getCid, Order::getCustomerName);
+
+    // 物化聚合：产品版本 x 状态 x 创建月份 -> 订单数、金额（分）、LIC数、研发规模合计
+    final AggregateIndex<Order> aggregateIndex = new AggregateIndex<>(Order::getCid,
+        order -> Arrays.asList(order.getProductVersion(), order.getStatus(),
+            order.getCreateTime() != null ? YearMonth.from(order.getCreateTime()).toString() : null),
+        Arrays.asList(
+            order -> order.getTotalAmountMinor() != Order.NO_AMOUNT ? order.getTotalAmountMinor() : 0L,
+            order -> order.getPurchasedLicCount() != null ? order.getPurchasedLicCount() : 0L,
+            order -> order.getDevScale() != null ? order.getDevScale() : 0L));
+
+    // 客户汇总：每个客户的订单数、各状态订单数、金额、LIC数、首末次下单时间
+    final CustomerRollupIndex customerRollupIndex = new CustomerRollupIndex();
+
+    // 列存：基本类型数组+字典编码，发布不可变快照供分析查询顺序扫描
+    final OrderColumnStore columnStore = new OrderColumnStore();
+
+    // 订单描述（含删除审计记录）的全文倒排索引
+    final TextIndex<Order> textIndex =
+        new TextIndex<>(Order::getCid, Collections.singletonList(Order::getDescription));
+
+    OrderIndexes() {
+        for (OrderDAO.SortField field : OrderDAO.SortField.values()) {
+            sortIndexes.put(field, new OrderedIndex<>(field.keyExtractor, Order::getCid));
+        }
+        Map<String, Function<Order, ?>> bitmapFields = new LinkedHashMap<>();
+        bitmapFields.put("status", Order::getStatus);
+        bitmapFields.put("productVersion", Order::getProductVersion);
+        bitmapIndex = new BitmapIndex<>(Order::getCid, bitmapFields);
+    }
+
+    /**
+     * 按排序字段取排序索引
+     */
+    OrderedIndex<Order> sorted(OrderDAO.SortField field) {
+        return sortIndexes.get(field);
+    }
+
+    /**
+     * 写入或更新订单的全部索引（按cid记录的旧索引键移除旧条目，客户改名时从原客户的索引中移除）
+     */
+    void put(Order order) {
+        customerIndex.put(order);
+        statusIndex.put(order);
+        productVersionIndex.put(order);
+        payTimeIndex.put(order);
+        bitmapIndex.put(order);
+        textIndex.put(order);
+        customerNameIndex.put(order);
+        aggregateIndex.put(order);
+        customerRollupIndex.put(order);
+        columnStore.put(order);
+        for (OrderedIndex<Order> index : sortIndexes.values()) {
+            index.put(order);
+        }
+    }
+
+    void remove(String cid) {
+        customerIndex.remove(cid);
+        statusIndex.remove(cid);
+        productVersionIndex.remove(cid);
+        payTimeIndex.remove(cid);
+        bitmapIndex.remove(cid);
+        textIndex.remove(cid);
+        customerNameIndex.remove(cid);
+        aggregateIndex.remove(cid);
+        customerRollupIndex.remove(cid);
+        columnStore.remove(cid);
+        for (OrderedIndex<Order> index : sortIndexes.values()) {
+            index.remove(cid);
+        }
+    }
+
+    void clear() {
+        customerIndex.clear();
+        statusIndex.clear();
+        productVersionIndex.clear();
+        payTimeIndex.clear();
+        bitmapIndex.clear();
+        textIndex.clear();
+        customerNameIndex.clear();
+        aggregateIndex.clear();
+        customerRollupIndex.clear();
+        columnStore.clear();
+        sortIndexes.values().forEach(OrderedIndex::clear);
+    }
+
+    /**
+     * 清空后按给定订单重建全部索引，用于批量加载（数据库、快照、日志重放）之后
+     */
+    void rebuild(Collection<Order> orders) {
+        clear();
+        orders.forEach(this::put);
+    }
+
+    /**
+     * 位图索引的查询条件：同一字段的多个取值之间为OR，字段之间为AND，null或空表示不限
+     */
+    static Map<String, Collection<?>> bitmapConditions(Collection<Integer> statuses,
+                                                      Collection<String> productVersions) {
+        Map<String, Collection<?>> conditions = new LinkedHashMap<>();
+        conditions.put("status", statuses);
+        conditions.put("productVersion", productVersions);
+        return conditions;
+    }
+}
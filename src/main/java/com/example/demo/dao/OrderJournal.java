@@ -0,0 +1,352 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * 订单追加日志：每次新增/更新/删除顺序追加一条带CRC校验的二进制记录，
+ * 定期把内存全量写成快照并截断日志；启动时先加载快照，再重放快照之后的日志。
+ * <p>
+ * 日志记录格式：[int 载荷长度][int CRC32][byte 操作类型][载荷]，
+ * 快照文件格式见SnapshotFile，启动时通过内存映射加载。
+ */
+public class OrderJournal {
+
+    /**
+     * 日志刷盘（fsync）策略
+     */
+    public enum FsyncPolicy {
+        // 每次追加后刷盘，并发追加的请求共享同一次fsync
+        ALWAYS,
+        // 后台按固定间隔刷盘
+        INTERVAL,
+        // 不主动刷盘，由操作系统决定
+        NEVER
+    }
+
+    // 1：旧格式新增/更新记录（金额以BigDecimal编码），3：不含版本号的新增/更新记录，都已不再支持重放
+    private static final byte OP_UPSERT_DECIMAL = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_UPSERT_UNVERSIONED = 3;
+    private static final byte OP_UPSERT = 4;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private final Path journalFile;
+    private final Path rotatedFile;
+    private final Path snapshotFile;
+    private final FsyncPolicy fsyncPolicy;
+
+    private volatile FileChannel channel;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private volatile long writtenPosition;
+    private volatile long syncedPosition;
+    private ScheduledExecutorService syncer;
+
+    // 日志指标
+    private final AtomicLong appends = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+    private final AtomicLong checkpoints = new AtomicLong();
+    private volatile long lastCheckpointAt;
+    private volatile long lastCheckpointDurationMs;
+    private volatile long lastSnapshotRecords;
+
+    /**
+     * @param journalFile 日志文件路径，快照文件为同目录下的同名.snapshot文件
+     * @param fsyncPolicy 刷盘策略
+     * @param fsyncIntervalMs INTERVAL策略下的刷盘间隔（毫秒）
+     */
+    public OrderJournal(Path journalFile, FsyncPolicy fsyncPolicy, long fsyncIntervalMs) throws IOException {
+        this.journalFile = journalFile.toAbsolutePath();
+        this.rotatedFile = Paths.get(this.journalFile + ".old");
+        this.snapshotFile = Paths.get(this.journalFile + ".snapshot");
+        this.fsyncPolicy = fsyncPolicy;
+        if (this.journalFile.getParent() != null) {
+            Files.createDirectories(this.journalFile.getParent());
+        }
+        openChannel();
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "order-journal-fsync");
+                t.setDaemon(true);
+                return t;
+            });
+            syncer.scheduleWithFixedDelay(this::syncQuietly, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 追加一条新增/更新记录
+     */
+    public void appendUpsert(Order order) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_UPSERT);
+        OrderCodec.write(out, order);
+        append(bytes.toByteArray());
+    }
+
+    /**
+     * 追加一条删除记录
+     */
+    public void appendDelete(String cid) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_DELETE);
+        OrderCodec.writeString(out, cid);
+        append(bytes.toByteArray());
+    }
+
+    /**
+     * 恢复数据：加载快照（如存在）并按顺序重放日志
+     * @param target 恢复目标，加载前先被清空
+     * @return 是否加载了快照；快照不存在或格式不符时调用方应先从数据库加载基线数据
+     *         （快照前已刷盘，数据库不会落后于快照）
+     */
+    public boolean loadSnapshot(Map<String, Order> target) throws IOException {
+        target.clear();
+        if (!SnapshotFile.read(snapshotFile, SnapshotFile.ORDER_MAGIC, SnapshotFile.ANY_GENERATION,
+                OrderCodec::read, order -> target.put(order.getCid(), order))) {
+            return false;
+        }
+        lastSnapshotRecords = target.size();
+        return true;
+    }
+
+    /**
+     * 按顺序重放快照之后的日志（先重放轮转出的旧日志，再重放当前日志）
+     * @return 日志中涉及的订单ID，调用方需要将其同步到数据库
+     */
+    public Set<String> replay(Map<String, Order> target) throws IOException {
+        Set<String> touched = new LinkedHashSet<>();
+        if (Files.exists(rotatedFile)) {
+            replayFile(rotatedFile, target, touched);
+        }
+        synchronized (appendLock) {
+            long valid = replayFile(journalFile, target, touched);
+            if (valid < channel.size()) {
+                // 截掉崩溃时写了一半的尾部记录
+                System.out.println("订单日志尾部存在不完整记录，已截断至 " + valid + " 字节");
+                channel.truncate(valid);
+                channel.position(valid);
+                writtenPosition = valid;
+                syncedPosition = valid;
+            }
+        }
+        return touched;
+    }
+
+    /**
+     * 生成快照并截断日志。
+     * 先轮转日志再写快照：快照包含轮转时刻之后的状态，重放新日志是幂等的。
+     * 快照写入后删除旧日志，因此source返回的数据必须包含旧日志中的全部记录：
+     * 调用方需等待轮转前已追加、尚未写入内存的变更完成后再取数据。
+     * @param source 提供当前全量订单的回调，在日志轮转之后调用
+     */
+    public void checkpoint(SnapshotSource source) throws IOException {
+        long start = System.currentTimeMillis();
+        synchronized (appendLock) {
+            sync();
+            if (Files.exists(rotatedFile)) {
+                // 上次检查点未完成，旧日志尚未被快照覆盖，只能追加合并
+                try (FileChannel rotated = FileChannel.open(rotatedFile, StandardOpenOption.APPEND)) {
+                    channel.transferTo(0, channel.size(), rotated);
+                    rotated.force(false);
+                }
+                channel.truncate(0);
+                channel.position(0);
+                writtenPosition = 0;
+                syncedPosition = 0;
+            } else {
+                channel.close();
+                Files.move(journalFile, rotatedFile);
+                openChannel();
+            }
+        }
+
+        Collection<Order> orders = source.currentOrders();
+        SnapshotFile.write(snapshotFile, SnapshotFile.ORDER_MAGIC, 0L, orders, OrderCodec::write);
+        Files.deleteIfExists(rotatedFile);
+
+        checkpoints.incrementAndGet();
+        lastSnapshotRecords = orders.size();
+        lastCheckpointAt = System.currentTimeMillis();
+        lastCheckpointDurationMs = lastCheckpointAt - start;
+    }
+
+    /**
+     * 当前日志文件大小（字节）
+     */
+    public long size() {
+        return writtenPosition;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("file", journalFile.toString());
+        metrics.put("fsyncPolicy", fsyncPolicy.name());
+        metrics.put("sizeBytes", writtenPosition);
+        metrics.put("unsyncedBytes", writtenPosition - syncedPosition);
+        metrics.put("appends", appends.get());
+        metrics.put("fsyncs", fsyncs.get());
+        metrics.put("checkpoints", checkpoints.get());
+        metrics.put("lastSnapshotRecords", lastSnapshotRecords);
+        metrics.put("lastCheckpointAt", lastCheckpointAt);
+        metrics.put("lastCheckpointDurationMs", lastCheckpointDurationMs);
+        return metrics;
+    }
+
+    public void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdown();
+        }
+        synchronized (appendLock) {
+            sync();
+            channel.close();
+        }
+    }
+
+    private void append(byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        record.flip();
+
+        long end;
+        synchronized (appendLock) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            end = channel.position();
+            writtenPosition = end;
+        }
+        appends.incrementAndGet();
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            syncTo(end);
+        }
+    }
+
+    /**
+     * 确保position之前的数据已落盘；并发调用方共享同一次fsync
+     */
+    private void syncTo(long position) throws IOException {
+        synchronized (syncLock) {
+            if (syncedPosition >= position) {
+                return;
+            }
+            long target = writtenPosition;
+            channel.force(false);
+            fsyncs.incrementAndGet();
+            syncedPosition = target;
+        }
+    }
+
+    private void sync() throws IOException {
+        syncTo(writtenPosition);
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            System.out.println("订单日志刷盘失败: " + e.getMessage());
+        }
+    }
+
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        channel.position(channel.size());
+        writtenPosition = channel.size();
+        syncedPosition = writtenPosition;
+    }
+
+    /**
+     * 重放单个日志文件
+     * @return 最后一条完整记录的结束位置
+     */
+    private static long replayFile(Path file, Map<String, Order> target, Set<String> touched) throws IOException {
+        long valid = 0;
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 1 << 16))) {
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload, 0, payload.length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(payload, target, touched);
+                valid += RECORD_HEADER_BYTES + length;
+            }
+        }
+        return valid;
+    }
+
+    private static void apply(byte[] payload, Map<String, Order> target, Set<String> touched) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        byte op = in.get();
+        if (op == OP_UPSERT) {
+            Order order = OrderCodec.read(in);
+            target.put(order.getCid(), order);
+            touched.add(order.getCid());
+        } else if (op == OP_DELETE) {
+            String cid = OrderCodec.readString(in);
+            target.remove(cid);
+            touched.add(cid);
+        } else if (op == OP_UPSERT_DECIMAL || op == OP_UPSERT_UNVERSIONED) {
+            // 在截断前抛出，日志保持原样，启动失败而不是丢弃记录
+            throw new IOException("订单日志包含旧版本写入的记录（操作类型" + op
+                    + "），无法重放；请用写入该日志的版本完成一次检查点后再升级");
+        } else {
+            throw new IOException("未知的订单日志操作类型: " + op);
+        }
+    }
+
+    /**
+     * 快照数据来源
+     */
+    @FunctionalInterface
+    public interface SnapshotSource {
+        Collection<Order> currentOrders();
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.Predicate;
+
+/**
+ * 订单组合查询条件，各条件之间为AND关系，未设置的条件不参与过滤。
+ * 时间和金额范围均为闭区间，可只设置一端。
+ */
+public class OrderQuery {
+
+    // 订单状态
+    private Integer status;
+
+    // 产品版本
+    private String productVersion;
+
+    // 客户名称（精确匹配）
+    private String customerName;
+
+    // 创建时间范围
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createTimeFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createTimeTo;
+
+    // 支付时间范围
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime payTimeFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime payTimeTo;
+
+    // 订单金额范围（元）
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+
+    /**
+     * 转换为过滤条件（金额预先换算为分），判断订单是否满足全部条件
+     * @throws IllegalArgumentException 金额超过两位小数时抛出
+     */
+    public Predicate<Order> toPredicate() {
+        Long min = getMinAmountMinor();
+        Long max = getMaxAmountMinor();
+        return order -> {
+            if (status != null && !status.equals(order.getStatus())) {
+                return false;
+            }
+            if (productVersion != null && !productVersion.equals(order.getProductVersion())) {
+                return false;
+            }
+            if (customerName != null && !customerName.equals(order.getCustomerName())) {
+                return false;
+            }
+            if (!inRange(order.getCreateTime(), createTimeFrom, createTimeTo)
+                    || !inRange(order.getPayTime(), payTimeFrom, payTimeTo)) {
+                return false;
+            }
+            if (min != null || max != null) {
+                long amount = order.getTotalAmountMinor();
+                return amount != Order.NO_AMOUNT && (min == null || amount >= min) && (max == null || amount <= max);
+            }
+            return true;
+        };
+    }
+
+    boolean hasCreateTimeRange() {
+        return createTimeFrom != null || createTimeTo != null;
+    }
+
+    boolean hasPayTimeRange() {
+        return payTimeFrom != null || payTimeTo != null;
+    }
+
+    boolean hasAmountRange() {
+        return minAmount != null || maxAmount != null;
+    }
+
+    /**
+     * 金额下限（分），未设置时返回null
+     */
+    Long getMinAmountMinor() {
+        return minAmount != null ? Order.toMinorUnits(minAmount) : null;
+    }
+
+    /**
+     * 金额上限（分），未设置时返回null
+     */
+    Long getMaxAmountMinor() {
+        return maxAmount != null ? Order.toMinorUnits(maxAmount) : null;
+    }
+
+    private static boolean inRange(LocalDateTime value, LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return true;
+        }
+        return value != null && (from == null || !value.isBefore(from)) && (to == null || !value.isAfter(to));
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public String getProductVersion() {
+        return productVersion;
+    }
+
+    public void setProductVersion(String productVersion) {
+        this.productVersion = productVersion;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public LocalDateTime getCreateTimeFrom() {
+        return createTimeFrom;
+    }
+
+    public void setCreateTimeFrom(LocalDateTime createTimeFrom) {
+        this.createTimeFrom = createTimeFrom;
+    }
+
+    public LocalDateTime getCreateTimeTo() {
+        return createTimeTo;
+    }
+
+    public void setCreateTimeTo(LocalDateTime createTimeTo) {
+        this.createTimeTo = createTimeTo;
+    }
+
+    public LocalDateTime getPayTimeFrom() {
+        return payTimeFrom;
+    }
+
+    public void setPayTimeFrom(LocalDateTime payTimeFrom) {
+        this.payTimeFrom = payTimeFrom;
+    }
+
+    public LocalDateTime getPayTimeTo() {
+        return payTimeTo;
+    }
+
+    public void setPayTimeTo(LocalDateTime payTimeTo) {
+        this.payTimeTo = payTimeTo;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * 组合条件查询的执行计划（仅全量内存模式）：从可用索引中选出需要扫描记录数最少的一个驱动扫描，
+ * 其余条件逐条过滤，并把选择过程写入explain
+ */
+final class OrderQueryPlanner {
+
+    private final OrderIndexes indexes;
+
+    OrderQueryPlanner(OrderIndexes indexes) {
+        this.indexes = indexes;
+    }
+
+    /**
+     * @param limit 最多返回条数，null表示不限
+     * @param explain 写入执行计划：使用的索引、各候选索引的估算行数、扫描行数、命中行数
+     * @param parallelScan 需要扫描全部候选行时用于并行过滤、排序
+     * @return 满足条件的订单，按创建时间降序排列
+     */
+    List<Order> search(OrderQuery query, Integer limit, Map<String, Object> explain, ParallelScan parallelScan) {
+        long start = System.nanoTime();
+        Predicate<Order> predicate = query.toPredicate();
+
+        // 选出估算行数最少的索引；估算时数到当前最优值即停止，避免估算本身退化为全表扫描。
+        // 没有更优的索引时按创建时间索引全量扫描，限制了条数时同样可以提前停止
+        OrderedIndex<Order> createTimeIndex = indexes.sorted(OrderDAO.SortField.CREATE_TIME);
+        ScanPlan chosen = new ScanPlan("fullScan", true, cap -> Math.min(createTimeIndex.size(), cap),
+            descending -> createTimeIndex.values(descending, null, null));
+        int best = createTimeIndex.size();
+        List<Map<String, Object>> considered = new ArrayList<>();
+        for (ScanPlan candidate : candidates(query)) {
+            int rows = candidate.estimator.applyAsInt(best);
+            Map<String, Object> estimate = new LinkedHashMap<>();
+            estimate.put("index", candidate.name);
+            estimate.put("estimatedRows", rows);
+            estimate.put("capped", rows >= best);
+            considered.add(estimate);
+            if (rows < best) {
+                best = rows;
+                chosen = candidate;
+            }
+        }
+
+        // 驱动索引按创建时间有序且限制了条数时，倒序扫描到足够条数即可停止
+        boolean earlyStop = chosen.createTimeOrdered && limit != null;
+        Iterable<Order> source = chosen.scan.apply(earlyStop);
+        List<Order> matched = new ArrayList<>();
+        int examined = 0;
+        Map<String, Object> execution = new LinkedHashMap<>();
+        if (earlyStop) {
+            for (Order order : source) {
+                if (matched.size() >= limit) {
+                    break;
+                }
+                examined++;
+                if (predicate.test(order)) {
+                    matched.add(order);
+                }
+            }
+            execution.put("parallel", false);
+        } else {
+            // 需要扫描全部候选行：复制出候选列表后按行数决定是否并行过滤、排序
+            List<Order> rows = new ArrayList<>(best);
+            source.forEach(rows::add);
+            examined = rows.size();
+            matched = parallelScan.filter(rows, predicate, OrderIndexes.SEARCH_ORDER, execution);
+        }
+        List<Order> result = limit != null && matched.size() > limit ? new ArrayList<>(matched.subList(0, limit)) : matched;
+
+        explain.put("index", chosen.name);
+        explain.put("candidates", considered);
+        explain.put("rowsExamined", examined);
+        explain.put("rowsMatched", matched.size());
+        explain.put("rowsReturned", result.size());
+        explain.put("earlyStop", earlyStop);
+        explain.put("execution", execution);
+        explain.put("durationMicros", (System.nanoTime() - start) / 1000);
+        return result;
+    }
+
+    /**
+     * 候选索引：分区索引内按创建时间有序，可同时利用创建时间范围
+     */
+    private List<ScanPlan> candidates(OrderQuery query) {
+        LocalDateTime createFrom = query.getCreateTimeFrom();
+        LocalDateTime createTo = query.getCreateTimeTo();
+        List<ScanPlan> candidates = new ArrayList<>();
+        if (query.getCustomerName() != null) {
+            String name = query.getCustomerName();
+            candidates.add(new ScanPlan("customerName+createTime", true,
+                cap -> indexes.customerIndex.count(name, createFrom, createTo, cap),
+                descending -> indexes.customerIndex.values(name, descending, createFrom, createTo)));
+        }
+        if (query.getStatus() != null) {
+            Integer status = query.getStatus();
+            candidates.add(new ScanPlan("status+createTime", true,
+                cap -> indexes.statusIndex.count(status, createFrom, createTo, cap),
+                descending -> indexes.statusIndex.values(status, descending, createFrom, createTo)));
+        }
+        if (query.getProductVersion() != null) {
+            String version = query.getProductVersion();
+            candidates.add(new ScanPlan("productVersion+createTime", true,
+                cap -> indexes.productVersionIndex.count(version, createFrom, createTo, cap),
+                descending -> indexes.productVersionIndex.values(version, descending, createFrom, createTo)));
+        }
+        if (query.getStatus() != null && query.getProductVersion() != null) {
+            // 两个条件的交集基数由位图直接算出，是精确行数
+            Map<String, Collection<?>> conditions = OrderIndexes.bitmapConditions(
+                Collections.singleton(query.getStatus()), Collections.singleton(query.getProductVersion()));
+            candidates.add(new ScanPlan("bitmap(status&productVersion)", false,
+                cap -> Math.min(indexes.bitmapIndex.count(conditions), cap),
+                descending -> indexes.bitmapIndex.select(conditions)));
+        }
+        if (query.hasCreateTimeRange()) {
+            OrderedIndex<Order> index = indexes.sorted(OrderDAO.SortField.CREATE_TIME);
+            candidates.add(new ScanPlan("createTime", true,
+                cap -> index.count(createFrom, createTo, cap),
+                descending -> index.values(descending, createFrom, createTo)));
+        }
+        if (query.hasPayTimeRange()) {
+            OrderedIndex<Order> index = indexes.payTimeIndex;
+            candidates.add(new ScanPlan("payTime", false,
+                cap -> index.count(query.getPayTimeFrom(), query.getPayTimeTo(), cap),
+                descending -> index.values(false, query.getPayTimeFrom(), query.getPayTimeTo())));
+        }
+        if (query.hasAmountRange()) {
+            OrderedIndex<Order> index = indexes.sorted(OrderDAO.SortField.TOTAL_AMOUNT);
+            Long min = query.getMinAmountMinor();
+            Long max = query.getMaxAmountMinor();
+            candidates.add(new ScanPlan("totalAmount", false,
+                cap -> index.count(min, max, cap),
+                descending -> index.values(false, min, max)));
+        }
+        return candidates;
+    }
+
+    /**
+     * 组合查询的一个候选扫描方式
+     */
+    private static final class ScanPlan {
+        private final String name;
+        // 扫描顺序是否为创建时间顺序
+        private final boolean createTimeOrdered;
+        // 参数为上限cap，返回不超过cap的估算行数
+        private final IntUnaryOperator estimator;
+        // 参数为是否倒序
+        private final Function<Boolean, Iterable<Order>> scan;
+
+        private ScanPlan(String name, boolean createTimeOrdered, IntUnaryOperator estimator,
+                         Function<Boolean, Iterable<Order>> scan) {
+            this.name = name;
+            this.createTimeOrdered = createTimeOrdered;
+            this.estimator = estimator;
+            this.scan = scan;
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 订单表order0713的SQL：行的绑定与映射，以及热点缓存模式下直接由数据库执行的查询
+ * （内存中只有热点集合，列表、统计、检索都不能走内存索引）
+ */
+final class OrderTable {
+
+    static final String TABLE_NAME = "order0713";
+
+    // 写入列：时间和金额同时写TEXT列（兼容旧版本）和INTEGER列（毫秒、分）
+    private static final String WRITE_COLUMNS = "cid, customerName, productVersion, devScale, purchasedLicCount, " +
+        "totalAmount, status, description, createTime, payTime, updateTime, createTimeMs, payTimeMs, updateTimeMs, " +
+        "totalAmountMinor, version";
+
+    static final String UPSERT_SQL = "INSERT OR REPLACE INTO order0713(" + WRITE_COLUMNS + ") " +
+        "VALUES(?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+
+    static final String INSERT_IF_ABSENT_SQL = "INSERT OR IGNORE INTO order0713(" + WRITE_COLUMNS + ") " +
+        "VALUES(?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+
+    static final String DELETE_SQL = "DELETE FROM order0713 WHERE cid = ?";
+
+    // 读取列：优先取INTEGER列，未迁移的行回退解析TEXT列
+    static final String SELECT_COLUMNS = "cid, customerName, productVersion, devScale, purchasedLicCount, " +
+        "totalAmountMinor, status, description, createTimeMs, payTimeMs, updateTimeMs, createTime, payTime, updateTime, " +
+        "totalAmount, version";
+
+    // TEXT列与对应的INTEGER列
+    static final ColumnMigration.Column[] MIGRATED_COLUMNS = {
+        ColumnMigration.time("createTime", "createTimeMs"),
+        ColumnMigration.time("payTime", "payTimeMs"),
+        ColumnMigration.time("updateTime", "updateTimeMs"),
+        ColumnMigration.amount("totalAmount", "totalAmountMinor")
+    };
+
+    private OrderTable() {
+    }
+
+    static void bindOrder(PreparedStatement pstmt, Order order) throws SQLException {
+        pstmt.setString(1, order.getCid());
+        pstmt.setString(2, order.getCustomerName());
+        pstmt.setString(3, order.getProductVersion());
+        bindInteger(pstmt, 4, order.getDevScale());
+        bindInteger(pstmt, 5, order.getPurchasedLicCount());
+        pstmt.setString(6, order.getTotalAmount() != null ? order.getTotalAmount().toString() : null);
+        bindInteger(pstmt, 7, order.getStatus());
+        pstmt.setString(8, order.getDescription());
+        pstmt.setString(9, order.getCreateTime() != null ? order.getCreateTime().toString() : null);
+        pstmt.setString(10, order.getPayTime() != null ? order.getPayTime().toString() : null);
+        pstmt.setString(11, order.getUpdateTime() != null ? order.getUpdateTime().toString() : null);
+        Timestamps.bindMillis(pstmt, 12, order.getCreateTime());
+        Timestamps.bindMillis(pstmt, 13, order.getPayTime());
+        Timestamps.bindMillis(pstmt, 14, order.getUpdateTime());
+        if (order.getTotalAmountMinor() != Order.NO_AMOUNT) {
+            pstmt.setLong(15, order.getTotalAmountMinor());
+        } else {
+            pstmt.setNull(15, Types.INTEGER);
+        }
+        pstmt.setLong(16, order.getVersion());
+    }
+
+    /**
+     * 绑定可为null的整数列（不经过自动拆箱，null写为NULL）
+     */
+    private static void bindInteger(PreparedStatement pstmt, int index, Integer value) throws SQLException {
+        if (value != null) {
+            pstmt.setInt(index, value);
+        } else {
+            pstmt.setNull(index, Types.INTEGER);
+        }
+    }
+
+    /**
+     * 按SELECT_COLUMNS的列顺序映射一行订单
+     */
+    static Order mapOrder(ResultSet rs) throws SQLException {
+        Order order = new Order(
+                rs.getString(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getInt(4),
+                rs.getInt(5),
+                null,
+                rs.getInt(7),
+                rs.getString(8),
+                readTime(rs, 9, "创建时间"),
+                readTime(rs, 10, "支付时间"),
+                readTime(rs, 11, "更新时间")
+        );
+        long amountMinor = rs.getLong(6);
+        if (!rs.wasNull()) {
+            order.setTotalAmountMinor(amountMinor);
+        } else {
+            // 尚未迁移的行：旧TEXT金额可能超过两位小数，舍入到分，无法解析时按无金额加载
+            Long legacyMinor = ColumnMigration.legacyAmountMinor(rs.getString(15), order.getCid());
+            if (legacyMinor != null) {
+                order.setTotalAmountMinor(legacyMinor);
+            }
+        }
+        order.setVersion(rs.getLong(16));
+        return order.freeze();
+    }
+
+    /**
+     * 读取时间：毫秒列（millisColumn）为NULL时解析其后第3列的TEXT值
+     */
+    private static LocalDateTime readTime(ResultSet rs, int millisColumn, String field) throws SQLException {
+        try {
+            return Timestamps.read(rs, millisColumn, millisColumn + 3);
+        } catch (DateTimeException e) {
+            System.out.println(field + "解析失败: " + rs.getString(millisColumn + 3));
+            return null;
+        }
+    }
+
+    /**
+     * 按主键读取一条订单，不存在时返回null
+     */
+    static Order selectOrder(String cid) {
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT " + SELECT_COLUMNS + " FROM order0713 WHERE cid = ?")) {
+            pstmt.setString(1, cid);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? mapOrder(rs) : null;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("读取订单失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 读取数据库中订单的当前版本号，订单不存在时返回null
+     */
+    static Long selectVersion(Connection conn, String cid) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT version FROM order0713 WHERE cid = ?")) {
+            pstmt.setString(1, cid);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+
+    /**
+     * 查询数据库中的订单
+     * @param clause WHERE/ORDER BY等子句
+     */
+    static List<Order> queryOrders(String clause, Object... params) {
+        List<Order> orders = new ArrayList<>();
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT " + SELECT_COLUMNS + " FROM order0713 " + clause)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    orders.add(mapOrder(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("查询订单失败: " + e.getMessage(), e);
+        }
+        return orders;
+    }
+
+    /**
+     * 分页：按（排序列, cid）做键集分页，由数据库索引定位到游标之后
+     * @param filter 额外的筛选条件，可为空字符串，参数放在params中
+     */
+    static Page<Order> page(String filter, List<Object> params, OrderDAO.SortField sortField, boolean descending,
+                            String scope, String cursor, int limit) {
+        String column = sortField.column;
+        StringBuilder where = new StringBuilder(filter);
+        if (cursor != null) {
+            PageCursor after = PageCursor.decode(cursor, scope);
+            Object key = after.key instanceof LocalDateTime ? Timestamps.toEpochMilli((LocalDateTime) after.key) : after.key;
+            if (where.length() > 0) {
+                where.append(" AND ");
+            }
+            // 与内存索引一致：NULL排在最前（降序时最后），相同值按cid排序
+            if (key == null) {
+                where.append(descending
+                    ? "(" + column + " IS NULL AND cid < ?)"
+                    : "(" + column + " IS NOT NULL OR cid > ?)");
+            } else {
+                where.append(descending
+                    ? "(" + column + " < ? OR (" + column + " = ? AND cid < ?) OR " + column + " IS NULL)"
+                    : "(" + column + " > ? OR (" + column + " = ? AND cid > ?))");
+                params.add(key);
+                params.add(key);
+            }
+            params.add(after.id);
+        }
+        String direction = descending ? " DESC" : " ASC";
+        params.add(limit + 1);
+        List<Order> orders = queryOrders((where.length() > 0 ? "WHERE " + where : "")
+            + " ORDER BY " + column + direction + ", cid" + direction + " LIMIT ?", params.toArray());
+        if (orders.size() <= limit) {
+            return new Page<>(orders, null);
+        }
+        orders.remove(limit);
+        Order last = orders.get(limit - 1);
+        return new Page<>(orders, PageCursor.encode(scope, sortField.keyExtractor.apply(last), last.getCid()));
+    }
+
+    static int countOrders(Collection<Integer> statuses, Collection<String> productVersions) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        addInCondition(conditions, params, "status", statuses);
+        addInCondition(conditions, params, "productVersion", productVersions);
+        String sql = "SELECT COUNT(*) FROM order0713"
+            + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions));
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("统计订单失败: " + e.getMessage(), e);
+        }
+    }
+
+    static List<Order> filterOrders(Collection<Integer> statuses, Collection<String> productVersions) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        addInCondition(conditions, params, "status", statuses);
+        addInCondition(conditions, params, "productVersion", productVersions);
+        return queryOrders((conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions))
+            + " ORDER BY createTimeMs DESC, cid DESC", params.toArray());
+    }
+
+    /**
+     * 按产品版本分组汇总，结果未排序
+     */
+    static List<OrderAggregate> analyzeOrders(Collection<Integer> statuses, Collection<String> productVersions,
+                                              LocalDateTime createFrom, LocalDateTime createTo) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        addInCondition(conditions, params, "status", statuses);
+        addInCondition(conditions, params, "productVersion", productVersions);
+        addCondition(conditions, params, "createTimeMs >= ?", millisOrNull(createFrom));
+        addCondition(conditions, params, "createTimeMs <= ?", millisOrNull(createTo));
+        String sql = "SELECT productVersion, COUNT(*), COALESCE(SUM(totalAmountMinor), 0), " +
+            "COALESCE(SUM(purchasedLicCount), 0), COALESCE(SUM(devScale), 0) FROM order0713" +
+            (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions)) + " GROUP BY productVersion";
+        List<OrderAggregate> aggregates = new ArrayList<>();
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    aggregates.add(new OrderAggregate(rs.getString(1), null, null, rs.getLong(2),
+                        BigDecimal.valueOf(rs.getLong(3), Order.AMOUNT_SCALE), rs.getLong(4), rs.getLong(5)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("分析订单失败: " + e.getMessage(), e);
+        }
+        return aggregates;
+    }
+
+    /**
+     * 客户汇总：按状态分组汇总后合并，客户没有订单时返回null
+     */
+    static CustomerSummary customerSummary(String customerName) {
+        String sql = "SELECT status, COUNT(*), COALESCE(SUM(totalAmountMinor), 0), COALESCE(SUM(purchasedLicCount), 0), " +
+            "MIN(createTimeMs), MAX(createTimeMs) FROM order0713 WHERE customerName = ? GROUP BY status";
+        long orderCount = 0;
+        long amountMinor = 0;
+        long licCount = 0;
+        Long first = null;
+        Long last = null;
+        Map<Integer, Long> statusCounts = new TreeMap<>(Comparator.nullsFirst(Comparator.<Integer>naturalOrder()));
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, customerName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int status = rs.getInt(1);
+                    Integer statusOrNull = rs.wasNull() ? null : status;
+                    statusCounts.put(statusOrNull, rs.getLong(2));
+                    orderCount += rs.getLong(2);
+                    amountMinor += rs.getLong(3);
+                    licCount += rs.getLong(4);
+                    long min = rs.getLong(5);
+                    if (!rs.wasNull() && (first == null || min < first)) {
+                        first = min;
+                    }
+                    long max = rs.getLong(6);
+                    if (!rs.wasNull() && (last == null || max > last)) {
+                        last = max;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("汇总客户订单失败: " + e.getMessage(), e);
+        }
+        if (orderCount == 0) {
+            return null;
+        }
+        return new CustomerSummary(customerName, orderCount, statusCounts,
+            BigDecimal.valueOf(amountMinor, Order.AMOUNT_SCALE), licCount,
+            first != null ? Timestamps.fromEpochMilli(first) : null,
+            last != null ? Timestamps.fromEpochMilli(last) : null);
+    }
+
+    /**
+     * 按所选维度分组汇总（月份按毫秒列换算，与内存中的LocalDateTime月份一致），结果未排序
+     */
+    static List<OrderAggregate> aggregates(Set<OrderDAO.AggregateDimension> dimensions) {
+        List<String> columns = new ArrayList<>();
+        List<String> groupBy = new ArrayList<>();
+        for (OrderDAO.AggregateDimension dimension : OrderDAO.AggregateDimension.values()) {
+            if (dimensions.contains(dimension)) {
+                columns.add(dimension.expression + " AS " + dimension.param);
+                groupBy.add(dimension.param);
+            } else {
+                columns.add("NULL AS " + dimension.param);
+            }
+        }
+        String sql = "SELECT " + String.join(", ", columns) + ", COUNT(*) AS orderCount, " +
+            "COALESCE(SUM(totalAmountMinor), 0) AS amountMinor, COALESCE(SUM(purchasedLicCount), 0) AS licCount, " +
+            "COALESCE(SUM(devScale), 0) AS devScaleTotal FROM order0713" +
+            (groupBy.isEmpty() ? "" : " GROUP BY " + String.join(", ", groupBy));
+        List<OrderAggregate> aggregates = new ArrayList<>();
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                if (rs.getLong("orderCount") == 0) {
+                    continue;
+                }
+                int status = rs.getInt("status");
+                Integer statusOrNull = rs.wasNull() ? null : status;
+                aggregates.add(new OrderAggregate(rs.getString("productVersion"), statusOrNull, rs.getString("month"),
+                    rs.getLong("orderCount"), BigDecimal.valueOf(rs.getLong("amountMinor"), Order.AMOUNT_SCALE),
+                    rs.getLong("licCount"), rs.getLong("devScaleTotal")));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("汇总订单失败: " + e.getMessage(), e);
+        }
+        return aggregates;
+    }
+
+    /**
+     * 客户名称补全：分组统计，按截取前缀比较而不是LIKE，与内存索引一样区分大小写且无需转义
+     */
+    static List<Completion> suggestCustomers(String prefix, int limit) {
+        List<Completion> completions = new ArrayList<>();
+        String sql = "SELECT customerName, COUNT(*) AS orderCount FROM order0713 " +
+            "WHERE customerName IS NOT NULL AND customerName <> '' AND substr(customerName, 1, ?) = ? " +
+            "GROUP BY customerName ORDER BY orderCount DESC, customerName LIMIT ?";
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, prefix.length());
+            pstmt.setString(2, prefix);
+            pstmt.setInt(3, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    completions.add(new Completion(rs.getString("customerName"), rs.getInt("orderCount")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("查询客户名称失败: " + e.getMessage(), e);
+        }
+        return completions;
+    }
+
+    /**
+     * 全文检索：按词做LIKE初筛，再对命中的订单打分（词只含字母数字和中文，无需转义）
+     */
+    static List<SearchHit> searchDescriptions(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextIndex.tokenize(query)));
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> conditions = new ArrayList<>();
+        for (String term : terms) {
+            conditions.add("description LIKE ?");
+        }
+        Object[] params = terms.stream().map(term -> "%" + term + "%").toArray();
+        TextIndex<Order> matched = new TextIndex<>(Order::getCid, Collections.singletonList(Order::getDescription));
+        queryOrders("WHERE " + String.join(" AND ", conditions), params).forEach(matched::put);
+        return matched.search(query, limit);
+    }
+
+    /**
+     * 组合查询：条件下推到数据库，执行计划取自EXPLAIN QUERY PLAN
+     */
+    static List<Order> searchOrders(OrderQuery query, Integer limit, Map<String, Object> explain) {
+        long start = System.nanoTime();
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        addCondition(conditions, params, "status = ?", query.getStatus());
+        addCondition(conditions, params, "productVersion = ?", query.getProductVersion());
+        addCondition(conditions, params, "customerName = ?", query.getCustomerName());
+        addCondition(conditions, params, "createTimeMs >= ?", millisOrNull(query.getCreateTimeFrom()));
+        addCondition(conditions, params, "createTimeMs <= ?", millisOrNull(query.getCreateTimeTo()));
+        addCondition(conditions, params, "payTimeMs >= ?", millisOrNull(query.getPayTimeFrom()));
+        addCondition(conditions, params, "payTimeMs <= ?", millisOrNull(query.getPayTimeTo()));
+        addCondition(conditions, params, "totalAmountMinor >= ?", query.getMinAmountMinor());
+        addCondition(conditions, params, "totalAmountMinor <= ?", query.getMaxAmountMinor());
+        String clause = (conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions))
+            + " ORDER BY createTimeMs DESC, cid DESC";
+        if (limit != null) {
+            clause += " LIMIT ?";
+            params.add(limit);
+        }
+
+        List<String> plan = new ArrayList<>();
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement("EXPLAIN QUERY PLAN SELECT " + SELECT_COLUMNS
+                 + " FROM order0713 " + clause)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString("detail"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("查询订单执行计划失败: " + e.getMessage(), e);
+        }
+        List<Order> result = queryOrders(clause, params.toArray());
+
+        explain.put("index", "sqlite");
+        explain.put("plan", plan);
+        explain.put("rowsReturned", result.size());
+        explain.put("durationMicros", (System.nanoTime() - start) / 1000);
+        return result;
+    }
+
+    private static void addCondition(List<String> conditions, List<Object> params, String condition, Object value) {
+        if (value != null) {
+            conditions.add(condition);
+            params.add(value);
+        }
+    }
+
+    private static void addInCondition(List<String> conditions, List<Object> params, String column,
+                                       Collection<?> values) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        StringBuilder placeholders = new StringBuilder();
+        for (Object value : values) {
+            placeholders.append(placeholders.length() > 0 ? ", ?" : "?");
+            params.add(value);
+        }
+        conditions.add(column + " IN (" + placeholders + ")");
+    }
+
+    private static Long millisOrNull(LocalDateTime time) {
+        return time != null ? Timestamps.toEpochMilli(time) : null;
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.demo.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 内存有序索引：按（排序键, 主键）有序保存记录，支持正序/倒序遍历。
+ * 同时记录每个主键当前所在的索引键，调用方原地修改了对象的排序字段后，
+ * 仍能按旧键准确移除旧条目。
+ * <p>
+ * 同一主键的put/remove需由调用方串行化（DAO中在按主键分段的锁内调用），不同主键之间可以并发。
+ * 排序键为null的记录排在最前（倒序遍历时排在最后）；指定了范围的查询不包含排序键为null的记录。
+ */
+final class OrderedIndex<T> {
+
+    private final Function<T, ? extends Comparable<?>> keyExtractor;
+    private final Function<T, String> idExtractor;
+
+    private final ConcurrentSkipListMap<Entry, T> entries = new ConcurrentSkipListMap<>();
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+
+    /**
+     * @param keyExtractor 排序键
+     * @param idExtractor 主键，排序键相同时按主键排序
+     */
+    OrderedIndex(Function<T, ? extends Comparable<?>> keyExtractor, Function<T, String> idExtractor) {
+        this.keyExtractor = keyExtractor;
+        this.idExtractor = idExtractor;
+    }
+
+    /**
+     * 写入或更新记录：先写入新条目再移除旧条目，并发遍历不会漏掉该记录
+     */
+    void put(T value) {
+        String id = idExtractor.apply(value);
+        Entry entry = new Entry(keyExtractor.apply(value), id);
+        entries.put(entry, value);
+        Entry previous = current.put(id, entry);
+        if (previous != null && !previous.equals(entry)) {
+            entries.remove(previous);
+        }
+    }
+
+    void remove(String id) {
+        Entry previous = current.remove(id);
+        if (previous != null) {
+            entries.remove(previous);
+        }
+    }
+
+    void clear() {
+        entries.clear();
+        current.clear();
+    }
+
+    int size() {
+        return current.size();
+    }
+
+    /**
+     * 按排序键复制全部记录
+     * @param descending true为倒序
+     */
+    List<T> list(boolean descending) {
+        return list(descending, null, null);
+    }
+
+    /**
+     * 按排序键复制范围内的记录
+     * @param from 排序键下限（含），null表示不限
+     * @param to 排序键上限（含），null表示不限
+     */
+    List<T> list(boolean descending, Comparable<?> from, Comparable<?> to) {
+        // 跳表的倒序遍历每一步都要重新查找前驱，全量读取时先正序复制再反转
+        List<T> values = new ArrayList<>(range(from, to).values());
+        if (descending) {
+            Collections.reverse(values);
+        }
+        return values;
+    }
+
+    /**
+     * 范围内记录的实时视图（不复制），遍历期间的并发变更可能可见也可能不可见
+     * @param from 排序键下限（含），null表示不限
+     * @param to 排序键上限（含），null表示不限
+     */
+    Collection<T> values(boolean descending, Comparable<?> from, Comparable<?> to) {
+        NavigableMap<Entry, T> view = range(from, to);
+        return descending ? view.descendingMap().values() : view.values();
+    }
+
+    /**
+     * 统计范围内的记录数，数到cap即停止，用于估算扫描代价
+     * @return 不超过cap的记录数
+     */
+    int count(Comparable<?> from, Comparable<?> to, int cap) {
+        if (from == null && to == null) {
+            return Math.min(size(), cap);
+        }
+        int count = 0;
+        for (Iterator<Entry> it = range(from, to).keySet().iterator(); count < cap && it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 从游标之后读取一页，只访问本页的记录
+     * @param scope 查询范围，写入下一页游标
+     * @param from 排序键下限（含），null表示不限
+     * @param to 排序键上限（含），null表示不限
+     * @param cursor 上一页返回的游标，null表示第一页
+     * @param filter 额外的过滤条件，null表示不过滤（过滤时会跳过不满足条件的记录）
+     * @throws IllegalArgumentException 游标无效时抛出
+     */
+    Page<T> page(String scope, boolean descending, Comparable<?> from, Comparable<?> to,
+                 String cursor, int limit, Predicate<T> filter) {
+        NavigableMap<Entry, T> view = range(from, to);
+        if (cursor != null) {
+            PageCursor after = PageCursor.decode(cursor, scope);
+            Entry position = new Entry(after.key, after.id);
+            view = descending ? view.headMap(position, false) : view.tailMap(position, false);
+        }
+        if (descending) {
+            view = view.descendingMap();
+        }
+        List<T> items = new ArrayList<>(Math.min(limit, 256));
+        Entry last = null;
+        for (Map.Entry<Entry, T> e : view.entrySet()) {
+            if (filter != null && !filter.test(e.getValue())) {
+                continue;
+            }
+            if (items.size() == limit) {
+                // 还有下一页，游标取本页最后一条的索引键（而不是对象当前的字段值）
+                return new Page<>(items, PageCursor.encode(scope, last.key, last.id));
+            }
+            items.add(e.getValue());
+            last = e.getKey();
+        }
+        return new Page<>(items, null);
+    }
+
+    /**
+     * 排序键在[from, to]范围内的视图，两端都不限时包含排序键为null的记录
+     */
+    private NavigableMap<Entry, T> range(Comparable<?> from, Comparable<?> to) {
+        if (from == null && to == null) {
+            return entries;
+        }
+        // 下限不限时从排序键为null的记录之后开始
+        Entry lower = from != null ? new Entry(from, null, -1) : new Entry(null, null, 1);
+        if (to == null) {
+            return entries.tailMap(lower, true);
+        }
+        return entries.subMap(lower, true, new Entry(to, null, 1), true);
+    }
+
+    /**
+     * 索引条目：排序键 + 主键。范围边界的主键为null，
+     * rank为-1时排在同一排序键的所有条目之前，为1时排在之后
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final Comparable<?> key;
+        private final String id;
+        private final int rank;
+
+        private Entry(Comparable<?> key, String id) {
+            this(key, id, 0);
+        }
+
+        private Entry(Comparable<?> key, String id, int rank) {
+            this.key = key;
+            this.id = id;
+            this.rank = rank;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public int compareTo(Entry other) {
+            if (key != other.key) {
+                if (key == null) {
+                    return -1;
+                }
+                if (other.key == null) {
+                    return 1;
+                }
+                int result = ((Comparable) key).compareTo(other.key);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            if (rank != other.rank) {
+                return Integer.compare(rank, other.rank);
+            }
+            return id == null ? (other.id == null ? 0 : -1) : (other.id == null ? 1 : id.compareTo(other.id));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry && compareTo((Entry) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+    }
+}
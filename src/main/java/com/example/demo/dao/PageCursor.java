@@ -0,0 +1,121 @@
+package com.example.demo.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 分页游标：记录上一页最后一条记录的（排序键, 主键），下一页从其后开始读取。
+ * 按键定位而不是按偏移量，翻页期间有新增或删除也不会重复或漏掉记录。
+ * <p>
+ * 对外是不透明的Base64字符串，内容依次为范围、类型+排序键、主键三个字段，每个字段以"长度:"为前缀，
+ * 字段内容（如含换行的主键）不会影响解析；排序键只支持LocalDateTime、Long、Integer和String。
+ * 范围标识排序方式（及筛选条件），游标只能用于生成它的同一种查询。
+ */
+final class PageCursor {
+
+    final Comparable<?> key;
+    final String id;
+
+    private PageCursor(Comparable<?> key, String id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    /**
+     * 生成游标
+     * @param scope 查询范围，如 order:createTime:desc
+     * @throws IllegalArgumentException 排序键类型不受支持时抛出
+     */
+    static String encode(String scope, Comparable<?> key, String id) {
+        String keyText;
+        if (key == null) {
+            keyText = "N";
+        } else if (key instanceof LocalDateTime) {
+            keyText = "T" + key;
+        } else if (key instanceof Long) {
+            keyText = "L" + key;
+        } else if (key instanceof Integer) {
+            keyText = "I" + key;
+        } else if (key instanceof String) {
+            keyText = "S" + key;
+        } else {
+            throw new IllegalArgumentException("不支持的分页排序键类型: " + key.getClass().getName());
+        }
+        StringBuilder raw = new StringBuilder();
+        appendField(raw, scope);
+        appendField(raw, keyText);
+        appendField(raw, id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标
+     * @param scope 当前查询范围，与游标中的范围不一致时视为无效
+     * @throws IllegalArgumentException 游标无效时抛出
+     */
+    static PageCursor decode(String cursor, String scope) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+        try {
+            int[] position = {0};
+            String cursorScope = readField(raw, position);
+            String keyText = readField(raw, position);
+            String id = readField(raw, position);
+            if (position[0] != raw.length() || !cursorScope.equals(scope) || keyText.isEmpty()) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            String value = keyText.substring(1);
+            Comparable<?> key;
+            switch (keyText.charAt(0)) {
+                case 'N':
+                    key = null;
+                    break;
+                case 'T':
+                    key = LocalDateTime.parse(value);
+                    break;
+                case 'L':
+                    key = Long.parseLong(value);
+                    break;
+                case 'I':
+                    key = Integer.parseInt(value);
+                    break;
+                case 'S':
+                    key = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("无效的分页游标");
+            }
+            return new PageCursor(key, id);
+        } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+
+    private static void appendField(StringBuilder raw, String value) {
+        raw.append(value.length()).append(':').append(value);
+    }
+
+    /**
+     * 从position处读取一个"长度:内容"字段，并把position移到字段之后
+     */
+    private static String readField(String raw, int[] position) {
+        int colon = raw.indexOf(':', position[0]);
+        if (colon < 0) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        int length = Integer.parseInt(raw.substring(position[0], colon));
+        if (length < 0) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        int end = colon + 1 + length;
+        String value = raw.substring(colon + 1, end);
+        position[0] = end;
+        return value;
+    }
+}
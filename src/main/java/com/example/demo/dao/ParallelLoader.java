@@ -0,0 +1,137 @@
+package com.example.demo.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 并行批量加载：按rowid把整张表切成若干区间，每个区间在独立的只读连接上流式读取，
+ * 冷启动加载时间随CPU核数（受只读连接池大小限制）扩展。
+ * 各区间使用不同的连接和读事务，只适合在启动阶段、没有并发写入时使用。
+ */
+final class ParallelLoader {
+
+    // 行数较少时不值得切分
+    private static final long MIN_ROWS_PER_RANGE = 5000;
+
+    private ParallelLoader() {
+    }
+
+    /**
+     * 按列索引把一行映射为实体
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * 并行加载整张表
+     * @param table 表名
+     * @param columns 查询列（逗号分隔），mapper按该顺序以列索引读取
+     * @param mapper 行映射，在加载线程中并发调用
+     * @param sink 接收实体，在加载线程中并发调用，需线程安全
+     * @return 加载统计：行数、分段数、耗时与吞吐
+     */
+    static <T> Map<String, Object> load(String table, String columns, RowMapper<T> mapper, Consumer<T> sink) throws SQLException {
+        long start = System.nanoTime();
+        long minRowid;
+        long maxRowid;
+        try (Connection conn = DBUtil.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(rowid), MAX(rowid) FROM " + table)) {
+            rs.next();
+            minRowid = rs.getLong(1);
+            maxRowid = rs.getLong(2);
+            if (rs.wasNull()) {
+                return stats(0, 0, start); // 空表
+            }
+        }
+
+        long span = maxRowid - minRowid + 1;
+        int ranges = (int) Math.max(1, Math.min(parallelism(), span / MIN_ROWS_PER_RANGE));
+        String sql = "SELECT " + columns + " FROM " + table + " WHERE rowid BETWEEN ? AND ?";
+        if (ranges == 1) {
+            return stats(loadRange(sql, minRowid, maxRowid, mapper, sink), 1, start);
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(ranges, r -> {
+            Thread t = new Thread(r, "db-loader-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(ranges);
+            long step = (span + ranges - 1) / ranges;
+            for (long from = minRowid; from <= maxRowid; from += step) {
+                long lower = from;
+                long upper = Math.min(maxRowid, from + step - 1);
+                futures.add(executor.submit(() -> loadRange(sql, lower, upper, mapper, sink)));
+            }
+            int rows = 0;
+            for (Future<Integer> future : futures) {
+                rows += future.get();
+            }
+            return stats(rows, futures.size(), start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("并行加载被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("并行加载失败: " + cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> int loadRange(String sql, long lower, long upper, RowMapper<T> mapper, Consumer<T> sink) throws SQLException {
+        int rows = 0;
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, lower);
+            pstmt.setLong(2, upper);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    sink.accept(mapper.map(rs));
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 并行度：配置为0时取CPU核数，且不超过只读连接池大小（否则多出的线程只会等待连接）
+     */
+    private static int parallelism() {
+        int parallelism = Integer.parseInt(DBUtil.getConfig("demo.db.load-parallelism", "0"));
+        int configured = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(configured, DBUtil.getReadPoolSize()));
+    }
+
+    private static Map<String, Object> stats(int rows, int ranges, long startNanos) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rows", rows);
+        stats.put("ranges", ranges);
+        stats.put("durationMs", elapsedNanos / 1_000_000);
+        stats.put("rowsPerSecond", elapsedNanos == 0 ? 0 : (long) (rows * 1e9 / elapsedNanos));
+        return stats;
+    }
+}
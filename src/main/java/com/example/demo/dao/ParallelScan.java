@@ -0,0 +1,223 @@
+package com.example.demo.dao;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * 大查询的并行扫描：行数达到阈值时把[0, size)拆分为若干区间，在专用的有界ForkJoinPool中
+ * 按工作窃取方式并行处理后逐层合并；行数低于阈值时直接在调用线程中顺序处理。
+ * <p>
+ * 使用专用线程池而不是公共池，扫描再多也只占用固定数量的线程，不会挤占请求线程和其他使用公共池的代码。
+ * 线程池为守护线程，由所有DAO共享（见shared()）。
+ */
+final class ParallelScan {
+
+    // 每个子任务至少处理的行数，过小时任务调度开销超过扫描本身
+    private static final int MIN_LEAF_ROWS = 4096;
+
+    private static volatile ParallelScan shared;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong parallelQueries = new AtomicLong();
+    private final AtomicLong parallelRows = new AtomicLong();
+    private final AtomicLong parallelTasks = new AtomicLong();
+
+    /**
+     * @param parallelism 线程池并行度（线程数上限）
+     * @param threshold 行数达到该值时并行处理
+     */
+    ParallelScan(int parallelism, int threshold) {
+        AtomicInteger threadId = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("query-scan-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.threshold = threshold;
+    }
+
+    /**
+     * 所有DAO共享的实例，并行度和阈值取自配置demo.query.parallel.max-threads（默认CPU核数的一半）
+     * 和demo.query.parallel.threshold（默认50000行）
+     */
+    static ParallelScan shared() {
+        ParallelScan instance = shared;
+        if (instance == null) {
+            synchronized (ParallelScan.class) {
+                instance = shared;
+                if (instance == null) {
+                    int defaultParallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+                    instance = new ParallelScan(
+                        Integer.parseInt(DBUtil.getConfig("demo.query.parallel.max-threads", String.valueOf(defaultParallelism))),
+                        Integer.parseInt(DBUtil.getConfig("demo.query.parallel.threshold", "50000")));
+                    shared = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    int threshold() {
+        return threshold;
+    }
+
+    /**
+     * 对[0, size)分区间处理并合并结果
+     * @param leaf 处理一个区间[from, to)
+     * @param combine 合并相邻两个区间的结果（左侧区间在前）
+     * @param metrics 写入本次查询的执行方式：是否并行、子任务数、实际参与的线程数，为null时不写入
+     */
+    <R> R reduce(int size, RangeFunction<R> leaf, BinaryOperator<R> combine, Map<String, Object> metrics) {
+        queries.incrementAndGet();
+        if (size < threshold || pool.getParallelism() <= 1) {
+            if (metrics != null) {
+                metrics.put("parallel", false);
+                metrics.put("tasks", 1);
+                metrics.put("threads", 1);
+            }
+            return leaf.apply(0, size);
+        }
+        int leafRows = Math.max(MIN_LEAF_ROWS, size / (pool.getParallelism() * 4));
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger tasks = new AtomicInteger();
+        R result = pool.invoke(new RangeTask<>(0, size, leafRows, leaf, combine, threads, tasks));
+        parallelQueries.incrementAndGet();
+        parallelRows.addAndGet(size);
+        parallelTasks.addAndGet(tasks.get());
+        if (metrics != null) {
+            metrics.put("parallel", true);
+            metrics.put("tasks", tasks.get());
+            metrics.put("threads", threads.size());
+            metrics.put("parallelism", pool.getParallelism());
+        }
+        return result;
+    }
+
+    /**
+     * 过滤并排序：每个区间过滤后各自排序，合并时两两归并
+     * @param order 结果顺序，为null时保持输入顺序
+     */
+    <T> List<T> filter(List<T> rows, Predicate<? super T> predicate, Comparator<? super T> order,
+                       Map<String, Object> metrics) {
+        return reduce(rows.size(), (from, to) -> {
+            List<T> matched = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                T row = rows.get(i);
+                if (predicate.test(row)) {
+                    matched.add(row);
+                }
+            }
+            if (order != null) {
+                matched.sort(order);
+            }
+            return matched;
+        }, (left, right) -> order != null ? merge(left, right, order) : concat(left, right), metrics);
+    }
+
+    /**
+     * 排序，返回新的列表
+     */
+    <T> List<T> sort(List<T> rows, Comparator<? super T> order, Map<String, Object> metrics) {
+        return filter(rows, row -> true, order, metrics);
+    }
+
+    /**
+     * 线程池及累计的并行查询指标
+     */
+    Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("threshold", threshold);
+        metrics.put("parallelism", pool.getParallelism());
+        metrics.put("poolSize", pool.getPoolSize());
+        metrics.put("activeThreads", pool.getActiveThreadCount());
+        metrics.put("stealCount", pool.getStealCount());
+        metrics.put("queries", queries.get());
+        metrics.put("parallelQueries", parallelQueries.get());
+        metrics.put("parallelRows", parallelRows.get());
+        metrics.put("parallelTasks", parallelTasks.get());
+        return metrics;
+    }
+
+    private static <T> List<T> merge(List<T> left, List<T> right, Comparator<? super T> order) {
+        List<T> merged = new ArrayList<>(left.size() + right.size());
+        int i = 0;
+        int j = 0;
+        while (i < left.size() && j < right.size()) {
+            // 相等时取左侧，保持稳定
+            merged.add(order.compare(right.get(j), left.get(i)) < 0 ? right.get(j++) : left.get(i++));
+        }
+        merged.addAll(left.subList(i, left.size()));
+        merged.addAll(right.subList(j, right.size()));
+        return merged;
+    }
+
+    private static <T> List<T> concat(List<T> left, List<T> right) {
+        List<T> joined = new ArrayList<>(left.size() + right.size());
+        joined.addAll(left);
+        joined.addAll(right);
+        return joined;
+    }
+
+    /**
+     * 处理一个区间[from, to)
+     */
+    interface RangeFunction<R> {
+        R apply(int from, int to);
+    }
+
+    /**
+     * 区间大于leafRows时对半拆分，左半部分fork、右半部分在当前线程计算
+     */
+    private static final class RangeTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int leafRows;
+        private final RangeFunction<R> leaf;
+        private final BinaryOperator<R> combine;
+        private final Set<String> threads;
+        private final AtomicInteger tasks;
+
+        RangeTask(int from, int to, int leafRows, RangeFunction<R> leaf, BinaryOperator<R> combine,
+                  Set<String> threads, AtomicInteger tasks) {
+            this.from = from;
+            this.to = to;
+            this.leafRows = leafRows;
+            this.leaf = leaf;
+            this.combine = combine;
+            this.threads = threads;
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= leafRows) {
+                tasks.incrementAndGet();
+                threads.add(Thread.currentThread().getName());
+                return leaf.apply(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            RangeTask<R> left = new RangeTask<>(from, middle, leafRows, leaf, combine, threads, tasks);
+            left.fork();
+            R right = new RangeTask<>(middle, to, leafRows, leaf, combine, threads, tasks).compute();
+            return combine.apply(left.join(), right);
+        }
+    }
+}
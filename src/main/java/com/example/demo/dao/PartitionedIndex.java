@@ -0,0 +1,125 @@
+package com.example.demo.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 分区有序索引：按分区字段（如客户名称）分组，每个分区内是一个OrderedIndex。
+ * 记录每个主键当前所在的分区，分区字段被修改（如客户改名）时从旧分区移除。
+ * 与OrderedIndex相同，同一主键的put/remove需由调用方串行化。
+ */
+final class PartitionedIndex<T> {
+
+    // 分区字段为null的记录放在该分区
+    private static final Object NULL_PARTITION = new Object();
+
+    private final Function<T, ?> partitionExtractor;
+    private final Function<T, ? extends Comparable<?>> keyExtractor;
+    private final Function<T, String> idExtractor;
+
+    private final Map<Object, OrderedIndex<T>> partitions = new ConcurrentHashMap<>();
+    private final Map<String, Object> partitionOf = new ConcurrentHashMap<>();
+
+    /**
+     * @param partitionExtractor 分区字段
+     * @param keyExtractor 分区内的排序键
+     * @param idExtractor 主键
+     */
+    PartitionedIndex(Function<T, ?> partitionExtractor, Function<T, ? extends Comparable<?>> keyExtractor,
+                     Function<T, String> idExtractor) {
+        this.partitionExtractor = partitionExtractor;
+        this.keyExtractor = keyExtractor;
+        this.idExtractor = idExtractor;
+    }
+
+    /**
+     * 写入或更新记录：先写入新分区再从旧分区移除
+     */
+    void put(T value) {
+        String id = idExtractor.apply(value);
+        Object partition = partitionKey(partitionExtractor.apply(value));
+        partitions.computeIfAbsent(partition, p -> new OrderedIndex<>(keyExtractor, idExtractor)).put(value);
+        Object previous = partitionOf.put(id, partition);
+        if (previous != null && !previous.equals(partition)) {
+            OrderedIndex<T> old = partitions.get(previous);
+            if (old != null) {
+                old.remove(id);
+            }
+        }
+    }
+
+    void remove(String id) {
+        Object previous = partitionOf.remove(id);
+        if (previous != null) {
+            OrderedIndex<T> old = partitions.get(previous);
+            if (old != null) {
+                old.remove(id);
+            }
+        }
+    }
+
+    void clear() {
+        partitions.clear();
+        partitionOf.clear();
+    }
+
+    /**
+     * 按排序键复制一个分区的记录，分区不存在时返回空列表
+     * @param descending true为倒序
+     */
+    List<T> list(Object partition, boolean descending) {
+        return list(partition, descending, null, null);
+    }
+
+    /**
+     * 按排序键复制一个分区在[from, to]范围内的记录
+     * @see OrderedIndex#list(boolean, Comparable, Comparable)
+     */
+    List<T> list(Object partition, boolean descending, Comparable<?> from, Comparable<?> to) {
+        OrderedIndex<T> index = partitions.get(partitionKey(partition));
+        return index != null ? index.list(descending, from, to) : new ArrayList<>();
+    }
+
+    /**
+     * 从游标之后读取一个分区的一页
+     * @see OrderedIndex#page
+     */
+    Page<T> page(Object partition, String scope, boolean descending, Comparable<?> from, Comparable<?> to,
+                 String cursor, int limit) {
+        OrderedIndex<T> index = partitions.get(partitionKey(partition));
+        if (index == null) {
+            if (cursor != null) {
+                PageCursor.decode(cursor, scope); // 校验游标
+            }
+            return new Page<>(new ArrayList<>(), null);
+        }
+        return index.page(scope, descending, from, to, cursor, limit, null);
+    }
+
+    /**
+     * 一个分区在[from, to]范围内记录的实时视图，分区不存在时返回空集合
+     * @see OrderedIndex#values
+     */
+    Collection<T> values(Object partition, boolean descending, Comparable<?> from, Comparable<?> to) {
+        OrderedIndex<T> index = partitions.get(partitionKey(partition));
+        return index != null ? index.values(descending, from, to) : Collections.emptyList();
+    }
+
+    /**
+     * 统计一个分区在[from, to]范围内的记录数，数到cap即停止
+     * @see OrderedIndex#count
+     */
+    int count(Object partition, Comparable<?> from, Comparable<?> to, int cap) {
+        OrderedIndex<T> index = partitions.get(partitionKey(partition));
+        return index != null ? index.count(from, to, cap) : 0;
+    }
+
+    private static Object partitionKey(Object partition) {
+        return partition != null ? partition : NULL_PARTITION;
+    }
+}
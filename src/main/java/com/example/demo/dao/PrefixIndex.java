@@ -0,0 +1,317 @@
+package com.example.demo.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 前缀索引：字段的不同取值（如客户名称）存放在基数树（压缩前缀树）中，每个取值记录其出现的记录数。
+ * 每个节点额外记录子树内的最大记录数，取前缀的top-k补全时按该上界优先展开，找到k个即停止，
+ * 不需要遍历前缀下的全部取值。
+ * <p>
+ * 记录每个主键当前的取值，取值被修改（如客户改名）时从旧取值扣减。区分大小写，null和空字符串不收录。
+ * 内部用读写锁保护。
+ */
+final class PrefixIndex<T> {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    // 补全结果排序：记录数降序，相同时按文本升序
+    private static final Comparator<Candidate> RANKING = Comparator
+        .comparingInt((Candidate candidate) -> candidate.priority).reversed()
+        .thenComparing(candidate -> candidate.text);
+
+    private final Function<T, String> idExtractor;
+    private final Function<T, String> keyExtractor;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Node root = new Node("");
+    private final Map<String, String> keyOf = new HashMap<>();
+    private int distinctKeys;
+
+    /**
+     * @param idExtractor 主键
+     * @param keyExtractor 参与补全的字段
+     */
+    PrefixIndex(Function<T, String> idExtractor, Function<T, String> keyExtractor) {
+        this.idExtractor = idExtractor;
+        this.keyExtractor = keyExtractor;
+    }
+
+    /**
+     * 写入或更新记录：取值变化时旧取值计数减一、新取值计数加一
+     */
+    void put(T value) {
+        String id = idExtractor.apply(value);
+        String key = keyExtractor.apply(value);
+        if (key != null && key.isEmpty()) {
+            key = null;
+        }
+        lock.writeLock().lock();
+        try {
+            String previous = key != null ? keyOf.put(id, key) : keyOf.remove(id);
+            if (key != null && key.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                add(previous, -1);
+            }
+            if (key != null) {
+                add(key, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            String previous = keyOf.remove(id);
+            if (previous != null) {
+                add(previous, -1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            root.children = NO_CHILDREN;
+            root.count = 0;
+            root.best = 0;
+            keyOf.clear();
+            distinctKeys = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 以prefix开头、记录数最多的limit个取值，记录数相同时按文本升序
+     * @param prefix 前缀，空字符串表示全部取值
+     */
+    List<Completion> complete(String prefix, int limit) {
+        List<Completion> result = new ArrayList<>();
+        if (prefix == null || limit <= 0) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            // 定位前缀所在的节点，前缀可能止于某条边的中间
+            Node node = root;
+            StringBuilder path = new StringBuilder();
+            int i = 0;
+            while (i < prefix.length()) {
+                Node child = node.child(prefix.charAt(i));
+                if (child == null) {
+                    return result;
+                }
+                int common = commonPrefix(child.label, prefix, i);
+                if (common < child.label.length() && i + common < prefix.length()) {
+                    return result;
+                }
+                path.append(child.label);
+                node = child;
+                i += common;
+            }
+
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(RANKING);
+            queue.add(new Candidate(path.toString(), node, node.best));
+            while (!queue.isEmpty() && result.size() < limit) {
+                Candidate candidate = queue.poll();
+                if (candidate.node == null) {
+                    result.add(new Completion(candidate.text, candidate.priority));
+                    continue;
+                }
+                Node current = candidate.node;
+                if (current.count > 0) {
+                    queue.add(new Candidate(candidate.text, null, current.count));
+                }
+                for (Node child : current.children) {
+                    queue.add(new Candidate(candidate.text + child.label, child, child.best));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 不同取值的个数
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return distinctKeys;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 调整一个取值的计数：沿路径查找，不存在时插入（必要时拆分边），
+     * 计数归零时删除节点并合并只剩一个子节点的中间节点，最后自下而上更新子树最大值
+     */
+    private void add(String key, int delta) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                if (delta < 0) {
+                    return;
+                }
+                child = new Node(key.substring(i));
+                node.addChild(child);
+                node = child;
+                path.add(node);
+                break;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                if (delta < 0) {
+                    return;
+                }
+                // 拆分边：child的标签分为公共部分（新的中间节点）和剩余部分
+                Node middle = new Node(child.label.substring(0, common));
+                node.replaceChild(middle);
+                child.label = child.label.substring(common);
+                middle.children = new Node[]{child};
+                middle.best = child.best;
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+
+        int before = node.count;
+        node.count = Math.max(0, before + delta);
+        if (before == 0 && node.count > 0) {
+            distinctKeys++;
+        } else if (before > 0 && node.count == 0) {
+            distinctKeys--;
+        }
+
+        for (int depth = path.size() - 1; depth >= 1; depth--) {
+            Node current = path.get(depth);
+            Node parent = path.get(depth - 1);
+            if (current.count == 0 && current.children.length == 0) {
+                parent.removeChild(current);
+                continue;
+            }
+            if (current.count == 0 && current.children.length == 1) {
+                Node only = current.children[0];
+                current.label = current.label + only.label;
+                current.children = only.children;
+                current.count = only.count;
+            }
+            current.updateBest();
+        }
+        root.updateBest();
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 基数树节点：label为从父节点到本节点的边上的文本，子节点按标签首字符升序排列
+     */
+    private static final class Node {
+        String label;
+        Node[] children = NO_CHILDREN;
+        // 以本节点结尾的取值的记录数，0表示不是完整取值
+        int count;
+        // 子树（含本节点）内的最大记录数
+        int best;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            int index = indexOf(first);
+            return index >= 0 ? children[index] : null;
+        }
+
+        void addChild(Node child) {
+            int index = -indexOf(child.label.charAt(0)) - 1;
+            Node[] expanded = new Node[children.length + 1];
+            System.arraycopy(children, 0, expanded, 0, index);
+            expanded[index] = child;
+            System.arraycopy(children, index, expanded, index + 1, children.length - index);
+            children = expanded;
+        }
+
+        void replaceChild(Node child) {
+            children[indexOf(child.label.charAt(0))] = child;
+        }
+
+        void removeChild(Node child) {
+            int index = indexOf(child.label.charAt(0));
+            Node[] shrunk = Arrays.copyOf(children, children.length - 1);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        void updateBest() {
+            int max = count;
+            for (Node child : children) {
+                max = Math.max(max, child.best);
+            }
+            best = max;
+        }
+
+        private int indexOf(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -low - 1;
+        }
+    }
+
+    /**
+     * 补全过程中的候选：node非空时表示待展开的子树（priority为子树最大记录数），
+     * 否则表示一个完整取值（priority为其记录数）
+     */
+    private static final class Candidate {
+        final String text;
+        final Node node;
+        final int priority;
+
+        Candidate(String text, Node node, int priority) {
+            this.text = text;
+            this.node = node;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.dao;
+
+/**
+ * 全文检索命中的一条记录：主键及相关度得分（越大越相关）
+ */
+public final class SearchHit {
+
+    private final String id;
+    private final double score;
+
+    SearchHit(String id, double score) {
+        this.id = id;
+        this.score = score;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.dao;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+/**
+ * 二进制快照文件：启动时通过内存映射顺序解码记录，替代逐行读取SQLite。
+ * <p>
+ * 文件格式：[int 魔数][int 版本][long 表版本号][int 记录数][记录...]，记录格式由各实体的Codec决定。
+ * 表版本号取自数据库table_generation表，每个写事务都会递增；快照中的版本号与数据库不一致时
+ * 说明快照之后数据库又被修改过，快照作废。
+ */
+final class SnapshotFile {
+
+    static final int ORDER_MAGIC = 0x4F44534E; // "ODSN"
+    static final int INFLUENCE_MAGIC = 0x494E534E; // "INSN"
+    // 3：订单金额改为以分存储的long；4：订单和影响力记录增加乐观锁版本号
+    static final int VERSION = 4;
+
+    // 不校验表版本号（日志模式下快照之后的变更由日志重放补齐）
+    static final long ANY_GENERATION = -1L;
+
+    private static final int HEADER_BYTES = 20;
+    private static final int COUNT_OFFSET = 16;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * 记录写入器
+     */
+    @FunctionalInterface
+    interface RecordWriter<T> {
+        void write(DataOutput out, T record) throws IOException;
+    }
+
+    /**
+     * 记录读取器，直接从映射缓冲区解码
+     */
+    @FunctionalInterface
+    interface RecordReader<T> {
+        T read(ByteBuffer in);
+    }
+
+    /**
+     * 写入快照：先写临时文件并刷盘，再原子替换，崩溃时不会留下半个快照
+     * @return 写入的记录数
+     */
+    static <T> int write(Path file, int magic, long generation, Iterable<T> records, RecordWriter<T> writer) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        Path temp = Paths.get(file + ".tmp");
+        int count = 0;
+        try (OutputStream raw = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(raw, 1 << 16))) {
+            out.writeInt(magic);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+            out.writeInt(0); // 记录数在写完后回填
+            for (T record : records) {
+                writer.write(out, record);
+                count++;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer countBytes = ByteBuffer.allocate(4).putInt(0, count);
+            channel.write(countBytes, COUNT_OFFSET);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * 通过内存映射读取快照
+     * @param expectedGeneration 期望的表版本号，ANY_GENERATION表示不校验
+     * @return 快照可用并已读取返回true；文件不存在、版本不符或已过期返回false（此时不会调用sink）
+     * @throws IOException 文件损坏时抛出，可能已有部分记录交给sink
+     */
+    static <T> boolean read(Path file, int magic, long expectedGeneration,
+                            RecordReader<T> reader, Consumer<T> sink) throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                System.out.println("快照文件不完整，忽略: " + file);
+                return false;
+            }
+            if (size > Integer.MAX_VALUE) {
+                // 单个MappedByteBuffer最大2GB
+                System.out.println("快照文件超过2GB，无法映射，忽略: " + file);
+                return false;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != magic || buffer.getInt() != VERSION) {
+                System.out.println("快照文件格式或版本不匹配，忽略: " + file);
+                return false;
+            }
+            long generation = buffer.getLong();
+            if (expectedGeneration != ANY_GENERATION && generation != expectedGeneration) {
+                System.out.println("快照已过期（快照版本 " + generation + "，数据库版本 " + expectedGeneration + "），忽略: " + file);
+                return false;
+            }
+            int count = buffer.getInt();
+            try {
+                for (int i = 0; i < count; i++) {
+                    sink.accept(reader.read(buffer));
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("快照文件已损坏: " + file, e);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 创建表版本号表
+     */
+    static void initGenerationTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS table_generation(" +
+                    "table_name TEXT PRIMARY KEY, " +
+                    "generation INTEGER NOT NULL)");
+        }
+    }
+
+    /**
+     * 在当前写事务中递增表版本号，使之前生成的快照失效
+     */
+    static void bumpGeneration(Connection conn, String table) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO table_generation(table_name, generation) VALUES(?, 1) " +
+                "ON CONFLICT(table_name) DO UPDATE SET generation = generation + 1")) {
+            pstmt.setString(1, table);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * 读取表的当前版本号，从未写入过时为0
+     */
+    static long currentGeneration(Connection conn, String table) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT generation FROM table_generation WHERE table_name = ?")) {
+            pstmt.setString(1, table);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.dao;
+
+/**
+ * 按键分段的互斥锁：同一个键总是映射到同一把锁，不同的键大多落在不同分段上，可以并发写入。
+ * <p>
+ * DAO用它把"检查版本号、持久化、写入内存和索引"串行化为一个整体。持久化可能阻塞（等待组提交、追加日志并刷盘），
+ * 不能放在ConcurrentHashMap的compute回调中执行，否则会长时间占用桶锁，阻塞同一个桶中的其他键和扩容。
+ */
+final class StripedLocks {
+
+    private final Object[] locks;
+
+    StripedLocks(int stripes) {
+        locks = new Object[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * 键所在分段的锁
+     */
+    Object lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % locks.length];
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.demo.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 全文倒排索引：词 -> 包含该词的记录（内部序号+词频），按BM25打分返回最相关的记录。
+ * <p>
+ * 分词：连续的中日韩文字切成相邻两字的二元组（"删除订单" -> 删除、除订、订单），只有一个字时保留单字；
+ * 连续的字母数字作为一个词并转为小写；其余字符作为分隔符。多个文本字段分别分词后合并，二元组不跨字段。
+ * 查询同样分词，要求记录包含全部查询词。
+ * <p>
+ * 每次写入记录都分配一个递增的内部序号，倒排表只追加，天然按序号有序，求交集时可二分查找；
+ * 删除或更新只把旧序号标记为失效，失效条目超过有效条目时整体重建压缩。
+ * 记录每条记录当前所在的倒排表，对象被原地修改后仍能正确扣减词的文档数。内部用读写锁保护。
+ */
+final class TextIndex<T> {
+
+    // BM25参数
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // 失效条目少于该值时不压缩
+    private static final int MIN_COMPACT_POSTINGS = 1 << 16;
+
+    // 命中结果排序：得分降序，相同得分按主键升序
+    private static final Comparator<SearchHit> RANKING = Comparator
+        .comparingDouble(SearchHit::getScore).reversed()
+        .thenComparing(SearchHit::getId);
+
+    private final Function<T, String> idExtractor;
+    private final List<Function<T, String>> fields;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> ordinalOf = new HashMap<>();
+    // 序号 -> 记录，失效的序号为null
+    private Document[] documents = new Document[1024];
+    private int nextOrdinal;
+    private long totalLength;
+    private long livePostings;
+    private long deadPostings;
+
+    /**
+     * @param idExtractor 主键
+     * @param fields 参与检索的文本字段
+     */
+    TextIndex(Function<T, String> idExtractor, List<Function<T, String>> fields) {
+        this.idExtractor = idExtractor;
+        this.fields = new ArrayList<>(fields);
+    }
+
+    /**
+     * 写入或更新记录：旧序号失效，以新序号写入新词
+     */
+    void put(T value) {
+        String id = idExtractor.apply(value);
+        Map<String, Integer> terms = new HashMap<>();
+        int length = 0;
+        for (Function<T, String> field : fields) {
+            for (String token : tokenize(field.apply(value))) {
+                terms.merge(token, 1, Integer::sum);
+                length++;
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            if (!terms.isEmpty()) {
+                addDocument(id, terms, length);
+            }
+            if (deadPostings > livePostings && deadPostings > MIN_COMPACT_POSTINGS) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            ordinalOf.clear();
+            documents = new Document[1024];
+            nextOrdinal = 0;
+            totalLength = 0;
+            livePostings = 0;
+            deadPostings = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 检索包含全部查询词的记录，按BM25得分降序返回前limit条
+     * @return 查询没有可检索的词时返回空列表
+     */
+    List<SearchHit> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        List<SearchHit> hits = new ArrayList<>();
+        if (terms.isEmpty() || limit <= 0) {
+            return hits;
+        }
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>();
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    return hits;
+                }
+                lists.add(list);
+            }
+            // 从最短的倒排表出发，在其余倒排表中二分查找同一序号
+            lists.sort(Comparator.comparingInt(list -> list.live));
+            int documentCount = ordinalOf.size();
+            double averageLength = (double) totalLength / documentCount;
+            double[] idf = new double[lists.size()];
+            for (int i = 0; i < lists.size(); i++) {
+                int df = lists.get(i).live;
+                idf[i] = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+            }
+            PriorityQueue<SearchHit> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            Postings driver = lists.get(0);
+            for (int p = 0; p < driver.size; p++) {
+                int ordinal = driver.ordinals[p];
+                Document document = documents[ordinal];
+                if (document == null) {
+                    continue;
+                }
+                double norm = K1 * (1 - B + B * document.length / averageLength);
+                double score = idf[0] * driver.frequencies[p] * (K1 + 1) / (driver.frequencies[p] + norm);
+                for (int i = 1; i < lists.size() && score >= 0; i++) {
+                    Postings list = lists.get(i);
+                    int found = Arrays.binarySearch(list.ordinals, 0, list.size, ordinal);
+                    if (found < 0) {
+                        score = -1;
+                    } else {
+                        int tf = list.frequencies[found];
+                        score += idf[i] * tf * (K1 + 1) / (tf + norm);
+                    }
+                }
+                if (score >= 0) {
+                    top.offer(new SearchHit(document.id, score));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+            hits.addAll(top);
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    /**
+     * 已收录（至少有一个词）的记录数
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalOf.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 分词：中日韩文字切二元组，字母数字按词切分并转小写
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int i = 0;
+        int n = text.length();
+        while (i < n) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp)) {
+                int start = i;
+                int previous = -1;
+                int count = 0;
+                while (i < n && isCjk(cp = text.codePointAt(i))) {
+                    if (previous >= 0) {
+                        tokens.add(text.substring(previous, i + Character.charCount(cp)));
+                    }
+                    previous = i;
+                    i += Character.charCount(cp);
+                    count++;
+                }
+                if (count == 1) {
+                    tokens.add(text.substring(start, i));
+                }
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < n && Character.isLetterOrDigit(cp = text.codePointAt(i)) && !isCjk(cp)) {
+                    i += Character.charCount(cp);
+                }
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private void addDocument(String id, Map<String, Integer> terms, int length) {
+        int ordinal = nextOrdinal++;
+        if (ordinal == documents.length) {
+            documents = Arrays.copyOf(documents, ordinal * 2);
+        }
+        Postings[] lists = new Postings[terms.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            Postings list = postings.computeIfAbsent(term.getKey(), Postings::new);
+            list.add(ordinal, term.getValue());
+            lists[i++] = list;
+        }
+        documents[ordinal] = new Document(id, lists, length);
+        ordinalOf.put(id, ordinal);
+        totalLength += length;
+        livePostings += terms.size();
+    }
+
+    private void removeDocument(String id) {
+        Integer ordinal = ordinalOf.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        Document previous = documents[ordinal];
+        documents[ordinal] = null;
+        for (Postings list : previous.postings) {
+            if (--list.live == 0) {
+                deadPostings -= list.size - 1;
+                postings.remove(list.term);
+            } else {
+                deadPostings++;
+            }
+        }
+        livePostings -= previous.postings.length;
+        totalLength -= previous.length;
+    }
+
+    /**
+     * 按有效记录重新分配序号、重建倒排表，清除失效条目
+     */
+    private void compact() {
+        Document[] live = new Document[Math.max(1024, ordinalOf.size() * 2)];
+        Map<String, Postings> rebuilt = new HashMap<>();
+        int ordinal = 0;
+        for (int old = 0; old < nextOrdinal; old++) {
+            Document document = documents[old];
+            if (document == null) {
+                continue;
+            }
+            for (int i = 0; i < document.postings.length; i++) {
+                Postings list = document.postings[i];
+                int found = Arrays.binarySearch(list.ordinals, 0, list.size, old);
+                Postings compacted = rebuilt.computeIfAbsent(list.term, Postings::new);
+                compacted.add(ordinal, list.frequencies[found]);
+                document.postings[i] = compacted;
+            }
+            live[ordinal] = document;
+            ordinalOf.put(document.id, ordinal);
+            ordinal++;
+        }
+        postings.clear();
+        postings.putAll(rebuilt);
+        documents = live;
+        nextOrdinal = ordinal;
+        deadPostings = 0;
+    }
+
+    /**
+     * 一个词的倒排表：按序号升序追加的（序号, 词频），live为其中有效条目数
+     */
+    private static final class Postings {
+        final String term;
+        int[] ordinals = new int[2];
+        int[] frequencies = new int[2];
+        int size;
+        int live;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void add(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+            live++;
+        }
+    }
+
+    /**
+     * 一条记录的主键、所在的倒排表（每个词一个）及总词数
+     */
+    private static final class Document {
+        final String id;
+        final Postings[] postings;
+        final int length;
+
+        Document(String id, Postings[] postings, int length) {
+            this.id = id;
+            this.postings = postings;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 时间字段快速解析：数据库中的时间由LocalDateTime.toString()写入，格式固定为
+ * yyyy-MM-ddTHH:mm[:ss[.SSSSSSSSS]]，按固定位置直接取数字，避免DateTimeFormatter
+ * 的解析开销和逐行异常回退；其他格式交给LocalDateTime.parse处理。
+ * <p>
+ * 新版表结构以INTEGER epoch毫秒存储时间（LocalDateTime按UTC换算，只作为有序整数编码），
+ * 读取时优先取毫秒列，尚未迁移的行回退解析TEXT列。
+ */
+final class Timestamps {
+
+    private static final int[] NANO_SCALE = {
+            0, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1
+    };
+
+    private Timestamps() {
+    }
+
+    /**
+     * 解析时间字符串，null或空串返回null
+     * @throws java.time.DateTimeException 格式无法识别时抛出
+     */
+    static LocalDateTime parse(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        int length = text.length();
+        if (length >= 16 && text.charAt(4) == '-' && text.charAt(7) == '-'
+                && (text.charAt(10) == 'T' || text.charAt(10) == ' ') && text.charAt(13) == ':') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 7);
+            int day = digits(text, 8, 10);
+            int hour = digits(text, 11, 13);
+            int minute = digits(text, 14, 16);
+            int second = 0;
+            int nano = 0;
+            boolean valid = (year | month | day | hour | minute) >= 0;
+            if (length > 16) {
+                valid &= length >= 19 && text.charAt(16) == ':';
+                second = valid ? digits(text, 17, 19) : -1;
+                if (valid && length > 19) {
+                    int fractionDigits = length - 20;
+                    valid = text.charAt(19) == '.' && fractionDigits >= 1 && fractionDigits <= 9;
+                    int fraction = valid ? digits(text, 20, length) : -1;
+                    nano = fraction >= 0 ? fraction * NANO_SCALE[fractionDigits] : -1;
+                }
+            }
+            if (valid && (second | nano) >= 0) {
+                return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+            }
+        }
+        return LocalDateTime.parse(text);
+    }
+
+    /**
+     * 解析[from, to)区间内的十进制数字，包含非数字字符时返回-1
+     */
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    static long toEpochMilli(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime fromEpochMilli(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    /**
+     * 读取时间：毫秒列非NULL时直接换算，否则解析TEXT列
+     */
+    static LocalDateTime read(ResultSet rs, int millisColumn, int textColumn) throws SQLException {
+        long millis = rs.getLong(millisColumn);
+        if (!rs.wasNull()) {
+            return fromEpochMilli(millis);
+        }
+        return parse(rs.getString(textColumn));
+    }
+
+    /**
+     * 绑定毫秒列参数，时间为null时绑定NULL
+     */
+    static void bindMillis(PreparedStatement pstmt, int index, LocalDateTime time) throws SQLException {
+        if (time != null) {
+            pstmt.setLong(index, toEpochMilli(time));
+        } else {
+            pstmt.setNull(index, Types.INTEGER);
+        }
+    }
+}
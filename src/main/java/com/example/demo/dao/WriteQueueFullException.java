@@ -0,0 +1,28 @@
+package com.example.demo.dao;
+
+/**
+ * 写入队列已满：数据库写线程处理不过来，本次变更未入队（或排队超时后被取消）、未执行，调用方应稍后重试
+ */
+public class WriteQueueFullException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+
+    public WriteQueueFullException(int capacity) {
+        super("数据库写入队列已满(" + capacity + ")，请稍后重试");
+        this.capacity = capacity;
+    }
+
+    /**
+     * 变更已入队，但等待awaitTimeoutMs仍未轮到执行，已被取消
+     */
+    public WriteQueueFullException(int capacity, long awaitTimeoutMs) {
+        super("数据库写入队列积压，等待" + awaitTimeoutMs + "ms仍未执行，变更已取消，请稍后重试");
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
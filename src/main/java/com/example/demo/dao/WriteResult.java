@@ -0,0 +1,20 @@
+package com.example.demo.dao;
+
+/**
+ * 带版本号条件的写入结果
+ */
+public enum WriteResult {
+    // 已写入
+    APPLIED,
+    // 记录不存在
+    NOT_FOUND,
+    // 当前版本号与期望的不一致（已被其他请求修改）
+    VERSION_CONFLICT,
+    // 业务规则不允许（由服务层返回，如已支付订单不能删除）
+    REJECTED;
+
+    /**
+     * 期望版本号取该值时不检查版本，直接写入
+     */
+    public static final long ANY_VERSION = -1L;
+}
@@ -1,7 +1,10 @@
 package com.example.demo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -38,6 +41,12 @@ public class Influence {
     // 更新时间
     private LocalDateTime updateTime;
 
+    // 乐观锁版本号：创建时为1，每次更新加1，由DAO维护（请求体中传入的值会被忽略）
+    private long version;
+
+    // 只读快照：DAO存储和返回的记录都是快照，修改需先copy()
+    private transient boolean frozen;
+
     // 活动类型常量
     public static final String TYPE_SA_TRAINING = "SA_TRAINING";
     public static final String TYPE_LOGO = "LOGO";
@@ -81,11 +90,64 @@ public class Influence {
     }
 
     // Getters and Setters
+    /**
+     * 复制一个可修改的影响力记录，图片列表同时复制
+     */
+    public Influence copy() {
+        Influence copy = new Influence();
+        copy.id = id;
+        copy.name = name;
+        copy.type = type;
+        copy.status = status;
+        copy.eventTime = eventTime;
+        copy.link = link;
+        copy.remark = remark;
+        copy.imageUrls = imageUrls != null ? new ArrayList<>(imageUrls) : null;
+        copy.createTime = createTime;
+        copy.updateTime = updateTime;
+        copy.version = version;
+        return copy;
+    }
+
+    /**
+     * 只读快照：本身已是快照时直接返回，否则复制一份并冻结（图片列表不可修改）
+     */
+    public Influence snapshot() {
+        if (frozen) {
+            return this;
+        }
+        Influence snapshot = copy();
+        if (snapshot.imageUrls != null) {
+            snapshot.imageUrls = Collections.unmodifiableList(snapshot.imageUrls);
+        }
+        return snapshot.freeze();
+    }
+
+    /**
+     * 就地冻结并返回本对象，用于刚解码、尚未被其他代码引用的记录，图片列表需由调用方保证不可修改
+     */
+    public Influence freeze() {
+        frozen = true;
+        return this;
+    }
+
+    @JsonIgnore
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("影响力记录快照不可修改，请先调用copy(): " + id);
+        }
+    }
+
     public String getId() {
         return id;
     }
 
     public void setId(String id) {
+        checkMutable();
         this.id = id;
     }
 
@@ -94,6 +156,7 @@ public class Influence {
     }
 
     public void setName(String name) {
+        checkMutable();
         this.name = name;
     }
 
@@ -102,6 +165,7 @@ public class Influence {
     }
 
     public void setType(String type) {
+        checkMutable();
         this.type = type;
     }
 
@@ -110,6 +174,7 @@ public class Influence {
     }
 
     public void setStatus(String status) {
+        checkMutable();
         this.status = status;
     }
 
@@ -118,6 +183,7 @@ public class Influence {
     }
 
     public void setEventTime(LocalDateTime eventTime) {
+        checkMutable();
         this.eventTime = eventTime;
     }
 
@@ -126,6 +192,7 @@ public class Influence {
     }
 
     public void setLink(String link) {
+        checkMutable();
         this.link = link;
     }
 
@@ -134,6 +201,7 @@ public class Influence {
     }
 
     public void setRemark(String remark) {
+        checkMutable();
         this.remark = remark;
     }
 
@@ -142,6 +210,7 @@ public class Influence {
     }
 
     public void setImageUrls(List<String> imageUrls) {
+        checkMutable();
         this.imageUrls = imageUrls;
     }
 
@@ -150,6 +219,7 @@ public class Influence {
     }
 
     public void setCreateTime(LocalDateTime createTime) {
+        checkMutable();
         this.createTime = createTime;
     }
 
@@ -158,9 +228,19 @@ public class Influence {
     }
 
     public void setUpdateTime(LocalDateTime updateTime) {
+        checkMutable();
         this.updateTime = updateTime;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        checkMutable();
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Influence{" +
@@ -174,6 +254,7 @@ public class Influence {
                 ", imageUrls=" + imageUrls +
                 ", createTime=" + createTime +
                 ", updateTime=" + updateTime +
+                ", version=" + version +
                 '}';
     }
 }
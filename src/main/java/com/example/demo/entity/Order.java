@@ -1,12 +1,21 @@
 package com.example.demo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 
 /**
  * 订单实体类 - 软件许可证订单
  */
 public class Order {
+    // 金额精度：以分为单位的定点整数
+    public static final int AMOUNT_SCALE = 2;
+
+    // 未设置金额
+    public static final long NO_AMOUNT = Long.MIN_VALUE;
+
     // 客户合同ID (Customer ID)
     private String cid;
     
@@ -22,8 +31,8 @@ public class Order {
     // 已购LIC数（用于计算总金额）
     private Integer purchasedLicCount;
     
-    // 订单总金额
-    private BigDecimal totalAmount;
+    // 订单总金额（分），JSON中仍以两位小数的金额表示
+    private long totalAmountMinor = NO_AMOUNT;
     
     // 订单状态: 0-售前, 1-下单, 2-扩容, 3-流失
     private Integer status;
@@ -40,6 +49,12 @@ public class Order {
     // 更新时间
     private LocalDateTime updateTime;
 
+    // 乐观锁版本号：创建时为1，每次更新加1，由DAO维护（请求体中传入的值会被忽略）
+    private long version;
+
+    // 只读快照：DAO存储和返回的订单都是快照，修改需先copy()
+    private transient boolean frozen;
+
     // 无参构造函数（用于Jackson反序列化）
     public Order() {
         this.status = 0;  // 默认售前
@@ -55,7 +70,7 @@ public class Order {
         this.productVersion = productVersion;
         this.devScale = devScale;
         this.purchasedLicCount = purchasedLicCount;
-        this.totalAmount = totalAmount;
+        this.totalAmountMinor = toMinorUnits(totalAmount);
         this.status = status != null ? status : 0;  // 默认售前
         this.description = description;
         this.createTime = createTime != null ? createTime : LocalDateTime.now();
@@ -69,11 +84,58 @@ public class Order {
         this(cid, customerName, productVersion, devScale, purchasedLicCount, totalAmount, 0, null, null, null, null);
     }
 
+    /**
+     * 复制一个可修改的订单
+     */
+    public Order copy() {
+        Order copy = new Order();
+        copy.cid = cid;
+        copy.customerName = customerName;
+        copy.productVersion = productVersion;
+        copy.devScale = devScale;
+        copy.purchasedLicCount = purchasedLicCount;
+        copy.totalAmountMinor = totalAmountMinor;
+        copy.status = status;
+        copy.description = description;
+        copy.createTime = createTime;
+        copy.payTime = payTime;
+        copy.updateTime = updateTime;
+        copy.version = version;
+        return copy;
+    }
+
+    /**
+     * 只读快照：本身已是快照时直接返回，否则复制一份并冻结，调用方之后对本对象的修改不影响快照
+     */
+    public Order snapshot() {
+        return frozen ? this : copy().freeze();
+    }
+
+    /**
+     * 就地冻结并返回本对象，用于刚解码、尚未被其他代码引用的订单
+     */
+    public Order freeze() {
+        frozen = true;
+        return this;
+    }
+
+    @JsonIgnore
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("订单快照不可修改，请先调用copy(): " + cid);
+        }
+    }
+
     public String getCid() {
         return cid;
     }
 
     public void setCid(String cid) {
+        checkMutable();
         this.cid = cid;
     }
 
@@ -82,6 +144,7 @@ public class Order {
     }
 
     public void setCustomerName(String customerName) {
+        checkMutable();
         this.customerName = customerName;
     }
 
@@ -90,6 +153,7 @@ public class Order {
     }
 
     public void setProductVersion(String productVersion) {
+        checkMutable();
         this.productVersion = productVersion;
     }
 
@@ -98,6 +162,7 @@ public class Order {
     }
 
     public void setDevScale(Integer devScale) {
+        checkMutable();
         this.devScale = devScale;
     }
 
@@ -106,15 +171,54 @@ public class Order {
     }
 
     public void setPurchasedLicCount(Integer purchasedLicCount) {
+        checkMutable();
         this.purchasedLicCount = purchasedLicCount;
     }
 
     public BigDecimal getTotalAmount() {
-        return totalAmount;
+        return totalAmountMinor != NO_AMOUNT ? BigDecimal.valueOf(totalAmountMinor, AMOUNT_SCALE) : null;
     }
 
+    /**
+     * 设置总金额，按分精确换算
+     * @throws IllegalArgumentException 金额超过两位小数或超出范围时抛出
+     */
     public void setTotalAmount(BigDecimal totalAmount) {
-        this.totalAmount = totalAmount;
+        checkMutable();
+        this.totalAmountMinor = toMinorUnits(totalAmount);
+    }
+
+    /**
+     * 总金额（分），未设置时为NO_AMOUNT
+     */
+    @JsonIgnore
+    public long getTotalAmountMinor() {
+        return totalAmountMinor;
+    }
+
+    @JsonIgnore
+    public void setTotalAmountMinor(long totalAmountMinor) {
+        checkMutable();
+        this.totalAmountMinor = totalAmountMinor;
+    }
+
+    /**
+     * 金额换算为分，null换算为NO_AMOUNT
+     * @throws IllegalArgumentException 金额超过两位小数或超出范围时抛出
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        if (amount == null) {
+            return NO_AMOUNT;
+        }
+        try {
+            long minor = amount.setScale(AMOUNT_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+            if (minor == NO_AMOUNT) {
+                throw new ArithmeticException("overflow");
+            }
+            return minor;
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("订单金额最多保留两位小数且不能超出范围: " + amount.toPlainString());
+        }
     }
 
     public Integer getStatus() {
@@ -122,6 +226,7 @@ public class Order {
     }
 
     public void setStatus(Integer status) {
+        checkMutable();
         this.status = status;
     }
 
@@ -130,6 +235,7 @@ public class Order {
     }
 
     public void setDescription(String description) {
+        checkMutable();
         this.description = description;
     }
 
@@ -138,6 +244,7 @@ public class Order {
     }
 
     public void setCreateTime(LocalDateTime createTime) {
+        checkMutable();
         this.createTime = createTime;
     }
 
@@ -146,6 +253,7 @@ public class Order {
     }
 
     public void setPayTime(LocalDateTime payTime) {
+        checkMutable();
         this.payTime = payTime;
     }
 
@@ -154,9 +262,19 @@ public class Order {
     }
 
     public void setUpdateTime(LocalDateTime updateTime) {
+        checkMutable();
         this.updateTime = updateTime;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        checkMutable();
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Order{" +
@@ -165,12 +283,13 @@ public class Order {
                 ", productVersion='" + productVersion + '\'' +
                 ", devScale=" + devScale +
                 ", purchasedLicCount=" + purchasedLicCount +
-                ", totalAmount=" + totalAmount +
+                ", totalAmount=" + getTotalAmount() +
                 ", status=" + status +
                 ", description='" + description + '\'' +
                 ", createTime=" + createTime +
                 ", payTime=" + payTime +
                 ", updateTime=" + updateTime +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
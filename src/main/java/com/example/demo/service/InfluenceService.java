@@ -1,10 +1,14 @@
 package com.example.demo.service;
 
 import com.example.demo.dao.InfluenceDAO;
+import com.example.demo.dao.Page;
+import com.example.demo.dao.SearchHit;
+import com.example.demo.dao.WriteResult;
 import com.example.demo.entity.Influence;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -113,6 +117,23 @@ public class InfluenceService {
      * @throws IllegalArgumentException 参数验证失败时抛出
      */
     public boolean updateInfluence(Influence influence) {
+        validateForUpdate(influence);
+        return getInfluenceDAO().updateInfluence(influence);
+    }
+
+    /**
+     * 按版本号条件更新影响力记录
+     * @param influence 待更新的影响力记录对象，成功后version为新版本号
+     * @param expectedVersion 客户端读到的版本号，WriteResult.ANY_VERSION表示不检查
+     * @return APPLIED、NOT_FOUND或VERSION_CONFLICT（已被其他请求修改）
+     * @throws IllegalArgumentException 参数验证失败时抛出
+     */
+    public WriteResult updateInfluence(Influence influence, long expectedVersion) {
+        validateForUpdate(influence);
+        return getInfluenceDAO().updateInfluence(influence, expectedVersion);
+    }
+
+    private void validateForUpdate(Influence influence) {
         // 验证必填字段
         validateRequiredFields(influence);
         
@@ -147,8 +168,6 @@ public class InfluenceService {
         if (influence.getImageUrls() != null && influence.getImageUrls().size() > 10) {
             throw new IllegalArgumentException("最多支持上传10张图片");
         }
-        
-        return getInfluenceDAO().updateInfluence(influence);
     }
 
     /**
@@ -163,6 +182,18 @@ public class InfluenceService {
         return getInfluenceDAO().deleteInfluence(id);
     }
 
+    /**
+     * 按版本号条件删除影响力记录
+     * @param expectedVersion 客户端读到的版本号，WriteResult.ANY_VERSION表示不检查
+     * @return APPLIED、NOT_FOUND或VERSION_CONFLICT（已被其他请求修改）
+     */
+    public WriteResult deleteInfluence(String id, long expectedVersion) {
+        if (id == null || id.trim().isEmpty()) {
+            throw new IllegalArgumentException("记录ID不能为空");
+        }
+        return getInfluenceDAO().deleteInfluence(id, expectedVersion);
+    }
+
     /**
      * 根据类型查询影响力记录列表
      * @param type 活动类型
@@ -170,17 +201,102 @@ public class InfluenceService {
      * @throws IllegalArgumentException 当type无效时抛出
      */
     public List<Influence> getInfluencesByType(String type) {
-        // 参数校验
-        if (type == null || type.trim().isEmpty()) {
-            throw new IllegalArgumentException("活动类型不能为空");
+        validateType(type);
+        return getInfluenceDAO().getInfluencesByType(type);
+    }
+
+    /**
+     * 查询某个类型在活动时间范围内的影响力记录，按活动时间降序排列
+     * @param from 活动时间下限（含），null表示不限
+     * @param to 活动时间上限（含），null表示不限
+     * @throws IllegalArgumentException 当type无效或时间范围无效时抛出
+     */
+    public List<Influence> getInfluencesByType(String type, LocalDateTime from, LocalDateTime to) {
+        validateType(type);
+        validateRange(from, to);
+        return getInfluenceDAO().getInfluencesByType(type, from, to);
+    }
+
+    /**
+     * 分页获取某个类型在活动时间范围内的影响力记录，按活动时间降序排列
+     * @param cursor 上一页返回的游标，null表示第一页
+     * @param limit 每页条数
+     * @throws IllegalArgumentException 当type无效、时间范围无效或游标无效时抛出
+     */
+    public Page<Influence> getInfluencesByTypePage(String type, LocalDateTime from, LocalDateTime to,
+                                                   String cursor, int limit) {
+        validateType(type);
+        validateRange(from, to);
+        return getInfluenceDAO().getInfluencesByTypePage(type, from, to, cursor, limit);
+    }
+
+    /**
+     * 查询某个状态在活动时间范围内的影响力记录，按活动时间降序排列
+     * @param from 活动时间下限（含），null表示不限
+     * @param to 活动时间上限（含），null表示不限
+     * @throws IllegalArgumentException 当status无效或时间范围无效时抛出
+     */
+    public List<Influence> getInfluencesByStatus(String status, LocalDateTime from, LocalDateTime to) {
+        validateStatus(status);
+        validateRange(from, to);
+        return getInfluenceDAO().getInfluencesByStatus(status, from, to);
+    }
+
+    /**
+     * 分页获取某个状态在活动时间范围内的影响力记录，按活动时间降序排列
+     * @param cursor 上一页返回的游标，null表示第一页
+     * @param limit 每页条数
+     * @throws IllegalArgumentException 当status无效、时间范围无效或游标无效时抛出
+     */
+    public Page<Influence> getInfluencesByStatusPage(String status, LocalDateTime from, LocalDateTime to,
+                                                     String cursor, int limit) {
+        validateStatus(status);
+        validateRange(from, to);
+        return getInfluenceDAO().getInfluencesByStatusPage(status, from, to, cursor, limit);
+    }
+
+    /**
+     * 统计满足条件的影响力记录数：同一字段的多个取值之间为OR，类型与状态之间为AND
+     * @param types 类型，null或空表示不限
+     * @param statuses 状态，null或空表示不限
+     * @throws IllegalArgumentException 类型或状态无效时抛出
+     */
+    public int countInfluences(List<String> types, List<String> statuses) {
+        if (types != null) {
+            types.forEach(this::validateType);
         }
-        
-        // 验证类型有效性
-        if (!VALID_TYPES.contains(type)) {
-            throw new IllegalArgumentException("无效的活动类型: " + type);
+        if (statuses != null) {
+            statuses.forEach(this::validateStatus);
         }
-        
-        return getInfluenceDAO().getInfluencesByType(type);
+        return getInfluenceDAO().countInfluences(types, statuses);
+    }
+
+    /**
+     * 按类型和状态过滤影响力记录，条件组合方式同countInfluences；行数较多时在并行扫描线程池中排序
+     * @return 按活动时间降序排列
+     * @throws IllegalArgumentException 类型或状态无效时抛出
+     */
+    public List<Influence> filterInfluences(List<String> types, List<String> statuses) {
+        if (types != null) {
+            types.forEach(this::validateType);
+        }
+        if (statuses != null) {
+            statuses.forEach(this::validateStatus);
+        }
+        return getInfluenceDAO().filterInfluences(types, statuses);
+    }
+
+    /**
+     * 按名称和备注全文检索
+     * @param limit 最多返回条数
+     * @return 命中的记录ID及相关度得分，按得分降序排列
+     * @throws IllegalArgumentException 检索内容为空时抛出
+     */
+    public List<SearchHit> searchText(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("检索内容不能为空");
+        }
+        return getInfluenceDAO().searchText(query, limit);
     }
 
     /**
@@ -191,6 +307,66 @@ public class InfluenceService {
         return getInfluenceDAO().getAllInfluences();
     }
 
+    /**
+     * 按活动时间排序获取时间范围内的影响力记录列表
+     * @param descending true为降序
+     * @param from 活动时间下限（含），null表示不限
+     * @param to 活动时间上限（含），null表示不限
+     * @throws IllegalArgumentException 时间范围无效时抛出
+     */
+    public List<Influence> getAllInfluences(boolean descending, LocalDateTime from, LocalDateTime to) {
+        validateRange(from, to);
+        return getInfluenceDAO().getAllInfluences(descending, from, to);
+    }
+
+    /**
+     * 按活动时间排序分页获取时间范围内的影响力记录
+     * @param cursor 上一页返回的游标，null表示第一页
+     * @param limit 每页条数
+     * @throws IllegalArgumentException 时间范围无效或游标无效时抛出
+     */
+    public Page<Influence> getInfluencesPage(boolean descending, LocalDateTime from, LocalDateTime to,
+                                             String cursor, int limit) {
+        validateRange(from, to);
+        return getInfluenceDAO().getInfluencesPage(descending, from, to, cursor, limit);
+    }
+
+    /**
+     * 校验活动类型
+     * @throws IllegalArgumentException 类型为空或无效时抛出
+     */
+    private void validateType(String type) {
+        if (type == null || type.trim().isEmpty()) {
+            throw new IllegalArgumentException("活动类型不能为空");
+        }
+        if (!VALID_TYPES.contains(type)) {
+            throw new IllegalArgumentException("无效的活动类型: " + type);
+        }
+    }
+
+    /**
+     * 校验状态
+     * @throws IllegalArgumentException 状态为空或无效时抛出
+     */
+    private void validateStatus(String status) {
+        if (status == null || status.trim().isEmpty()) {
+            throw new IllegalArgumentException("状态不能为空");
+        }
+        if (!VALID_STATUSES.contains(status)) {
+            throw new IllegalArgumentException("无效的状态值: " + status);
+        }
+    }
+
+    /**
+     * 校验活动时间范围
+     * @throws IllegalArgumentException 开始时间晚于结束时间时抛出
+     */
+    private void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("开始时间不能晚于结束时间");
+        }
+    }
+
     /**
      * 验证必填字段
      * @param influence 影响力记录对象
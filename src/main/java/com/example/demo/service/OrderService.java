@@ -1,12 +1,22 @@
 package com.example.demo.service;
 
+import com.example.demo.dao.Completion;
+import com.example.demo.dao.CustomerSummary;
+import com.example.demo.dao.OrderAggregate;
 import com.example.demo.dao.OrderDAO;
+import com.example.demo.dao.OrderQuery;
+import com.example.demo.dao.Page;
+import com.example.demo.dao.SearchHit;
+import com.example.demo.dao.WriteResult;
 import com.example.demo.entity.Order;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 订单服务类（演示业务逻辑与数据访问的分离）
@@ -22,6 +32,14 @@ public class OrderService {
     public static final BigDecimal QODER_PRICE = new BigDecimal("140"); // 20 * 7 = 140
     public static final BigDecimal LINGMA_ENTERPRISE_PRICE = new BigDecimal("79");
     public static final BigDecimal LINGMA_EXCLUSIVE_PRICE = new BigDecimal("159");
+
+    // 产品单价（分），金额校验按分计算，不创建BigDecimal
+    private static final long QODER_PRICE_MINOR = Order.toMinorUnits(QODER_PRICE);
+    private static final long LINGMA_ENTERPRISE_PRICE_MINOR = Order.toMinorUnits(LINGMA_ENTERPRISE_PRICE);
+    private static final long LINGMA_EXCLUSIVE_PRICE_MINOR = Order.toMinorUnits(LINGMA_EXCLUSIVE_PRICE);
+
+    // 未指定版本号的条件写入遇到并发修改时的最多尝试次数
+    private static final int MAX_WRITE_ATTEMPTS = 3;
     
     // 注入数据访问层
     private final OrderDAO orderDAO;
@@ -49,10 +67,10 @@ public class OrderService {
             throw new IllegalArgumentException("研发规模必须大于0");
         }
 
-        // 重新计算总金额并校验
-        BigDecimal calculatedAmount = calculateTotalAmount(order.getProductVersion(), order.getPurchasedLicCount());
-        if (order.getTotalAmount() == null || order.getTotalAmount().compareTo(calculatedAmount) != 0) {
-            throw new IllegalArgumentException("总金额计算错误，应为：" + calculatedAmount);
+        // 重新计算总金额（分）并校验
+        long calculatedAmount = calculateTotalAmount(order.getProductVersion(), order.getPurchasedLicCount());
+        if (order.getTotalAmountMinor() != calculatedAmount) {
+            throw new IllegalArgumentException("总金额计算错误，应为：" + BigDecimal.valueOf(calculatedAmount, Order.AMOUNT_SCALE));
         }
 
         return getOrderDAO().createOrder(order);
@@ -75,24 +93,24 @@ public class OrderService {
      * 根据产品版本和已购LIC数计算总金额
      * @param productVersion 产品版本
      * @param purchasedLicCount 已购LIC数
-     * @return 总金额
+     * @return 总金额（分）
      */
-    private BigDecimal calculateTotalAmount(String productVersion, Integer purchasedLicCount) {
-        BigDecimal unitPrice;
+    private long calculateTotalAmount(String productVersion, Integer purchasedLicCount) {
+        long unitPrice;
         switch (productVersion) {
             case QODER:
-                unitPrice = QODER_PRICE;
+                unitPrice = QODER_PRICE_MINOR;
                 break;
             case LINGMA_ENTERPRISE:
-                unitPrice = LINGMA_ENTERPRISE_PRICE;
+                unitPrice = LINGMA_ENTERPRISE_PRICE_MINOR;
                 break;
             case LINGMA_EXCLUSIVE:
-                unitPrice = LINGMA_EXCLUSIVE_PRICE;
+                unitPrice = LINGMA_EXCLUSIVE_PRICE_MINOR;
                 break;
             default:
                 throw new IllegalArgumentException("不支持的产品版本: " + productVersion);
         }
-        return unitPrice.multiply(new BigDecimal(purchasedLicCount));
+        return Math.multiplyExact(unitPrice, purchasedLicCount.longValue());
     }
 
     /**
@@ -131,6 +149,35 @@ public class OrderService {
         return getOrderDAO().updateOrder(order);
     }
 
+    /**
+     * 按版本号条件更新订单：规则检查所依据的版本与写入时的版本一致才会写入
+     * @param order 待更新的订单对象，成功后version为新版本号
+     * @param expectedVersion 客户端读到的版本号，WriteResult.ANY_VERSION表示不检查
+     * @return APPLIED；NOT_FOUND；VERSION_CONFLICT（已被其他请求修改）；REJECTED（已完成订单不能修改）
+     */
+    public WriteResult updateOrder(Order order, long expectedVersion) {
+        for (int attempt = 1; ; attempt++) {
+            Order existing = getOrderDAO().getOrder(order.getCid());
+            if (existing == null) {
+                return WriteResult.NOT_FOUND;
+            }
+            long currentVersion = existing.getVersion();
+            if (expectedVersion != WriteResult.ANY_VERSION && currentVersion != expectedVersion) {
+                return WriteResult.VERSION_CONFLICT;
+            }
+            if (order.getStatus() != null && order.getStatus() == 3 && existing.getStatus() == 3) {
+                // 已完成订单不能修改
+                return WriteResult.REJECTED;
+            }
+            WriteResult result = getOrderDAO().updateOrder(order, currentVersion);
+            // 未指定版本号时，检查之后被并发修改则按新版本重新检查
+            if (result != WriteResult.VERSION_CONFLICT || expectedVersion != WriteResult.ANY_VERSION
+                    || attempt >= MAX_WRITE_ATTEMPTS) {
+                return result;
+            }
+        }
+    }
+
     /**
      * 删除订单
      * @param cid 订单ID
@@ -147,6 +194,122 @@ public class OrderService {
         return getOrderDAO().deleteOrder(cid);
     }
 
+    /**
+     * 按版本号条件删除订单
+     * @param cid 订单ID
+     * @param expectedVersion 客户端读到的版本号，WriteResult.ANY_VERSION表示不检查
+     * @return APPLIED；NOT_FOUND；VERSION_CONFLICT（已被其他请求修改）；REJECTED（已支付订单不能删除）
+     */
+    public WriteResult deleteOrder(String cid, long expectedVersion) {
+        for (int attempt = 1; ; attempt++) {
+            Order order = getOrderDAO().getOrder(cid);
+            if (order == null) {
+                return WriteResult.NOT_FOUND;
+            }
+            long currentVersion = order.getVersion();
+            if (expectedVersion != WriteResult.ANY_VERSION && currentVersion != expectedVersion) {
+                return WriteResult.VERSION_CONFLICT;
+            }
+            if (order.getStatus() == 1) {
+                // 已支付订单不能删除
+                return WriteResult.REJECTED;
+            }
+            WriteResult result = getOrderDAO().deleteOrder(cid, currentVersion);
+            if (result != WriteResult.VERSION_CONFLICT || expectedVersion != WriteResult.ANY_VERSION
+                    || attempt >= MAX_WRITE_ATTEMPTS) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * 统计满足条件的订单数：同一字段的多个取值之间为OR，状态与产品版本之间为AND
+     * @param statuses 订单状态，null或空表示不限
+     * @param productVersions 产品版本，null或空表示不限
+     */
+    public int countOrders(List<Integer> statuses, List<String> productVersions) {
+        return getOrderDAO().countOrders(statuses, productVersions);
+    }
+
+    /**
+     * 按状态和产品版本过滤订单，条件组合方式同countOrders；行数较多时在并行扫描线程池中排序
+     * @return 满足条件的订单，按创建时间降序排列
+     */
+    public List<Order> filterOrders(List<Integer> statuses, List<String> productVersions) {
+        return getOrderDAO().filterOrders(statuses, productVersions);
+    }
+
+    /**
+     * 按产品版本、状态、创建月份中的若干维度汇总订单数、金额、LIC数和研发规模
+     * @param dimensions 分组维度，为空时汇总为一行
+     */
+    public List<OrderAggregate> getAggregates(Set<OrderDAO.AggregateDimension> dimensions) {
+        return getOrderDAO().getAggregates(dimensions);
+    }
+
+    /**
+     * 按产品版本分组分析满足条件的订单（订单数、金额、LIC数、研发规模合计）
+     * @param execution 写入执行方式（是否并行扫描等）
+     * @throws IllegalArgumentException 创建时间的开始时间晚于结束时间时抛出
+     */
+    public List<OrderAggregate> analyzeOrders(List<Integer> statuses, List<String> productVersions,
+                                              LocalDateTime createFrom, LocalDateTime createTo,
+                                              Map<String, Object> execution) {
+        if (createFrom != null && createTo != null && createFrom.isAfter(createTo)) {
+            throw new IllegalArgumentException("创建时间的开始时间不能晚于结束时间");
+        }
+        return getOrderDAO().analyzeOrders(statuses, productVersions, createFrom, createTo, execution);
+    }
+
+    /**
+     * 客户名称补全，按订单数降序排列
+     * @param prefix 名称前缀，空字符串表示全部客户
+     * @param limit 最多返回条数
+     * @throws IllegalArgumentException prefix为null时抛出
+     */
+    public List<Completion> suggestCustomers(String prefix, int limit) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("前缀不能为空");
+        }
+        return getOrderDAO().suggestCustomers(prefix, limit);
+    }
+
+    /**
+     * 按订单描述（含删除审计记录）全文检索
+     * @param limit 最多返回条数
+     * @return 命中的订单CID及相关度得分，按得分降序排列
+     * @throws IllegalArgumentException 检索内容为空时抛出
+     */
+    public List<SearchHit> searchDescriptions(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("检索内容不能为空");
+        }
+        return getOrderDAO().searchDescriptions(query, limit);
+    }
+
+    /**
+     * 组合条件查询订单
+     * @param limit 最多返回条数，null表示不限
+     * @param explain 写入执行计划（使用的索引、扫描行数等）
+     * @return 满足条件的订单，按创建时间降序排列
+     * @throws IllegalArgumentException 范围条件的下限大于上限或金额格式不正确时抛出
+     */
+    public List<Order> searchOrders(OrderQuery query, Integer limit, Map<String, Object> explain) {
+        if (query.getCreateTimeFrom() != null && query.getCreateTimeTo() != null
+                && query.getCreateTimeFrom().isAfter(query.getCreateTimeTo())) {
+            throw new IllegalArgumentException("创建时间的开始时间不能晚于结束时间");
+        }
+        if (query.getPayTimeFrom() != null && query.getPayTimeTo() != null
+                && query.getPayTimeFrom().isAfter(query.getPayTimeTo())) {
+            throw new IllegalArgumentException("支付时间的开始时间不能晚于结束时间");
+        }
+        if (query.getMinAmount() != null && query.getMaxAmount() != null
+                && query.getMinAmount().compareTo(query.getMaxAmount()) > 0) {
+            throw new IllegalArgumentException("最小金额不能大于最大金额");
+        }
+        return getOrderDAO().searchOrders(query, limit, explain);
+    }
+
     /**
      * 根据客户名称查询订单列表
      * @param customerName 客户名称
@@ -162,6 +325,31 @@ public class OrderService {
         return getOrderDAO().getOrdersByUserId(customerName);
     }
 
+    /**
+     * 客户汇总：订单数、各状态订单数、消费总额、LIC数、首末次下单时间
+     * @return 客户没有订单时返回null
+     * @throws IllegalArgumentException 当customerName为null或空字符串时抛出
+     */
+    public CustomerSummary getCustomerSummary(String customerName) {
+        if (customerName == null || customerName.trim().isEmpty()) {
+            throw new IllegalArgumentException("客户名称不能为空");
+        }
+        return getOrderDAO().getCustomerSummary(customerName);
+    }
+
+    /**
+     * 分页获取某个客户的订单，按创建时间降序排列
+     * @param cursor 上一页返回的游标，null表示第一页
+     * @param limit 每页条数
+     * @throws IllegalArgumentException 当customerName为空或游标无效时抛出
+     */
+    public Page<Order> getOrdersByUserIdPage(String customerName, String cursor, int limit) {
+        if (customerName == null || customerName.trim().isEmpty()) {
+            throw new IllegalArgumentException("客户名称不能为空");
+        }
+        return getOrderDAO().getOrdersByUserIdPage(customerName, cursor, limit);
+    }
+
     /**
      * 获取所有订单列表
      * @return 返回所有订单列表，按创建时间降序排列（最新订单在前）
@@ -169,4 +357,23 @@ public class OrderService {
     public List<Order> getAllOrders() {
         return getOrderDAO().getAllOrders();
     }
+
+    /**
+     * 按指定字段排序获取所有订单列表
+     * @param sortField 排序字段
+     * @param descending true为降序
+     */
+    public List<Order> getAllOrders(OrderDAO.SortField sortField, boolean descending) {
+        return getOrderDAO().getAllOrders(sortField, descending);
+    }
+
+    /**
+     * 按指定字段排序分页获取订单
+     * @param cursor 上一页返回的游标，null表示第一页
+     * @param limit 每页条数
+     * @throws IllegalArgumentException 游标无效时抛出
+     */
+    public Page<Order> getOrdersPage(OrderDAO.SortField sortField, boolean descending, String cursor, int limit) {
+        return getOrderDAO().getOrdersPage(sortField, descending, cursor, limit);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.example.demo.controller;
+
+import com.example.demo.dao.InfluenceDAO;
+import com.example.demo.dao.WriteQueueFullException;
+import com.example.demo.dao.WriteResult;
+import com.example.demo.entity.Influence;
+import com.example.demo.service.InfluenceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * InfluenceController的单元测试：ETag/If-Match条件更新、删除的HTTP语义
+ */
+class InfluenceControllerTest {
+
+    private static final String INFLUENCE_JSON = "{\"name\":\"技术分享\",\"type\":\"DEMO\",\"status\":\"PLANNED\"}";
+
+    private InfluenceService influenceService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        influenceService = mock(InfluenceService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new InfluenceController(influenceService, mock(InfluenceDAO.class))).build();
+    }
+
+    @Test
+    @DisplayName("查询影响力记录 - 响应头ETag为记录的版本号")
+    void testGetInfluence_ReturnsVersionAsETag() throws Exception {
+        // 准备测试数据
+        Influence influence = new Influence("inf001", "技术分享", "DEMO", Influence.STATUS_PLANNED,
+                LocalDateTime.of(2024, 6, 1, 10, 0));
+        influence.setVersion(5);
+        when(influenceService.getInfluence("inf001")).thenReturn(influence);
+
+        // 执行测试与验证结果
+        mockMvc.perform(get("/api/influences/inf001"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5\""))
+                .andExpect(jsonPath("$.data.id").value("inf001"));
+    }
+
+    @Test
+    @DisplayName("更新影响力记录 - If-Match与当前版本不一致时返回412")
+    void testUpdateInfluence_IfMatchMismatch_Returns412() throws Exception {
+        // 准备测试数据
+        when(influenceService.updateInfluence(any(Influence.class), eq(4L))).thenReturn(WriteResult.VERSION_CONFLICT);
+
+        // 执行测试与验证结果
+        mockMvc.perform(put("/api/influences/inf001").header("If-Match", "\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(INFLUENCE_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    @DisplayName("更新影响力记录 - 未带If-Match时版本冲突返回409")
+    void testUpdateInfluence_ConflictWithoutIfMatch_Returns409() throws Exception {
+        // 准备测试数据
+        when(influenceService.updateInfluence(any(Influence.class), eq(WriteResult.ANY_VERSION)))
+                .thenReturn(WriteResult.VERSION_CONFLICT);
+
+        // 执行测试与验证结果
+        mockMvc.perform(put("/api/influences/inf001")
+                        .contentType(MediaType.APPLICATION_JSON).content(INFLUENCE_JSON))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("更新影响力记录 - If-Match格式不正确时返回400且不执行更新")
+    void testUpdateInfluence_MalformedIfMatch_Returns400() throws Exception {
+        // 执行测试与验证结果
+        mockMvc.perform(put("/api/influences/inf001").header("If-Match", "\"-1\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(INFLUENCE_JSON))
+                .andExpect(status().isBadRequest());
+        verify(influenceService, never()).updateInfluence(any(Influence.class), anyLong());
+    }
+
+    @Test
+    @DisplayName("删除影响力记录 - If-Match与当前版本一致时按该版本删除")
+    void testDeleteInfluence_IfMatchMatches_DeletesConditionally() throws Exception {
+        // 准备测试数据
+        when(influenceService.deleteInfluence("inf001", 5L)).thenReturn(WriteResult.APPLIED);
+
+        // 执行测试与验证结果
+        mockMvc.perform(delete("/api/influences/inf001").header("If-Match", "W/\"5\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+        verify(influenceService).deleteInfluence("inf001", 5L);
+    }
+
+    @Test
+    @DisplayName("删除影响力记录 - If-Match与当前版本不一致时返回412")
+    void testDeleteInfluence_IfMatchMismatch_Returns412() throws Exception {
+        // 准备测试数据
+        when(influenceService.deleteInfluence("inf001", 4L)).thenReturn(WriteResult.VERSION_CONFLICT);
+
+        // 执行测试与验证结果
+        mockMvc.perform(delete("/api/influences/inf001").header("If-Match", "\"4\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("删除影响力记录 - If-Match格式不正确时返回400且不执行删除")
+    void testDeleteInfluence_MalformedIfMatch_Returns400() throws Exception {
+        // 执行测试与验证结果
+        mockMvc.perform(delete("/api/influences/inf001").header("If-Match", "\"abc\""))
+                .andExpect(status().isBadRequest());
+        verify(influenceService, never()).deleteInfluence(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("删除影响力记录 - 数据库写入队列已满时返回503并带Retry-After")
+    void testDeleteInfluence_WriteQueueFull_Returns503WithRetryAfter() throws Exception {
+        // 准备测试数据
+        when(influenceService.deleteInfluence(anyString(), anyLong())).thenThrow(new WriteQueueFullException(16));
+
+        // 执行测试与验证结果
+        mockMvc.perform(delete("/api/influences/inf001"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.success").value(false));
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.demo.controller;
+
+import com.example.demo.dao.OrderDAO;
+import com.example.demo.dao.WriteQueueFullException;
+import com.example.demo.dao.WriteResult;
+import com.example.demo.entity.Order;
+import com.example.demo.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * OrderController的单元测试：ETag/If-Match条件更新、删除的HTTP语义
+ */
+class OrderControllerTest {
+
+    private static final String ORDER_JSON = "{\"customerName\":\"客户A\",\"productVersion\":\"LINGMA_EXCLUSIVE\","
+            + "\"devScale\":10,\"purchasedLicCount\":2,\"totalAmount\":318.00}";
+
+    private OrderService orderService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        orderService = mock(OrderService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new OrderController(orderService, mock(OrderDAO.class))).build();
+    }
+
+    @Test
+    @DisplayName("查询订单 - 响应头ETag为订单的版本号")
+    void testGetOrder_ReturnsVersionAsETag() throws Exception {
+        // 准备测试数据
+        when(orderService.getOrder("order001")).thenReturn(storedOrder(3));
+
+        // 执行测试与验证结果
+        mockMvc.perform(get("/api/orders/order001"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.data.cid").value("order001"));
+    }
+
+    @Test
+    @DisplayName("更新订单 - If-Match与当前版本不一致时返回412")
+    void testUpdateOrder_IfMatchMismatch_Returns412() throws Exception {
+        // 准备测试数据
+        when(orderService.updateOrder(any(Order.class), eq(2L))).thenReturn(WriteResult.VERSION_CONFLICT);
+
+        // 执行测试与验证结果
+        mockMvc.perform(put("/api/orders/order001").header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(ORDER_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.success").value(false));
+        verify(orderService).updateOrder(any(Order.class), eq(2L));
+    }
+
+    @Test
+    @DisplayName("更新订单 - 未带If-Match、并发修改重试后仍冲突时返回409")
+    void testUpdateOrder_ConflictWithoutIfMatch_Returns409() throws Exception {
+        // 准备测试数据
+        when(orderService.updateOrder(any(Order.class), eq(WriteResult.ANY_VERSION)))
+                .thenReturn(WriteResult.VERSION_CONFLICT);
+
+        // 执行测试与验证结果
+        mockMvc.perform(put("/api/orders/order001")
+                        .contentType(MediaType.APPLICATION_JSON).content(ORDER_JSON))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("更新订单 - If-Match格式不正确时返回400且不执行更新")
+    void testUpdateOrder_MalformedIfMatch_Returns400() throws Exception {
+        // 执行测试与验证结果
+        mockMvc.perform(put("/api/orders/order001").header("If-Match", "\"abc\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(ORDER_JSON))
+                .andExpect(status().isBadRequest());
+        verify(orderService, never()).updateOrder(any(Order.class), anyLong());
+    }
+
+    @Test
+    @DisplayName("更新订单 - 成功时响应头ETag为新版本号")
+    void testUpdateOrder_Applied_ReturnsNewETag() throws Exception {
+        // 准备测试数据：模拟DAO落盘后回写新版本号
+        when(orderService.updateOrder(any(Order.class), eq(3L))).thenAnswer(invocation -> {
+            invocation.<Order>getArgument(0).setVersion(4);
+            return WriteResult.APPLIED;
+        });
+
+        // 执行测试与验证结果
+        mockMvc.perform(put("/api/orders/order001").header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(ORDER_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    @DisplayName("删除订单 - 先在描述中记录删除原因，再只删除记录了原因的版本")
+    void testDeleteOrder_RecordsReasonThenDeletesAuditedVersion() throws Exception {
+        // 准备测试数据
+        when(orderService.getOrder("order001")).thenReturn(storedOrder(3));
+        when(orderService.updateOrder(any(Order.class), eq(WriteResult.ANY_VERSION))).thenAnswer(invocation -> {
+            invocation.<Order>getArgument(0).setVersion(4);
+            return WriteResult.APPLIED;
+        });
+        when(orderService.deleteOrder("order001", 4L)).thenReturn(WriteResult.APPLIED);
+
+        // 执行测试
+        mockMvc.perform(delete("/api/orders/order001").param("reason", "客户取消"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+
+        // 验证结果
+        ArgumentCaptor<Order> audited = ArgumentCaptor.forClass(Order.class);
+        verify(orderService).updateOrder(audited.capture(), eq(WriteResult.ANY_VERSION));
+        assertTrue(audited.getValue().getDescription().startsWith("原始描述\n"), "应保留原描述");
+        assertTrue(audited.getValue().getDescription().contains("订单删除：客户取消"), "应追加删除原因");
+        verify(orderService).deleteOrder("order001", 4L);
+    }
+
+    @Test
+    @DisplayName("删除订单 - If-Match与当前版本不一致时返回412，不记录删除原因也不删除")
+    void testDeleteOrder_IfMatchMismatch_Returns412() throws Exception {
+        // 准备测试数据
+        when(orderService.getOrder("order001")).thenReturn(storedOrder(3));
+
+        // 执行测试与验证结果
+        mockMvc.perform(delete("/api/orders/order001").param("reason", "客户取消").header("If-Match", "\"2\""))
+                .andExpect(status().isPreconditionFailed());
+        verify(orderService, never()).updateOrder(any(Order.class), anyLong());
+        verify(orderService, never()).deleteOrder(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("删除订单 - If-Match与当前版本一致时按该版本记录原因并删除")
+    void testDeleteOrder_IfMatchMatches_DeletesConditionally() throws Exception {
+        // 准备测试数据
+        when(orderService.getOrder("order001")).thenReturn(storedOrder(3));
+        when(orderService.updateOrder(any(Order.class), eq(3L))).thenAnswer(invocation -> {
+            invocation.<Order>getArgument(0).setVersion(4);
+            return WriteResult.APPLIED;
+        });
+        when(orderService.deleteOrder("order001", 4L)).thenReturn(WriteResult.APPLIED);
+
+        // 执行测试与验证结果
+        mockMvc.perform(delete("/api/orders/order001").param("reason", "客户取消").header("If-Match", "\"3\""))
+                .andExpect(status().isOk());
+        verify(orderService).updateOrder(any(Order.class), eq(3L));
+        verify(orderService).deleteOrder("order001", 4L);
+    }
+
+    @Test
+    @DisplayName("删除订单 - 记录原因后被其他请求修改时不删除，未带If-Match返回409")
+    void testDeleteOrder_ModifiedAfterAudit_Returns409() throws Exception {
+        // 准备测试数据
+        when(orderService.getOrder("order001")).thenReturn(storedOrder(3));
+        when(orderService.updateOrder(any(Order.class), eq(WriteResult.ANY_VERSION))).thenAnswer(invocation -> {
+            invocation.<Order>getArgument(0).setVersion(4);
+            return WriteResult.APPLIED;
+        });
+        when(orderService.deleteOrder("order001", 4L)).thenReturn(WriteResult.VERSION_CONFLICT);
+
+        // 执行测试与验证结果
+        mockMvc.perform(delete("/api/orders/order001").param("reason", "客户取消"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("删除订单 - If-Match格式不正确时返回400")
+    void testDeleteOrder_MalformedIfMatch_Returns400() throws Exception {
+        // 执行测试与验证结果
+        mockMvc.perform(delete("/api/orders/order001").param("reason", "客户取消").header("If-Match", "v3"))
+                .andExpect(status().isBadRequest());
+        verify(orderService, never()).deleteOrder(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("更新订单 - 数据库写入队列已满时返回503并带Retry-After")
+    void testUpdateOrder_WriteQueueFull_Returns503WithRetryAfter() throws Exception {
+        // 准备测试数据
+        when(orderService.updateOrder(any(Order.class), anyLong())).thenThrow(new WriteQueueFullException(16));
+
+        // 执行测试与验证结果
+        mockMvc.perform(put("/api/orders/order001")
+                        .contentType(MediaType.APPLICATION_JSON).content(ORDER_JSON))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("数据库写入队列已满(16)，请稍后重试"));
+    }
+
+    @Test
+    @DisplayName("删除订单 - 排队等待超时被取消时同样返回503并带Retry-After")
+    void testDeleteOrder_QueuedWriteCancelled_Returns503WithRetryAfter() throws Exception {
+        // 准备测试数据
+        when(orderService.getOrder("order001")).thenReturn(storedOrder(3));
+        when(orderService.updateOrder(any(Order.class), anyLong())).thenThrow(new WriteQueueFullException(16, 100));
+
+        // 执行测试与验证结果
+        mockMvc.perform(delete("/api/orders/order001").param("reason", "客户取消"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+        verify(orderService, never()).deleteOrder(anyString(), anyLong());
+    }
+
+    /**
+     * 服务层返回的已存储订单
+     */
+    private static Order storedOrder(long version) {
+        Order order = new Order("order001", "客户A", "LINGMA_EXCLUSIVE", 10, 2, new BigDecimal("318.00"));
+        order.setDescription("原始描述");
+        order.setVersion(version);
+        return order;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 位图索引基准：对比状态、产品版本的多条件计数/过滤在位图索引与stream().filter()下的耗时。
+ * 直接构造BitmapIndex（与OrderDAO使用的字段相同），不经过数据库和其他索引，因此放在dao包下。
+ * 不属于单元测试（类名不以Test结尾），需手动运行，1000万条时需要约4GB堆：
+ * <pre>
+ * java -Xmx6g -cp target/test-classes:target/classes:&lt;依赖&gt; com.example.demo.dao.BitmapIndexBenchmark [订单数,...] [轮数]
+ * </pre>
+ */
+public class BitmapIndexBenchmark {
+
+    private static final String[] VERSIONS = {"LINGMA_EXCLUSIVE", "LINGMA_ENTERPRISE", "QODER"};
+
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "1000000,10000000";
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        for (String size : sizes.split(",")) {
+            run(Integer.parseInt(size.trim()), rounds);
+        }
+    }
+
+    private static void run(int orderCount, int rounds) {
+        List<Order> orders = new ArrayList<>(orderCount);
+        Map<String, Function<Order, ?>> fields = new LinkedHashMap<>();
+        fields.put("status", Order::getStatus);
+        fields.put("productVersion", Order::getProductVersion);
+        BitmapIndex<Order> index = new BitmapIndex<>(Order::getCid, fields);
+        for (int i = 0; i < orderCount; i++) {
+            Order order = new Order();
+            order.setCid("C" + i);
+            order.setStatus(i % 7 == 0 ? 2 : i % 3);
+            order.setProductVersion(VERSIONS[(i / 3) % VERSIONS.length]);
+            orders.add(order);
+            index.put(order);
+        }
+        System.out.println("数据准备完成: " + orderCount + " 条订单");
+
+        // 单值AND、多值OR再AND两种条件，分别测计数与取出结果
+        List<Integer> paid = Collections.singletonList(1);
+        List<Integer> open = Arrays.asList(0, 2);
+        List<String> qoder = Collections.singletonList("QODER");
+        List<String> lingma = Arrays.asList("LINGMA_EXCLUSIVE", "LINGMA_ENTERPRISE");
+        measure("status=1 AND version=QODER", orders, index, paid, qoder, rounds);
+        measure("status IN(0,2) AND version IN(LINGMA_*)", orders, index, open, lingma, rounds);
+    }
+
+    private static void measure(String name, List<Order> orders, BitmapIndex<Order> index,
+                                Collection<Integer> statuses, Collection<String> versions, int rounds) {
+        Map<String, Collection<?>> conditions = new LinkedHashMap<>();
+        conditions.put("status", statuses);
+        conditions.put("productVersion", versions);
+        Predicate<Order> predicate = order -> statuses.contains(order.getStatus())
+            && versions.contains(order.getProductVersion());
+
+        for (int round = 1; round <= rounds; round++) {
+            long start = System.nanoTime();
+            long streamCount = orders.stream().filter(predicate).count();
+            long streamCountNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int bitmapCount = index.count(conditions);
+            long bitmapCountNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int streamRows = orders.stream().filter(predicate).collect(Collectors.toList()).size();
+            long streamSelectNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int bitmapRows = index.select(conditions).size();
+            long bitmapSelectNanos = System.nanoTime() - start;
+
+            if (streamCount != bitmapCount || streamRows != bitmapRows) {
+                throw new IllegalStateException("结果不一致: stream=" + streamCount + ", bitmap=" + bitmapCount);
+            }
+            System.out.printf("%s 第%d轮: 命中%d条, 计数 stream %.2fms / 位图 %.3fms (%.0fx), "
+                    + "过滤 stream %.2fms / 位图 %.2fms (%.1fx)%n", name, round, bitmapCount,
+                streamCountNanos / 1e6, bitmapCountNanos / 1e6, streamCountNanos / (double) bitmapCountNanos,
+                streamSelectNanos / 1e6, bitmapSelectNanos / 1e6, streamSelectNanos / (double) bitmapSelectNanos);
+        }
+    }
+}
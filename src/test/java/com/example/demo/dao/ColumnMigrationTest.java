@@ -0,0 +1,218 @@
+package com.example.demo.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ColumnMigration的单元测试：TEXT列到INTEGER列的后台回填
+ */
+class ColumnMigrationTest {
+
+    private static final ColumnMigration.Column[] COLUMNS = {
+        ColumnMigration.time("createTime", "createTimeMs"),
+        ColumnMigration.time("payTime", "payTimeMs"),
+        ColumnMigration.amount("totalAmount", "totalAmountMinor")
+    };
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+    // 每个用例使用独立的表，迁移进度按表名记录
+    private String table;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        table = "migration_test_" + System.nanoTime();
+        execute("CREATE TABLE " + table + " (name TEXT, createTime TEXT, payTime TEXT, totalAmount TEXT)");
+    }
+
+    @Test
+    @DisplayName("回填 - 每列独立换算，单列无法换算时只跳过该列，不影响同一行的其他列")
+    void testBackfill_ConvertsEachColumnIndependently() throws Exception {
+        // 准备测试数据
+        insert("ok", "2024-01-02T03:04:05", "2024-01-03T00:00", "12.5");
+        insert("badTime", "不是时间", null, "7");
+        insert("badAmount", "2024-02-01T00:00:00.123", "2024-02-02T00:00", "abc");
+        addColumns();
+
+        // 执行测试
+        Map<?, ?> progress = migrate();
+
+        // 验证结果
+        assertEquals(3L, progress.get("migratedRows"));
+        assertNull(progress.get("lastError"));
+        assertRow("ok", Timestamps.toEpochMilli(CREATED),
+                Timestamps.toEpochMilli(LocalDateTime.of(2024, 1, 3, 0, 0)), 1250L);
+        assertRow("badTime", null, null, 700L);
+        assertRow("badAmount", Timestamps.toEpochMilli(LocalDateTime.of(2024, 2, 1, 0, 0, 0, 123_000_000)),
+                Timestamps.toEpochMilli(LocalDateTime.of(2024, 2, 2, 0, 0)), null);
+        execute("DROP TABLE " + table);
+    }
+
+    @Test
+    @DisplayName("断点续做 - 重启后只回填仍为NULL的列，已回填的值保持不变")
+    void testBackfill_ResumesAfterRestart() throws Exception {
+        // 准备测试数据：前两行模拟上次启动时已回填（填入与换算结果不同的值以便区分）
+        for (int i = 1; i <= 4; i++) {
+            insert("row" + i, "2024-01-02T03:04:05", null, "1.00");
+        }
+        addColumns();
+        execute("UPDATE " + table + " SET createTimeMs = -1, totalAmountMinor = -1 WHERE name IN ('row1', 'row2')");
+
+        // 执行测试
+        Map<?, ?> progress = migrate();
+
+        // 验证结果
+        assertEquals(2L, progress.get("migratedRows"), "只应回填上次未完成的行");
+        assertRow("row1", -1L, null, -1L);
+        assertRow("row2", -1L, null, -1L);
+        assertRow("row3", Timestamps.toEpochMilli(CREATED), null, 100L);
+        assertRow("row4", Timestamps.toEpochMilli(CREATED), null, 100L);
+        execute("DROP TABLE " + table);
+    }
+
+    @Test
+    @DisplayName("并发写入 - 回填读取之后、写入之前被请求写入的新值不会被回填覆盖")
+    void testBackfill_DoesNotOverwriteConcurrentWrite() throws Exception {
+        // 准备测试数据
+        insert("row1", "2024-01-02T03:04:05", null, "1.00");
+        insert("row2", "2024-01-02T03:04:05", null, "2.00");
+        addColumns();
+
+        // 第一条变更占住组提交线程，等回填读取完成、排队后再写入新值，回填的UPDATE在同一线程中随后执行
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> concurrentWrite = GroupCommitter.shared().submit(conn -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("UPDATE " + table + " SET createTimeMs = 42, totalAmountMinor = 4200 WHERE name = 'row1'");
+            }
+        });
+        ColumnMigration.start(table, COLUMNS);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (((Number) GroupCommitter.shared().getMetrics().get("queued")).intValue() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        // 执行测试
+        release.countDown();
+        GroupCommitter.shared().await(concurrentWrite);
+        Map<?, ?> progress = awaitFinished();
+
+        // 验证结果
+        assertEquals(2L, progress.get("migratedRows"));
+        assertRow("row1", 42L, null, 4200L);
+        assertRow("row2", Timestamps.toEpochMilli(CREATED), null, 200L);
+        execute("DROP TABLE " + table);
+    }
+
+    @Test
+    @DisplayName("读取回退 - 毫秒列为NULL的行读取TEXT列，毫秒列有值时以毫秒列为准")
+    void testRead_FallsBackToTextUntilMigrated() throws Exception {
+        // 准备测试数据
+        insert("pending", "2024-01-02T03:04:05", null, null);
+        insert("migrated", "2024-01-02T03:04:05", null, null);
+        addColumns();
+        long migratedMillis = Timestamps.toEpochMilli(CREATED.plusDays(1));
+        execute("UPDATE " + table + " SET createTimeMs = " + migratedMillis + " WHERE name = 'migrated'");
+
+        // 执行测试与验证结果
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT createTimeMs, createTime FROM " + table + " WHERE name = ?")) {
+            pstmt.setString(1, "pending");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(CREATED, Timestamps.read(rs, 1, 2), "未迁移的行应解析TEXT列");
+            }
+            pstmt.setString(1, "migrated");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(CREATED.plusDays(1), Timestamps.read(rs, 1, 2), "已迁移的行应读取毫秒列");
+            }
+        } finally {
+            execute("DROP TABLE " + table);
+        }
+    }
+
+    private void addColumns() throws SQLException {
+        try (Connection conn = DBUtil.getConnection()) {
+            ColumnMigration.addColumns(conn, table, COLUMNS);
+        }
+    }
+
+    /**
+     * 启动回填并等待完成，返回该表的迁移进度
+     */
+    private Map<?, ?> migrate() throws InterruptedException {
+        ColumnMigration.start(table, COLUMNS);
+        return awaitFinished();
+    }
+
+    private Map<?, ?> awaitFinished() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline) {
+            Map<?, ?> progress = (Map<?, ?>) ColumnMigration.getMetrics().get(table);
+            if (progress != null && Boolean.TRUE.equals(progress.get("finished"))) {
+                return progress;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("回填未在10秒内完成: " + table);
+    }
+
+    private void insert(String name, String createTime, String payTime, String totalAmount) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "INSERT INTO " + table + " (name, createTime, payTime, totalAmount) VALUES (?, ?, ?, ?)")) {
+            pstmt.setString(1, name);
+            pstmt.setString(2, createTime);
+            pstmt.setString(3, payTime);
+            pstmt.setString(4, totalAmount);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private void assertRow(String name, Long createTimeMs, Long payTimeMs, Long totalAmountMinor) throws SQLException {
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT createTimeMs, payTimeMs, totalAmountMinor FROM " + table + " WHERE name = ?")) {
+            pstmt.setString(1, name);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next(), "行不存在: " + name);
+                assertEquals(createTimeMs, readLong(rs, 1), name + ".createTimeMs");
+                assertEquals(payTimeMs, readLong(rs, 2), name + ".payTimeMs");
+                assertEquals(totalAmountMinor, readLong(rs, 3), name + ".totalAmountMinor");
+            }
+        }
+    }
+
+    private static Long readLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
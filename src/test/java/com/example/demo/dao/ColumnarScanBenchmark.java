@@ -0,0 +1,90 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * 列式快照基准：对比按产品版本分组汇总金额、LIC数时，stream遍历Order对象与在列式快照数组上扫描的耗时，
+ * 并给出快照发布（数组复制）的耗时。直接构造OrderColumnStore，不经过数据库和其他索引，因此放在dao包下。
+ * 不属于单元测试（类名不以Test结尾），需手动运行，1000万条时需要约6GB堆：
+ * <pre>
+ * java -Xmx8g -cp target/test-classes:target/classes:&lt;依赖&gt; com.example.demo.dao.ColumnarScanBenchmark [订单数,...] [轮数]
+ * </pre>
+ */
+public class ColumnarScanBenchmark {
+
+    private static final String[] VERSIONS = {"LINGMA_EXCLUSIVE", "LINGMA_ENTERPRISE", "QODER"};
+
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "1000000,10000000";
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        for (String size : sizes.split(",")) {
+            run(Integer.parseInt(size.trim()), rounds);
+        }
+    }
+
+    private static void run(int orderCount, int rounds) {
+        List<Order> orders = new ArrayList<>(orderCount);
+        OrderColumnStore store = new OrderColumnStore();
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < orderCount; i++) {
+            Order order = new Order("C" + i, "客户" + (i % 5000), VERSIONS[(i / 3) % VERSIONS.length],
+                i % 100, i % 20, i % 10 == 0 ? null : BigDecimal.valueOf(i % 100000, 2), i % 4, null,
+                base.plusMinutes(i), null, null);
+            orders.add(order);
+            store.put(order);
+        }
+        System.out.println("数据准备完成: " + orderCount + " 条订单");
+
+        long start = System.nanoTime();
+        ColumnarSnapshot snapshot = store.snapshot();
+        System.out.printf("快照发布: %.2fms%n", (System.nanoTime() - start) / 1e6);
+
+        // 状态IN(1,2)且创建时间在前一半范围内，按产品版本分组
+        long toMs = Timestamps.toEpochMilli(base.plusMinutes(orderCount / 2));
+        LocalDateTime to = base.plusMinutes(orderCount / 2);
+        List<Integer> statuses = Arrays.asList(1, 2);
+        Predicate<Order> predicate = order -> statuses.contains(order.getStatus()) && !order.getCreateTime().isAfter(to);
+
+        for (int round = 1; round <= rounds; round++) {
+            start = System.nanoTime();
+            // 单次遍历同时累加金额和LIC数，与列式扫描的工作量一致
+            Map<String, Object[]> streamSums = orders.stream().filter(predicate)
+                .collect(Collectors.groupingBy(Order::getProductVersion, Collector.of(
+                    () -> new Object[]{BigDecimal.ZERO, 0L},
+                    (totals, order) -> {
+                        if (order.getTotalAmount() != null) {
+                            totals[0] = ((BigDecimal) totals[0]).add(order.getTotalAmount());
+                        }
+                        totals[1] = (Long) totals[1] + order.getPurchasedLicCount();
+                    },
+                    (left, right) -> new Object[]{((BigDecimal) left[0]).add((BigDecimal) right[0]),
+                        (Long) left[1] + (Long) right[1]})));
+            long streamNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long[][] sums = snapshot.sumByProductVersion(new int[]{1, 2}, null, ColumnarSnapshot.NULL_TIME, toMs);
+            long columnarNanos = System.nanoTime() - start;
+
+            for (int code = 0; code < snapshot.productVersions.length; code++) {
+                String version = snapshot.productVersions[code];
+                BigDecimal amount = BigDecimal.valueOf(sums[1][code + 1], Order.AMOUNT_SCALE);
+                Object[] expected = streamSums.get(version);
+                if (amount.compareTo((BigDecimal) expected[0]) != 0 || sums[2][code + 1] != (Long) expected[1]) {
+                    throw new IllegalStateException("结果不一致: " + version);
+                }
+            }
+            System.out.printf("第%d轮: 分组汇总 stream %.2fms / 列式 %.2fms (%.1fx)%n", round,
+                streamNanos / 1e6, columnarNanos / 1e6, streamNanos / (double) columnarNanos);
+        }
+    }
+}
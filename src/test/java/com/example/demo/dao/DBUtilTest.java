@@ -0,0 +1,168 @@
+package com.example.demo.dao;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DBUtil连接池的单元测试（连接池为进程内共享，用例只检查相对变化并归还全部连接）
+ */
+class DBUtilTest {
+
+    @Test
+    @DisplayName("连接调优 - 写连接与只读连接都按配置启用WAL、synchronous、忙等待超时、页缓存和mmap")
+    void testConnections_PragmasApplied() throws Exception {
+        // 执行测试
+        try (Connection writer = DBUtil.getConnection()) {
+            // 验证结果
+            assertEquals("wal", pragma(writer, "journal_mode").toLowerCase(), "写连接应切换到WAL模式");
+            assertEquals(String.valueOf(synchronousLevel()), pragma(writer, "synchronous"));
+            assertPragmasFromConfig(writer);
+        }
+        try (Connection reader = DBUtil.getReadConnection()) {
+            assertEquals("wal", pragma(reader, "journal_mode").toLowerCase(), "只读连接看到的也应是WAL数据库");
+            assertPragmasFromConfig(reader);
+            assertThrows(SQLException.class, () -> {
+                try (Statement stmt = reader.createStatement()) {
+                    stmt.executeUpdate("CREATE TABLE dbutil_test_readonly (id INTEGER)");
+                }
+            }, "只读连接不应能写入");
+        }
+    }
+
+    @Test
+    @DisplayName("只读连接池 - 连接数不超过池大小，用满后等待归还，等待时间和活跃连接数计入指标")
+    void testReadPool_BoundedWithWaitAndActiveGauges() throws Exception {
+        // 准备测试数据：占满只读连接池
+        int poolSize = DBUtil.getReadPoolSize();
+        List<Connection> held = new ArrayList<>();
+        CompletableFuture<Connection> waiting;
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                held.add(DBUtil.getReadConnection());
+            }
+            Map<String, Object> saturated = DBUtil.getPoolMetrics();
+
+            // 执行测试：池满时再获取应阻塞，直到有连接归还
+            waiting = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return DBUtil.getReadConnection();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS),
+                    "池满时不应再打开新的只读连接");
+            held.remove(0).close();
+            held.add(waiting.get(5, TimeUnit.SECONDS));
+
+            // 验证结果
+            assertEquals(poolSize, saturated.get("openReadConnections"));
+            assertTrue((Integer) saturated.get("activeReadConnections") >= poolSize);
+            assertEquals(0, saturated.get("idleReadConnections"));
+            assertEquals(poolSize, DBUtil.getPoolMetrics().get("openReadConnections"), "归还后复用连接，不应新建");
+            assertTrue((Double) DBUtil.getPoolMetrics().get("readWaitMaxMs") >= 150, "等待时间应计入指标");
+        } finally {
+            for (Connection conn : held) {
+                conn.close();
+            }
+        }
+        assertEquals(poolSize, DBUtil.getPoolMetrics().get("idleReadConnections"), "关闭后连接应归还到池中");
+    }
+
+    @Test
+    @DisplayName("写连接 - 同一时刻只有一个持有者，其余等待并计入等待指标")
+    void testWriteConnection_SerializedWithWaitGauges() throws Exception {
+        // 准备测试数据
+        CompletableFuture<Void> second;
+        try (Connection first = DBUtil.getConnection()) {
+            // 执行测试
+            second = CompletableFuture.runAsync(() -> {
+                try (Connection conn = DBUtil.getConnection()) {
+                    conn.getAutoCommit();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertThrows(TimeoutException.class, () -> second.get(200, TimeUnit.MILLISECONDS),
+                    "写连接被占用时其他线程应等待");
+            Map<String, Object> metrics = DBUtil.getPoolMetrics();
+
+            // 验证结果
+            assertEquals(true, metrics.get("writeConnectionActive"));
+            assertEquals(1, metrics.get("writeWaiters"));
+        }
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(false, DBUtil.getPoolMetrics().get("writeConnectionActive"));
+        assertTrue((Double) DBUtil.getPoolMetrics().get("writeWaitMaxMs") >= 150);
+    }
+
+    @Test
+    @DisplayName("配置绑定 - getConfig读取configure绑定的来源并去除空白，连接已打开后连接配置不再变更")
+    void testConfigure_BindsConfigSource() throws Exception {
+        // 准备测试数据：确保连接已打开
+        DBUtil.getReadConnection().close();
+        int poolSize = DBUtil.getReadPoolSize();
+        try {
+            // 执行测试
+            DBUtil.configure(key -> {
+                switch (key) {
+                    case "demo.test.bound":
+                        return " 42 ";
+                    case "demo.db.read-pool-size":
+                        return String.valueOf(poolSize + 10);
+                    default:
+                        return null;
+                }
+            });
+
+            // 验证结果
+            assertEquals("42", DBUtil.getConfig("demo.test.bound", "0"));
+            assertEquals("默认值", DBUtil.getConfig("demo.test.missing", "默认值"), "未配置时应返回默认值");
+            assertEquals(poolSize, DBUtil.getReadPoolSize(), "连接已打开后不应改变连接池大小");
+        } finally {
+            DBUtil.configure(DBUtil.fileConfig());
+        }
+        assertEquals("0", DBUtil.getConfig("demo.test.bound", "0"), "恢复默认配置来源后不应再读到绑定的值");
+    }
+
+    /**
+     * 检查忙等待超时、页缓存和mmap与配置一致
+     */
+    private static void assertPragmasFromConfig(Connection conn) throws SQLException {
+        assertEquals(DBUtil.getConfig("demo.db.busy-timeout-ms", "5000"), pragma(conn, "busy_timeout"));
+        assertEquals(DBUtil.getConfig("demo.db.cache-size", "-65536"), pragma(conn, "cache_size"));
+        assertEquals(DBUtil.getConfig("demo.db.mmap-size", "268435456"), pragma(conn, "mmap_size"));
+    }
+
+    private static int synchronousLevel() {
+        switch (DBUtil.getConfig("demo.db.synchronous", "NORMAL")) {
+            case "OFF":
+                return 0;
+            case "FULL":
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    private static String pragma(Connection conn, String name) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA " + name)) {
+            assertTrue(rs.next(), "PRAGMA " + name + "应返回结果");
+            return rs.getString(1);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.dao;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HotSetCache类（准入/淘汰策略与命中统计）的单元测试
+ */
+class HotSetCacheTest {
+
+    @Test
+    @DisplayName("准入 - 一次性扫描的冷数据不会把反复访问的热数据挤出缓存")
+    void testScan_DoesNotEvictHotSet() {
+        // 准备测试数据：缓存装满热数据，每条反复访问
+        HotSetCache<String, String> cache = new HotSetCache<>(1000);
+        for (int i = 0; i < 900; i++) {
+            cache.put("hot" + i, "v" + i);
+        }
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 900; i++) {
+                assertNotNull(cache.get("hot" + i), "热数据装入后应命中");
+            }
+        }
+
+        // 执行测试：扫描5倍容量、每条只访问一次的冷数据
+        for (int i = 0; i < 5000; i++) {
+            cache.put("scan" + i, "s" + i);
+        }
+
+        // 验证结果
+        int retained = 0;
+        for (int i = 0; i < 900; i++) {
+            if (cache.peek("hot" + i) != null) {
+                retained++;
+            }
+        }
+        assertTrue(retained >= 800, "热数据应基本保留（纯LRU会全部淘汰），实际保留: " + retained);
+        assertTrue(cache.size() <= 1000, "缓存条目数不应超过上限");
+        Map<String, Object> metrics = cache.getMetrics();
+        assertTrue((Long) metrics.get("rejectedAdmissions") > 0, "冷数据应被拒绝准入");
+    }
+
+    @Test
+    @DisplayName("准入 - 访问频率更高的新条目可以替换主区中频率低的条目")
+    void testFrequentCandidate_ReplacesColdVictim() {
+        // 准备测试数据：主区装满只访问过一次的条目
+        HotSetCache<String, String> cache = new HotSetCache<>(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put("cold" + i, "c" + i);
+        }
+
+        // 执行测试：新条目在进入缓存前已被多次查询（未命中也计入频率）
+        for (int i = 0; i < 5; i++) {
+            assertNull(cache.get("frequent"));
+        }
+        cache.put("frequent", "f");
+        cache.put("next", "n"); // 把frequent挤出窗口，与主区的淘汰候选比较
+
+        // 验证结果
+        assertEquals("f", cache.peek("frequent"), "频率更高的条目应被准入主区");
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    @DisplayName("指标 - 命中、未命中与淘汰次数；peek不计入统计")
+    void testMetrics_HitMissEviction() {
+        // 准备测试数据
+        HotSetCache<String, String> cache = new HotSetCache<>(10);
+        for (int i = 0; i < 10; i++) {
+            cache.put("k" + i, "v" + i);
+        }
+
+        // 执行测试
+        cache.get("k1");
+        cache.get("k2");
+        cache.get("missing");
+        cache.peek("k3");
+        cache.peek("missing");
+        for (int i = 10; i < 15; i++) {
+            cache.put("k" + i, "v" + i);
+        }
+
+        // 验证结果
+        Map<String, Object> metrics = cache.getMetrics();
+        assertEquals(2L, metrics.get("hits"));
+        assertEquals(1L, metrics.get("misses"));
+        assertEquals(2 / 3.0, metrics.get("hitRate"));
+        assertEquals(5L, metrics.get("evictions"), "缓存已满后每写入一条都应淘汰一条（候选或受害者）");
+        assertEquals(10, metrics.get("size"));
+    }
+
+    @Test
+    @DisplayName("失效 - invalidate后条目不再命中，替换写入返回新值")
+    void testInvalidateAndReplace() {
+        HotSetCache<String, String> cache = new HotSetCache<>(10);
+        cache.put("k1", "v1");
+        cache.put("k1", "v2");
+        assertEquals("v2", cache.get("k1"));
+
+        cache.invalidate("k1");
+
+        assertNull(cache.get("k1"));
+        assertEquals(0, cache.size());
+    }
+}
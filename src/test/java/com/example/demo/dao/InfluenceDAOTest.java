@@ -0,0 +1,246 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Influence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InfluenceDAO类的单元测试
+ */
+class InfluenceDAOTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 6, 1, 10, 0);
+
+    private InfluenceDAO influenceDAO;
+    // 每个测试使用独立的ID前缀和类型，不受同一数据库中其他测试数据的影响
+    private String prefix;
+    private String typeA;
+    private String typeB;
+
+    @BeforeEach
+    void setUp() {
+        influenceDAO = new InfluenceDAO();
+        prefix = "inf" + System.nanoTime() + "-";
+        typeA = prefix + "MEETUP";
+        typeB = prefix + "WEBINAR";
+    }
+
+    @Test
+    @DisplayName("分区范围查询 - 只返回该类型在活动时间范围内的记录，按活动时间降序")
+    void testGetInfluencesByType_PartitionedRange() {
+        // 准备测试数据
+        for (int day = 1; day <= 5; day++) {
+            assertTrue(influenceDAO.createInfluence(influence(prefix + "a" + day, typeA, BASE.plusDays(day))));
+        }
+        influenceDAO.createInfluence(influence(prefix + "b3", typeB, BASE.plusDays(3)));
+
+        // 执行测试
+        List<Influence> ranged = influenceDAO.getInfluencesByType(typeA, BASE.plusDays(2), BASE.plusDays(4));
+        List<Influence> all = influenceDAO.getInfluencesByType(typeA);
+
+        // 验证结果
+        assertEquals(Arrays.asList(prefix + "a4", prefix + "a3", prefix + "a2"), ids(ranged), "范围两端都应包含");
+        assertEquals(5, all.size());
+        assertEquals(Collections.singletonList(prefix + "b3"), ids(influenceDAO.getInfluencesByType(typeB)));
+        assertTrue(influenceDAO.getInfluencesByType(prefix + "NONE").isEmpty());
+        assertTrue(influenceDAO.getInfluencesByType(" ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("分区范围查询 - 修改类型和活动时间后记录移到新分区的新位置")
+    void testUpdateInfluence_TypeChangeMovesPartition() {
+        // 准备测试数据
+        influenceDAO.createInfluence(influence(prefix + "1", typeA, BASE.plusDays(1)));
+        influenceDAO.createInfluence(influence(prefix + "2", typeB, BASE.plusDays(2)));
+
+        // 执行测试
+        Influence moved = influenceDAO.getInfluence(prefix + "1").copy();
+        moved.setType(typeB);
+        moved.setEventTime(BASE.plusDays(3));
+        assertTrue(influenceDAO.updateInfluence(moved));
+
+        // 验证结果
+        assertTrue(influenceDAO.getInfluencesByType(typeA).isEmpty(), "旧分区中不应再有该记录");
+        assertEquals(Arrays.asList(prefix + "1", prefix + "2"), ids(influenceDAO.getInfluencesByType(typeB)),
+                "新分区中应按新的活动时间排序");
+        assertEquals(2, influenceDAO.countInfluences(Collections.singletonList(typeB), null));
+        assertEquals(0, influenceDAO.countInfluences(Collections.singletonList(typeA), null));
+    }
+
+    @Test
+    @DisplayName("活动时间索引 - 修改活动时间和删除记录后，全量列表仍按活动时间有序且没有残留条目")
+    void testGetAllInfluences_EventTimeIndexFollowsUpdatesAndDeletes() {
+        // 准备测试数据：使用其他测试不会用到的时间段
+        LocalDateTime start = LocalDateTime.of(2031, 3, 1, 0, 0);
+        for (int day = 1; day <= 4; day++) {
+            influenceDAO.createInfluence(influence(prefix + day, typeA, start.plusDays(day)));
+        }
+
+        // 执行测试：最早的记录移到最晚，删除一条中间的记录
+        Influence moved = influenceDAO.getInfluence(prefix + "1").copy();
+        moved.setEventTime(start.plusDays(9));
+        assertTrue(influenceDAO.updateInfluence(moved));
+        assertTrue(influenceDAO.deleteInfluence(prefix + "3"));
+
+        // 验证结果
+        LocalDateTime end = start.plusDays(10);
+        assertEquals(Arrays.asList(prefix + "2", prefix + "4", prefix + "1"),
+                ids(influenceDAO.getAllInfluences(false, start, end)));
+        assertEquals(Arrays.asList(prefix + "1", prefix + "4", prefix + "2"),
+                ids(influenceDAO.getAllInfluences(true, start, end)));
+        assertEquals(Collections.singletonList(prefix + "2"),
+                ids(influenceDAO.getAllInfluences(false, start, start.plusDays(3))), "移走的记录不应留在原位置");
+    }
+
+    @Test
+    @DisplayName("乐观锁 - 版本号不匹配的更新和删除被拒绝，成功后回写新版本号")
+    void testConditionalUpdateAndDelete_VersionConflicts() {
+        // 准备测试数据
+        Influence influence = influence(prefix + "1", typeA, BASE);
+        assertTrue(influenceDAO.createInfluence(influence));
+        assertEquals(1L, influence.getVersion(), "创建后应回写版本号");
+
+        // 执行测试与验证结果：更新
+        influence.setName("新名称");
+        assertEquals(WriteResult.APPLIED, influenceDAO.updateInfluence(influence, 1));
+        assertEquals(2L, influence.getVersion());
+        assertNotNull(influence.getUpdateTime(), "成功后应回写更新时间");
+        influence.setName("基于旧版本的修改");
+        assertEquals(WriteResult.VERSION_CONFLICT, influenceDAO.updateInfluence(influence, 1));
+        assertEquals("新名称", influenceDAO.getInfluence(prefix + "1").getName(), "冲突的更新不应生效");
+        assertEquals(WriteResult.NOT_FOUND, influenceDAO.updateInfluence(influence(prefix + "missing", typeA, BASE), 1));
+
+        // 删除
+        assertEquals(WriteResult.VERSION_CONFLICT, influenceDAO.deleteInfluence(prefix + "1", 1));
+        assertNotNull(influenceDAO.getInfluence(prefix + "1"), "冲突的删除不应生效");
+        assertEquals(WriteResult.APPLIED, influenceDAO.deleteInfluence(prefix + "1", 2));
+        assertEquals(WriteResult.NOT_FOUND, influenceDAO.deleteInfluence(prefix + "1", 2));
+        assertTrue(influenceDAO.getInfluencesByType(typeA).isEmpty(), "删除后应从索引中移除");
+    }
+
+    @Test
+    @DisplayName("只读快照 - 读取到的记录不可修改，调用方修改传入的对象不影响已存储的记录")
+    void testStoredInfluence_IsImmutableSnapshot() {
+        // 准备测试数据
+        Influence influence = influence(prefix + "1", typeA, BASE);
+        influenceDAO.createInfluence(influence);
+
+        // 执行测试
+        influence.setName("创建后修改");
+        influence.getImageUrls().add("c.png");
+        Influence stored = influenceDAO.getInfluence(prefix + "1");
+
+        // 验证结果
+        assertEquals("发布会", stored.getName(), "存储的记录不应受调用方后续修改影响");
+        assertEquals(Arrays.asList("a.png", "b.png"), stored.getImageUrls());
+        assertTrue(stored.isFrozen());
+        assertThrows(IllegalStateException.class, () -> stored.setName("直接修改"));
+        assertThrows(UnsupportedOperationException.class, () -> stored.getImageUrls().add("d.png"));
+        assertThrows(IllegalStateException.class,
+                () -> influenceDAO.getInfluencesByType(typeA).get(0).setType(typeB));
+        Influence copy = stored.copy();
+        copy.setName("副本可以修改");
+        assertFalse(copy.isFrozen());
+        assertEquals("发布会", influenceDAO.getInfluence(prefix + "1").getName());
+    }
+
+    @Test
+    @DisplayName("逐行落盘 - 更新、删除只写入受影响的行，其他行不被重写，表在写入期间不会变空")
+    void testMutations_PersistOnlyAffectedRow() throws Exception {
+        // 准备测试数据
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(influenceDAO.createInfluence(influence(prefix + i, typeA, BASE.plusDays(i))));
+        }
+        Map<String, Long> rowidsBefore = rowids();
+        long generationBefore = generation();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger minCount = new AtomicInteger(Integer.MAX_VALUE);
+        Thread reader = new Thread(() -> {
+            while (writing.get()) {
+                try {
+                    minCount.accumulateAndGet(rowids().size(), Math::min);
+                } catch (SQLException e) {
+                    minCount.set(-1);
+                }
+            }
+        });
+        reader.start();
+
+        // 执行测试
+        Influence updated = influenceDAO.getInfluence(prefix + "2").copy();
+        updated.setRemark("只改这一行");
+        assertTrue(influenceDAO.updateInfluence(updated));
+        assertTrue(influenceDAO.deleteInfluence(prefix + "4"));
+        writing.set(false);
+        reader.join();
+        Map<String, Long> rowidsAfter = rowids();
+
+        // 验证结果
+        assertTrue(minCount.get() >= 4, "并发读取时不应看到被清空或只写了一部分的表: " + minCount.get());
+        assertEquals(4, rowidsAfter.size());
+        assertFalse(rowidsAfter.containsKey(prefix + "4"), "删除应只删除该行");
+        for (String id : Arrays.asList(prefix + "1", prefix + "3", prefix + "5")) {
+            assertEquals(rowidsBefore.get(id), rowidsAfter.get(id), "未修改的行不应被重写: " + id);
+        }
+        assertEquals(generationBefore + 2, generation(), "每次变更应在一个事务内落盘并使表版本号加1");
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT remark, version FROM influence WHERE id = ?")) {
+            pstmt.setString(1, prefix + "2");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals("只改这一行", rs.getString(1));
+                assertEquals(2, rs.getLong(2));
+            }
+        }
+    }
+
+    /**
+     * 本用例写入的影响力记录在数据库中的rowid，整表删除后重新插入会改变所有行的rowid
+     */
+    private Map<String, Long> rowids() throws SQLException {
+        Map<String, Long> rowids = new HashMap<>();
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT id, rowid FROM influence WHERE id LIKE ?")) {
+            pstmt.setString(1, prefix + "%");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rowids.put(rs.getString(1), rs.getLong(2));
+                }
+            }
+        }
+        return rowids;
+    }
+
+    private static long generation() throws SQLException {
+        try (Connection conn = DBUtil.getReadConnection()) {
+            return SnapshotFile.currentGeneration(conn, "influence");
+        }
+    }
+
+    private static Influence influence(String id, String type, LocalDateTime eventTime) {
+        return new Influence(id, "发布会", type, Influence.STATUS_PLANNED, eventTime, null, null,
+                new ArrayList<>(Arrays.asList("a.png", "b.png")), null, null);
+    }
+
+    private static List<String> ids(List<Influence> influences) {
+        return influences.stream().map(Influence::getId).collect(Collectors.toList());
+    }
+}
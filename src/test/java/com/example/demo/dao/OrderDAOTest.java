@@ -6,8 +6,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -239,4 +252,810 @@ class OrderDAOTest {
         assertEquals(1, customerCOrders.size(), "客户C应该有1个订单");
         assertEquals("客户C", customerCOrders.get(0).getCustomerName(), "订单应该属于客户C");
     }
-}
\ No newline at end of file
+    
+    @Test
+    @DisplayName("按客户查询 - 更新客户名称后订单应移到新客户下")
+    void testGetOrdersByUserId_CustomerRenamedOnUpdate() {
+        // 准备测试数据
+        Order order = order("order001").build();
+        orderDAO.createOrder(order);
+        
+        // 原地修改客户名称后更新
+        order.setCustomerName("客户B");
+        orderDAO.updateOrder(order);
+        
+        // 验证结果
+        assertTrue(orderDAO.getOrdersByUserId("客户A").isEmpty(), "原客户下不应再有该订单");
+        assertEquals(1, orderDAO.getOrdersByUserId("客户B").size(), "新客户下应有1个订单");
+        
+        // 删除后两个客户下都不应有该订单
+        orderDAO.deleteOrder("order001");
+        assertTrue(orderDAO.getOrdersByUserId("客户B").isEmpty(), "删除后新客户下不应再有该订单");
+    }
+    
+    @Test
+    @DisplayName("组合查询 - 应按最有选择性的索引扫描并返回满足全部条件的订单")
+    void testSearchOrders_UsesMostSelectiveIndex() {
+        // 准备测试数据
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 10, 0);
+        givenOrders(
+            order("order001").createdAt(time),
+            order("order002").licCount(5).amount("700.00").createdAt(time.plusDays(1)),
+            order("order003").customer("客户B").licCount(5).amount("400.00").status(1).createdAt(time.plusDays(2)),
+            order("order004").customer("客户C").product("LINGMA_EXCLUSIVE").licCount(5).amount("795.00")
+                .createdAt(time.plusDays(3)));
+        
+        OrderQuery query = new OrderQuery();
+        query.setStatus(0);
+        query.setProductVersion("QODER");
+        query.setMinAmount(new BigDecimal("500"));
+        
+        // 执行查询
+        Map<String, Object> explain = new HashMap<>();
+        List<Order> result = orderDAO.searchOrders(query, null, explain);
+        
+        // 验证结果
+        assertEquals(1, result.size(), "只有1个订单满足全部条件");
+        assertEquals("order002", result.get(0).getCid());
+        assertEquals("bitmap(status&productVersion)", explain.get("index"), "状态和产品版本的交集只有2条，应选择位图索引");
+        assertEquals(2, explain.get("rowsExamined"), "应只扫描位图交集内的2条订单");
+    }
+    
+    @Test
+    @DisplayName("位图计数 - 同一字段取值为OR、不同字段为AND，更新和删除后计数应同步")
+    void testCountOrders_BitmapAndOr() {
+        // 准备测试数据
+        givenOrders(
+            order("order001"),
+            order("order002").status(1),
+            order("order003").customer("客户B").product("LINGMA_EXCLUSIVE").amount("159.00").status(1),
+            order("order004").customer("客户C").status(2));
+        
+        // 验证计数
+        assertEquals(4, orderDAO.countOrders(null, null), "不限条件应统计全部订单");
+        assertEquals(2, orderDAO.countOrders(Arrays.asList(0, 1), Collections.singletonList("QODER")));
+        assertEquals(2, orderDAO.countOrders(Collections.singletonList(1), null));
+        assertEquals(0, orderDAO.countOrders(Collections.singletonList(3), null), "不存在的取值计数应为0");
+        
+        // 修改状态、删除订单后计数同步
+        Order order = orderDAO.getOrder("order001").copy();
+        order.setStatus(2);
+        orderDAO.updateOrder(order);
+        orderDAO.deleteOrder("order004");
+        assertEquals(1, orderDAO.countOrders(Arrays.asList(0, 1), Collections.singletonList("QODER")));
+        List<Order> result = orderDAO.filterOrders(Collections.singletonList(2), null);
+        assertEquals(1, result.size(), "状态为2的订单只剩order001");
+        assertEquals("order001", result.get(0).getCid());
+    }
+    
+    @Test
+    @DisplayName("全文检索 - 描述包含全部查询词的订单按相关度返回，更新描述后索引同步")
+    void testSearchDescriptions_RankedAndUpdatedIncrementally() {
+        // 准备测试数据
+        Order order1 = order("order001").description("客户要求开具发票").build();
+        orderDAO.createOrder(order1);
+        givenOrders(
+            order("order002").customer("客户B").description("发票已开具，发票抬头为客户B"),
+            order("order003").customer("客户C").description("Renewal for QODER team"));
+        
+        // 执行检索
+        List<SearchHit> hits = orderDAO.searchDescriptions("发票", 10);
+        
+        // 验证结果：发票出现两次的订单排在前面，英文不区分大小写
+        assertEquals(2, hits.size(), "应有2个订单描述包含发票");
+        assertEquals("order002", hits.get(0).getId());
+        assertEquals("order003", orderDAO.searchDescriptions("qoder renewal", 10).get(0).getId());
+        assertTrue(orderDAO.searchDescriptions("发票 退款", 10).isEmpty(), "需包含全部查询词");
+        
+        // 更新描述后旧词不再命中
+        order1.setDescription("已退款");
+        orderDAO.updateOrder(order1);
+        assertEquals(1, orderDAO.searchDescriptions("发票", 10).size());
+        assertEquals("order001", orderDAO.searchDescriptions("退款", 10).get(0).getId());
+    }
+    
+    @Test
+    @DisplayName("客户名称补全 - 按订单数降序返回前缀匹配的客户，改名和删除后计数同步")
+    void testSuggestCustomers_TopByOrderCount() {
+        // 准备测试数据
+        givenOrders(
+            order("order001").customer("阿里云"),
+            order("order002").customer("阿里巴巴"),
+            order("order003").customer("阿里巴巴"),
+            order("order004").customer("腾讯"));
+        
+        // 执行查询
+        List<Completion> result = orderDAO.suggestCustomers("阿里", 10);
+        
+        // 验证结果
+        assertEquals(2, result.size(), "应有2个以阿里开头的客户");
+        assertEquals("阿里巴巴", result.get(0).getText(), "订单数多的客户排在前面");
+        assertEquals(2, result.get(0).getCount());
+        assertEquals(1, orderDAO.suggestCustomers("阿里", 1).size(), "应只返回limit个");
+        
+        // 改名和删除后补全结果同步
+        Order order = orderDAO.getOrder("order004").copy();
+        order.setCustomerName("阿里云");
+        orderDAO.updateOrder(order);
+        orderDAO.deleteOrder("order002");
+        result = orderDAO.suggestCustomers("阿里", 10);
+        assertEquals("阿里云", result.get(0).getText());
+        assertEquals(2, result.get(0).getCount());
+        assertTrue(orderDAO.suggestCustomers("腾", 10).isEmpty(), "改名后旧名称不应再出现");
+    }
+    
+    @Test
+    @DisplayName("订单汇总 - 按产品版本、状态、月份汇总，创建、修改、删除后增量更新")
+    void testGetAggregates_UpdatedIncrementally() {
+        // 准备测试数据
+        LocalDateTime january = LocalDateTime.of(2024, 1, 15, 10, 0);
+        LocalDateTime february = LocalDateTime.of(2024, 2, 1, 10, 0);
+        givenOrders(
+            order("order001").licCount(5).amount("100.50").status(1).createdAt(january),
+            order("order002").customer("客户B").devScale(20).licCount(3).amount("200.00").status(1).createdAt(january),
+            order("order003").customer("客户C").product("LINGMA").devScale(30).licCount(2).amount(null).status(1)
+                .createdAt(february));
+        
+        // 执行查询
+        List<OrderAggregate> result = orderDAO.getAggregates(
+            EnumSet.allOf(OrderDAO.AggregateDimension.class));
+        
+        // 验证结果
+        assertEquals(2, result.size(), "应有2个分组");
+        assertEquals("2024-01", result.get(0).getMonth());
+        assertEquals("QODER", result.get(0).getProductVersion());
+        assertEquals(2, result.get(0).getOrderCount());
+        assertEquals(new BigDecimal("300.50"), result.get(0).getTotalAmount());
+        assertEquals(8, result.get(0).getPurchasedLicCount());
+        assertEquals(30, result.get(0).getDevScale());
+        assertEquals(new BigDecimal("0.00"), result.get(1).getTotalAmount(), "未设置金额的订单不计入金额合计");
+        
+        // 修改状态和删除后汇总同步
+        Order order = orderDAO.getOrder("order002").copy();
+        order.setStatus(2);
+        orderDAO.updateOrder(order);
+        orderDAO.deleteOrder("order003");
+        result = orderDAO.getAggregates(EnumSet.of(OrderDAO.AggregateDimension.STATUS));
+        assertEquals(2, result.size(), "删除后应只剩状态1和状态2两个分组");
+        assertNull(result.get(0).getMonth(), "未参与分组的维度应为null");
+        assertEquals(Integer.valueOf(1), result.get(0).getStatus());
+        assertEquals(new BigDecimal("100.50"), result.get(0).getTotalAmount());
+        assertEquals(Integer.valueOf(2), result.get(1).getStatus());
+        assertEquals(1, result.get(1).getOrderCount());
+    }
+    
+    @Test
+    @DisplayName("客户汇总 - 消费总额、各状态订单数、首末次下单时间随订单变更增量更新")
+    void testGetCustomerSummary_UpdatedIncrementally() {
+        // 准备测试数据
+        LocalDateTime first = LocalDateTime.of(2024, 1, 1, 10, 0);
+        LocalDateTime last = LocalDateTime.of(2024, 6, 1, 10, 0);
+        givenOrders(
+            order("order001").licCount(5).amount("100.00").status(1).createdAt(first),
+            order("order002").licCount(3).amount("50.25").status(2).createdAt(last),
+            order("order003").licCount(2).amount(null).status(1).createdAt(LocalDateTime.of(2024, 3, 1, 10, 0)),
+            order("order004").customer("客户B").amount("999.00").status(1).createdAt(first));
+        
+        // 执行查询
+        CustomerSummary summary = orderDAO.getCustomerSummary("客户A");
+        
+        // 验证结果
+        assertEquals(3, summary.getOrderCount());
+        assertEquals(new BigDecimal("150.25"), summary.getTotalSpend());
+        assertEquals(10, summary.getPurchasedLicCount());
+        assertEquals(Long.valueOf(2), summary.getStatusCounts().get(1));
+        assertEquals(Long.valueOf(1), summary.getStatusCounts().get(2));
+        assertEquals(first, summary.getFirstOrderTime());
+        assertEquals(last, summary.getLastOrderTime());
+        
+        // 删除最晚的订单、转移一个订单给其他客户后汇总同步
+        orderDAO.deleteOrder("order002");
+        Order order = orderDAO.getOrder("order001").copy();
+        order.setCustomerName("客户B");
+        orderDAO.updateOrder(order);
+        summary = orderDAO.getCustomerSummary("客户A");
+        assertEquals(1, summary.getOrderCount());
+        assertEquals(new BigDecimal("0.00"), summary.getTotalSpend(), "未设置金额的订单不计入消费总额");
+        assertEquals(summary.getFirstOrderTime(), summary.getLastOrderTime());
+        assertNull(summary.getStatusCounts().get(2), "已删除订单的状态不应再计数");
+        assertEquals(2, orderDAO.getCustomerSummary("客户B").getOrderCount());
+        assertNull(orderDAO.getCustomerSummary("客户C"), "没有订单的客户应返回null");
+    }
+    
+    @Test
+    @DisplayName("订单分析 - 列式快照按条件汇总，数据变更后重新发布快照")
+    void testAnalyzeOrders_ColumnarSnapshotRepublishedOnChange() {
+        // 准备测试数据
+        LocalDateTime january = LocalDateTime.of(2024, 1, 15, 10, 0);
+        LocalDateTime march = LocalDateTime.of(2024, 3, 15, 10, 0);
+        givenOrders(
+            order("order001").licCount(5).amount("100.00").status(1).createdAt(january),
+            order("order002").customer("客户B").devScale(20).licCount(3).amount("50.50").status(2).createdAt(march),
+            order("order003").customer("客户C").product("LINGMA").devScale(30).licCount(2).amount(null).status(1)
+                .createdAt(march));
+        
+        // 执行查询
+        List<OrderAggregate> result = orderDAO.analyzeOrders(Arrays.asList(1, 2), null, null, null, null);
+        ColumnarSnapshot snapshot = orderDAO.columnarSnapshot();
+        
+        // 验证结果
+        assertEquals(2, result.size());
+        assertEquals("LINGMA", result.get(0).getProductVersion());
+        assertEquals("QODER", result.get(1).getProductVersion());
+        assertEquals(2, result.get(1).getOrderCount());
+        assertEquals(new BigDecimal("150.50"), result.get(1).getTotalAmount());
+        assertEquals(30, result.get(1).getDevScale());
+        result = orderDAO.analyzeOrders(Collections.singletonList(1), Collections.singletonList("QODER"),
+            LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 1, 31, 23, 59), null);
+        assertEquals(1, result.size());
+        assertEquals(5, result.get(0).getPurchasedLicCount(), "应只统计1月份状态为1的QODER订单");
+        assertSame(snapshot, orderDAO.columnarSnapshot(), "数据未变更时应复用快照");
+        
+        // 变更后重新发布快照，旧快照保持不变
+        orderDAO.deleteOrder("order001");
+        assertNotSame(snapshot, orderDAO.columnarSnapshot());
+        assertEquals(3, snapshot.liveCount, "已发布的快照不应被修改");
+        result = orderDAO.analyzeOrders(null, Collections.singletonList("QODER"), null, null, null);
+        assertEquals(1, result.get(0).getOrderCount());
+        assertTrue(orderDAO.analyzeOrders(null, Collections.singletonList("不存在"), null, null, null).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("并行扫描 - 行数超过阈值时并行过滤、排序、汇总，结果与顺序执行一致")
+    void testParallelScan_SameResultsAsSequential() {
+        // 准备测试数据
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 10000; i++) {
+            givenOrders(order(String.format("order%05d", i)).customer("客户" + (i % 7))
+                .product(i % 2 == 0 ? "QODER" : "LINGMA").licCount(i % 5).amount(String.valueOf(i % 300))
+                .status(i % 4).createdAt(base.plusMinutes(i % 5000)));
+        }
+        OrderQuery query = new OrderQuery();
+        query.setMinAmount(new BigDecimal("100"));
+        Map<String, Object> explain = new HashMap<>();
+        List<Order> sequential = orderDAO.searchOrders(query, null, explain);
+        List<OrderAggregate> sequentialAggregates = orderDAO.analyzeOrders(Arrays.asList(1, 2), null, null, null, null);
+        assertEquals(false, ((Map<?, ?>) explain.get("execution")).get("parallel"), "默认阈值下应顺序执行");
+        
+        // 执行查询
+        orderDAO.setParallelScan(new ParallelScan(4, 1000));
+        explain = new HashMap<>();
+        List<Order> parallel = orderDAO.searchOrders(query, null, explain);
+        Map<String, Object> execution = new HashMap<>();
+        List<OrderAggregate> parallelAggregates = orderDAO.analyzeOrders(Arrays.asList(1, 2), null, null, null, execution);
+        
+        // 验证结果
+        Map<?, ?> searchExecution = (Map<?, ?>) explain.get("execution");
+        assertEquals(true, searchExecution.get("parallel"));
+        assertTrue((Integer) searchExecution.get("tasks") > 1, "应拆分为多个子任务");
+        assertEquals(sequential, parallel, "并行过滤、归并排序的结果应与顺序执行完全一致");
+        assertEquals(true, execution.get("parallel"));
+        assertEquals(sequentialAggregates.size(), parallelAggregates.size());
+        for (int i = 0; i < sequentialAggregates.size(); i++) {
+            assertEquals(sequentialAggregates.get(i).getOrderCount(), parallelAggregates.get(i).getOrderCount());
+            assertEquals(sequentialAggregates.get(i).getTotalAmount(), parallelAggregates.get(i).getTotalAmount());
+        }
+    }
+    
+    @Test
+    @DisplayName("并行扫描 - 扫描行数达到阈值时才提交到专用线程池，低于阈值时在调用线程中执行")
+    void testParallelScan_UsesPoolOnlyAboveThreshold() {
+        // 准备测试数据
+        ParallelScan scan = new ParallelScan(2, 100);
+        orderDAO.setParallelScan(scan);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 99; i++) {
+            givenOrders(order(String.format("order%03d", i)).createdAt(base.plusMinutes(i)));
+        }
+        
+        // 执行测试：不限条件的过滤需要排序全部订单
+        orderDAO.filterOrders(null, null);
+        Map<String, Object> below = scan.getMetrics();
+        givenOrders(order("order099").createdAt(base.plusMinutes(99)));
+        List<Order> result = orderDAO.filterOrders(null, null);
+        Map<String, Object> above = orderDAO.getParallelMetrics();
+        
+        // 验证结果
+        assertEquals(1L, below.get("queries"));
+        assertEquals(0L, below.get("parallelQueries"), "99行低于阈值，不应使用线程池");
+        assertEquals(0, below.get("poolSize"), "低于阈值时线程池不应创建工作线程");
+        assertEquals(100, result.size());
+        assertEquals("order099", result.get(0).getCid(), "结果应按创建时间降序排列");
+        assertEquals(1L, above.get("parallelQueries"), "100行达到阈值，应提交到线程池");
+        assertEquals(100L, above.get("parallelRows"));
+        assertTrue((Integer) above.get("poolSize") > 0, "线程池应已创建工作线程");
+    }
+    
+    @Test
+    @DisplayName("乐观锁 - 版本号不一致时更新、删除应返回冲突且不修改订单")
+    void testConditionalUpdateAndDelete_RejectStaleVersion() {
+        // 准备测试数据
+        Order order = order("order001").build();
+        orderDAO.createOrder(order);
+        assertEquals(1, order.getVersion(), "创建后版本号应为1");
+        
+        // 执行测试：两个客户端都读到版本1，先提交的成功
+        Order first = order("order001").licCount(2).amount("280.00").build();
+        Order second = order("order001").customer("客户B").licCount(3).amount("420.00").build();
+        WriteResult firstResult = orderDAO.updateOrder(first, 1);
+        WriteResult secondResult = orderDAO.updateOrder(second, 1);
+        
+        // 验证结果
+        assertEquals(WriteResult.APPLIED, firstResult);
+        assertEquals(2, first.getVersion(), "更新后版本号应加1");
+        assertEquals(WriteResult.VERSION_CONFLICT, secondResult, "基于旧版本的更新应冲突");
+        assertEquals(2, orderDAO.getOrder("order001").getPurchasedLicCount(), "冲突的更新不应写入");
+        assertEquals(1, orderDAO.getOrdersByUserId("客户A").size(), "冲突的更新不应修改索引");
+        assertEquals(WriteResult.VERSION_CONFLICT, orderDAO.deleteOrder("order001", 1), "基于旧版本的删除应冲突");
+        assertNotNull(orderDAO.getOrder("order001"));
+        assertEquals(WriteResult.APPLIED, orderDAO.deleteOrder("order001", 2));
+        assertEquals(WriteResult.NOT_FOUND, orderDAO.updateOrder(second, WriteResult.ANY_VERSION));
+    }
+    
+    @Test
+    @DisplayName("条件更新 - 持久化失败时不修改内存，也不回写调用方的版本号")
+    void testUpdateOrder_PersistFailureLeavesCallerVersion() throws Exception {
+        // 准备测试数据：日志已关闭，追加必然失败
+        givenOrders(order("order001"));
+        OrderJournal journal = new OrderJournal(Files.createTempDirectory("journal").resolve("orders.journal"),
+                OrderJournal.FsyncPolicy.NEVER, 0);
+        orderDAO.enableJournal(journal, Long.MAX_VALUE, Long.MAX_VALUE);
+        journal.close();
+        Order update = orderDAO.getOrder("order001").copy();
+        update.setStatus(2);
+        
+        // 执行测试
+        assertThrows(IllegalStateException.class, () -> orderDAO.updateOrder(update, 1));
+        
+        // 验证结果
+        assertEquals(1, update.getVersion(), "未持久化的版本号不应回写到调用方");
+        assertNull(update.getUpdateTime(), "未持久化的更新时间不应回写到调用方");
+        assertEquals(1, orderDAO.getOrder("order001").getVersion());
+        assertEquals(0, orderDAO.getOrder("order001").getStatus(), "失败的更新不应写入内存");
+    }
+    
+    @Test
+    @DisplayName("只读快照 - 存储的订单不可修改，调用方修改自己的对象不影响已存储的订单")
+    void testStoredOrder_IsImmutableSnapshot() {
+        // 准备测试数据
+        Order order = order("order001").build();
+        orderDAO.createOrder(order);
+        Order stored = orderDAO.getOrder("order001");
+        
+        // 执行测试：修改调用方的对象，以及在副本上修改后更新
+        order.setCustomerName("客户B");
+        Order copy = stored.copy();
+        copy.setStatus(2);
+        orderDAO.updateOrder(copy);
+        
+        // 验证结果
+        assertNotSame(order, stored, "应存储快照而不是调用方的对象");
+        assertThrows(IllegalStateException.class, () -> stored.setStatus(3), "快照不可修改");
+        assertEquals("客户A", stored.getCustomerName(), "调用方修改自己的对象不影响快照");
+        assertEquals(0, stored.getStatus(), "旧快照不随更新改变");
+        assertEquals(2, orderDAO.getOrder("order001").getStatus(), "更新后应返回新快照");
+        assertEquals(1, orderDAO.getOrdersByUserId("客户A").size());
+        assertTrue(orderDAO.getOrdersByUserId("客户B").isEmpty(), "索引中应是快照的取值");
+    }
+    
+    @Test
+    @DisplayName("增量落盘 - 创建和更新订单应只标记该订单待落盘")
+    void testCreateAndUpdateOrder_MarksOnlyChangedOrderDirty() {
+        // 准备测试数据
+        Order order1 = order("order001").build();
+        orderDAO.createOrder(order1);
+        givenOrders(order("order002").customer("客户B"));
+        
+        // 同一订单多次变更只占一个待落盘位置
+        order1.setDescription("更新后的描述");
+        orderDAO.updateOrder(order1);
+        
+        // 验证结果
+        assertEquals(2, orderDAO.getPendingWriteCount(), "应该只有2条待落盘记录");
+        assertEquals(2, orderDAO.getFlushMetrics().get("pendingUpserts"), "两条记录都应待写入");
+        assertEquals(0, orderDAO.getFlushMetrics().get("pendingDeletes"), "不应有待删除记录");
+    }
+    
+    @Test
+    @DisplayName("增量落盘 - 删除订单应转为待删除记录")
+    void testDeleteOrder_MovesDirtyToDeleted() {
+        // 准备测试数据
+        givenOrders(order("order001"));
+        
+        // 执行测试
+        orderDAO.deleteOrder("order001");
+        
+        // 验证结果
+        assertEquals(1, orderDAO.getPendingWriteCount(), "删除后应只剩1条待落盘记录");
+        assertEquals(0, orderDAO.getFlushMetrics().get("pendingUpserts"), "不应再有待写入记录");
+        assertEquals(1, orderDAO.getFlushMetrics().get("pendingDeletes"), "应有1条待删除记录");
+    }
+    
+    @Test
+    @DisplayName("增量落盘 - 状态等整数字段为空的订单应正常落盘，不连累同批的其他订单")
+    void testFlush_NullIntegerFieldsPersisted() throws Exception {
+        // 准备测试数据
+        orderDAO.initTable();
+        givenOrders(
+            order("order001").devScale(null).licCount(null).status(null),
+            order("order002").customer("客户B"));
+        
+        // 执行测试
+        int written = orderDAO.flush();
+        
+        // 验证结果
+        assertEquals(2, written, "两条订单都应落盘");
+        assertEquals(0, orderDAO.getPendingWriteCount(), "不应再有待落盘记录");
+        assertTrue(orderDAO.getQuarantinedOrders().isEmpty(), "不应隔离任何订单");
+        assertEquals(0L, orderDAO.getFlushMetrics().get("flushFailures"));
+    }
+    
+    @Test
+    @DisplayName("加载 - 旧版TEXT金额超过两位小数时舍入到分，无法解析时按无金额加载，不中断加载")
+    void testLoadFromDatabase_LegacyAmountsDoNotAbortLoad() {
+        // 准备测试数据：模拟尚未迁移的旧行，只有TEXT金额
+        orderDAO.initTable();
+        GroupCommitter.shared().commit(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("INSERT OR REPLACE INTO order0713(cid, customerName, totalAmount) VALUES ('legacy001', '客户A', '12.345')");
+                stmt.execute("INSERT OR REPLACE INTO order0713(cid, customerName, totalAmount) VALUES ('legacy002', '客户A', 'abc')");
+            }
+        });
+        
+        // 执行测试
+        OrderDAO loaded = new OrderDAO();
+        loaded.loadFromDatabase();
+        
+        // 验证结果
+        assertEquals(new BigDecimal("12.35"), loaded.getOrder("legacy001").getTotalAmount(), "应按四舍五入取到分");
+        assertNotNull(loaded.getOrder("legacy002"), "金额无法解析的行也应加载");
+        assertNull(loaded.getOrder("legacy002").getTotalAmount());
+    }
+    
+    @Test
+    @DisplayName("热点缓存 - 未命中时按主键回源数据库并放入缓存，再次读取命中")
+    void testHotSet_MissReadsBackFromDatabase() {
+        // 准备测试数据：由另一个实例写入数据库，本实例的缓存为空
+        OrderDAO writer = new OrderDAO();
+        writer.initTable();
+        writer.enableHotSet(100);
+        String cid = "hot" + System.nanoTime();
+        assertTrue(writer.createOrder(order(cid).build()));
+        orderDAO.enableHotSet(100);
+        
+        // 执行测试
+        Order first = orderDAO.getOrder(cid);
+        Order second = orderDAO.getOrder(cid);
+        Order missing = orderDAO.getOrder(cid + "-missing");
+        
+        // 验证结果
+        assertNotNull(first, "未命中时应从数据库读回");
+        assertEquals("客户A", first.getCustomerName());
+        assertEquals(1L, first.getVersion());
+        assertSame(first, second, "第二次读取应命中缓存");
+        assertNull(missing);
+        Map<String, Object> metrics = orderDAO.getCacheMetrics();
+        assertEquals(1L, metrics.get("hits"));
+        assertEquals(2L, metrics.get("misses"));
+        assertEquals(1, metrics.get("size"), "不存在的订单不应放入缓存");
+    }
+    
+    @Test
+    @DisplayName("热点缓存 - 写穿更新数据库与缓存，条件更新/删除按数据库中的版本号判断")
+    void testHotSet_WriteThroughWithVersions() {
+        // 准备测试数据
+        orderDAO.initTable();
+        orderDAO.enableHotSet(100);
+        String cid = "hot" + System.nanoTime();
+        Order order = order(cid).build();
+        assertTrue(orderDAO.createOrder(order));
+        assertFalse(orderDAO.createOrder(order), "重复创建应返回false");
+        
+        // 执行测试
+        Order update = orderDAO.getOrder(cid).copy();
+        update.setStatus(1);
+        assertEquals(WriteResult.APPLIED, orderDAO.updateOrder(update, 1));
+        assertEquals(WriteResult.VERSION_CONFLICT, orderDAO.updateOrder(update, 1), "旧版本号的更新应冲突");
+        
+        // 验证结果：缓存与数据库（新实例回源）都是新值
+        assertEquals(2L, update.getVersion(), "成功后应回写新版本号");
+        assertEquals(Integer.valueOf(1), orderDAO.getOrder(cid).getStatus());
+        OrderDAO reader = new OrderDAO();
+        reader.enableHotSet(100);
+        assertEquals(2L, reader.getOrder(cid).getVersion());
+        assertEquals(WriteResult.VERSION_CONFLICT, orderDAO.deleteOrder(cid, 1));
+        assertEquals(WriteResult.APPLIED, orderDAO.deleteOrder(cid, 2));
+        assertNull(orderDAO.getOrder(cid), "删除后缓存应失效");
+        OrderDAO afterDelete = new OrderDAO();
+        afterDelete.enableHotSet(100);
+        assertNull(afterDelete.getOrder(cid), "删除应写穿到数据库");
+    }
+    
+    @Test
+    @DisplayName("分页 - 翻页期间插入和删除订单，已有订单不重复、不遗漏")
+    void testGetOrdersPage_StableUnderInsertsAndDeletes() {
+        // 准备测试数据：30条订单，创建时间各不相同
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 30; i++) {
+            givenOrders(order(String.format("page%02d", i)).createdAt(base.plusMinutes(i)));
+        }
+        
+        // 执行测试：每翻一页都在已读和未读区间各插入、删除订单
+        Set<String> seen = new HashSet<>();
+        List<String> duplicates = new ArrayList<>();
+        String cursor = null;
+        int round = 0;
+        do {
+            Page<Order> page = orderDAO.getOrdersPage(OrderDAO.SortField.CREATE_TIME, true, cursor, 7);
+            for (Order order : page.getItems()) {
+                if (!seen.add(order.getCid())) {
+                    duplicates.add(order.getCid());
+                }
+            }
+            cursor = page.getNextCursor();
+            // 排在已读的第一页之前
+            givenOrders(order("new" + round).customer("客户B").createdAt(base.plusDays(1).plusMinutes(round)));
+            orderDAO.deleteOrder(String.format("page%02d", 29 - round)); // 已读区间
+            orderDAO.deleteOrder(String.format("page%02d", round));      // 未读区间
+            round++;
+        } while (cursor != null);
+        
+        // 验证结果
+        assertTrue(duplicates.isEmpty(), "不应重复返回订单: " + duplicates);
+        for (int i = 0; i < 30; i++) {
+            String cid = String.format("page%02d", i);
+            boolean deletedBeforeRead = i < round && !seen.contains(cid);
+            assertTrue(seen.contains(cid) || deletedBeforeRead, "未被删除的订单不应遗漏: " + cid);
+        }
+        assertFalse(seen.contains("page00"), "读到之前已删除的订单不应返回");
+        assertFalse(seen.stream().anyMatch(cid -> cid.startsWith("new")), "排在游标之前的新订单不应出现在后续页");
+    }
+    
+    @Test
+    @DisplayName("分页 - 游标不能用于其他排序字段、排序方向或其他客户的查询")
+    void testGetOrdersPage_CursorRejectedForDifferentQuery() {
+        // 准备测试数据
+        for (int i = 0; i < 5; i++) {
+            givenOrders(order("order00" + i));
+        }
+        String cursor = orderDAO.getOrdersPage(OrderDAO.SortField.CREATE_TIME, true, null, 2).getNextCursor();
+        String customerCursor = orderDAO.getOrdersByUserIdPage("客户A", null, 2).getNextCursor();
+        assertNotNull(cursor);
+        
+        // 执行测试与验证结果：控制器把IllegalArgumentException转换为400
+        assertThrows(IllegalArgumentException.class,
+                () -> orderDAO.getOrdersPage(OrderDAO.SortField.UPDATE_TIME, true, cursor, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderDAO.getOrdersPage(OrderDAO.SortField.CREATE_TIME, false, cursor, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderDAO.getOrdersByUserIdPage("客户A", cursor, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderDAO.getOrdersByUserIdPage("客户B", customerCursor, 2));
+        assertEquals(2, orderDAO.getOrdersPage(OrderDAO.SortField.CREATE_TIME, true, cursor, 2).getItems().size(),
+                "同一查询应能继续翻页");
+    }
+    
+    @Test
+    @DisplayName("排序索引 - 更新排序字段和删除订单后，各排序字段的列表仍然有序且没有残留条目")
+    void testGetAllOrders_SortIndexesFollowUpdatesAndDeletes() {
+        // 准备测试数据
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        givenOrders(
+            order("sort1").amount("100.00").createdAt(base.plusDays(1)),
+            order("sort2").amount("200.00").createdAt(base.plusDays(2)),
+            order("sort3").amount("300.00").createdAt(base.plusDays(3)),
+            order("sort4").amount("400.00").createdAt(base.plusDays(4)),
+            order("sort5").amount(null).createdAt(base.plusDays(5)));
+        
+        // 执行测试：金额从最小变为最大、从中间变为最小，创建时间从最新变为最早，再删除一条
+        Order sort1 = orderDAO.getOrder("sort1").copy();
+        sort1.setTotalAmount(new BigDecimal("500.00"));
+        assertTrue(orderDAO.updateOrder(sort1));
+        Order sort3 = orderDAO.getOrder("sort3").copy();
+        sort3.setTotalAmount(new BigDecimal("50.00"));
+        assertTrue(orderDAO.updateOrder(sort3));
+        Order sort4 = orderDAO.getOrder("sort4").copy();
+        sort4.setCreateTime(base);
+        assertTrue(orderDAO.updateOrder(sort4));
+        assertTrue(orderDAO.deleteOrder("sort2"));
+        
+        // 验证结果：金额为null的订单升序在前、降序在后
+        assertEquals(Arrays.asList("sort5", "sort3", "sort4", "sort1"),
+                cids(orderDAO.getAllOrders(OrderDAO.SortField.TOTAL_AMOUNT, false)));
+        assertEquals(Arrays.asList("sort1", "sort4", "sort3", "sort5"),
+                cids(orderDAO.getAllOrders(OrderDAO.SortField.TOTAL_AMOUNT, true)));
+        assertEquals(Arrays.asList("sort5", "sort3", "sort1", "sort4"),
+                cids(orderDAO.getAllOrders(OrderDAO.SortField.CREATE_TIME, true)));
+        Page<Order> firstPage = orderDAO.getOrdersPage(OrderDAO.SortField.TOTAL_AMOUNT, true, null, 3);
+        Page<Order> secondPage = orderDAO.getOrdersPage(OrderDAO.SortField.TOTAL_AMOUNT, true,
+                firstPage.getNextCursor(), 3);
+        assertEquals(Arrays.asList("sort1", "sort4", "sort3"), cids(firstPage.getItems()), "分页应走同一个排序索引");
+        assertEquals(Collections.singletonList("sort5"), cids(secondPage.getItems()));
+    }
+    
+    @Test
+    @DisplayName("写入队列 - 队列已满时应立即拒绝新的变更")
+    void testGroupCommitter_RejectsWhenQueueFull() throws Exception {
+        // 队列容量为1：第一条变更阻塞写线程，第二条排队，第三条应被拒绝
+        GroupCommitter committer = new GroupCommitter(0, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> first = committer.submit(conn -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS), "写线程应开始执行第一条变更");
+        CompletableFuture<Void> second = committer.submit(conn -> { });
+        
+        // 执行测试
+        assertThrows(WriteQueueFullException.class, () -> committer.submit(conn -> { }));
+        release.countDown();
+        
+        // 验证结果
+        committer.await(first);
+        committer.await(second);
+        assertEquals(1L, committer.getMetrics().get("rejectedMutations"), "应记录1条被拒绝的变更");
+        assertEquals(1, committer.getMetrics().get("queueCapacity"));
+    }
+    
+    @Test
+    @DisplayName("写入队列 - 变更抛出Error时只让该变更失败，写线程继续处理后续变更")
+    void testGroupCommitter_ErrorFailsOnlyThatMutation() {
+        // 准备测试数据
+        GroupCommitter committer = new GroupCommitter(0, 16, 16, 5000);
+        CompletableFuture<Void> failing = committer.submit(conn -> {
+            throw new AssertionError("模拟变更中的Error");
+        });
+        
+        // 执行测试与验证结果
+        assertThrows(IllegalStateException.class, () -> committer.await(failing));
+        CompletableFuture<Void> next = committer.submit(conn -> { });
+        committer.await(next);
+        assertTrue(next.isDone() && !next.isCompletedExceptionally(), "后续变更应正常提交");
+        assertEquals(1L, committer.getMetrics().get("failedMutations"));
+    }
+    
+    @Test
+    @DisplayName("写入队列 - 等待超时的排队变更应被取消并按队列积压报告，之后不再执行")
+    void testGroupCommitter_AwaitTimeoutCancelsQueuedMutation() throws Exception {
+        // 准备测试数据：第一条变更阻塞写线程，第二条排队
+        GroupCommitter committer = new GroupCommitter(0, 1, 4, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        committer.submit(conn -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS), "写线程应开始执行第一条变更");
+        boolean[] executed = new boolean[1];
+        CompletableFuture<Void> queued = committer.submit(conn -> executed[0] = true);
+        
+        // 执行测试
+        assertThrows(WriteQueueFullException.class, () -> committer.await(queued));
+        release.countDown();
+        committer.await(committer.submit(conn -> { }));
+        
+        // 验证结果
+        assertFalse(executed[0], "被取消的变更不应再执行");
+        assertEquals(1L, committer.getMetrics().get("timedOutMutations"));
+    }
+    
+    @Test
+    @DisplayName("写入队列 - 等待超时时变更已在执行，应等到事务提交后正常返回而不是报告结果未知")
+    void testGroupCommitter_AwaitTimeoutWaitsForClaimedMutation() throws Exception {
+        // 准备测试数据：变更执行时间超过等待超时
+        GroupCommitter committer = new GroupCommitter(0, 1, 4, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        boolean[] executed = new boolean[1];
+        CompletableFuture<Void> slow = committer.submit(conn -> {
+            started.countDown();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executed[0] = true;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS), "写线程应开始执行变更");
+        
+        // 执行测试：超时后应继续等待，事务提交后正常返回
+        committer.await(slow);
+        
+        // 验证结果
+        assertTrue(executed[0], "变更应已执行");
+        assertTrue(slow.isDone() && !slow.isCompletedExceptionally(), "返回时事务应已提交");
+        assertEquals(1L, committer.getMetrics().get("timedOutMutations"));
+    }
+    
+    /**
+     * 测试订单：默认为客户A的QODER订单（研发规模10、1个LIC、140.00元、状态0、创建时间为当前时间），
+     * 用例只写出与断言相关的字段
+     */
+    private static OrderBuilder order(String cid) {
+        return new OrderBuilder(cid);
+    }
+    
+    /**
+     * 依次创建订单，任一创建失败时直接让用例失败
+     */
+    private void givenOrders(OrderBuilder... orders) {
+        for (OrderBuilder builder : orders) {
+            Order order = builder.build();
+            assertTrue(orderDAO.createOrder(order), "准备测试数据时创建订单失败: " + order.getCid());
+        }
+    }
+    
+    private static List<String> cids(List<Order> orders) {
+        List<String> cids = new ArrayList<>();
+        for (Order order : orders) {
+            cids.add(order.getCid());
+        }
+        return cids;
+    }
+    
+    private static final class OrderBuilder {
+        private final Order order;
+        
+        private OrderBuilder(String cid) {
+            order = new Order(cid, "客户A", "QODER", 10, 1, new BigDecimal("140.00"));
+        }
+        
+        OrderBuilder customer(String customerName) {
+            order.setCustomerName(customerName);
+            return this;
+        }
+        
+        OrderBuilder product(String productVersion) {
+            order.setProductVersion(productVersion);
+            return this;
+        }
+        
+        OrderBuilder devScale(Integer devScale) {
+            order.setDevScale(devScale);
+            return this;
+        }
+        
+        OrderBuilder licCount(Integer purchasedLicCount) {
+            order.setPurchasedLicCount(purchasedLicCount);
+            return this;
+        }
+        
+        /**
+         * @param amount 金额，null表示未设置金额
+         */
+        OrderBuilder amount(String amount) {
+            order.setTotalAmount(amount != null ? new BigDecimal(amount) : null);
+            return this;
+        }
+        
+        OrderBuilder status(Integer status) {
+            order.setStatus(status);
+            return this;
+        }
+        
+        OrderBuilder description(String description) {
+            order.setDescription(description);
+            return this;
+        }
+        
+        OrderBuilder createdAt(LocalDateTime createTime) {
+            order.setCreateTime(createTime);
+            return this;
+        }
+        
+        /**
+         * 返回可修改的副本，同一个构造器可以多次build
+         */
+        Order build() {
+            return order.copy();
+        }
+    }
+}
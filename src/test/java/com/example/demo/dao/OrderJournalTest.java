@@ -0,0 +1,322 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OrderJournal类（追加日志、重放、检查点）的单元测试
+ */
+class OrderJournalTest {
+
+    private Path journalFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        journalFile = Files.createTempDirectory("order-journal").resolve("orders.journal");
+    }
+
+    @Test
+    @DisplayName("追加与重放 - 新增、更新、删除按顺序重放，字段完整往返")
+    void testAppendThenReplay_RoundTrip() throws Exception {
+        // 准备测试数据
+        Order order1 = order("order001", 1L);
+        Order order2 = new Order("order002", null, "LINGMA", null, null, null, 2, null,
+                LocalDateTime.of(2024, 1, 1, 0, 0), null, null);
+        Order updated = order1.copy();
+        updated.setDescription("更新后的描述");
+        updated.setVersion(2);
+        OrderJournal journal = new OrderJournal(journalFile, OrderJournal.FsyncPolicy.NEVER, 0);
+        journal.appendUpsert(order1);
+        journal.appendUpsert(order2);
+        journal.appendUpsert(updated);
+        journal.appendDelete("order002");
+        journal.close();
+
+        // 执行测试
+        OrderJournal reopened = new OrderJournal(journalFile, OrderJournal.FsyncPolicy.NEVER, 0);
+        Map<String, Order> recovered = new HashMap<>();
+        boolean snapshotLoaded = reopened.loadSnapshot(recovered);
+        Set<String> touched = reopened.replay(recovered);
+        reopened.close();
+
+        // 验证结果
+        assertFalse(snapshotLoaded, "尚未做过检查点，不应有快照");
+        assertEquals(new LinkedHashSet<>(Arrays.asList("order001", "order002")), touched);
+        assertEquals(1, recovered.size(), "删除的订单不应恢复");
+        assertSameOrder(updated, recovered.get("order001"));
+        assertTrue(recovered.get("order001").isFrozen(), "重放出的订单应是只读快照");
+    }
+
+    @Test
+    @DisplayName("重放 - CRC校验失败的记录及其后的内容被截断，之后可以继续追加")
+    void testReplay_CorruptRecordTruncated() throws Exception {
+        // 准备测试数据：第三条记录的载荷被破坏
+        OrderJournal journal = new OrderJournal(journalFile, OrderJournal.FsyncPolicy.NEVER, 0);
+        journal.appendUpsert(order("order001", 1L));
+        journal.appendUpsert(order("order002", 1L));
+        long validLength = journal.size();
+        journal.appendUpsert(order("order003", 1L));
+        journal.close();
+        byte[] bytes = Files.readAllBytes(journalFile);
+        bytes[bytes.length - 1] ^= 0x7F;
+        Files.write(journalFile, bytes);
+
+        // 执行测试
+        OrderJournal reopened = new OrderJournal(journalFile, OrderJournal.FsyncPolicy.NEVER, 0);
+        Map<String, Order> recovered = new HashMap<>();
+        reopened.replay(recovered);
+
+        // 验证结果
+        assertEquals(new HashSet<>(Arrays.asList("order001", "order002")), recovered.keySet());
+        assertEquals(validLength, Files.size(journalFile), "损坏的记录应被截掉");
+        reopened.appendUpsert(order("order004", 1L));
+        reopened.close();
+        Map<String, Order> again = new HashMap<>();
+        new OrderJournal(journalFile, OrderJournal.FsyncPolicy.NEVER, 0).replay(again);
+        assertEquals(new HashSet<>(Arrays.asList("order001", "order002", "order004")), again.keySet(),
+                "截断后追加的记录应能正常重放");
+    }
+
+    @Test
+    @DisplayName("重放 - 崩溃时写了一半的尾部记录被截断")
+    void testReplay_TornTailTruncated() throws Exception {
+        // 准备测试数据：最后一条记录只写入了一部分
+        OrderJournal journal = new OrderJournal(journalFile, OrderJournal.FsyncPolicy.NEVER, 0);
+        journal.appendUpsert(order("order001", 1L));
+        long validLength = journal.size();
+        journal.appendUpsert(order("order002", 1L));
+        journal.close();
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        // 执行测试
+        OrderJournal reopened = new OrderJournal(journalFile, OrderJournal.FsyncPolicy.NEVER, 0);
+        Map<String, Order> recovered = new HashMap<>();
+        reopened.replay(recovered);
+        reopened.close();
+
+        // 验证结果
+        assertEquals(Collections.singleton("order001"), recovered.keySet());
+        assertEquals(validLength, Files.size(journalFile), "不完整的尾部记录应被截掉");
+        assertEquals(validLength, reopened.size());
+    }
+
+    @Test
+    @DisplayName("检查点 - 上次检查点遗留的旧日志与当前日志合并，快照失败时两者都不丢失")
+    void testCheckpoint_MergesLeftoverRotatedLog() throws Exception {
+        // 准备测试数据：模拟上次检查点轮转后、写快照前崩溃，遗留了.old文件
+        OrderJournal journal = new OrderJournal(journalFile, OrderJournal.FsyncPolicy.NEVER, 0);
+        journal.appendUpsert(order("order001", 1L));
+        journal.close();
+        Path rotated = Paths.get(journalFile.toAbsolutePath() + ".old");
+        Files.move(journalFile, rotated);
+        OrderJournal reopened = new OrderJournal(journalFile, OrderJournal.FsyncPolicy.NEVER, 0);
+        reopened.appendUpsert(order("order002", 1L));
+
+        // 执行测试：这次写快照又失败了
+        assertThrows(IllegalStateException.class, () -> reopened.checkpoint(() -> {
+            throw new IllegalStateException("模拟写快照前崩溃");
+        }));
+
+        // 验证结果：两部分日志合并在.old中，重放可以恢复全部订单
+        assertTrue(Files.exists(rotated), "快照未写成时旧日志应保留");
+        assertEquals(0L, reopened.size(), "当前日志应已合并到旧日志并清空");
+        Map<String, Order> recovered = new HashMap<>();
+        reopened.replay(recovered);
+        assertEquals(new HashSet<>(Arrays.asList("order001", "order002")), recovered.keySet());
+
+        // 再做一次成功的检查点：快照包含全部订单，旧日志被删除
+        reopened.checkpoint(recovered::values);
+        reopened.close();
+        assertFalse(Files.exists(rotated), "快照写成后旧日志应被删除");
+        Map<String, Order> fromSnapshot = new HashMap<>();
+        OrderJournal afterCheckpoint = new OrderJournal(journalFile, OrderJournal.FsyncPolicy.NEVER, 0);
+        assertTrue(afterCheckpoint.loadSnapshot(fromSnapshot));
+        assertTrue(afterCheckpoint.replay(fromSnapshot).isEmpty(), "检查点之后没有需要重放的日志");
+        afterCheckpoint.close();
+        assertEquals(new HashSet<>(Arrays.asList("order001", "order002")), fromSnapshot.keySet());
+    }
+
+    @Test
+    @DisplayName("刷盘 - ALWAYS每次追加都刷盘，NEVER从不刷盘，INTERVAL由后台线程按间隔刷盘")
+    void testFsyncAccounting_PerPolicy() throws Exception {
+        // ALWAYS：每次追加后已无未刷盘字节
+        OrderJournal always = new OrderJournal(journalFile, OrderJournal.FsyncPolicy.ALWAYS, 0);
+        for (int i = 0; i < 3; i++) {
+            always.appendUpsert(order("order00" + i, 1L));
+            assertEquals(0L, always.getMetrics().get("unsyncedBytes"), "ALWAYS策略追加后应已刷盘");
+        }
+        assertEquals(3L, always.getMetrics().get("appends"));
+        assertEquals(3L, always.getMetrics().get("fsyncs"));
+        always.close();
+
+        // NEVER：追加不刷盘
+        OrderJournal never = new OrderJournal(journalFile.resolveSibling("never.journal"), OrderJournal.FsyncPolicy.NEVER, 0);
+        never.appendUpsert(order("order001", 1L));
+        never.appendUpsert(order("order002", 1L));
+        assertEquals(0L, never.getMetrics().get("fsyncs"));
+        assertEquals(never.size(), never.getMetrics().get("unsyncedBytes"));
+        never.close();
+
+        // INTERVAL：追加不等待刷盘，后台线程在间隔后一次性刷盘
+        OrderJournal interval = new OrderJournal(journalFile.resolveSibling("interval.journal"), OrderJournal.FsyncPolicy.INTERVAL, 50);
+        interval.appendUpsert(order("order001", 1L));
+        interval.appendUpsert(order("order002", 1L));
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((Long) interval.getMetrics().get("unsyncedBytes") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0L, interval.getMetrics().get("unsyncedBytes"), "后台线程应已刷盘");
+        long fsyncs = (Long) interval.getMetrics().get("fsyncs");
+        assertTrue(fsyncs >= 1 && fsyncs <= 2, "两次追加应合并为一到两次fsync，实际: " + fsyncs);
+        interval.close();
+    }
+
+    @Test
+    @DisplayName("检查点 - 轮转前已追加日志、尚未写入内存的变更在重放后不丢失")
+    void testCheckpoint_InFlightWriteSurvivesReplay() throws Exception {
+        // 准备测试数据：订单追加到日志后暂停，此时还没有写入内存和标记待刷盘
+        OrderDAO orderDAO = new OrderDAO();
+        orderDAO.initTable();
+        PausingJournal journal = new PausingJournal(journalFile, "journal-" + System.nanoTime());
+        orderDAO.enableJournal(journal, Long.MAX_VALUE, Long.MAX_VALUE);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Boolean> created = executor.submit(() -> orderDAO.createOrder(
+                new Order(journal.pauseCid, "客户A", "QODER", 10, 1, new BigDecimal("140.00"))));
+        assertTrue(journal.appended.await(5, TimeUnit.SECONDS), "订单应已追加到日志");
+
+        // 执行测试：在暂停期间做检查点，检查点应等到该变更写入内存后再取快照数据
+        Future<?> checkpoint = executor.submit(() -> {
+            orderDAO.checkpoint();
+            return null;
+        });
+        Thread.sleep(200);
+        journal.resume.countDown();
+        assertTrue(created.get(5, TimeUnit.SECONDS));
+        checkpoint.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // 验证结果：模拟崩溃（不做停机检查点），从磁盘上的快照和日志恢复
+        OrderDAO recovered = new OrderDAO();
+        recovered.enableJournal(new OrderJournal(journalFile, OrderJournal.FsyncPolicy.NEVER, 0),
+                Long.MAX_VALUE, Long.MAX_VALUE);
+        recovered.recoverFromJournal();
+        assertNotNull(recovered.getOrder(journal.pauseCid), "已确认的写入不应在检查点后丢失");
+    }
+
+    @Test
+    @DisplayName("重放 - 旧版本写入的记录应拒绝重放并保留日志，不能当作损坏尾部截断")
+    void testReplay_RejectsOldFormatRecords() throws Exception {
+        // 操作类型1：金额以BigDecimal编码；操作类型3：不含版本号
+        for (byte op : new byte[]{1, 3}) {
+            // 准备测试数据
+            writeRawRecord(op, "order001");
+            long size = Files.size(journalFile);
+            OrderJournal journal = new OrderJournal(journalFile, OrderJournal.FsyncPolicy.NEVER, 0);
+
+            // 执行测试
+            IOException error = assertThrows(IOException.class, () -> journal.replay(new HashMap<>()));
+            journal.close();
+
+            // 验证结果
+            assertTrue(error.getMessage().contains("操作类型" + op), error.getMessage());
+            assertEquals(size, Files.size(journalFile), "日志不应被截断");
+        }
+    }
+
+    /**
+     * 按日志记录格式[int 长度][int CRC32][byte 操作类型][载荷]直接写入一条记录
+     */
+    private void writeRawRecord(byte op, String cid) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(op);
+        OrderCodec.writeString(out, cid);
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        Files.write(journalFile, record.array());
+    }
+
+    private static Order order(String cid, long version) {
+        Order order = new Order(cid, "客户A", "QODER", 10, 1, new BigDecimal("140.50"), 1, "描述",
+                LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123000000), LocalDateTime.of(2024, 5, 2, 9, 0), null);
+        order.setVersion(version);
+        return order.freeze();
+    }
+
+    private static void assertSameOrder(Order expected, Order actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getCid(), actual.getCid());
+        assertEquals(expected.getCustomerName(), actual.getCustomerName());
+        assertEquals(expected.getProductVersion(), actual.getProductVersion());
+        assertEquals(expected.getDevScale(), actual.getDevScale());
+        assertEquals(expected.getPurchasedLicCount(), actual.getPurchasedLicCount());
+        assertEquals(expected.getTotalAmount(), actual.getTotalAmount());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getCreateTime(), actual.getCreateTime());
+        assertEquals(expected.getPayTime(), actual.getPayTime());
+        assertEquals(expected.getUpdateTime(), actual.getUpdateTime());
+        assertEquals(expected.getVersion(), actual.getVersion());
+    }
+
+    /**
+     * 追加指定订单的日志后暂停，直到测试放行
+     */
+    private static final class PausingJournal extends OrderJournal {
+        private final String pauseCid;
+        private final CountDownLatch appended = new CountDownLatch(1);
+        private final CountDownLatch resume = new CountDownLatch(1);
+
+        private PausingJournal(Path journalFile, String pauseCid) throws IOException {
+            super(journalFile, FsyncPolicy.NEVER, 0);
+            this.pauseCid = pauseCid;
+        }
+
+        @Override
+        public void appendUpsert(Order order) throws IOException {
+            super.appendUpsert(order);
+            if (pauseCid.equals(order.getCid())) {
+                appended.countDown();
+                try {
+                    resume.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.dao;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PageCursor类（游标编解码与校验）的单元测试
+ */
+class PageCursorTest {
+
+    private static final String SCOPE = "order:createTime:desc";
+
+    @Test
+    @DisplayName("编解码 - 各类排序键按原类型往返")
+    void testEncodeDecode_KeyTypesRoundTrip() {
+        Comparable<?>[] keys = {null, LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123000000), 14050L, 2, "客户A"};
+        for (Comparable<?> key : keys) {
+            PageCursor cursor = PageCursor.decode(PageCursor.encode(SCOPE, key, "order001"), SCOPE);
+            assertEquals(key, cursor.key, "排序键应按原类型还原: " + key);
+            assertEquals("order001", cursor.id);
+        }
+    }
+
+    @Test
+    @DisplayName("编解码 - 排序键和主键中含换行、冒号等字符时不影响解析")
+    void testEncodeDecode_SeparatorsInValues() {
+        PageCursor cursor = PageCursor.decode(PageCursor.encode(SCOPE, "a\nb:3", "id\n9:x"), SCOPE);
+
+        assertEquals("a\nb:3", cursor.key);
+        assertEquals("id\n9:x", cursor.id);
+    }
+
+    @Test
+    @DisplayName("编码 - 不支持的排序键类型直接拒绝，而不是生成无法解析的游标")
+    void testEncode_UnsupportedKeyTypeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.encode(SCOPE, new BigDecimal("1.5"), "order001"));
+    }
+
+    @Test
+    @DisplayName("解码 - 范围不同、内容被篡改或不是Base64时视为无效游标")
+    void testDecode_InvalidCursorsRejected() {
+        String cursor = PageCursor.encode(SCOPE, 1L, "order001");
+
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(cursor, "order:createTime:asc"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("不是游标", SCOPE));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(raw(SCOPE + "\nL1\norder001"), SCOPE));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(raw("21:" + SCOPE + "2:Lx8:order001"), SCOPE));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(raw("21:" + SCOPE + "2:L18:order001xyz"), SCOPE));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(raw("21:" + SCOPE + "2:Q18:order001"), SCOPE));
+    }
+
+    private static String raw(String text) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
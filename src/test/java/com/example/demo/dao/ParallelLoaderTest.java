@@ -0,0 +1,157 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Influence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ParallelLoader的单元测试：分段并行加载的结果与顺序全表扫描一致
+ */
+class ParallelLoaderTest {
+
+    private String table;
+
+    @BeforeEach
+    void setUp() {
+        table = "loader_test_" + System.nanoTime();
+    }
+
+    @Test
+    @DisplayName("并行加载 - rowid存在空洞和大跨度时，分段加载的行与顺序全表扫描完全一致")
+    void testLoad_RowidGapsSameAsSequentialScan() throws Exception {
+        // 准备测试数据：30000行，删除每7行中的一行和一整段，再追加一个rowid很大的行
+        try (Connection conn = DBUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE " + table + " (name TEXT, n INTEGER)");
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO " + table + " (name, n) VALUES (?, ?)")) {
+                for (int i = 1; i <= 30000; i++) {
+                    pstmt.setString(1, "row" + i);
+                    pstmt.setInt(2, i);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            stmt.executeUpdate("DELETE FROM " + table + " WHERE rowid % 7 = 0 OR rowid BETWEEN 10000 AND 18000");
+            stmt.executeUpdate("INSERT INTO " + table + " (rowid, name, n) VALUES (500000, 'last', -1)");
+            conn.commit();
+        }
+        List<String> expected = new ArrayList<>();
+        try (Connection conn = DBUtil.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT name, n FROM " + table)) {
+            while (rs.next()) {
+                expected.add(rs.getString(1) + ":" + rs.getInt(2));
+            }
+        }
+        Queue<String> loaded = new ConcurrentLinkedQueue<>();
+
+        // 执行测试
+        Map<String, Object> stats;
+        Function<String, String> defaults = DBUtil.fileConfig();
+        DBUtil.configure(key -> "demo.db.load-parallelism".equals(key) ? "4" : defaults.apply(key));
+        try {
+            stats = ParallelLoader.load(table, "name, n", rs -> rs.getString(1) + ":" + rs.getInt(2), loaded::add);
+        } finally {
+            DBUtil.configure(defaults);
+            dropTable();
+        }
+
+        // 验证结果
+        List<String> actual = new ArrayList<>(loaded);
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(expected, actual, "并行加载的行应与顺序扫描一致，不重复也不遗漏");
+        assertEquals(expected.size(), stats.get("rows"));
+        if (DBUtil.getReadPoolSize() > 1) {
+            assertTrue((Integer) stats.get("ranges") > 1, "行数足够时应切分为多个分段");
+        }
+    }
+
+    @Test
+    @DisplayName("并行加载 - 空表返回0行、0个分段，不调用映射和接收方")
+    void testLoad_EmptyTable() throws Exception {
+        // 准备测试数据
+        try (Connection conn = DBUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE " + table + " (name TEXT)");
+        }
+        List<String> loaded = new ArrayList<>();
+
+        // 执行测试
+        Map<String, Object> stats;
+        try {
+            stats = ParallelLoader.<String>load(table, "name", rs -> {
+                throw new AssertionError("空表不应映射任何行");
+            }, loaded::add);
+        } finally {
+            dropTable();
+        }
+
+        // 验证结果
+        assertEquals(0, stats.get("rows"));
+        assertEquals(0, stats.get("ranges"));
+        assertTrue(loaded.isEmpty());
+    }
+
+    @Test
+    @DisplayName("延迟解析 - 加载后image_urls保留数据库中的原始JSON，首次访问时才解析出原列表")
+    void testLoadFromDatabase_ImageUrlsDeferredUntilAccess() throws Exception {
+        // 准备测试数据
+        String id = "loader" + System.nanoTime();
+        InfluenceDAO writer = new InfluenceDAO();
+        assertTrue(writer.createInfluence(new Influence(id, "发布会", "DEMO", Influence.STATUS_PLANNED,
+                LocalDateTime.of(2024, 6, 1, 10, 0), null, null, new ArrayList<>(Arrays.asList("a.png", "b.png")),
+                null, null)));
+        String storedJson = imageUrlsJson(id);
+
+        // 执行测试
+        InfluenceDAO loader = new InfluenceDAO();
+        loader.loadFromDatabase();
+        Influence loaded = loader.getInfluence(id);
+
+        // 验证结果
+        assertTrue(loaded.getImageUrls() instanceof LazyJsonList, "加载时不应解析image_urls");
+        LazyJsonList imageUrls = (LazyJsonList) loaded.getImageUrls();
+        assertEquals(storedJson, imageUrls.rawJson(), "未访问前应保留数据库中的原始JSON");
+        assertEquals(Arrays.asList("a.png", "b.png"), loaded.getImageUrls(), "首次访问时应解析出原列表");
+        assertNull(imageUrls.rawJson(), "解析后不再持有原始JSON");
+        assertTrue(writer.deleteInfluence(id));
+    }
+
+    private void dropTable() throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + table);
+        }
+    }
+
+    private static String imageUrlsJson(String id) throws SQLException {
+        try (Connection conn = DBUtil.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT image_urls FROM influence WHERE id = ?")) {
+            pstmt.setString(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next(), "记录应已写入数据库");
+                return rs.getString(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Influence;
+import com.example.demo.entity.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SnapshotFile类及OrderCodec、InfluenceCodec（快照格式、表版本号校验）的单元测试
+ */
+class SnapshotFileTest {
+
+    private Path snapshotFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        snapshotFile = Files.createTempDirectory("snapshot-file").resolve("test.snapshot");
+    }
+
+    @Test
+    @DisplayName("订单快照 - 写入后读取，全部字段（含null）一致")
+    void testOrderSnapshot_RoundTrip() throws Exception {
+        // 准备测试数据
+        Order full = new Order("order001", "客户A", "QODER", 10, 1, new BigDecimal("140.50"), 1, "描述",
+                LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123000000), LocalDateTime.of(2024, 5, 2, 9, 0),
+                LocalDateTime.of(2024, 5, 3, 8, 0));
+        full.setVersion(7);
+        Order sparse = new Order("order002", null, null, null, null, null, 0, null,
+                LocalDateTime.of(2024, 1, 1, 0, 0), null, null);
+        List<Order> orders = Arrays.asList(full.freeze(), sparse.freeze());
+
+        // 执行测试
+        int written = SnapshotFile.write(snapshotFile, SnapshotFile.ORDER_MAGIC, 42L, orders, OrderCodec::write);
+        List<Order> loaded = new ArrayList<>();
+        boolean read = SnapshotFile.read(snapshotFile, SnapshotFile.ORDER_MAGIC, 42L, OrderCodec::read, loaded::add);
+
+        // 验证结果
+        assertEquals(2, written);
+        assertTrue(read, "表版本号一致时快照应可用");
+        assertEquals(2, loaded.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Order expected = orders.get(i);
+            Order actual = loaded.get(i);
+            assertEquals(expected.getCid(), actual.getCid());
+            assertEquals(expected.getCustomerName(), actual.getCustomerName());
+            assertEquals(expected.getProductVersion(), actual.getProductVersion());
+            assertEquals(expected.getDevScale(), actual.getDevScale());
+            assertEquals(expected.getPurchasedLicCount(), actual.getPurchasedLicCount());
+            assertEquals(expected.getTotalAmount(), actual.getTotalAmount());
+            assertEquals(expected.getStatus(), actual.getStatus());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getCreateTime(), actual.getCreateTime());
+            assertEquals(expected.getPayTime(), actual.getPayTime());
+            assertEquals(expected.getUpdateTime(), actual.getUpdateTime());
+            assertEquals(expected.getVersion(), actual.getVersion());
+            assertTrue(actual.isFrozen(), "快照中读出的订单应是只读快照");
+        }
+    }
+
+    @Test
+    @DisplayName("影响力快照 - 写入后读取，图片列表和版本号一致")
+    void testInfluenceSnapshot_RoundTrip() throws Exception {
+        // 准备测试数据
+        Influence full = new Influence("inf001", "发布会", "EVENT", Influence.STATUS_PLANNED,
+                LocalDateTime.of(2024, 6, 1, 14, 0), "https://example.com", "备注",
+                Arrays.asList("a.png", null, "c.png"), LocalDateTime.of(2024, 5, 1, 0, 0), null);
+        full.setVersion(3);
+        Influence sparse = new Influence("inf002", null, null, null, null, null, null,
+                new ArrayList<>(), LocalDateTime.of(2024, 5, 1, 0, 0), null);
+        List<Influence> influences = Arrays.asList(full.freeze(), sparse.freeze());
+
+        // 执行测试
+        SnapshotFile.write(snapshotFile, SnapshotFile.INFLUENCE_MAGIC, 1L, influences, InfluenceCodec::write);
+        List<Influence> loaded = new ArrayList<>();
+        boolean read = SnapshotFile.read(snapshotFile, SnapshotFile.INFLUENCE_MAGIC, 1L, InfluenceCodec::read, loaded::add);
+
+        // 验证结果
+        assertTrue(read);
+        assertEquals(2, loaded.size());
+        for (int i = 0; i < influences.size(); i++) {
+            Influence expected = influences.get(i);
+            Influence actual = loaded.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getType(), actual.getType());
+            assertEquals(expected.getStatus(), actual.getStatus());
+            assertEquals(expected.getEventTime(), actual.getEventTime());
+            assertEquals(expected.getLink(), actual.getLink());
+            assertEquals(expected.getRemark(), actual.getRemark());
+            assertEquals(expected.getImageUrls(), actual.getImageUrls());
+            assertEquals(expected.getCreateTime(), actual.getCreateTime());
+            assertEquals(expected.getUpdateTime(), actual.getUpdateTime());
+            assertEquals(expected.getVersion(), actual.getVersion());
+        }
+    }
+
+    @Test
+    @DisplayName("表版本号 - 与数据库不一致时快照作废，ANY_GENERATION时不校验")
+    void testRead_GenerationMismatchRejected() throws Exception {
+        // 准备测试数据
+        SnapshotFile.write(snapshotFile, SnapshotFile.ORDER_MAGIC, 5L, orders(), OrderCodec::write);
+        List<Order> loaded = new ArrayList<>();
+
+        // 执行测试与验证结果
+        assertFalse(SnapshotFile.read(snapshotFile, SnapshotFile.ORDER_MAGIC, 6L, OrderCodec::read, loaded::add),
+                "数据库在快照之后被修改过，快照应作废");
+        assertTrue(loaded.isEmpty(), "快照作废时不应交出任何记录");
+        assertTrue(SnapshotFile.read(snapshotFile, SnapshotFile.ORDER_MAGIC, SnapshotFile.ANY_GENERATION,
+                OrderCodec::read, loaded::add));
+        assertEquals(1, loaded.size());
+    }
+
+    @Test
+    @DisplayName("格式校验 - 魔数或格式版本不符、头部不完整时忽略快照，记录截断时报告损坏")
+    void testRead_RejectsWrongMagicVersionAndTruncation() throws Exception {
+        // 魔数不符：订单快照不能当作影响力快照读取
+        SnapshotFile.write(snapshotFile, SnapshotFile.ORDER_MAGIC, 1L, orders(), OrderCodec::write);
+        assertFalse(SnapshotFile.read(snapshotFile, SnapshotFile.INFLUENCE_MAGIC, 1L, InfluenceCodec::read, r -> { }));
+
+        // 格式版本不符：旧版本程序写的快照
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, SnapshotFile.VERSION - 1), 4);
+        }
+        assertFalse(SnapshotFile.read(snapshotFile, SnapshotFile.ORDER_MAGIC, 1L, OrderCodec::read, r -> { }));
+
+        // 头部不完整
+        Files.write(snapshotFile, new byte[10]);
+        assertFalse(SnapshotFile.read(snapshotFile, SnapshotFile.ORDER_MAGIC, 1L, OrderCodec::read, r -> { }));
+
+        // 不存在
+        assertFalse(SnapshotFile.read(snapshotFile.resolveSibling("missing.snapshot"), SnapshotFile.ORDER_MAGIC,
+                1L, OrderCodec::read, r -> { }));
+
+        // 记录被截断
+        SnapshotFile.write(snapshotFile, SnapshotFile.ORDER_MAGIC, 1L, orders(), OrderCodec::write);
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 6);
+        }
+        assertThrows(IOException.class,
+                () -> SnapshotFile.read(snapshotFile, SnapshotFile.ORDER_MAGIC, 1L, OrderCodec::read, r -> { }));
+    }
+
+    @Test
+    @DisplayName("启动加载 - 快照之后数据库又被写入时回退到从数据库加载")
+    void testLoadFromSnapshot_FallsBackWhenDatabaseChanged() throws Exception {
+        // 准备测试数据：写入订单并生成快照
+        OrderDAO writer = new OrderDAO();
+        writer.initTable();
+        writer.enableSnapshot(snapshotFile);
+        writer.createOrder(new Order("snap001", "客户A", "QODER", 10, 1, new BigDecimal("140.00")));
+        writer.writeSnapshot();
+
+        OrderDAO fresh = new OrderDAO();
+        fresh.enableSnapshot(snapshotFile);
+        assertTrue(fresh.loadFromSnapshot(), "数据库未变更时快照应可用");
+        assertNotNull(fresh.getOrder("snap001"));
+
+        // 执行测试：快照之后又有写入落盘
+        writer.createOrder(new Order("snap002", "客户B", "QODER", 10, 1, new BigDecimal("140.00")));
+        writer.flush();
+
+        // 验证结果
+        OrderDAO stale = new OrderDAO();
+        stale.enableSnapshot(snapshotFile);
+        assertFalse(stale.loadFromSnapshot(), "快照已过期，应回退到数据库加载");
+        assertNull(stale.getOrder("snap001"), "快照作废时不应留下部分数据");
+    }
+
+    private static List<Order> orders() {
+        return Arrays.asList(new Order("order001", "客户A", "QODER", 10, 1, new BigDecimal("140.00")).freeze());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.dao;
+
+import com.example.demo.entity.Order;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * 启动加载基准：对比从SQLite逐行加载与从内存映射快照加载订单的耗时。
+ * 不属于单元测试（类名不以Test结尾），需手动运行：
+ * <pre>
+ * java -cp target/test-classes:target/classes:&lt;依赖&gt; com.example.demo.dao.StartupBenchmark [订单数] [轮数]
+ * </pre>
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int orderCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        // 使用临时数据库，避免污染项目根目录下的test.db（需在首次使用DBUtil之前设置）
+        Path dir = Files.createTempDirectory("startup-benchmark");
+        System.setProperty("demo.db.path", dir.resolve("bench.db").toString());
+        Path snapshot = dir.resolve("order.snapshot");
+
+        OrderDAO writer = new OrderDAO();
+        writer.initTable();
+        writer.enableSnapshot(snapshot);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < orderCount; i++) {
+            Order order = new Order("C" + i, "客户" + (i % 5000), i % 2 == 0 ? "LINGMA_EXCLUSIVE" : "QODER",
+                    10 + i % 90, 1 + i % 20, new BigDecimal(159 * (1 + i % 20) + ".00"));
+            order.setDescription("基准测试订单 " + i);
+            order.setCreateTime(base.plusSeconds(i));
+            order.setUpdateTime(base.plusSeconds(i + 60));
+            writer.createOrder(order);
+        }
+        writer.writeSnapshot();
+        System.out.println("数据准备完成: " + orderCount + " 条订单，快照大小 " + Files.size(snapshot) / 1024 + "KB");
+
+        for (int round = 1; round <= rounds; round++) {
+            OrderDAO fromDb = new OrderDAO();
+            long start = System.nanoTime();
+            fromDb.loadFromDatabase();
+            long dbNanos = System.nanoTime() - start;
+
+            OrderDAO fromSnapshot = new OrderDAO();
+            fromSnapshot.enableSnapshot(snapshot);
+            start = System.nanoTime();
+            boolean loaded = fromSnapshot.loadFromSnapshot();
+            long snapshotNanos = System.nanoTime() - start;
+            if (!loaded) {
+                throw new IllegalStateException("快照未被加载");
+            }
+
+            System.out.printf("第%d轮: SQLite %.1fms, 快照 %.1fms, 加速 %.1fx%n", round,
+                    dbNanos / 1e6, snapshotNanos / 1e6, dbNanos / (double) snapshotNanos);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.entity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Influence实体类的单元测试
+ */
+class InfluenceTest {
+
+    private static final LocalDateTime EVENT_TIME = LocalDateTime.of(2024, 6, 1, 10, 0);
+
+    /**
+     * 测试冻结后的影响力记录快照拒绝所有修改，包括图片列表
+     */
+    @Test
+    @DisplayName("测试影响力记录快照的所有setter都抛出异常，图片列表不可修改")
+    void testSnapshot_SettersAndImageUrlsReadOnly() {
+        // 准备测试数据
+        Influence snapshot = influence().snapshot();
+
+        // 执行测试与验证结果
+        assertTrue(snapshot.isFrozen());
+        assertThrows(IllegalStateException.class, () -> snapshot.setId("inf002"));
+        assertThrows(IllegalStateException.class, () -> snapshot.setName("修改"));
+        assertThrows(IllegalStateException.class, () -> snapshot.setType(Influence.TYPE_LOGO));
+        assertThrows(IllegalStateException.class, () -> snapshot.setStatus(Influence.STATUS_COMPLETED));
+        assertThrows(IllegalStateException.class, () -> snapshot.setEventTime(EVENT_TIME.plusDays(1)));
+        assertThrows(IllegalStateException.class, () -> snapshot.setLink("https://example.com/new"));
+        assertThrows(IllegalStateException.class, () -> snapshot.setRemark("修改"));
+        assertThrows(IllegalStateException.class, () -> snapshot.setImageUrls(new ArrayList<>()));
+        assertThrows(IllegalStateException.class, () -> snapshot.setCreateTime(LocalDateTime.now()));
+        assertThrows(IllegalStateException.class, () -> snapshot.setUpdateTime(LocalDateTime.now()));
+        assertThrows(IllegalStateException.class, () -> snapshot.setVersion(2));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getImageUrls().add("c.png"));
+    }
+
+    /**
+     * 测试copy()复制图片列表，副本和原记录互不影响
+     */
+    @Test
+    @DisplayName("测试copy()得到独立的图片列表，修改副本不影响快照和原对象")
+    void testCopy_IsolatesImageUrls() {
+        // 准备测试数据
+        Influence original = influence();
+        Influence snapshot = original.snapshot();
+
+        // 执行测试
+        Influence copy = snapshot.copy();
+        copy.getImageUrls().add("c.png");
+        copy.getImageUrls().remove("a.png");
+        original.getImageUrls().add("d.png");
+
+        // 验证结果
+        assertFalse(copy.isFrozen());
+        assertEquals(Arrays.asList("b.png", "c.png"), copy.getImageUrls());
+        assertEquals(Arrays.asList("a.png", "b.png"), snapshot.getImageUrls(), "快照的图片列表不应被副本或原对象修改");
+        assertNotSame(original.getImageUrls(), original.copy().getImageUrls());
+    }
+
+    private static Influence influence() {
+        Influence influence = new Influence("inf001", "发布会", Influence.TYPE_DEMO, Influence.STATUS_PLANNED, EVENT_TIME);
+        influence.setImageUrls(new ArrayList<>(Arrays.asList("a.png", "b.png")));
+        return influence;
+    }
+}
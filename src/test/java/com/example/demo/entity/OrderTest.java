@@ -158,4 +158,42 @@ class OrderTest {
         assertTrue(orderString.contains("status=" + status));
         assertTrue(orderString.contains("description='" + description + "'"));
     }
-}
\ No newline at end of file
+
+    /**
+     * 测试冻结后的订单快照拒绝所有修改，copy()得到可修改的独立副本
+     */
+    @Test
+    @DisplayName("测试订单快照的所有setter都抛出异常，副本可修改且不影响快照")
+    void testFrozenSnapshot_SettersThrowAndCopyIsIndependent() {
+        // 准备测试数据
+        Order order = new Order("12345", "客户A", "LINGMA_EXCLUSIVE", 10, 2, new BigDecimal("318.00"));
+        order.setDescription("测试订单描述");
+        Order snapshot = order.snapshot();
+
+        // 执行测试与验证结果
+        assertTrue(snapshot.isFrozen());
+        assertSame(snapshot, snapshot.snapshot(), "已是快照时不应再复制");
+        assertThrows(IllegalStateException.class, () -> snapshot.setCid("67890"));
+        assertThrows(IllegalStateException.class, () -> snapshot.setCustomerName("客户B"));
+        assertThrows(IllegalStateException.class, () -> snapshot.setProductVersion("QODER"));
+        assertThrows(IllegalStateException.class, () -> snapshot.setDevScale(20));
+        assertThrows(IllegalStateException.class, () -> snapshot.setPurchasedLicCount(3));
+        assertThrows(IllegalStateException.class, () -> snapshot.setTotalAmount(BigDecimal.ONE));
+        assertThrows(IllegalStateException.class, () -> snapshot.setTotalAmountMinor(100L));
+        assertThrows(IllegalStateException.class, () -> snapshot.setStatus(1));
+        assertThrows(IllegalStateException.class, () -> snapshot.setDescription("修改"));
+        assertThrows(IllegalStateException.class, () -> snapshot.setCreateTime(LocalDateTime.now()));
+        assertThrows(IllegalStateException.class, () -> snapshot.setPayTime(LocalDateTime.now()));
+        assertThrows(IllegalStateException.class, () -> snapshot.setUpdateTime(LocalDateTime.now()));
+        assertThrows(IllegalStateException.class, () -> snapshot.setVersion(2));
+
+        Order copy = snapshot.copy();
+        copy.setCustomerName("客户B");
+        copy.setTotalAmount(new BigDecimal("159.00"));
+        assertFalse(copy.isFrozen());
+        assertEquals("客户A", snapshot.getCustomerName());
+        assertEquals(new BigDecimal("318.00"), snapshot.getTotalAmount());
+        order.setDescription("调用方修改原对象");
+        assertEquals("测试订单描述", snapshot.getDescription(), "快照不应随原对象改变");
+    }
+}